@@ -0,0 +1,75 @@
+package io.github.aurifolia.jpa.benchmark;
+
+import io.github.aurifolia.jpa.SpecificationBuilder;
+import io.github.aurifolia.jpa.query.BatchLoader;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * lookups of random ids by 16 threads: one query per lookup vs lookups coalesced into in queries
+ *
+ * @author Peng Dan
+ * @since 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(16)
+@Fork(1)
+public class BatchLoaderBenchmark {
+    /**
+     * max number of keys of an in query
+     */
+    @Param({"4", "16"})
+    private int maxBatchSize;
+    /**
+     * max wait of the first key of a batch in microseconds
+     */
+    @Param({"500"})
+    private long window;
+    private Database database;
+    private BatchLoader<User> loader;
+
+    @Setup
+    public void setup() {
+        database = new Database();
+        loader = new BatchLoader<>(database.getConcurrentRepository(), User.class, "id", maxBatchSize, Duration.ofNanos(window * 1000));
+    }
+
+    @TearDown
+    public void tearDown() {
+        database.close();
+    }
+
+    @Benchmark
+    public List<User> individual() {
+        return database.getConcurrentRepository().findAll(new SpecificationBuilder<User>().equal(true, "id", id()).build());
+    }
+
+    @Benchmark
+    public List<User> coalesced() {
+        return loader.load(id()).join();
+    }
+
+    private static long id() {
+        return ThreadLocalRandom.current().nextLong(1, Database.ROWS + 1);
+    }
+}
@@ -0,0 +1,70 @@
+package io.github.aurifolia.jpa.benchmark;
+
+import io.github.aurifolia.jpa.specification.SpecificationCodec;
+import io.github.aurifolia.jpa.specification.SpecificationHash;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * binary and JSON forms of a built specification, and its hash
+ *
+ * @author Peng Dan
+ * @since 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CodecBenchmark {
+    @Param
+    private Scenario scenario;
+    private Specification<User> specification;
+    private byte[] binary;
+    private String json;
+
+    @Setup
+    public void setup() {
+        specification = scenario.builder().build();
+        binary = SpecificationCodec.toBinary(specification);
+        json = SpecificationCodec.toJson(specification);
+    }
+
+    @Benchmark
+    public byte[] toBinary() {
+        return SpecificationCodec.toBinary(specification);
+    }
+
+    @Benchmark
+    public Specification<User> fromBinary() {
+        return SpecificationCodec.fromBinary(binary);
+    }
+
+    @Benchmark
+    public String toJson() {
+        return SpecificationCodec.toJson(specification);
+    }
+
+    @Benchmark
+    public Specification<User> fromJson() {
+        return SpecificationCodec.fromJson(json);
+    }
+
+    @Benchmark
+    public long hash64() {
+        return SpecificationHash.hash64(specification);
+    }
+}
@@ -0,0 +1,177 @@
+package io.github.aurifolia.jpa.benchmark;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import lombok.Data;
+
+/**
+ * a wide entity with 40 columns, list views usually need 3 of them
+ *
+ * @author Peng Dan
+ * @since 1.0
+ */
+@Data
+@Entity
+public class Customer {
+    /**
+     * customer ID
+     */
+    @Id
+    private Long id;
+    /**
+     * name
+     */
+    private String name;
+    /**
+     * city
+     */
+    private String city;
+    /**
+     * email
+     */
+    private String email;
+    /**
+     * note 1
+     */
+    private String note01;
+    /**
+     * note 2
+     */
+    private String note02;
+    /**
+     * note 3
+     */
+    private String note03;
+    /**
+     * note 4
+     */
+    private String note04;
+    /**
+     * note 5
+     */
+    private String note05;
+    /**
+     * note 6
+     */
+    private String note06;
+    /**
+     * note 7
+     */
+    private String note07;
+    /**
+     * note 8
+     */
+    private String note08;
+    /**
+     * note 9
+     */
+    private String note09;
+    /**
+     * note 10
+     */
+    private String note10;
+    /**
+     * note 11
+     */
+    private String note11;
+    /**
+     * note 12
+     */
+    private String note12;
+    /**
+     * note 13
+     */
+    private String note13;
+    /**
+     * note 14
+     */
+    private String note14;
+    /**
+     * note 15
+     */
+    private String note15;
+    /**
+     * note 16
+     */
+    private String note16;
+    /**
+     * note 17
+     */
+    private String note17;
+    /**
+     * note 18
+     */
+    private String note18;
+    /**
+     * note 19
+     */
+    private String note19;
+    /**
+     * note 20
+     */
+    private String note20;
+    /**
+     * note 21
+     */
+    private String note21;
+    /**
+     * note 22
+     */
+    private String note22;
+    /**
+     * note 23
+     */
+    private String note23;
+    /**
+     * note 24
+     */
+    private String note24;
+    /**
+     * note 25
+     */
+    private String note25;
+    /**
+     * note 26
+     */
+    private String note26;
+    /**
+     * note 27
+     */
+    private String note27;
+    /**
+     * note 28
+     */
+    private String note28;
+    /**
+     * note 29
+     */
+    private String note29;
+    /**
+     * note 30
+     */
+    private String note30;
+    /**
+     * note 31
+     */
+    private String note31;
+    /**
+     * note 32
+     */
+    private String note32;
+    /**
+     * note 33
+     */
+    private String note33;
+    /**
+     * note 34
+     */
+    private String note34;
+    /**
+     * note 35
+     */
+    private String note35;
+    /**
+     * note 36
+     */
+    private String note36;
+}
@@ -0,0 +1,13 @@
+package io.github.aurifolia.jpa.benchmark;
+
+/**
+ * the 3 columns of a customer list view
+ *
+ * @param id   customer ID
+ * @param name name
+ * @param city city
+ * @author Peng Dan
+ * @since 1.0
+ */
+public record CustomerSummary(Long id, String name, String city) {
+}
@@ -0,0 +1,99 @@
+package io.github.aurifolia.jpa.benchmark;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.Getter;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.cfg.Configuration;
+import org.springframework.data.jpa.repository.support.JpaRepositoryFactory;
+import org.springframework.orm.jpa.SharedEntityManagerCreator;
+
+import java.lang.reflect.Field;
+import java.util.UUID;
+
+/**
+ * an embedded H2 database filled with {@link #ROWS} users and {@link #ROWS} customers, without a Spring context
+ *
+ * @author Peng Dan
+ * @since 1.0
+ */
+@Getter
+public class Database implements AutoCloseable {
+    /**
+     * number of rows
+     */
+    public static final int ROWS = 10_000;
+    /**
+     * EntityManagerFactory
+     */
+    private final EntityManagerFactory entityManagerFactory;
+    /**
+     * EntityManager used by the repository
+     */
+    private final EntityManager entityManager;
+    /**
+     * UserRepository
+     */
+    private final UserRepository repository;
+    /**
+     * CustomerRepository
+     */
+    private final CustomerRepository customerRepository;
+    /**
+     * UserRepository safe for concurrent use, every call runs on its own EntityManager
+     */
+    private final UserRepository concurrentRepository;
+
+    public Database() {
+        entityManagerFactory = new Configuration()
+                .addAnnotatedClass(User.class)
+                .addAnnotatedClass(Customer.class)
+                .setProperty(AvailableSettings.JAKARTA_JDBC_URL, "jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1")
+                .setProperty(AvailableSettings.JAKARTA_JDBC_USER, "sa")
+                .setProperty(AvailableSettings.JAKARTA_HBM2DDL_DATABASE_ACTION, "create")
+                .setProperty(AvailableSettings.STATEMENT_BATCH_SIZE, "500")
+                .buildSessionFactory();
+        entityManager = entityManagerFactory.createEntityManager();
+        entityManager.getTransaction().begin();
+        for (long id = 1; id <= ROWS; id++) {
+            entityManager.persist(User.builder().id(id).username("user" + id).nickname("nick" + id % 100).build());
+            entityManager.persist(customer(id));
+            if (id % 500 == 0) {
+                entityManager.flush();
+                entityManager.clear();
+            }
+        }
+        entityManager.getTransaction().commit();
+        entityManager.clear();
+        JpaRepositoryFactory repositoryFactory = new JpaRepositoryFactory(entityManager);
+        repository = repositoryFactory.getRepository(UserRepository.class);
+        customerRepository = repositoryFactory.getRepository(CustomerRepository.class);
+        concurrentRepository = new JpaRepositoryFactory(SharedEntityManagerCreator.createSharedEntityManager(entityManagerFactory))
+                .getRepository(UserRepository.class);
+    }
+
+    private static Customer customer(long id) {
+        Customer customer = new Customer();
+        customer.setId(id);
+        customer.setName("customer" + id);
+        customer.setCity("city" + id % 100);
+        customer.setEmail("customer" + id + "@example.com");
+        for (Field field : Customer.class.getDeclaredFields()) {
+            if (field.getName().startsWith("note")) {
+                field.setAccessible(true);
+                try {
+                    field.set(customer, field.getName() + " of customer " + id + ", some text to make the row wide");
+                } catch (IllegalAccessException e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+        }
+        return customer;
+    }
+
+    @Override
+    public void close() {
+        entityManager.close();
+        entityManagerFactory.close();
+    }
+}
@@ -0,0 +1,69 @@
+package io.github.aurifolia.jpa.benchmark;
+
+import io.github.aurifolia.jpa.SpecificationBuilder;
+import io.github.aurifolia.jpa.query.ProjectionExecutor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 3 columns of a 40 column entity: projection into a record vs full entity loading, run with -prof gc
+ * to compare the allocation per operation
+ *
+ * @author Peng Dan
+ * @since 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProjectionBenchmark {
+    /**
+     * number of matching rows
+     */
+    @Param({"100", "1000"})
+    private int rows;
+    private Database database;
+    private ProjectionExecutor executor;
+    private Specification<Customer> specification;
+
+    @Setup
+    public void setup() {
+        database = new Database();
+        executor = new ProjectionExecutor(database.getEntityManager());
+        specification = new SpecificationBuilder<Customer>().lessThanOrEqual(true, "id", (long) rows).build();
+    }
+
+    @TearDown
+    public void tearDown() {
+        database.close();
+    }
+
+    @Benchmark
+    public List<Customer> entities() {
+        List<Customer> customers = database.getCustomerRepository().findAll(specification);
+        // entities must not pile up in the persistence context between invocations
+        database.getEntityManager().clear();
+        return customers;
+    }
+
+    @Benchmark
+    public List<CustomerSummary> projection() {
+        return executor.findAll(Customer.class, specification, CustomerSummary.class);
+    }
+}
@@ -0,0 +1,55 @@
+package io.github.aurifolia.jpa.benchmark;
+
+import io.github.aurifolia.jpa.SpecificationBuilder;
+import io.github.aurifolia.jpa.specification.CompositeSpecification;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.util.StringUtils;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * SpecificationBuilder.from(queryObject) against the equivalent hand-written chain
+ *
+ * @author Peng Dan
+ * @since 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class QueryObjectBenchmark {
+    private final UserQuery query = UserQuery.builder()
+            .username("user1")
+            .nickname("nick")
+            .ids(List.of(1L, 2L, 3L))
+            .idRange(List.of(1L, 100L))
+            .build();
+
+    @Benchmark
+    public CompositeSpecification<User> handWritten() {
+        List<Long> idRange = query.getIdRange();
+        return new SpecificationBuilder<User>()
+                .equal(query.getId() != null, "id", query.getId())
+                .likeRight(StringUtils.hasText(query.getUsername()), "username", query.getUsername())
+                .like(StringUtils.hasText(query.getNickname()), "nickname", query.getNickname())
+                .in(query.getIds() != null && !query.getIds().isEmpty(), "id", query.getIds())
+                .between(idRange != null && idRange.size() == 2, "id", idRange == null ? null : idRange.get(0), idRange == null ? null : idRange.get(1))
+                .build();
+    }
+
+    @Benchmark
+    public CompositeSpecification<User> annotated() {
+        return SpecificationBuilder.<User>from(query).build();
+    }
+}
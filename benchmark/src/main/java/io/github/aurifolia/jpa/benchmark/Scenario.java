@@ -0,0 +1,93 @@
+package io.github.aurifolia.jpa.benchmark;
+
+import io.github.aurifolia.jpa.SpecificationBuilder;
+
+import java.util.List;
+import java.util.stream.LongStream;
+
+/**
+ * query shapes measured by the benchmarks, each one selects a small part of {@link Database#ROWS}
+ *
+ * @author Peng Dan
+ * @since 1.0
+ */
+public enum Scenario {
+    /**
+     * where id = ?
+     */
+    PREDICATES_1 {
+        @Override
+        public SpecificationBuilder<User> builder() {
+            return new SpecificationBuilder<User>().equal(true, "id", 42L);
+        }
+    },
+    /**
+     * where id between ? and ? and 9 more conditions
+     */
+    PREDICATES_10 {
+        @Override
+        public SpecificationBuilder<User> builder() {
+            return predicates(10);
+        }
+    },
+    /**
+     * where id between ? and ? and 99 more conditions
+     */
+    PREDICATES_100 {
+        @Override
+        public SpecificationBuilder<User> builder() {
+            return predicates(100);
+        }
+    },
+    /**
+     * where id in (1000 values)
+     */
+    LARGE_IN {
+        @Override
+        public SpecificationBuilder<User> builder() {
+            return new SpecificationBuilder<User>().in(true, "id", IDS);
+        }
+    },
+    /**
+     * where (username = ? and id > ?) or (username = ? and id > ?) ... with 10 groups
+     */
+    NESTED_OR {
+        @Override
+        public SpecificationBuilder<User> builder() {
+            return new SpecificationBuilder<User>().or(or -> {
+                for (long i = 1; i <= 10; i++) {
+                    long id = i * 7;
+                    or.and(and -> and.equal(true, "username", "user" + id).greaterThan(true, "id", 0L));
+                }
+                return or;
+            });
+        }
+    };
+
+    /**
+     * values of LARGE_IN
+     */
+    private static final List<Long> IDS = LongStream.rangeClosed(1, 1000).map(i -> i * 10).boxed().toList();
+
+    /**
+     * builder of the conditions
+     *
+     * @return SpecificationBuilder
+     */
+    public abstract SpecificationBuilder<User> builder();
+
+    /**
+     * conditions on different values are not merged by the optimizer, so that the count is kept
+     */
+    private static SpecificationBuilder<User> predicates(int count) {
+        SpecificationBuilder<User> builder = new SpecificationBuilder<User>().between(true, "id", 1L, 100L);
+        for (int i = 1; i < count; i++) {
+            if (i % 2 == 0) {
+                builder.notEqual(true, "id", -(long) i);
+            } else {
+                builder.notLike(true, "username", "x" + i);
+            }
+        }
+        return builder;
+    }
+}
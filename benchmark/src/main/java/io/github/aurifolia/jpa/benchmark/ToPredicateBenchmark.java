@@ -0,0 +1,62 @@
+package io.github.aurifolia.jpa.benchmark;
+
+import io.github.aurifolia.jpa.specification.CompositeSpecification;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * rendering of a built specification through Hibernate's CriteriaBuilder
+ *
+ * @author Peng Dan
+ * @since 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ToPredicateBenchmark {
+    @Param
+    private Scenario scenario;
+    private Database database;
+    private CompositeSpecification<User> specification;
+    private CriteriaBuilder criteriaBuilder;
+    private CriteriaQuery<User> query;
+    private Root<User> root;
+
+    @Setup
+    public void setup() {
+        database = new Database();
+        specification = scenario.builder().build();
+        criteriaBuilder = database.getEntityManagerFactory().getCriteriaBuilder();
+        query = criteriaBuilder.createQuery(User.class);
+        root = query.from(User.class);
+    }
+
+    @TearDown
+    public void tearDown() {
+        database.close();
+    }
+
+    @Benchmark
+    public Predicate toPredicate() {
+        return specification.toPredicate(root, query, criteriaBuilder);
+    }
+}
@@ -0,0 +1,45 @@
+package io.github.aurifolia.jpa.benchmark;
+
+import io.github.aurifolia.jpa.annotation.Between;
+import io.github.aurifolia.jpa.annotation.In;
+import io.github.aurifolia.jpa.annotation.Like;
+import io.github.aurifolia.jpa.annotation.LikeRight;
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * annotated query object
+ *
+ * @author Peng Dan
+ * @since 1.0
+ */
+@Data
+@Builder
+public class UserQuery {
+    /**
+     * user ID
+     */
+    private Long id;
+    /**
+     * username prefix
+     */
+    @LikeRight
+    private String username;
+    /**
+     * part of the nickname
+     */
+    @Like
+    private String nickname;
+    /**
+     * user IDs
+     */
+    @In("id")
+    private List<Long> ids;
+    /**
+     * [lower, upper] of the user ID
+     */
+    @Between("id")
+    private List<Long> idRange;
+}
@@ -0,0 +1,13 @@
+package io.github.aurifolia.jpa.benchmark;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+
+/**
+ * UserRepository
+ *
+ * @author Peng Dan
+ * @since 1.0
+ */
+public interface UserRepository extends JpaRepository<User, Long>, JpaSpecificationExecutor<User> {
+}
@@ -0,0 +1,319 @@
+package io.github.aurifolia.jpa.processor;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Generates a QueryMapper for every class annotated with {@code @QueryObject}. The mapper calls SpecificationBuilder
+ * directly, the attribute names are checked against the entity, so typos fail the build.
+ *
+ * @author Peng Dan
+ * @since 1.0
+ */
+@SupportedAnnotationTypes(QueryObjectProcessor.QUERY_OBJECT)
+public class QueryObjectProcessor extends AbstractProcessor {
+    /**
+     * package of the annotations
+     */
+    static final String ANNOTATION_PACKAGE = "io.github.aurifolia.jpa.annotation.";
+    /**
+     * query object annotation
+     */
+    static final String QUERY_OBJECT = ANNOTATION_PACKAGE + "QueryObject";
+    /**
+     * suffix of the generated class names, same as QueryMapper.SUFFIX
+     */
+    static final String SUFFIX = "SpecificationMapper";
+    /**
+     * statements of each condition annotation, formatted with the attribute name and the value variable
+     */
+    private static final Map<String, String> CONDITIONS = Map.ofEntries(
+            Map.entry("Equal", "builder.equal(true, \"%s\", %s);"),
+            Map.entry("NotEqual", "builder.notEqual(true, \"%s\", %s);"),
+            Map.entry("GreaterThan", "builder.greaterThan(true, \"%s\", (Comparable<?>) %s);"),
+            Map.entry("GreaterThanOrEqual", "builder.greaterThanOrEqual(true, \"%s\", (Comparable<?>) %s);"),
+            Map.entry("LessThan", "builder.lessThan(true, \"%s\", (Comparable<?>) %s);"),
+            Map.entry("LessThanOrEqual", "builder.lessThanOrEqual(true, \"%s\", (Comparable<?>) %s);"),
+            Map.entry("Like", "builder.like(true, \"%s\", %s.toString());"),
+            Map.entry("LikeLeft", "builder.likeLeft(true, \"%s\", %s.toString());"),
+            Map.entry("LikeRight", "builder.likeRight(true, \"%s\", %s.toString());"),
+            Map.entry("NotLike", "builder.notLike(true, \"%s\", %s.toString());"),
+            Map.entry("NotLikeLeft", "builder.notLikeLeft(true, \"%s\", %s.toString());"),
+            Map.entry("NotLikeRight", "builder.notLikeRight(true, \"%s\", %s.toString());"),
+            Map.entry("In", "builder.in(true, \"%s\", QueryValues.toCollection(%s));"),
+            Map.entry("NotIn", "builder.notIn(true, \"%s\", QueryValues.toCollection(%s));"),
+            Map.entry("IsNull", "builder.isNull(Boolean.TRUE.equals(%2$s), \"%1$s\").isNotNull(!Boolean.TRUE.equals(%2$s), \"%1$s\");"),
+            Map.entry("Between", "QueryValues.between(builder, \"%s\", %s);"));
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        for (TypeElement annotation : annotations) {
+            for (TypeElement type : ElementFilter.typesIn(roundEnv.getElementsAnnotatedWith(annotation))) {
+                process(type);
+            }
+        }
+        return false;
+    }
+
+    private void process(TypeElement type) {
+        if (type.getModifiers().contains(Modifier.PRIVATE)) {
+            error(type, "Query object must not be private");
+            return;
+        }
+        TypeElement entity = entity(type);
+        List<String> statements = new ArrayList<>();
+        boolean valid = true;
+        int index = 0;
+        for (VariableElement field : fields(type)) {
+            if (field.getModifiers().contains(Modifier.STATIC) || annotation(field, "Ignore") != null) {
+                continue;
+            }
+            AnnotationMirror condition = null;
+            for (AnnotationMirror mirror : field.getAnnotationMirrors()) {
+                String name = annotationName(mirror);
+                if (name.startsWith(ANNOTATION_PACKAGE) && CONDITIONS.containsKey(name.substring(ANNOTATION_PACKAGE.length()))) {
+                    if (condition != null) {
+                        error(field, "Field has more than one condition");
+                        valid = false;
+                    }
+                    condition = mirror;
+                }
+            }
+            String attributeName = condition == null ? "" : value(condition);
+            if (attributeName.isEmpty()) {
+                attributeName = field.getSimpleName().toString();
+            }
+            if (!hasAttribute(entity.asType(), attributeName)) {
+                error(field, "Unknown attribute [" + attributeName + "] of " + entity.getQualifiedName());
+                valid = false;
+            }
+            String accessor = accessor(type, field);
+            if (accessor == null) {
+                error(field, "Field is private and has no getter");
+                valid = false;
+                continue;
+            }
+            String variable = "v" + index++;
+            String simpleName = condition == null ? "Equal" : annotationName(condition).substring(ANNOTATION_PACKAGE.length());
+            statements.add("        Object " + variable + " = queryObject." + accessor + ";\n"
+                    + "        if (QueryValues.hasValue(" + variable + ")) {\n"
+                    + "            " + String.format(CONDITIONS.get(simpleName), attributeName, variable) + "\n"
+                    + "        }\n");
+        }
+        if (valid) {
+            write(type, entity, statements);
+        }
+    }
+
+    private TypeElement entity(TypeElement type) {
+        for (AnnotationMirror mirror : type.getAnnotationMirrors()) {
+            if (annotationName(mirror).equals(QUERY_OBJECT)) {
+                for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry : mirror.getElementValues().entrySet()) {
+                    if (entry.getKey().getSimpleName().contentEquals("value")) {
+                        return (TypeElement) ((DeclaredType) entry.getValue().getValue()).asElement();
+                    }
+                }
+            }
+        }
+        throw new IllegalStateException("Missing @QueryObject on " + type);
+    }
+
+    /**
+     * fields of the class and its superclasses, superclass fields first
+     */
+    private List<VariableElement> fields(TypeElement type) {
+        List<VariableElement> fields = new ArrayList<>();
+        for (TypeElement current = type; current != null; current = superclass(current)) {
+            fields.addAll(0, ElementFilter.fieldsIn(current.getEnclosedElements()));
+        }
+        return fields;
+    }
+
+    private TypeElement superclass(TypeElement type) {
+        TypeMirror superclass = type.getSuperclass();
+        if (superclass.getKind() != TypeKind.DECLARED) {
+            return null;
+        }
+        TypeElement element = (TypeElement) ((DeclaredType) superclass).asElement();
+        return element.getQualifiedName().contentEquals("java.lang.Object") ? null : element;
+    }
+
+    /**
+     * whether the entity has the attribute, dotted paths walk the associations
+     */
+    private boolean hasAttribute(TypeMirror entity, String attributeName) {
+        TypeMirror current = entity;
+        for (String segment : attributeName.split("\\.")) {
+            if (current.getKind() != TypeKind.DECLARED) {
+                return false;
+            }
+            VariableElement found = null;
+            for (VariableElement field : fields((TypeElement) ((DeclaredType) current).asElement())) {
+                if (!field.getModifiers().contains(Modifier.STATIC) && field.getSimpleName().contentEquals(segment)) {
+                    found = field;
+                }
+            }
+            if (found == null) {
+                return false;
+            }
+            current = elementType(found.asType());
+        }
+        return true;
+    }
+
+    /**
+     * the element type of a collection or map attribute, the type itself otherwise
+     */
+    private TypeMirror elementType(TypeMirror type) {
+        if (type.getKind() != TypeKind.DECLARED) {
+            return type;
+        }
+        List<? extends TypeMirror> arguments = ((DeclaredType) type).getTypeArguments();
+        TypeMirror collection = processingEnv.getTypeUtils().erasure(
+                processingEnv.getElementUtils().getTypeElement("java.util.Collection").asType());
+        TypeMirror map = processingEnv.getTypeUtils().erasure(
+                processingEnv.getElementUtils().getTypeElement("java.util.Map").asType());
+        TypeMirror erasure = processingEnv.getTypeUtils().erasure(type);
+        if (!arguments.isEmpty() && (processingEnv.getTypeUtils().isAssignable(erasure, collection)
+                || processingEnv.getTypeUtils().isAssignable(erasure, map))) {
+            return arguments.get(arguments.size() - 1);
+        }
+        return type;
+    }
+
+    /**
+     * getter call, record accessor call or field access, null if none is accessible from the same package
+     */
+    private String accessor(TypeElement type, VariableElement field) {
+        String name = field.getSimpleName().toString();
+        String suffix = Character.toUpperCase(name.charAt(0)) + name.substring(1);
+        Set<String> candidates = Set.of("get" + suffix, "is" + suffix, name);
+        for (ExecutableElement method : ElementFilter.methodsIn(processingEnv.getElementUtils().getAllMembers(type))) {
+            String methodName = method.getSimpleName().toString();
+            if (candidates.contains(methodName) && method.getParameters().isEmpty()
+                    && method.getReturnType().getKind() != TypeKind.VOID
+                    && !method.getModifiers().contains(Modifier.PRIVATE) && !method.getModifiers().contains(Modifier.STATIC)
+                    && (!methodName.equals(name) || type.getKind() == ElementKind.RECORD)) {
+                return methodName + "()";
+            }
+        }
+        if (!field.getModifiers().contains(Modifier.PRIVATE)) {
+            return name;
+        }
+        // Lombok getters may not be visible yet when this processor runs before Lombok
+        if (isLombokGetter(type) || isLombokGetter(field)) {
+            return (field.asType().getKind() == TypeKind.BOOLEAN ? "is" : "get") + suffix + "()";
+        }
+        return null;
+    }
+
+    private static boolean isLombokGetter(Element element) {
+        for (AnnotationMirror mirror : element.getAnnotationMirrors()) {
+            String name = annotationName(mirror);
+            if (name.equals("lombok.Data") || name.equals("lombok.Getter") || name.equals("lombok.Value")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void write(TypeElement type, TypeElement entity, List<String> statements) {
+        PackageElement packageElement = processingEnv.getElementUtils().getPackageOf(type);
+        String packageName = packageElement.isUnnamed() ? "" : packageElement.getQualifiedName().toString();
+        String simpleName = mapperSimpleName(type);
+        String queryType = type.getQualifiedName().toString();
+        String entityType = entity.getQualifiedName().toString();
+        StringBuilder source = new StringBuilder();
+        if (!packageName.isEmpty()) {
+            source.append("package ").append(packageName).append(";\n\n");
+        }
+        source.append("import io.github.aurifolia.jpa.SpecificationBuilder;\n")
+                .append("import io.github.aurifolia.jpa.annotation.QueryMapper;\n")
+                .append("import io.github.aurifolia.jpa.annotation.QueryValues;\n\n")
+                .append("/**\n * conditions of {@link ").append(queryType).append("}, generated at build time\n */\n")
+                .append("@javax.annotation.processing.Generated(\"").append(getClass().getName()).append("\")\n")
+                .append("public final class ").append(simpleName)
+                .append(" implements QueryMapper<").append(queryType).append(", ").append(entityType).append("> {\n")
+                .append("    /**\n     * create a builder with the conditions of the query object\n     */\n")
+                .append("    public static SpecificationBuilder<").append(entityType).append("> from(")
+                .append(queryType).append(" queryObject) {\n")
+                .append("        SpecificationBuilder<").append(entityType).append("> builder = new SpecificationBuilder<>();\n")
+                .append("        new ").append(simpleName).append("().apply(queryObject, builder);\n")
+                .append("        return builder;\n    }\n\n")
+                .append("    @Override\n")
+                .append("    public void apply(").append(queryType).append(" queryObject, SpecificationBuilder<")
+                .append(entityType).append("> builder) {\n");
+        statements.forEach(source::append);
+        source.append("    }\n}\n");
+        String qualifiedName = packageName.isEmpty() ? simpleName : packageName + "." + simpleName;
+        try (Writer writer = processingEnv.getFiler().createSourceFile(qualifiedName, type).openWriter()) {
+            writer.write(source.toString());
+        } catch (IOException e) {
+            error(type, "Unable to write " + qualifiedName + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * nested classes are joined by '_', e.g. Outer_InnerSpecificationMapper
+     */
+    private static String mapperSimpleName(TypeElement type) {
+        StringBuilder name = new StringBuilder(type.getSimpleName());
+        for (Element enclosing = type.getEnclosingElement(); enclosing instanceof TypeElement; enclosing = enclosing.getEnclosingElement()) {
+            name.insert(0, enclosing.getSimpleName() + "_");
+        }
+        return name.append(SUFFIX).toString();
+    }
+
+    private static AnnotationMirror annotation(Element element, String simpleName) {
+        for (AnnotationMirror mirror : element.getAnnotationMirrors()) {
+            if (annotationName(mirror).equals(ANNOTATION_PACKAGE + simpleName)) {
+                return mirror;
+            }
+        }
+        return null;
+    }
+
+    private static String annotationName(AnnotationMirror mirror) {
+        return ((TypeElement) mirror.getAnnotationType().asElement()).getQualifiedName().toString();
+    }
+
+    private static String value(AnnotationMirror mirror) {
+        for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry : mirror.getElementValues().entrySet()) {
+            if (entry.getKey().getSimpleName().contentEquals("value")) {
+                return (String) entry.getValue().getValue();
+            }
+        }
+        return "";
+    }
+
+    private void error(Element element, String message) {
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message, element);
+    }
+}
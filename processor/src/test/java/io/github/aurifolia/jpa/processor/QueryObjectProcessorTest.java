@@ -0,0 +1,178 @@
+package io.github.aurifolia.jpa.processor;
+
+import io.github.aurifolia.jpa.SpecificationBuilder;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.data.jpa.domain.Specification;
+
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.ToolProvider;
+import java.net.URI;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * QueryObjectProcessorTest
+ *
+ * @author Peng Dan
+ * @since 1.0
+ */
+class QueryObjectProcessorTest {
+    private static final String CUSTOMER = """
+            package shop;
+
+            import java.util.List;
+
+            public class Customer {
+                private Long id;
+                private String name;
+                private Integer age;
+                private Address address;
+                private List<Order> orders;
+            }
+
+            class Address {
+                private String city;
+            }
+
+            class Order {
+                private Long amount;
+            }
+            """;
+
+    @TempDir
+    Path output;
+
+    @Test
+    void generate() throws Exception {
+        List<String> errors = compile(CUSTOMER, """
+                package shop;
+
+                import io.github.aurifolia.jpa.annotation.*;
+                import java.util.List;
+
+                @QueryObject(Customer.class)
+                public class CustomerQuery {
+                    private Long id;
+                    @LikeRight
+                    private String name;
+                    @Between("age")
+                    private List<Integer> ages;
+                    @In("id")
+                    Long[] ids;
+                    @Equal("address.city")
+                    private String city;
+                    @GreaterThan("orders.amount")
+                    private Long minAmount;
+                    @Ignore
+                    private int page;
+
+                    public Long getId() { return id; }
+                    public String getName() { return name; }
+                    public List<Integer> getAges() { return ages; }
+                    public String getCity() { return city; }
+                    public Long getMinAmount() { return minAmount; }
+
+                    public CustomerQuery(Long id, String name, List<Integer> ages, Long[] ids, String city) {
+                        this.id = id;
+                        this.name = name;
+                        this.ages = ages;
+                        this.ids = ids;
+                        this.city = city;
+                    }
+
+                    public static class Nested {
+                    }
+
+                    @QueryObject(Customer.class)
+                    public record ByName(@Like String name) {
+                    }
+                }
+                """);
+        assertEquals(List.of(), errors);
+        assertTrue(Files.exists(output.resolve("shop/CustomerQuerySpecificationMapper.java")));
+        assertTrue(Files.exists(output.resolve("shop/CustomerQuery_ByNameSpecificationMapper.java")));
+        try (URLClassLoader classLoader = new URLClassLoader(new URL[]{output.toUri().toURL()}, getClass().getClassLoader())) {
+            Class<?> queryClass = classLoader.loadClass("shop.CustomerQuery");
+            Object query = queryClass.getConstructors()[0].newInstance(1L, "Jo", List.of(20, 30), new Long[]{1L, 2L}, " ");
+            Specification<Object> expected = new SpecificationBuilder<>()
+                    .equal(true, "id", 1L)
+                    .likeRight(true, "name", "Jo")
+                    .between(true, "age", 20, 30)
+                    .in(true, "id", List.of(1L, 2L))
+                    .build();
+            // SpecificationBuilder.from picks up the generated mapper
+            assertEquals(expected, SpecificationBuilder.from(query).build());
+            Object generated = classLoader.loadClass("shop.CustomerQuerySpecificationMapper")
+                    .getMethod("from", queryClass).invoke(null, query);
+            assertEquals(expected, ((SpecificationBuilder<?>) generated).build());
+
+            Object byName = classLoader.loadClass("shop.CustomerQuery$ByName").getConstructors()[0].newInstance("an");
+            assertEquals(new SpecificationBuilder<>().like(true, "name", "an").build(), SpecificationBuilder.from(byName).build());
+        }
+    }
+
+    @Test
+    void invalid() throws Exception {
+        List<String> errors = compile(CUSTOMER, """
+                package shop;
+
+                import io.github.aurifolia.jpa.annotation.*;
+
+                @QueryObject(Customer.class)
+                public class CustomerQuery {
+                    @Like
+                    public String nmae;
+                    @Equal("address.country")
+                    public String country;
+                    @Equal
+                    @Like
+                    public String name;
+                    private Integer age;
+                }
+                """);
+        assertEquals(List.of(
+                "Unknown attribute [nmae] of shop.Customer",
+                "Unknown attribute [address.country] of shop.Customer",
+                "Field has more than one condition",
+                "Field is private and has no getter"), errors);
+        assertTrue(Files.notExists(output.resolve("shop/CustomerQuerySpecificationMapper.java")));
+    }
+
+    private List<String> compile(String... sources) {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        List<JavaFileObject> files = List.of(sources).stream().map(QueryObjectProcessorTest::source).collect(Collectors.toList());
+        List<String> options = List.of("-d", output.toString(), "-s", output.toString(),
+                "-classpath", System.getProperty("java.class.path"),
+                "-processor", QueryObjectProcessor.class.getName());
+        compiler.getTask(null, null, diagnostics, options, null, files).call();
+        return diagnostics.getDiagnostics().stream()
+                .filter(diagnostic -> diagnostic.getKind() == Diagnostic.Kind.ERROR)
+                .map(diagnostic -> diagnostic.getMessage(null))
+                .collect(Collectors.toList());
+    }
+
+    private static JavaFileObject source(String code) {
+        String packageName = code.substring(code.indexOf("package ") + 8, code.indexOf(';'));
+        String typeName = code.replaceAll("(?s).*?public (?:class|record) (\\w+).*", "$1");
+        return new SimpleJavaFileObject(URI.create("string:///" + packageName.replace('.', '/') + "/" + typeName + ".java"),
+                JavaFileObject.Kind.SOURCE) {
+            @Override
+            public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+                return code;
+            }
+        };
+    }
+}
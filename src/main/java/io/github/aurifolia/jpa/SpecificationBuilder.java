@@ -1,7 +1,9 @@
 package io.github.aurifolia.jpa;
 
+import io.github.aurifolia.jpa.annotation.QueryPlan;
 import io.github.aurifolia.jpa.specification.*;
 import jakarta.persistence.criteria.Predicate;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
 
 import java.util.ArrayList;
@@ -21,6 +23,22 @@ import static jakarta.persistence.criteria.Predicate.BooleanOperator.OR;
 public class SpecificationBuilder<T> {
     private final List<Specification<T>> specifications = new ArrayList<>();
     private final Predicate.BooleanOperator operator;
+    /**
+     * max number of values in one in / not in group, non-positive means no chunking
+     */
+    private int inChunkSize;
+    /**
+     * whether in / not in values are padded to a power of two
+     */
+    private boolean inPadding;
+    /**
+     * whether likeRight is rendered as a range
+     */
+    private boolean prefixRange;
+    /**
+     * whether build() optimizes the conditions
+     */
+    private boolean optimize = true;
 
     /**
      * default constructor
@@ -38,6 +56,86 @@ public class SpecificationBuilder<T> {
         this.operator = operator;
     }
 
+    /**
+     * Create a builder with the conditions of an annotated query object, see {@link #query(Object)}
+     *
+     * @param queryObject query object, nullable
+     * @param <T>         domain type
+     * @return SpecificationBuilder
+     */
+    public static <T> SpecificationBuilder<T> from(Object queryObject) {
+        return new SpecificationBuilder<T>().query(queryObject);
+    }
+
+    /**
+     * Append the conditions of an annotated query object. Every field is a condition, {@code @Equal} if it is not
+     * annotated, and is skipped if it is annotated with {@code @Ignore} or has no value (null, a blank string,
+     * an empty collection or array). The mapping of each class is computed once.
+     *
+     * @param queryObject query object, nullable
+     * @return SpecificationBuilder
+     * @see io.github.aurifolia.jpa.annotation
+     */
+    public SpecificationBuilder<T> query(Object queryObject) {
+        if (queryObject != null) {
+            QueryPlan.of(queryObject.getClass()).apply(queryObject, this);
+        }
+        return this;
+    }
+
+    /**
+     * Split the values of subsequent in / not in conditions into groups of at most chunkSize distinct values,
+     * which keeps huge lists below the parameter limit of the driver and the database.
+     * <p>where ({attributeName} in (...) or {attributeName} in (...) ...)</p>
+     * <p>where ({attributeName} not in (...) and {attributeName} not in (...) ...)</p>
+     *
+     * @param chunkSize max number of values in one group, non-positive means no chunking
+     * @return SpecificationBuilder
+     */
+    public SpecificationBuilder<T> inChunkSize(int chunkSize) {
+        this.inChunkSize = chunkSize;
+        return this;
+    }
+
+    /**
+     * Pad the values of subsequent in / not in conditions to a power of two by repeating the last value,
+     * so that lists of different sizes share a few statement shapes in the query plan cache and the statement cache.
+     * <p>where {attributeName} in (1, 2, 3) becomes where {attributeName} in (1, 2, 3, 3)</p>
+     *
+     * @param padding whether to pad values
+     * @return SpecificationBuilder
+     */
+    public SpecificationBuilder<T> inPadding(boolean padding) {
+        this.inPadding = padding;
+        return this;
+    }
+
+    /**
+     * Render subsequent likeRight conditions as ranges that a B-tree index can scan, see {@link PrefixRangeSpecification}.
+     * The range matches the same rows as the like only under a binary collation.
+     * <p>where {attributeName} like 'abc%' becomes where ({attributeName} &gt;= 'abc' and {attributeName} &lt; 'abd')</p>
+     *
+     * @param prefixRange whether to render likeRight as a range
+     * @return SpecificationBuilder
+     */
+    public SpecificationBuilder<T> prefixRange(boolean prefixRange) {
+        this.prefixRange = prefixRange;
+        return this;
+    }
+
+    /**
+     * Whether build() optimizes the conditions, enabled by default: nested groups with the same operator are flattened,
+     * duplicate conditions are removed, equals on the same attribute under OR are merged into an in, and ranges on the
+     * same attribute under AND are intersected, see {@link SpecificationOptimizer}.
+     *
+     * @param optimize whether to optimize
+     * @return SpecificationBuilder
+     */
+    public SpecificationBuilder<T> optimize(boolean optimize) {
+        this.optimize = optimize;
+        return this;
+    }
+
     /**
      * If the condition is true, then the query statement is appended.
      * <p>where {attributeName} = {value}</p>
@@ -181,11 +279,87 @@ public class SpecificationBuilder<T> {
      */
     public SpecificationBuilder<T> likeRight(boolean condition, String attributeName, String keyword) {
         if (condition) {
-            specifications.add(new LikeRightSpecification<>(attributeName, keyword));
+            specifications.add(prefixRange ? new PrefixRangeSpecification<>(attributeName, keyword, false)
+                    : new LikeRightSpecification<>(attributeName, keyword));
         }
         return this;
     }
 
+    /**
+     * If the condition is true, then the query statement is appended, a case-insensitive prefix search that can use
+     * a functional index on lower({attributeName}), see {@link PrefixRangeSpecification}.
+     * <p>where (lower({attributeName}) &gt;= lower('{keyword}') and lower({attributeName}) &lt; {upper bound})</p>
+     *
+     * @param condition     condition
+     * @param attributeName attributeName
+     * @param keyword       keyword
+     * @return SpecificationBuilder
+     */
+    public SpecificationBuilder<T> likeRightIgnoreCase(boolean condition, String attributeName, String keyword) {
+        if (condition) {
+            specifications.add(new PrefixRangeSpecification<>(attributeName, keyword, true));
+        }
+        return this;
+    }
+
+    /**
+     * If the condition is true, then the query statement is appended. '*' in the pattern matches any sequence and
+     * '\*' a literal '*', wildcards are only supported at the start and at the end:
+     * <ul>
+     * <li>abc: where {attributeName} = 'abc'</li>
+     * <li>abc*: likeRight, a range if {@link #prefixRange(boolean)} is enabled</li>
+     * <li>*abc: likeLeft</li>
+     * <li>*abc*: like</li>
+     * </ul>
+     *
+     * @param condition     condition
+     * @param attributeName attributeName
+     * @param pattern       pattern
+     * @return SpecificationBuilder
+     */
+    public SpecificationBuilder<T> matches(boolean condition, String attributeName, String pattern) {
+        if (!condition) {
+            return this;
+        }
+        Wildcards wildcards = Wildcards.parse(pattern);
+        if (wildcards.leading && wildcards.trailing) {
+            return like(true, attributeName, wildcards.keyword);
+        }
+        if (wildcards.leading) {
+            return likeLeft(true, attributeName, wildcards.keyword);
+        }
+        if (wildcards.trailing) {
+            return likeRight(true, attributeName, wildcards.keyword);
+        }
+        return equal(true, attributeName, wildcards.keyword);
+    }
+
+    /**
+     * If the condition is true, then the query statement is appended. The negation of
+     * {@link #matches(boolean, String, String)}: abc is notEqual, abc* notLikeRight, *abc notLikeLeft and *abc* notLike.
+     *
+     * @param condition     condition
+     * @param attributeName attributeName
+     * @param pattern       pattern
+     * @return SpecificationBuilder
+     */
+    public SpecificationBuilder<T> notMatches(boolean condition, String attributeName, String pattern) {
+        if (!condition) {
+            return this;
+        }
+        Wildcards wildcards = Wildcards.parse(pattern);
+        if (wildcards.leading && wildcards.trailing) {
+            return notLike(true, attributeName, wildcards.keyword);
+        }
+        if (wildcards.leading) {
+            return notLikeLeft(true, attributeName, wildcards.keyword);
+        }
+        if (wildcards.trailing) {
+            return notLikeRight(true, attributeName, wildcards.keyword);
+        }
+        return notEqual(true, attributeName, wildcards.keyword);
+    }
+
     /**
      * If the condition is true, then the query statement is appended.
      * <p>where {attributeName} not like '%{keyword}%'</p>
@@ -245,7 +419,7 @@ public class SpecificationBuilder<T> {
      */
     public SpecificationBuilder<T> in(boolean condition, String attributeName, Collection<?> values) {
         if (condition) {
-            specifications.add(new InSpecification<>(attributeName, values));
+            specifications.add(new InSpecification<>(attributeName, values, inChunkSize, inPadding));
         }
         return this;
     }
@@ -261,7 +435,7 @@ public class SpecificationBuilder<T> {
      */
     public SpecificationBuilder<T> notIn(boolean condition, String attributeName, Collection<?> values) {
         if (condition) {
-            specifications.add(new NotInSpecification<>(attributeName, values));
+            specifications.add(new NotInSpecification<>(attributeName, values, inChunkSize, inPadding));
         }
         return this;
     }
@@ -314,6 +488,58 @@ public class SpecificationBuilder<T> {
         return this;
     }
 
+    /**
+     * If the condition is true, then the query statement is appended, it selects the rows after the last row
+     * in the given order, the sort attributes must not be null and the last one should be unique.
+     * <p>where ({sort[0]} &gt; {values[0]}) or ({sort[0]} = {values[0]} and {sort[1]} &gt; {values[1]}) ...</p>
+     *
+     * @param condition  condition
+     * @param sort       sort orders, &lt; is used for descending orders
+     * @param lastValues sort values of the last row
+     * @return SpecificationBuilder
+     */
+    public SpecificationBuilder<T> keyset(boolean condition, Sort sort, List<?> lastValues) {
+        if (condition) {
+            specifications.add(new KeysetSpecification<>(sort, lastValues));
+        }
+        return this;
+    }
+
+    /**
+     * If the condition is true, then the query statement is appended, the conditions of the sub builder apply to
+     * the elements of the to-many association in a correlated subquery, so no root row is duplicated.
+     * <p>where exists (select 1 from {element of attributeName} c where c.{mappedBy} = root and ...)</p>
+     *
+     * @param condition     condition
+     * @param attributeName attribute name of the to-many association
+     * @param function      conditions on the elements
+     * @param <C>           element type
+     * @return SpecificationBuilder
+     */
+    public <C> SpecificationBuilder<T> exists(boolean condition, String attributeName, Function<SpecificationBuilder<C>, SpecificationBuilder<C>> function) {
+        if (condition) {
+            specifications.add(new ExistsSpecification<>(attributeName, function.apply(nested(AND)).build()));
+        }
+        return this;
+    }
+
+    /**
+     * If the condition is true, then the query statement is appended, see {@link #exists(boolean, String, Function)}.
+     * <p>where not exists (select 1 from {element of attributeName} c where c.{mappedBy} = root and ...)</p>
+     *
+     * @param condition     condition
+     * @param attributeName attribute name of the to-many association
+     * @param function      conditions on the elements
+     * @param <C>           element type
+     * @return SpecificationBuilder
+     */
+    public <C> SpecificationBuilder<T> notExists(boolean condition, String attributeName, Function<SpecificationBuilder<C>, SpecificationBuilder<C>> function) {
+        if (condition) {
+            specifications.add(new NotExistsSpecification<>(attributeName, function.apply(nested(AND)).build()));
+        }
+        return this;
+    }
+
     /**
      * a collection of AND
      *
@@ -321,7 +547,7 @@ public class SpecificationBuilder<T> {
      * @return SpecificationBuilder
      */
     public SpecificationBuilder<T> and(Function<SpecificationBuilder<T>, SpecificationBuilder<T>> function) {
-        specifications.add(function.apply(new SpecificationBuilder<>()).build());
+        specifications.add(function.apply(nested(AND)).build());
         return this;
     }
 
@@ -332,16 +558,89 @@ public class SpecificationBuilder<T> {
      * @return SpecificationBuilder
      */
     public SpecificationBuilder<T> or(Function<SpecificationBuilder<T>, SpecificationBuilder<T>> function) {
-        specifications.add(function.apply(new SpecificationBuilder<>(OR)).build());
+        specifications.add(function.apply(nested(OR)).build());
         return this;
     }
 
+    /**
+     * create a nested builder that inherits the options of this builder
+     *
+     * @param operator Predicate.BooleanOperator
+     * @param <C>      domain type of the nested builder
+     * @return SpecificationBuilder
+     */
+    private <C> SpecificationBuilder<C> nested(Predicate.BooleanOperator operator) {
+        SpecificationBuilder<C> builder = new SpecificationBuilder<>(operator);
+        builder.inChunkSize = inChunkSize;
+        builder.inPadding = inPadding;
+        builder.prefixRange = prefixRange;
+        builder.optimize = optimize;
+        return builder;
+    }
+
     /**
      * build Specification
      *
      * @return Specification
      */
-    public Specification<T> build() {
-        return operator == AND ? Specification.allOf(specifications) : Specification.anyOf(specifications);
+    public CompositeSpecification<T> build() {
+        CompositeSpecification<T> specification = new CompositeSpecification<>(operator, specifications);
+        if (!optimize) {
+            return specification;
+        }
+        Specification<T> optimized = new SpecificationOptimizer(inChunkSize, inPadding).optimize(specification);
+        if (optimized instanceof CompositeSpecification<T> composite) {
+            return composite;
+        }
+        if (optimized instanceof ConstantSpecification<T> constant && constant.isValue()) {
+            return new CompositeSpecification<>(operator, List.of());
+        }
+        return new CompositeSpecification<>(operator, List.of(optimized));
+    }
+
+    /**
+     * the shape of the conditions: operators, attribute names and nesting, but not the values
+     *
+     * @return shape
+     */
+    public String shape() {
+        return build().getShape();
+    }
+
+    /**
+     * build a java.util.function.Predicate that evaluates the same conditions against objects held in memory
+     *
+     * @param domainClass domain class
+     * @return java.util.function.Predicate
+     */
+    public java.util.function.Predicate<T> buildPredicate(Class<T> domainClass) {
+        return build().toInMemoryPredicate(domainClass);
+    }
+
+    /**
+     * wildcards of a pattern of {@link #matches(boolean, String, String)}
+     *
+     * @param leading  whether the pattern starts with a wildcard
+     * @param trailing whether the pattern ends with a wildcard
+     * @param keyword  the rest, without escapes
+     */
+    private record Wildcards(boolean leading, boolean trailing, String keyword) {
+        static Wildcards parse(String pattern) {
+            boolean leading = pattern.startsWith("*");
+            boolean trailing = pattern.length() > (leading ? 1 : 0) && pattern.endsWith("*") && !pattern.endsWith("\\*");
+            String body = pattern.substring(leading ? 1 : 0, pattern.length() - (trailing ? 1 : 0));
+            StringBuilder keyword = new StringBuilder(body.length());
+            for (int i = 0; i < body.length(); i++) {
+                char c = body.charAt(i);
+                if (c == '\\' && i + 1 < body.length() && body.charAt(i + 1) == '*') {
+                    keyword.append(body.charAt(++i));
+                } else if (c == '*') {
+                    throw new IllegalArgumentException("Only leading and trailing wildcards are supported: " + pattern);
+                } else {
+                    keyword.append(c);
+                }
+            }
+            return new Wildcards(leading, trailing, keyword.toString());
+        }
     }
 }
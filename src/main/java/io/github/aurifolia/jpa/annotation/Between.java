@@ -0,0 +1,26 @@
+package io.github.aurifolia.jpa.annotation;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * where {attributeName} between {lower} and {upper}, the field is a {@link org.springframework.data.domain.Range}
+ * or a collection / an array of [lower, upper], a missing bound becomes &gt;= or &lt;=
+ *
+ * @author Peng Dan
+ * @since 1.0
+ */
+@Documented
+@Target(ElementType.FIELD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Between {
+    /**
+     * attribute name, defaults to the field name
+     *
+     * @return attribute name
+     */
+    String value() default "";
+}
@@ -0,0 +1,25 @@
+package io.github.aurifolia.jpa.annotation;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * where {attributeName} &gt;= {value}
+ *
+ * @author Peng Dan
+ * @since 1.0
+ */
+@Documented
+@Target(ElementType.FIELD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface GreaterThanOrEqual {
+    /**
+     * attribute name, defaults to the field name
+     *
+     * @return attribute name
+     */
+    String value() default "";
+}
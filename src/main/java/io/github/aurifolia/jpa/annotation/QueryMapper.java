@@ -0,0 +1,24 @@
+package io.github.aurifolia.jpa.annotation;
+
+import io.github.aurifolia.jpa.SpecificationBuilder;
+
+/**
+ * appends the conditions of a query object, implemented by the classes generated for {@link QueryObject}
+ *
+ * @author Peng Dan
+ * @since 1.0
+ */
+public interface QueryMapper<Q, T> {
+    /**
+     * suffix of the generated class names
+     */
+    String SUFFIX = "SpecificationMapper";
+
+    /**
+     * append the conditions of the query object to the builder
+     *
+     * @param queryObject query object
+     * @param builder     SpecificationBuilder
+     */
+    void apply(Q queryObject, SpecificationBuilder<T> builder);
+}
@@ -0,0 +1,28 @@
+package io.github.aurifolia.jpa.annotation;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a query object of the entity. With the spring-data-jpa-specification-processor on the annotation processor
+ * path, a {@link QueryMapper} named {queryObject}SpecificationMapper is generated at build time and the attribute names
+ * are checked against the entity. {@link io.github.aurifolia.jpa.SpecificationBuilder#from(Object)} uses the generated
+ * mapper when it is present.
+ *
+ * @author Peng Dan
+ * @since 1.0
+ */
+@Documented
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface QueryObject {
+    /**
+     * entity class
+     *
+     * @return entity class
+     */
+    Class<?> value();
+}
@@ -0,0 +1,182 @@
+package io.github.aurifolia.jpa.annotation;
+
+import io.github.aurifolia.jpa.SpecificationBuilder;
+import io.github.aurifolia.jpa.support.AttributeAccessor;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The conditions of a query object class, computed once per class. Every non-static field is a condition,
+ * {@link Equal} if it is not annotated, fields annotated with {@link Ignore} are skipped.
+ * A condition is appended only if the field has a value: not null, not a blank string, not an empty collection or array.
+ * If the class is annotated with {@link QueryObject} and its mapper was generated at build time, the mapper is used.
+ *
+ * @author Peng Dan
+ * @since 1.0
+ */
+public final class QueryPlan {
+    /**
+     * plan of each query object class
+     */
+    private static final ClassValue<QueryPlan> PLANS = new ClassValue<>() {
+        @Override
+        protected QueryPlan computeValue(Class<?> type) {
+            return new QueryPlan(type);
+        }
+    };
+    /**
+     * conditions of each annotation
+     */
+    private static final Map<Class<? extends Annotation>, Condition> CONDITIONS = new LinkedHashMap<>();
+
+    static {
+        CONDITIONS.put(Equal.class, (builder, attributeName, value) -> builder.equal(true, attributeName, value));
+        CONDITIONS.put(NotEqual.class, (builder, attributeName, value) -> builder.notEqual(true, attributeName, value));
+        CONDITIONS.put(GreaterThan.class, (builder, attributeName, value) -> builder.greaterThan(true, attributeName, (Comparable<?>) value));
+        CONDITIONS.put(GreaterThanOrEqual.class, (builder, attributeName, value) -> builder.greaterThanOrEqual(true, attributeName, (Comparable<?>) value));
+        CONDITIONS.put(LessThan.class, (builder, attributeName, value) -> builder.lessThan(true, attributeName, (Comparable<?>) value));
+        CONDITIONS.put(LessThanOrEqual.class, (builder, attributeName, value) -> builder.lessThanOrEqual(true, attributeName, (Comparable<?>) value));
+        CONDITIONS.put(Like.class, (builder, attributeName, value) -> builder.like(true, attributeName, value.toString()));
+        CONDITIONS.put(LikeLeft.class, (builder, attributeName, value) -> builder.likeLeft(true, attributeName, value.toString()));
+        CONDITIONS.put(LikeRight.class, (builder, attributeName, value) -> builder.likeRight(true, attributeName, value.toString()));
+        CONDITIONS.put(NotLike.class, (builder, attributeName, value) -> builder.notLike(true, attributeName, value.toString()));
+        CONDITIONS.put(NotLikeLeft.class, (builder, attributeName, value) -> builder.notLikeLeft(true, attributeName, value.toString()));
+        CONDITIONS.put(NotLikeRight.class, (builder, attributeName, value) -> builder.notLikeRight(true, attributeName, value.toString()));
+        CONDITIONS.put(In.class, (builder, attributeName, value) -> builder.in(true, attributeName, QueryValues.toCollection(value)));
+        CONDITIONS.put(NotIn.class, (builder, attributeName, value) -> builder.notIn(true, attributeName, QueryValues.toCollection(value)));
+        CONDITIONS.put(IsNull.class, (builder, attributeName, value) -> {
+            if (Boolean.TRUE.equals(value)) {
+                builder.isNull(true, attributeName);
+            } else {
+                builder.isNotNull(true, attributeName);
+            }
+        });
+        CONDITIONS.put(Between.class, QueryValues::between);
+    }
+
+    /**
+     * generated mapper, null if the class was not processed at build time
+     */
+    private final QueryMapper<Object, Object> mapper;
+    /**
+     * field conditions
+     */
+    private final Mapping[] mappings;
+
+    private QueryPlan(Class<?> queryClass) {
+        this.mapper = generated(queryClass);
+        if (mapper != null) {
+            this.mappings = new Mapping[0];
+            return;
+        }
+        List<Class<?>> hierarchy = new ArrayList<>();
+        for (Class<?> type = queryClass; type != null && type != Object.class; type = type.getSuperclass()) {
+            hierarchy.add(0, type);
+        }
+        List<Mapping> list = new ArrayList<>();
+        for (Class<?> type : hierarchy) {
+            for (Field field : type.getDeclaredFields()) {
+                if (Modifier.isStatic(field.getModifiers()) || field.isSynthetic() || field.isAnnotationPresent(Ignore.class)) {
+                    continue;
+                }
+                list.add(mapping(queryClass, field));
+            }
+        }
+        this.mappings = list.toArray(new Mapping[0]);
+    }
+
+    /**
+     * get the cached plan of the query object class
+     *
+     * @param queryClass query object class
+     * @return QueryPlan
+     */
+    public static QueryPlan of(Class<?> queryClass) {
+        return PLANS.get(queryClass);
+    }
+
+    /**
+     * append the conditions of the query object to the builder
+     *
+     * @param queryObject query object
+     * @param builder     SpecificationBuilder
+     * @param <T>         domain type
+     */
+    @SuppressWarnings("unchecked")
+    public <T> void apply(Object queryObject, SpecificationBuilder<T> builder) {
+        if (mapper != null) {
+            mapper.apply(queryObject, (SpecificationBuilder<Object>) builder);
+            return;
+        }
+        for (Mapping mapping : mappings) {
+            Object value = mapping.accessor.get(queryObject);
+            if (QueryValues.hasValue(value)) {
+                mapping.condition.apply((SpecificationBuilder<Object>) builder, mapping.attributeName, value);
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static QueryMapper<Object, Object> generated(Class<?> queryClass) {
+        if (!queryClass.isAnnotationPresent(QueryObject.class)) {
+            return null;
+        }
+        String name = queryClass.getPackageName().isEmpty() ? "" : queryClass.getPackageName() + ".";
+        name += queryClass.getName().substring(name.length()).replace('$', '_') + QueryMapper.SUFFIX;
+        try {
+            return (QueryMapper<Object, Object>) Class.forName(name, true, queryClass.getClassLoader()).getConstructor().newInstance();
+        } catch (ClassNotFoundException e) {
+            return null;
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Unable to create " + name, e);
+        }
+    }
+
+    private static Mapping mapping(Class<?> queryClass, Field field) {
+        Annotation found = null;
+        for (Annotation annotation : field.getAnnotations()) {
+            if (CONDITIONS.containsKey(annotation.annotationType())) {
+                if (found != null) {
+                    throw new IllegalArgumentException("Field [" + field.getName() + "] of " + queryClass.getName() + " has more than one condition");
+                }
+                found = annotation;
+            }
+        }
+        String attributeName = found == null ? "" : attributeName(found);
+        return new Mapping(AttributeAccessor.of(queryClass, field.getName()),
+                attributeName.isEmpty() ? field.getName() : attributeName,
+                CONDITIONS.get(found == null ? Equal.class : found.annotationType()));
+    }
+
+    private static String attributeName(Annotation annotation) {
+        try {
+            return (String) annotation.annotationType().getMethod("value").invoke(annotation);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * appends a condition of a field value
+     */
+    @FunctionalInterface
+    private interface Condition {
+        void apply(SpecificationBuilder<Object> builder, String attributeName, Object value);
+    }
+
+    /**
+     * condition of a field
+     *
+     * @param accessor      field accessor
+     * @param attributeName attribute name
+     * @param condition     condition
+     */
+    private record Mapping(AttributeAccessor accessor, String attributeName, Condition condition) {
+    }
+}
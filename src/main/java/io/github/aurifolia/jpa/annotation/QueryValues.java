@@ -0,0 +1,104 @@
+package io.github.aurifolia.jpa.annotation;
+
+import io.github.aurifolia.jpa.SpecificationBuilder;
+import org.springframework.data.domain.Range;
+import org.springframework.util.StringUtils;
+
+import java.lang.reflect.Array;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * value rules of query object fields, shared by {@link QueryPlan} and the generated {@link QueryMapper}s
+ *
+ * @author Peng Dan
+ * @since 1.0
+ */
+public final class QueryValues {
+    private QueryValues() {
+    }
+
+    /**
+     * whether the field has a value: not null, not a blank string, not an empty collection or array
+     *
+     * @param value field value
+     * @return true if the condition is appended
+     */
+    public static boolean hasValue(Object value) {
+        if (value == null) {
+            return false;
+        }
+        if (value instanceof CharSequence text) {
+            return StringUtils.hasText(text);
+        }
+        if (value instanceof Collection<?> collection) {
+            return !collection.isEmpty();
+        }
+        return !value.getClass().isArray() || Array.getLength(value) > 0;
+    }
+
+    /**
+     * the values of an in / not in field
+     *
+     * @param value collection or array
+     * @return Collection
+     */
+    public static Collection<?> toCollection(Object value) {
+        if (value instanceof Collection<?> collection) {
+            return collection;
+        }
+        if (value instanceof Object[] array) {
+            return Arrays.asList(array);
+        }
+        if (value.getClass().isArray()) {
+            int length = Array.getLength(value);
+            List<Object> list = new ArrayList<>(length);
+            for (int i = 0; i < length; i++) {
+                list.add(Array.get(value, i));
+            }
+            return list;
+        }
+        throw new IllegalArgumentException("Expected a collection or an array, but got " + value.getClass().getName());
+    }
+
+    /**
+     * append the conditions of a between field
+     *
+     * @param builder       SpecificationBuilder
+     * @param attributeName attribute name
+     * @param value         Range or collection / array of [lower, upper]
+     * @param <T>           domain type
+     */
+    public static <T> void between(SpecificationBuilder<T> builder, String attributeName, Object value) {
+        if (value instanceof Range<?> range) {
+            Comparable<?> lower = (Comparable<?>) range.getLowerBound().getValue().orElse(null);
+            Comparable<?> upper = (Comparable<?>) range.getUpperBound().getValue().orElse(null);
+            boolean lowerInclusive = range.getLowerBound().isInclusive();
+            boolean upperInclusive = range.getUpperBound().isInclusive();
+            if (lower != null && upper != null && lowerInclusive && upperInclusive) {
+                builder.between(true, attributeName, lower, upper);
+                return;
+            }
+            if (lower != null) {
+                builder.greaterThan(!lowerInclusive, attributeName, lower).greaterThanOrEqual(lowerInclusive, attributeName, lower);
+            }
+            if (upper != null) {
+                builder.lessThan(!upperInclusive, attributeName, upper).lessThanOrEqual(upperInclusive, attributeName, upper);
+            }
+            return;
+        }
+        List<?> bounds = new ArrayList<>(toCollection(value));
+        if (bounds.size() != 2) {
+            throw new IllegalArgumentException("Expected [lower, upper] for between [" + attributeName + "], but got " + bounds);
+        }
+        Comparable<?> lower = (Comparable<?>) bounds.get(0);
+        Comparable<?> upper = (Comparable<?>) bounds.get(1);
+        if (lower != null && upper != null) {
+            builder.between(true, attributeName, lower, upper);
+        } else {
+            builder.greaterThanOrEqual(lower != null, attributeName, lower).lessThanOrEqual(upper != null, attributeName, upper);
+        }
+    }
+}
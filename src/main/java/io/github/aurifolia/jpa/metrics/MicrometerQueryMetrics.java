@@ -0,0 +1,64 @@
+package io.github.aurifolia.jpa.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Publishes the query metrics to Micrometer, tagged by domain, shape and operation:
+ * <ul>
+ * <li>specification.query: latency histogram, tagged by the exception of failed queries as well</li>
+ * <li>specification.query.rows: rows returned by findAll / findOne</li>
+ * <li>specification.query.predicates: number of conditions</li>
+ * <li>specification.query.in.size: number of values of every in / not in condition</li>
+ * </ul>
+ * Every distinct shape is a distinct time series, dynamic filters with many shapes give many series.
+ *
+ * @author Peng Dan
+ * @since 1.0
+ */
+public class MicrometerQueryMetrics implements QueryMetrics {
+    /**
+     * MeterRegistry
+     */
+    private final MeterRegistry registry;
+
+    /**
+     * constructor
+     *
+     * @param registry MeterRegistry
+     */
+    public MicrometerQueryMetrics(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    @Override
+    public void record(QueryStatistics statistics) {
+        Tags tags = Tags.of("domain", statistics.getDomainClass().getSimpleName(), "shape", statistics.getShape());
+        Tags operationTags = tags.and("operation", statistics.getOperation());
+        Timer.builder("specification.query")
+                .tags(operationTags.and("exception", statistics.getException()))
+                .publishPercentileHistogram()
+                .register(registry)
+                .record(statistics.getDurationNanos(), TimeUnit.NANOSECONDS);
+        if (statistics.getRows() >= 0) {
+            DistributionSummary.builder("specification.query.rows")
+                    .tags(operationTags)
+                    .register(registry)
+                    .record(statistics.getRows());
+        }
+        DistributionSummary.builder("specification.query.predicates")
+                .tags(tags)
+                .register(registry)
+                .record(statistics.getPredicateCount());
+        if (!statistics.getInListSizes().isEmpty()) {
+            DistributionSummary inSize = DistributionSummary.builder("specification.query.in.size")
+                    .tags(tags)
+                    .register(registry);
+            statistics.getInListSizes().forEach(inSize::record);
+        }
+    }
+}
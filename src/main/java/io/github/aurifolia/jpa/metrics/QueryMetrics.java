@@ -0,0 +1,23 @@
+package io.github.aurifolia.jpa.metrics;
+
+/**
+ * backend of the query metrics recorded by {@link io.github.aurifolia.jpa.query.InstrumentedExecutor}
+ *
+ * @author Peng Dan
+ * @since 1.0
+ */
+@FunctionalInterface
+public interface QueryMetrics {
+    /**
+     * discards everything, the default backend
+     */
+    QueryMetrics NOOP = statistics -> {
+    };
+
+    /**
+     * record an executed query
+     *
+     * @param statistics QueryStatistics
+     */
+    void record(QueryStatistics statistics);
+}
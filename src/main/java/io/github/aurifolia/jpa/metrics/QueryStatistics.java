@@ -0,0 +1,78 @@
+package io.github.aurifolia.jpa.metrics;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.util.List;
+
+/**
+ * statistics of an executed query
+ *
+ * @author Peng Dan
+ * @since 1.0
+ */
+@Getter
+@RequiredArgsConstructor
+public class QueryStatistics {
+    /**
+     * exception value of a query that succeeded
+     */
+    public static final String NONE = "none";
+    /**
+     * domain class
+     */
+    private final Class<?> domainClass;
+    /**
+     * executor method, e.g. findAll or count
+     */
+    private final String operation;
+    /**
+     * shape of the specification, see {@link io.github.aurifolia.jpa.specification.JpqlSpecification#getShape()}
+     */
+    private final String shape;
+    /**
+     * execution time in nanoseconds
+     */
+    private final long durationNanos;
+    /**
+     * number of rows returned, -1 for count and exists or if the query failed
+     */
+    private final long rows;
+    /**
+     * number of conditions
+     */
+    private final int predicateCount;
+    /**
+     * number of values of every in / not in condition
+     */
+    private final List<Integer> inListSizes;
+    /**
+     * simple class name of the exception the query failed with, {@link #NONE} if it succeeded
+     */
+    private final String exception;
+
+    /**
+     * constructor of the statistics of a query that succeeded
+     *
+     * @param domainClass    domain class
+     * @param operation      executor method
+     * @param shape          shape of the specification
+     * @param durationNanos  execution time in nanoseconds
+     * @param rows           number of rows returned
+     * @param predicateCount number of conditions
+     * @param inListSizes    number of values of every in / not in condition
+     */
+    public QueryStatistics(Class<?> domainClass, String operation, String shape, long durationNanos, long rows,
+                           int predicateCount, List<Integer> inListSizes) {
+        this(domainClass, operation, shape, durationNanos, rows, predicateCount, inListSizes, NONE);
+    }
+
+    /**
+     * whether the query failed
+     *
+     * @return true if it threw an exception
+     */
+    public boolean isFailed() {
+        return !NONE.equals(exception);
+    }
+}
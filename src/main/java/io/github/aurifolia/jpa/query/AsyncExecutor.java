@@ -0,0 +1,277 @@
+package io.github.aurifolia.jpa.query;
+
+import io.github.aurifolia.jpa.support.VirtualThreads;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.Session;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.orm.jpa.EntityManagerFactoryUtils;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+
+/**
+ * Runs independent queries of a JpaSpecificationExecutor at the same time, so that a page issuing several queries
+ * waits for the slowest one instead of the sum of all of them. Every query runs in its own read-only transaction,
+ * and at most maxConcurrency queries run at a time, which should leave some connections of the pool to the rest of
+ * the application. A query that times out or is cancelled while running is cancelled on the JDBC statement when
+ * the transaction manager is a JpaTransactionManager, a query that has not started yet is skipped.
+ * Queries run on virtual threads if the JVM supports them, see {@link VirtualThreads}.
+ *
+ * @author Peng Dan
+ * @since 1.0
+ */
+public class AsyncExecutor<T> {
+    /**
+     * delegate executor
+     */
+    private final JpaSpecificationExecutor<T> executor;
+    /**
+     * transaction manager of the queries
+     */
+    private final PlatformTransactionManager transactionManager;
+    /**
+     * EntityManagerFactory whose running queries can be cancelled, null if unknown
+     */
+    private final EntityManagerFactory entityManagerFactory;
+    /**
+     * executor of the queries
+     */
+    private final Executor threads;
+    /**
+     * bounds the number of connections in use
+     */
+    private final Semaphore permits;
+    /**
+     * timeout of the calls without an explicit timeout, null means none
+     */
+    private final Duration defaultTimeout;
+
+    /**
+     * constructor, queries run on {@link VirtualThreads#executor()} without a default timeout
+     *
+     * @param executor           delegate executor, e.g. a repository
+     * @param transactionManager transaction manager of the queries
+     * @param maxConcurrency     max number of queries running at the same time
+     */
+    public AsyncExecutor(JpaSpecificationExecutor<T> executor, PlatformTransactionManager transactionManager, int maxConcurrency) {
+        this(executor, transactionManager, maxConcurrency, null, VirtualThreads.executor());
+    }
+
+    /**
+     * constructor
+     *
+     * @param executor           delegate executor, e.g. a repository
+     * @param transactionManager transaction manager of the queries
+     * @param maxConcurrency     max number of queries running at the same time
+     * @param defaultTimeout     timeout of the calls without an explicit timeout, null means none
+     * @param threads            executor of the queries
+     */
+    public AsyncExecutor(JpaSpecificationExecutor<T> executor, PlatformTransactionManager transactionManager, int maxConcurrency,
+                         Duration defaultTimeout, Executor threads) {
+        if (maxConcurrency <= 0) {
+            throw new IllegalArgumentException("maxConcurrency must be positive");
+        }
+        this.executor = executor;
+        this.transactionManager = transactionManager;
+        this.entityManagerFactory = transactionManager instanceof JpaTransactionManager jpa ? jpa.getEntityManagerFactory() : null;
+        this.threads = threads;
+        this.permits = new Semaphore(maxConcurrency);
+        this.defaultTimeout = defaultTimeout;
+    }
+
+    /**
+     * find all rows matching the specification
+     *
+     * @param spec Specification
+     * @return rows
+     */
+    public CompletableFuture<List<T>> findAllAsync(Specification<T> spec) {
+        return submit(executor -> executor.findAll(spec), defaultTimeout);
+    }
+
+    /**
+     * find all rows matching the specification
+     *
+     * @param spec    Specification
+     * @param timeout timeout, null means none
+     * @return rows
+     */
+    public CompletableFuture<List<T>> findAllAsync(Specification<T> spec, Duration timeout) {
+        return submit(executor -> executor.findAll(spec), timeout);
+    }
+
+    /**
+     * find all rows matching the specification in the given order
+     *
+     * @param spec Specification
+     * @param sort Sort
+     * @return rows
+     */
+    public CompletableFuture<List<T>> findAllAsync(Specification<T> spec, Sort sort) {
+        return submit(executor -> executor.findAll(spec, sort), defaultTimeout);
+    }
+
+    /**
+     * find a page of rows matching the specification
+     *
+     * @param spec     Specification
+     * @param pageable Pageable
+     * @return Page
+     */
+    public CompletableFuture<Page<T>> findAllAsync(Specification<T> spec, Pageable pageable) {
+        return submit(executor -> executor.findAll(spec, pageable), defaultTimeout);
+    }
+
+    /**
+     * find the only row matching the specification
+     *
+     * @param spec Specification
+     * @return Optional
+     */
+    public CompletableFuture<Optional<T>> findOneAsync(Specification<T> spec) {
+        return submit(executor -> executor.findOne(spec), defaultTimeout);
+    }
+
+    /**
+     * count the rows matching the specification
+     *
+     * @param spec Specification
+     * @return count
+     */
+    public CompletableFuture<Long> countAsync(Specification<T> spec) {
+        return submit(executor -> executor.count(spec), defaultTimeout);
+    }
+
+    /**
+     * count the rows matching the specification
+     *
+     * @param spec    Specification
+     * @param timeout timeout, null means none
+     * @return count
+     */
+    public CompletableFuture<Long> countAsync(Specification<T> spec, Duration timeout) {
+        return submit(executor -> executor.count(spec), timeout);
+    }
+
+    /**
+     * whether any row matches the specification
+     *
+     * @param spec Specification
+     * @return true if exists
+     */
+    public CompletableFuture<Boolean> existsAsync(Specification<T> spec) {
+        return submit(executor -> executor.exists(spec), defaultTimeout);
+    }
+
+    /**
+     * Run any query of the delegate executor in its own read-only transaction. On timeout the future completes with
+     * a TimeoutException, and cancel(true) or a timeout cancels the running statement.
+     *
+     * @param query   query
+     * @param timeout timeout, null means none
+     * @param <R>     result type
+     * @return CompletableFuture
+     */
+    public <R> CompletableFuture<R> submit(Function<JpaSpecificationExecutor<T>, R> query, Duration timeout) {
+        QueryFuture<R> future = new QueryFuture<>();
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.setReadOnly(true);
+        transaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        if (timeout != null) {
+            // the transaction timeout becomes the JDBC query timeout
+            transaction.setTimeout((int) Math.max(1, (timeout.toMillis() + 999) / 1000));
+            CompletableFuture.delayedExecutor(timeout.toNanos(), TimeUnit.NANOSECONDS).execute(() -> {
+                if (future.completeExceptionally(new TimeoutException("Query timed out after " + timeout.toMillis() + " ms"))) {
+                    future.cancelStatement();
+                }
+            });
+        }
+        threads.execute(() -> future.run(transaction, query));
+        return future;
+    }
+
+    /**
+     * a query result that can cancel the running statement
+     */
+    private class QueryFuture<R> extends CompletableFuture<R> {
+        /**
+         * session of the running query, null if the query is not running
+         */
+        private volatile Session session;
+
+        void run(TransactionTemplate transaction, Function<JpaSpecificationExecutor<T>, R> query) {
+            if (isDone()) {
+                // cancelled or timed out while queued
+                return;
+            }
+            try {
+                permits.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                completeExceptionally(new CancellationException("Interrupted while waiting for a connection"));
+                return;
+            }
+            try {
+                if (!isDone()) {
+                    complete(transaction.execute(status -> {
+                        session = currentSession();
+                        if (isDone()) {
+                            return null;
+                        }
+                        return query.apply(executor);
+                    }));
+                }
+            } catch (Throwable e) {
+                completeExceptionally(e);
+            } finally {
+                session = null;
+                permits.release();
+            }
+        }
+
+        void cancelStatement() {
+            Session current = session;
+            if (current != null) {
+                try {
+                    current.cancelQuery();
+                } catch (RuntimeException ignored) {
+                    // the statement completed in the meantime
+                }
+            }
+        }
+
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            boolean cancelled = super.cancel(mayInterruptIfRunning);
+            if (cancelled && mayInterruptIfRunning) {
+                cancelStatement();
+            }
+            return cancelled;
+        }
+
+        private Session currentSession() {
+            if (entityManagerFactory == null) {
+                return null;
+            }
+            EntityManager entityManager = EntityManagerFactoryUtils.getTransactionalEntityManager(entityManagerFactory);
+            return entityManager == null ? null : entityManager.unwrap(Session.class);
+        }
+    }
+}
@@ -0,0 +1,230 @@
+package io.github.aurifolia.jpa.query;
+
+import io.github.aurifolia.jpa.SpecificationBuilder;
+import io.github.aurifolia.jpa.specification.CompositeSpecification;
+import io.github.aurifolia.jpa.specification.EqualSpecification;
+import io.github.aurifolia.jpa.support.AttributeAccessor;
+import io.github.aurifolia.jpa.support.Values;
+import io.github.aurifolia.jpa.support.VirtualThreads;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Coalesces the lookups of single keys of an attribute, e.g. the ones of GraphQL resolvers, into one in query.
+ * The first key of a batch waits at most window for other keys, a batch of maxBatchSize distinct keys is queried
+ * at once; equal keys share the query, and every caller gets its own future of an unmodifiable list of the rows
+ * whose attribute equals its key, in the order of the query. Keys are compared the way the database does, 1 equals 1L.
+ * The in query is built by {@link SpecificationBuilder#in} with the inChunkSize and inPadding given to the constructor,
+ * by default the keys are one in list. Batches run on virtual threads if the JVM supports them,
+ * see {@link VirtualThreads}.
+ *
+ * @author Peng Dan
+ * @since 1.0
+ */
+public class BatchLoader<T> {
+    /**
+     * delegate executor
+     */
+    private final JpaSpecificationExecutor<T> executor;
+    /**
+     * attribute name of the keys
+     */
+    private final String attributeName;
+    /**
+     * reads the key of the rows
+     */
+    private final AttributeAccessor accessor;
+    /**
+     * max number of distinct keys of a batch
+     */
+    private final int maxBatchSize;
+    /**
+     * max number of keys of an in list, non-positive means no chunking, see {@link SpecificationBuilder#inChunkSize(int)}
+     */
+    private final int inChunkSize;
+    /**
+     * whether in lists are padded, see {@link SpecificationBuilder#inPadding(boolean)}
+     */
+    private final boolean inPadding;
+    /**
+     * executor of the delayed batches
+     */
+    private final Executor delayed;
+    /**
+     * executor of the batches
+     */
+    private final Executor threads;
+    /**
+     * batch collecting the keys, null if none
+     */
+    private Batch<T> pending;
+
+    /**
+     * constructor, batches run on {@link VirtualThreads#executor()}
+     *
+     * @param executor      delegate executor, e.g. a repository
+     * @param domainClass   domain class
+     * @param attributeName attribute name of the keys
+     * @param maxBatchSize  max number of distinct keys of a batch
+     * @param window        max time the first key of a batch waits for other keys
+     */
+    public BatchLoader(JpaSpecificationExecutor<T> executor, Class<T> domainClass, String attributeName, int maxBatchSize, Duration window) {
+        this(executor, domainClass, attributeName, maxBatchSize, window, VirtualThreads.executor());
+    }
+
+    /**
+     * constructor
+     *
+     * @param executor      delegate executor, e.g. a repository
+     * @param domainClass   domain class
+     * @param attributeName attribute name of the keys
+     * @param maxBatchSize  max number of distinct keys of a batch
+     * @param window        max time the first key of a batch waits for other keys
+     * @param threads       executor of the batches
+     */
+    public BatchLoader(JpaSpecificationExecutor<T> executor, Class<T> domainClass, String attributeName, int maxBatchSize,
+                       Duration window, Executor threads) {
+        this(executor, domainClass, attributeName, maxBatchSize, window, threads, 0, false);
+    }
+
+    /**
+     * constructor
+     *
+     * @param executor      delegate executor, e.g. a repository
+     * @param domainClass   domain class
+     * @param attributeName attribute name of the keys
+     * @param maxBatchSize  max number of distinct keys of a batch
+     * @param window        max time the first key of a batch waits for other keys
+     * @param threads       executor of the batches
+     * @param inChunkSize   max number of keys of an in list, non-positive means no chunking
+     * @param inPadding     whether in lists are padded to a power of two, so that fewer statements are prepared
+     */
+    public BatchLoader(JpaSpecificationExecutor<T> executor, Class<T> domainClass, String attributeName, int maxBatchSize,
+                       Duration window, Executor threads, int inChunkSize, boolean inPadding) {
+        if (maxBatchSize <= 0) {
+            throw new IllegalArgumentException("maxBatchSize must be positive");
+        }
+        this.executor = executor;
+        this.attributeName = attributeName;
+        this.accessor = AttributeAccessor.of(domainClass, attributeName);
+        this.maxBatchSize = maxBatchSize;
+        this.inChunkSize = inChunkSize;
+        this.inPadding = inPadding;
+        this.delayed = CompletableFuture.delayedExecutor(window.toNanos(), TimeUnit.NANOSECONDS, threads);
+        this.threads = threads;
+    }
+
+    /**
+     * find the rows whose attribute equals the key, together with the keys of other callers
+     *
+     * @param key key, not null
+     * @return rows
+     */
+    public CompletableFuture<List<T>> load(Object key) {
+        if (key == null) {
+            throw new IllegalArgumentException("key must not be null");
+        }
+        CompletableFuture<List<T>> future;
+        Batch<T> full = null;
+        synchronized (this) {
+            Batch<T> batch = pending;
+            if (batch == null) {
+                batch = new Batch<>();
+                pending = batch;
+                Batch<T> scheduled = batch;
+                delayed.execute(() -> flush(scheduled));
+            }
+            future = batch.add(key);
+            if (batch.futures.size() >= maxBatchSize) {
+                pending = null;
+                full = batch;
+            }
+        }
+        if (full != null) {
+            Batch<T> batch = full;
+            threads.execute(() -> flush(batch));
+        }
+        return future;
+    }
+
+    /**
+     * find the rows matching the specification. An equal condition on the attribute of the keys, alone or as the
+     * only condition of a group, is loaded in a batch, other specifications are queried on their own.
+     *
+     * @param spec Specification
+     * @return rows
+     */
+    public CompletableFuture<List<T>> findAll(Specification<T> spec) {
+        Specification<T> single = spec;
+        if (single instanceof CompositeSpecification<T> composite && composite.getSpecifications().size() == 1) {
+            single = composite.getSpecifications().get(0);
+        }
+        if (single instanceof EqualSpecification<T> equal && equal.getAttributeName().equals(attributeName) && equal.getValue() != null) {
+            return load(equal.getValue());
+        }
+        return CompletableFuture.supplyAsync(() -> executor.findAll(spec), threads);
+    }
+
+    private void flush(Batch<T> batch) {
+        synchronized (this) {
+            if (batch.flushed) {
+                return;
+            }
+            batch.flushed = true;
+            if (pending == batch) {
+                pending = null;
+            }
+        }
+        try {
+            List<T> rows = executor.findAll(new SpecificationBuilder<T>().inChunkSize(inChunkSize).inPadding(inPadding)
+                    .in(true, attributeName, batch.keys).build());
+            Map<Object, List<T>> grouped = new HashMap<>();
+            for (T row : rows) {
+                grouped.computeIfAbsent(Values.normalize(accessor.get(row)), key -> new ArrayList<>()).add(row);
+            }
+            // unmodifiable, the callers of an equal key share the rows
+            batch.futures.forEach((key, future) -> future.complete(List.copyOf(grouped.getOrDefault(key, List.of()))));
+        } catch (Throwable e) {
+            batch.futures.values().forEach(future -> future.completeExceptionally(e));
+        }
+    }
+
+    /**
+     * keys collected for one in query
+     */
+    private static class Batch<T> {
+        /**
+         * shared future of each normalized key
+         */
+        private final Map<Object, CompletableFuture<List<T>>> futures = new LinkedHashMap<>();
+        /**
+         * keys as given by the first caller
+         */
+        private final List<Object> keys = new ArrayList<>();
+        /**
+         * whether the batch was queried
+         */
+        private boolean flushed;
+
+        /**
+         * every caller gets its own dependent future, so that cancelling or completing it does not affect the
+         * callers of an equal key
+         */
+        private CompletableFuture<List<T>> add(Object key) {
+            return futures.computeIfAbsent(Values.normalize(key), normalized -> {
+                keys.add(key);
+                return new CompletableFuture<>();
+            }).thenApply(List::copyOf);
+        }
+    }
+}
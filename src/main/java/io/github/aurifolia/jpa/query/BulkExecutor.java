@@ -0,0 +1,272 @@
+package io.github.aurifolia.jpa.query;
+
+import io.github.aurifolia.jpa.specification.CompositeSpecification;
+import io.github.aurifolia.jpa.specification.GreaterThanOrEqualSpecification;
+import io.github.aurifolia.jpa.specification.LessThanSpecification;
+import io.github.aurifolia.jpa.support.Paths;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaDelete;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.CriteriaUpdate;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.metamodel.EntityType;
+import jakarta.persistence.metamodel.SingularAttribute;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import static jakarta.persistence.criteria.Predicate.BooleanOperator.AND;
+
+/**
+ * Deletes or updates the rows matching a specification with one set-based statement instead of loading and removing
+ * every entity. In chunked mode the matching rows are processed in chunks of chunkSize ids: every chunk seeks the id
+ * chunkSize rows above its lower bound, which is the lower bound of the next chunk, and runs one statement on the ids
+ * between them in its own transaction, so that no lock is held and no undo log grows for the whole run, and sparse ids
+ * cost no empty chunks. Statements run on the shared EntityManager in a new transaction of the transaction manager;
+ * bulk statements bypass the persistence context and entity callbacks, so managed entities of the domain type are
+ * stale afterwards and the caches registered on an existing {@link EntityChangeInvalidator} are cleared explicitly.
+ * The specification is applied with a null CriteriaQuery, like {@code JpaSpecificationExecutor.delete}, so exists
+ * conditions and association paths are not supported.
+ *
+ * @author Peng Dan
+ * @since 1.0
+ */
+public class BulkExecutor {
+    /**
+     * shared EntityManager, bound to the transaction of each statement
+     */
+    private final EntityManager entityManager;
+    /**
+     * runs every statement in a new transaction
+     */
+    private final TransactionTemplate transactionTemplate;
+
+    /**
+     * constructor
+     *
+     * @param entityManager      shared EntityManager, e.g. injected with {@code @PersistenceContext}
+     * @param transactionManager PlatformTransactionManager
+     */
+    public BulkExecutor(EntityManager entityManager, PlatformTransactionManager transactionManager) {
+        this.entityManager = entityManager;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * create a delete statement of the rows matching the specification
+     *
+     * @param criteriaBuilder CriteriaBuilder
+     * @param domainClass     domain class
+     * @param specification   specification, nullable
+     * @param <T>             domain type
+     * @return CriteriaDelete
+     */
+    public static <T> CriteriaDelete<T> createDelete(CriteriaBuilder criteriaBuilder, Class<T> domainClass, Specification<T> specification) {
+        CriteriaDelete<T> delete = criteriaBuilder.createCriteriaDelete(domainClass);
+        Predicate predicate = toPredicate(specification, delete.from(domainClass), criteriaBuilder);
+        if (predicate != null) {
+            delete.where(predicate);
+        }
+        return delete;
+    }
+
+    /**
+     * create an update statement of the rows matching the specification
+     *
+     * @param criteriaBuilder CriteriaBuilder
+     * @param domainClass     domain class
+     * @param specification   specification, nullable
+     * @param assignments     new value of each attribute, values may be null
+     * @param <T>             domain type
+     * @return CriteriaUpdate
+     */
+    public static <T> CriteriaUpdate<T> createUpdate(CriteriaBuilder criteriaBuilder, Class<T> domainClass, Specification<T> specification,
+                                                     Map<String, ?> assignments) {
+        if (assignments.isEmpty()) {
+            throw new IllegalArgumentException("assignments must not be empty");
+        }
+        CriteriaUpdate<T> update = criteriaBuilder.createCriteriaUpdate(domainClass);
+        Root<T> root = update.from(domainClass);
+        for (Map.Entry<String, ?> assignment : assignments.entrySet()) {
+            update.set(Paths.get(root, assignment.getKey()), (Object) assignment.getValue());
+        }
+        Predicate predicate = toPredicate(specification, root, criteriaBuilder);
+        if (predicate != null) {
+            update.where(predicate);
+        }
+        return update;
+    }
+
+    /**
+     * delete the rows matching the specification with one statement
+     *
+     * @param domainClass   domain class
+     * @param specification specification, nullable
+     * @param <T>           domain type
+     * @return number of deleted rows
+     */
+    public <T> int delete(Class<T> domainClass, Specification<T> specification) {
+        return changed(domainClass, execute(() -> delete(specification, domainClass)));
+    }
+
+    /**
+     * delete the rows matching the specification with one statement per chunk of chunkSize ids
+     *
+     * @param domainClass   domain class, with a single id attribute
+     * @param specification specification, nullable
+     * @param chunkSize     number of ids per chunk
+     * @param <T>           domain type
+     * @return number of deleted rows
+     */
+    public <T> int delete(Class<T> domainClass, Specification<T> specification, long chunkSize) {
+        return chunked(domainClass, specification, chunkSize, chunk -> delete(chunk, domainClass));
+    }
+
+    /**
+     * update the rows matching the specification with one statement
+     *
+     * @param domainClass   domain class
+     * @param specification specification, nullable
+     * @param assignments   new value of each attribute, values may be null
+     * @param <T>           domain type
+     * @return number of updated rows
+     */
+    public <T> int update(Class<T> domainClass, Specification<T> specification, Map<String, ?> assignments) {
+        return changed(domainClass, execute(() -> update(specification, domainClass, assignments)));
+    }
+
+    /**
+     * update the rows matching the specification with one statement per chunk of chunkSize ids
+     *
+     * @param domainClass   domain class, with a single id attribute
+     * @param specification specification, nullable
+     * @param assignments   new value of each attribute, values may be null
+     * @param chunkSize     number of ids per chunk
+     * @param <T>           domain type
+     * @return number of updated rows
+     */
+    public <T> int update(Class<T> domainClass, Specification<T> specification, Map<String, ?> assignments, long chunkSize) {
+        return chunked(domainClass, specification, chunkSize, chunk -> update(chunk, domainClass, assignments));
+    }
+
+    private <T> int delete(Specification<T> specification, Class<T> domainClass) {
+        return entityManager.createQuery(createDelete(entityManager.getCriteriaBuilder(), domainClass, specification)).executeUpdate();
+    }
+
+    private <T> int update(Specification<T> specification, Class<T> domainClass, Map<String, ?> assignments) {
+        return entityManager.createQuery(createUpdate(entityManager.getCriteriaBuilder(), domainClass, specification, assignments)).executeUpdate();
+    }
+
+    private <T> int chunked(Class<T> domainClass, Specification<T> specification, long chunkSize,
+                            Function<Specification<T>, Integer> statement) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("chunkSize must be positive");
+        }
+        String idAttribute = idAttribute(domainClass);
+        // an offset is an int, a larger chunk is the whole range anyway
+        int offset = (int) Math.min(chunkSize, Integer.MAX_VALUE);
+        int count = 0;
+        Comparable<Object> lower = null;
+        do {
+            Comparable<Object> from = lower;
+            Chunk chunk = execute(() -> {
+                Comparable<Object> upper = seek(domainClass, specification, idAttribute, from, offset);
+                // the last chunk has no upper bound, rows inserted above the last seek are affected as well
+                return new Chunk(upper, statement.apply(range(specification, idAttribute, from, upper)));
+            });
+            // every committed chunk invalidates, a later chunk may fail
+            count += changed(domainClass, chunk.count());
+            lower = chunk.upper();
+        } while (lower != null);
+        return count;
+    }
+
+    /**
+     * the id offset rows above lower, which starts the next chunk, null if this is the last chunk
+     */
+    @SuppressWarnings("unchecked")
+    private <T> Comparable<Object> seek(Class<T> domainClass, Specification<T> specification, String idAttribute,
+                                        Comparable<Object> lower, int offset) {
+        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Object> query = criteriaBuilder.createQuery(Object.class);
+        Root<T> root = query.from(domainClass);
+        Path<Comparable<Object>> id = root.get(idAttribute);
+        List<Predicate> predicates = new ArrayList<>(2);
+        Predicate predicate = specification == null ? null : specification.toPredicate(root, query, criteriaBuilder);
+        if (predicate != null) {
+            predicates.add(predicate);
+        }
+        if (lower != null) {
+            predicates.add(criteriaBuilder.greaterThanOrEqualTo(id, lower));
+        }
+        query.select(id).where(predicates.toArray(new Predicate[0])).orderBy(criteriaBuilder.asc(id));
+        List<Object> ids = entityManager.createQuery(query).setFirstResult(offset).setMaxResults(1).getResultList();
+        return ids.isEmpty() ? null : (Comparable<Object>) ids.get(0);
+    }
+
+    /**
+     * lower bound of the next chunk and number of rows of the chunk
+     */
+    private record Chunk(Comparable<Object> upper, int count) {
+    }
+
+    private static <T> Specification<T> range(Specification<T> specification, String idAttribute, Comparable<Object> lower,
+                                              Comparable<Object> upper) {
+        List<Specification<T>> specifications = new ArrayList<>(3);
+        if (specification != null) {
+            specifications.add(specification);
+        }
+        if (lower != null) {
+            specifications.add(new GreaterThanOrEqualSpecification<>(idAttribute, lower));
+        }
+        if (upper != null) {
+            specifications.add(new LessThanSpecification<>(idAttribute, upper));
+        }
+        return new CompositeSpecification<>(AND, specifications);
+    }
+
+    private <T> String idAttribute(Class<T> domainClass) {
+        EntityType<T> entityType = entityManager.getMetamodel().entity(domainClass);
+        if (entityType.hasSingleIdAttribute()) {
+            SingularAttribute<? super T, ?> id = entityType.getId(entityType.getIdType().getJavaType());
+            Class<?> type = id.getJavaType();
+            if (type.isPrimitive() || Comparable.class.isAssignableFrom(type)) {
+                return id.getName();
+            }
+        }
+        throw new IllegalArgumentException("Chunked statements require a single comparable id, " + domainClass.getName() + " has none");
+    }
+
+    private <T> int changed(Class<T> domainClass, int count) {
+        if (count > 0) {
+            // only notify the caches that registered, creating an invalidator would add listeners as a side effect
+            EntityChangeInvalidator invalidator = EntityChangeInvalidator.find(entityManager.getEntityManagerFactory());
+            if (invalidator != null) {
+                invalidator.changed(domainClass);
+            }
+        }
+        return count;
+    }
+
+    /**
+     * run the work in a new transaction, the shared EntityManager is bound to it
+     */
+    private <R> R execute(Supplier<R> work) {
+        return transactionTemplate.execute(status -> work.get());
+    }
+
+    private static <T> Predicate toPredicate(Specification<T> specification, Root<T> root, CriteriaBuilder criteriaBuilder) {
+        return specification == null ? null : specification.toPredicate(root, null, criteriaBuilder);
+    }
+}
@@ -0,0 +1,371 @@
+package io.github.aurifolia.jpa.query;
+
+import io.github.aurifolia.jpa.specification.CompositeSpecification;
+import io.github.aurifolia.jpa.specification.JpqlRenderer;
+import io.github.aurifolia.jpa.specification.JpqlSpecification;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.metamodel.Attribute;
+import jakarta.persistence.metamodel.EntityType;
+import jakarta.persistence.metamodel.ManagedType;
+import jakarta.persistence.metamodel.Metamodel;
+import jakarta.persistence.metamodel.PluralAttribute;
+import jakarta.persistence.metamodel.SingularAttribute;
+import jakarta.persistence.metamodel.Type;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * An opt-in result cache in front of a JpaSpecificationExecutor for read-only queries that repeat often.
+ * Results are keyed by the specification value (its conditions and their values), so only specifications built by
+ * SpecificationBuilder are cached, any other specification goes straight to the executor.
+ * Entries expire after the TTL, the least recently used entries are evicted beyond the maximum size, and
+ * {@link #invalidateOn(EntityManagerFactory)} clears the cache whenever entities of the domain type change, or entities
+ * of the types a cached specification reaches through association paths such as "department.name" or exists.
+ * Cached entities are shared between callers and must be treated as read-only.
+ * The invalidator keeps the executor and its results reachable until {@link #close()} unregisters it.
+ *
+ * @author Peng Dan
+ * @since 1.0
+ */
+public class CachingExecutor<T> implements AutoCloseable {
+    /**
+     * delegate executor
+     */
+    private final JpaSpecificationExecutor<T> executor;
+    /**
+     * domain class
+     */
+    private final Class<T> domainClass;
+    /**
+     * time to live in milliseconds
+     */
+    private final long ttlMillis;
+    /**
+     * clock of the expiration
+     */
+    private final Clock clock;
+    /**
+     * cached results, least recently used first
+     */
+    private final Map<Key, Entry> entries;
+    /**
+     * incremented by every invalidation, results of queries that overlap an invalidation are not cached
+     */
+    private final AtomicLong generation = new AtomicLong();
+    /**
+     * entity types whose changes clear the cache
+     */
+    private final Set<Class<?>> invalidatingTypes = ConcurrentHashMap.newKeySet();
+    /**
+     * invalidator, null if the cache is not invalidated on entity changes
+     */
+    private volatile EntityChangeInvalidator invalidator;
+    /**
+     * metamodel resolving the association paths of the specifications
+     */
+    private volatile Metamodel metamodel;
+    /**
+     * callback registered in the invalidator, the same instance is unregistered on close
+     */
+    private final Runnable invalidation = this::invalidate;
+    /**
+     * whether the executor was closed, queries then go straight to the delegate
+     */
+    private volatile boolean closed;
+
+    /**
+     * constructor
+     *
+     * @param executor    delegate executor
+     * @param domainClass domain class
+     * @param maximumSize max number of cached results
+     * @param ttl         time to live of a cached result
+     */
+    public CachingExecutor(JpaSpecificationExecutor<T> executor, Class<T> domainClass, int maximumSize, Duration ttl) {
+        this(executor, domainClass, maximumSize, ttl, Clock.systemUTC());
+    }
+
+    /**
+     * constructor
+     *
+     * @param executor    delegate executor
+     * @param domainClass domain class
+     * @param maximumSize max number of cached results
+     * @param ttl         time to live of a cached result
+     * @param clock       clock of the expiration
+     */
+    public CachingExecutor(JpaSpecificationExecutor<T> executor, Class<T> domainClass, int maximumSize, Duration ttl, Clock clock) {
+        if (maximumSize <= 0) {
+            throw new IllegalArgumentException("maximumSize must be positive");
+        }
+        if (ttl.isNegative() || ttl.isZero()) {
+            throw new IllegalArgumentException("ttl must be positive");
+        }
+        this.executor = executor;
+        this.domainClass = domainClass;
+        this.ttlMillis = ttl.toMillis();
+        this.clock = clock;
+        this.entries = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+                return size() > maximumSize;
+            }
+        });
+    }
+
+    /**
+     * clear the cache after entities of the domain type, or of the entity types a cached specification reaches through
+     * its association paths and exists conditions, are inserted, updated or deleted
+     *
+     * @param entityManagerFactory EntityManagerFactory backed by Hibernate
+     * @return CachingExecutor
+     * @see EntityChangeInvalidator
+     */
+    public CachingExecutor<T> invalidateOn(EntityManagerFactory entityManagerFactory) {
+        this.metamodel = entityManagerFactory.getMetamodel();
+        this.invalidator = EntityChangeInvalidator.of(entityManagerFactory);
+        invalidateOn(domainClass);
+        return this;
+    }
+
+    /**
+     * find all rows matching the specification
+     *
+     * @param spec Specification
+     * @return rows
+     */
+    public List<T> findAll(Specification<T> spec) {
+        return cached("findAll", spec, null, () -> List.copyOf(executor.findAll(spec)));
+    }
+
+    /**
+     * find all rows matching the specification in the given order
+     *
+     * @param spec Specification
+     * @param sort Sort
+     * @return rows
+     */
+    public List<T> findAll(Specification<T> spec, Sort sort) {
+        return cached("findAll", spec, sort, () -> List.copyOf(executor.findAll(spec, sort)));
+    }
+
+    /**
+     * find a page of rows matching the specification
+     *
+     * @param spec     Specification
+     * @param pageable Pageable
+     * @return Page
+     */
+    public Page<T> findAll(Specification<T> spec, Pageable pageable) {
+        return cached("findPage", spec, pageable, () -> executor.findAll(spec, pageable));
+    }
+
+    /**
+     * find the only row matching the specification
+     *
+     * @param spec Specification
+     * @return Optional
+     */
+    public Optional<T> findOne(Specification<T> spec) {
+        return cached("findOne", spec, null, () -> executor.findOne(spec));
+    }
+
+    /**
+     * count rows matching the specification
+     *
+     * @param spec Specification
+     * @return count
+     */
+    public long count(Specification<T> spec) {
+        return cached("count", spec, null, () -> executor.count(spec));
+    }
+
+    /**
+     * whether any row matches the specification
+     *
+     * @param spec Specification
+     * @return true if any row matches
+     */
+    public boolean exists(Specification<T> spec) {
+        return cached("exists", spec, null, () -> executor.exists(spec));
+    }
+
+    /**
+     * remove all cached results
+     */
+    public void invalidate() {
+        generation.incrementAndGet();
+        entries.clear();
+    }
+
+    /**
+     * unregister the executor from the invalidator and clear the cache, later queries are not cached
+     */
+    @Override
+    public void close() {
+        closed = true;
+        EntityChangeInvalidator registered = invalidator;
+        if (registered != null) {
+            invalidatingTypes.forEach(type -> registered.unregister(type, invalidation));
+        }
+        invalidatingTypes.clear();
+        invalidate();
+    }
+
+    /**
+     * number of cached results, including expired ones that were not read since
+     *
+     * @return size
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    @SuppressWarnings("unchecked")
+    private <R> R cached(String method, Specification<T> spec, Object argument, Supplier<R> loader) {
+        if (closed || !isValue(spec)) {
+            return loader.get();
+        }
+        Key key = new Key(method, spec, argument);
+        long now = clock.millis();
+        Entry entry = entries.get(key);
+        if (entry != null && entry.expiresAt > now) {
+            return (R) entry.value;
+        }
+        if (invalidator != null) {
+            // registered before the query, a change while it runs is caught by the generation
+            for (Class<?> type : associatedTypes((JpqlSpecification<T>) spec)) {
+                invalidateOn(type);
+            }
+        }
+        long before = generation.get();
+        R value = loader.get();
+        synchronized (entries) {
+            if (generation.get() == before) {
+                entries.put(key, new Entry(value, now + ttlMillis));
+            }
+        }
+        return value;
+    }
+
+    private void invalidateOn(Class<?> entityClass) {
+        if (!closed && invalidatingTypes.add(entityClass)) {
+            invalidator.register(entityClass, invalidation);
+        }
+    }
+
+    /**
+     * the entity types reached through the attribute paths of the specification
+     */
+    private Set<Class<?>> associatedTypes(JpqlSpecification<T> spec) {
+        PathCollector collector = new PathCollector();
+        spec.renderJpql(collector);
+        Set<Class<?>> types = new HashSet<>();
+        for (String path : collector.paths) {
+            ManagedType<?> type = metamodel.managedType(domainClass);
+            for (String name : path.split("\\.")) {
+                Attribute<?, ?> attribute = type.getAttributes().stream()
+                        .filter(candidate -> candidate.getName().equals(name)).findFirst().orElse(null);
+                Type<?> target = attribute instanceof PluralAttribute<?, ?, ?> plural ? plural.getElementType()
+                        : attribute instanceof SingularAttribute<?, ?> singular ? singular.getType() : null;
+                if (!(target instanceof ManagedType<?> managed)) {
+                    // a basic attribute, or an unknown one that the query reports
+                    break;
+                }
+                if (target instanceof EntityType<?>) {
+                    types.add(target.getJavaType());
+                }
+                type = managed;
+            }
+        }
+        return types;
+    }
+
+    /**
+     * whether equals and hashCode of the specification compare the conditions and their values
+     */
+    private static boolean isValue(Specification<?> spec) {
+        if (spec instanceof CompositeSpecification<?> composite) {
+            for (Specification<?> child : composite.getSpecifications()) {
+                if (!isValue(child)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        return spec instanceof JpqlSpecification<?>;
+    }
+
+    /**
+     * collects the attribute paths a specification renders, relative to the domain type
+     */
+    private static final class PathCollector extends JpqlRenderer {
+        /**
+         * dotted attribute paths
+         */
+        private final Set<String> paths = new LinkedHashSet<>();
+        /**
+         * path of the elements of the correlated subquery being rendered, empty for the domain type
+         */
+        private String prefix = "";
+
+        PathCollector() {
+            super(new StringBuilder(), "e");
+        }
+
+        @Override
+        public JpqlRenderer path(String attributeName) {
+            paths.add(prefix + attributeName);
+            return super.path(attributeName);
+        }
+
+        @Override
+        public JpqlRenderer correlate(String attributeName, Consumer<JpqlRenderer> subquery) {
+            String outer = prefix;
+            paths.add(outer + attributeName);
+            prefix = outer + attributeName + ".";
+            try {
+                return super.correlate(attributeName, subquery);
+            } finally {
+                prefix = outer;
+            }
+        }
+    }
+
+    /**
+     * cache key
+     *
+     * @param method   executor method
+     * @param spec     specification
+     * @param argument sort or pageable, nullable
+     */
+    private record Key(String method, Specification<?> spec, Object argument) {
+    }
+
+    /**
+     * cached result
+     *
+     * @param value     result
+     * @param expiresAt expiration time in milliseconds
+     */
+    private record Entry(Object value, long expiresAt) {
+    }
+}
@@ -0,0 +1,152 @@
+package io.github.aurifolia.jpa.query;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostCommitDeleteEventListener;
+import org.hibernate.event.spi.PostCommitInsertEventListener;
+import org.hibernate.event.spi.PostCommitUpdateEventListener;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.persister.entity.EntityPersister;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Runs callbacks after entities of a type are inserted, updated or deleted, through Hibernate's post-commit event
+ * listeners. A change of a subclass also notifies the callbacks of its superclasses.
+ * Bulk statements (CriteriaUpdate, CriteriaDelete, JPQL update / delete) do not fire entity events.
+ *
+ * @author Peng Dan
+ * @since 1.0
+ */
+public final class EntityChangeInvalidator implements PostCommitInsertEventListener, PostCommitUpdateEventListener,
+        PostCommitDeleteEventListener {
+    /**
+     * invalidator of each session factory
+     */
+    private static final Map<SessionFactoryImplementor, EntityChangeInvalidator> INVALIDATORS = new WeakHashMap<>();
+    /**
+     * callbacks of each entity class
+     */
+    private final Map<Class<?>, Set<Runnable>> callbacks = new ConcurrentHashMap<>();
+
+    private EntityChangeInvalidator() {
+    }
+
+    /**
+     * get the invalidator of the EntityManagerFactory, its listeners are registered on first use
+     *
+     * @param entityManagerFactory EntityManagerFactory backed by Hibernate
+     * @return EntityChangeInvalidator
+     */
+    public static EntityChangeInvalidator of(EntityManagerFactory entityManagerFactory) {
+        SessionFactoryImplementor sessionFactory = entityManagerFactory.unwrap(SessionFactoryImplementor.class);
+        synchronized (INVALIDATORS) {
+            return INVALIDATORS.computeIfAbsent(sessionFactory, key -> {
+                EntityChangeInvalidator invalidator = new EntityChangeInvalidator();
+                EventListenerRegistry registry = key.getServiceRegistry().getService(EventListenerRegistry.class);
+                registry.appendListeners(EventType.POST_COMMIT_INSERT, invalidator);
+                registry.appendListeners(EventType.POST_COMMIT_UPDATE, invalidator);
+                registry.appendListeners(EventType.POST_COMMIT_DELETE, invalidator);
+                return invalidator;
+            });
+        }
+    }
+
+    /**
+     * get the invalidator of the EntityManagerFactory if it has been created by {@link #of(EntityManagerFactory)},
+     * no listener is registered
+     *
+     * @param entityManagerFactory EntityManagerFactory backed by Hibernate
+     * @return EntityChangeInvalidator, null if there is none
+     */
+    public static EntityChangeInvalidator find(EntityManagerFactory entityManagerFactory) {
+        SessionFactoryImplementor sessionFactory = entityManagerFactory.unwrap(SessionFactoryImplementor.class);
+        synchronized (INVALIDATORS) {
+            return INVALIDATORS.get(sessionFactory);
+        }
+    }
+
+    /**
+     * run the callback after entities of the class or its subclasses change
+     *
+     * @param entityClass entity class
+     * @param callback    callback
+     */
+    public void register(Class<?> entityClass, Runnable callback) {
+        callbacks.computeIfAbsent(entityClass, key -> ConcurrentHashMap.newKeySet()).add(callback);
+    }
+
+    /**
+     * remove the callback
+     *
+     * @param entityClass entity class
+     * @param callback    callback
+     */
+    public void unregister(Class<?> entityClass, Runnable callback) {
+        Set<Runnable> registered = callbacks.get(entityClass);
+        if (registered != null) {
+            registered.remove(callback);
+        }
+    }
+
+    /**
+     * run the callbacks of the entity class and its superclasses
+     *
+     * @param entityClass changed entity class
+     */
+    public void changed(Class<?> entityClass) {
+        for (Class<?> type = entityClass; type != null && type != Object.class; type = type.getSuperclass()) {
+            Set<Runnable> registered = callbacks.get(type);
+            if (registered != null) {
+                registered.forEach(Runnable::run);
+            }
+        }
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        changed(event.getPersister().getMappedClass());
+    }
+
+    @Override
+    public void onPostInsertCommitFailed(PostInsertEvent event) {
+        changed(event.getPersister().getMappedClass());
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        changed(event.getPersister().getMappedClass());
+    }
+
+    @Override
+    public void onPostUpdateCommitFailed(PostUpdateEvent event) {
+        changed(event.getPersister().getMappedClass());
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        changed(event.getPersister().getMappedClass());
+    }
+
+    @Override
+    public void onPostDeleteCommitFailed(PostDeleteEvent event) {
+        changed(event.getPersister().getMappedClass());
+    }
+
+    @Override
+    public boolean requiresPostCommitHandling(EntityPersister persister) {
+        for (Class<?> entityClass : callbacks.keySet()) {
+            if (entityClass.isAssignableFrom(persister.getMappedClass())) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
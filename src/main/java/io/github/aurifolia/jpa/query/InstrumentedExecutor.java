@@ -0,0 +1,226 @@
+package io.github.aurifolia.jpa.query;
+
+import io.github.aurifolia.jpa.metrics.QueryMetrics;
+import io.github.aurifolia.jpa.metrics.QueryStatistics;
+import io.github.aurifolia.jpa.specification.CompositeSpecification;
+import io.github.aurifolia.jpa.specification.InSpecification;
+import io.github.aurifolia.jpa.specification.JpqlRenderer;
+import io.github.aurifolia.jpa.specification.JpqlSpecification;
+import io.github.aurifolia.jpa.specification.NotInSpecification;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
+
+/**
+ * Measures the queries of a JpaSpecificationExecutor per specification shape: latency, rows returned,
+ * number of conditions and in list sizes, see {@link QueryMetrics}.
+ * Queries slower than the threshold are logged at warn level with their shape and rendered JPQL.
+ * Failed queries, timeouts included, are recorded and logged as well, with the exception they threw.
+ * Specifications not built by SpecificationBuilder are recorded with the shape "custom".
+ *
+ * @author Peng Dan
+ * @since 1.0
+ */
+public class InstrumentedExecutor<T> {
+    /**
+     * shape of the specifications that cannot be rendered as JPQL
+     */
+    public static final String CUSTOM_SHAPE = "custom";
+    /**
+     * slow query log
+     */
+    private static final Log log = LogFactory.getLog(InstrumentedExecutor.class);
+    /**
+     * delegate executor
+     */
+    private final JpaSpecificationExecutor<T> executor;
+    /**
+     * domain class
+     */
+    private final Class<T> domainClass;
+    /**
+     * metrics backend
+     */
+    private final QueryMetrics metrics;
+    /**
+     * queries slower than this are logged, negative means never
+     */
+    private final long slowQueryNanos;
+
+    /**
+     * constructor, records to {@link QueryMetrics#NOOP} and never logs
+     *
+     * @param executor    delegate executor
+     * @param domainClass domain class
+     */
+    public InstrumentedExecutor(JpaSpecificationExecutor<T> executor, Class<T> domainClass) {
+        this(executor, domainClass, QueryMetrics.NOOP, null);
+    }
+
+    /**
+     * constructor
+     *
+     * @param executor           delegate executor
+     * @param domainClass        domain class
+     * @param metrics            metrics backend
+     * @param slowQueryThreshold queries slower than this are logged, null means never
+     */
+    public InstrumentedExecutor(JpaSpecificationExecutor<T> executor, Class<T> domainClass, QueryMetrics metrics, Duration slowQueryThreshold) {
+        this.executor = executor;
+        this.domainClass = domainClass;
+        this.metrics = metrics;
+        this.slowQueryNanos = slowQueryThreshold == null ? -1 : slowQueryThreshold.toNanos();
+    }
+
+    /**
+     * find all rows matching the specification
+     *
+     * @param spec Specification
+     * @return rows
+     */
+    public List<T> findAll(Specification<T> spec) {
+        return measure("findAll", spec, () -> executor.findAll(spec), List::size);
+    }
+
+    /**
+     * find all rows matching the specification in the given order
+     *
+     * @param spec Specification
+     * @param sort Sort
+     * @return rows
+     */
+    public List<T> findAll(Specification<T> spec, Sort sort) {
+        return measure("findAll", spec, () -> executor.findAll(spec, sort), List::size);
+    }
+
+    /**
+     * find a page of rows matching the specification
+     *
+     * @param spec     Specification
+     * @param pageable Pageable
+     * @return Page
+     */
+    public Page<T> findAll(Specification<T> spec, Pageable pageable) {
+        return measure("findPage", spec, () -> executor.findAll(spec, pageable), Page::getNumberOfElements);
+    }
+
+    /**
+     * find the only row matching the specification
+     *
+     * @param spec Specification
+     * @return Optional
+     */
+    public Optional<T> findOne(Specification<T> spec) {
+        return measure("findOne", spec, () -> executor.findOne(spec), result -> result.isPresent() ? 1 : 0);
+    }
+
+    /**
+     * count the rows matching the specification
+     *
+     * @param spec Specification
+     * @return count
+     */
+    public long count(Specification<T> spec) {
+        return measure("count", spec, () -> executor.count(spec), result -> -1);
+    }
+
+    /**
+     * whether any row matches the specification
+     *
+     * @param spec Specification
+     * @return true if exists
+     */
+    public boolean exists(Specification<T> spec) {
+        return measure("exists", spec, () -> executor.exists(spec), result -> -1);
+    }
+
+    private <R> R measure(String operation, Specification<T> spec, Supplier<R> query, ToLongFunction<R> rows) {
+        long start = System.nanoTime();
+        R result = null;
+        Throwable failure = null;
+        try {
+            result = query.get();
+            return result;
+        } catch (RuntimeException | Error e) {
+            failure = e;
+            throw e;
+        } finally {
+            long duration = System.nanoTime() - start;
+            record(operation, spec, duration, failure == null ? rows.applyAsLong(result) : -1, failure);
+        }
+    }
+
+    private void record(String operation, Specification<T> spec, long duration, long rows, Throwable failure) {
+        String shape = shape(spec);
+        String exception = failure == null ? QueryStatistics.NONE : failure.getClass().getSimpleName();
+        List<Integer> inListSizes = new ArrayList<>();
+        int predicateCount = collect(spec, inListSizes);
+        metrics.record(new QueryStatistics(domainClass, operation, shape, duration, rows, predicateCount, inListSizes, exception));
+        if (slowQueryNanos >= 0 && duration >= slowQueryNanos && log.isWarnEnabled()) {
+            log.warn("Slow query " + operation + (failure == null ? "" : " failed with " + exception) + " took "
+                    + Duration.ofNanos(duration).toMillis() + " ms, shape " + shape + ": " + jpql(spec));
+        }
+    }
+
+    private static String shape(Specification<?> spec) {
+        if (spec instanceof JpqlSpecification<?> jpqlSpecification) {
+            try {
+                return jpqlSpecification.getShape();
+            } catch (UnsupportedOperationException e) {
+                return CUSTOM_SHAPE;
+            }
+        }
+        return CUSTOM_SHAPE;
+    }
+
+    private String jpql(Specification<T> spec) {
+        StringBuilder jpql = new StringBuilder("select e from ").append(domainClass.getSimpleName()).append(" e");
+        if (spec instanceof JpqlSpecification<T> jpqlSpecification) {
+            int length = jpql.append(" where ").length();
+            try {
+                jpqlSpecification.renderJpql(new JpqlRenderer(jpql, "e"));
+            } catch (UnsupportedOperationException e) {
+                jpql.setLength(length);
+                return jpql.append("<custom>").toString();
+            }
+            if (jpql.length() == length) {
+                jpql.setLength(length - " where ".length());
+            }
+            return jpql.toString();
+        }
+        return jpql.append(" where <custom>").toString();
+    }
+
+    /**
+     * count the conditions and collect the in list sizes
+     */
+    private static int collect(Specification<?> spec, List<Integer> inListSizes) {
+        if (spec == null) {
+            return 0;
+        }
+        if (spec instanceof CompositeSpecification<?> composite) {
+            int count = 0;
+            for (Specification<?> specification : composite.getSpecifications()) {
+                count += collect(specification, inListSizes);
+            }
+            return count;
+        }
+        if (spec instanceof InSpecification<?> in) {
+            inListSizes.add(in.getValues().size());
+        } else if (spec instanceof NotInSpecification<?> notIn) {
+            inListSizes.add(notIn.getValues().size());
+        }
+        return 1;
+    }
+}
@@ -0,0 +1,128 @@
+package io.github.aurifolia.jpa.query;
+
+import io.github.aurifolia.jpa.specification.JpqlRenderer;
+import io.github.aurifolia.jpa.specification.JpqlSpecification;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.TypedQuery;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * a bounded cache that maps the shape of a specification to the JPQL rendered for it,
+ * a repeated shape skips rendering and only binds new parameters
+ *
+ * @author Peng Dan
+ * @since 1.0
+ */
+public class JpqlQueryCache {
+    /**
+     * alias of the root entity
+     */
+    private static final String ALIAS = "e";
+    /**
+     * JPQL templates, least recently used first
+     */
+    private final Map<String, String> templates;
+
+    /**
+     * constructor
+     *
+     * @param maximumSize max number of cached templates
+     */
+    public JpqlQueryCache(int maximumSize) {
+        if (maximumSize <= 0) {
+            throw new IllegalArgumentException("maximumSize must be positive");
+        }
+        this.templates = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+                return size() > maximumSize;
+            }
+        });
+    }
+
+    /**
+     * create a query that selects the entities matching the specification
+     *
+     * @param entityManager EntityManager
+     * @param domainClass   domain class
+     * @param specification specification built by SpecificationBuilder
+     * @param <T>           domain type
+     * @return TypedQuery
+     */
+    public <T> TypedQuery<T> createQuery(EntityManager entityManager, Class<T> domainClass, Specification<T> specification) {
+        JpqlSpecification<T> jpqlSpecification = jpql(specification);
+        String jpql = template(entityManager, domainClass, jpqlSpecification, "select " + ALIAS);
+        return bind(entityManager.createQuery(jpql, domainClass), jpqlSpecification);
+    }
+
+    /**
+     * create a query that counts the entities matching the specification
+     *
+     * @param entityManager EntityManager
+     * @param domainClass   domain class
+     * @param specification specification built by SpecificationBuilder
+     * @param <T>           domain type
+     * @return TypedQuery
+     */
+    public <T> TypedQuery<Long> createCountQuery(EntityManager entityManager, Class<T> domainClass, Specification<T> specification) {
+        JpqlSpecification<T> jpqlSpecification = jpql(specification);
+        String jpql = template(entityManager, domainClass, jpqlSpecification, "select count(" + ALIAS + ")");
+        return bind(entityManager.createQuery(jpql, Long.class), jpqlSpecification);
+    }
+
+    /**
+     * number of cached templates
+     *
+     * @return size
+     */
+    public int size() {
+        return templates.size();
+    }
+
+    /**
+     * remove all cached templates
+     */
+    public void clear() {
+        templates.clear();
+    }
+
+    private <T> String template(EntityManager entityManager, Class<T> domainClass, JpqlSpecification<T> specification, String select) {
+        String key = select + '|' + domainClass.getName() + '|' + specification.getShape();
+        String template = templates.get(key);
+        if (template == null) {
+            StringBuilder jpql = new StringBuilder(select).append(" from ")
+                    .append(entityManager.getMetamodel().entity(domainClass).getName())
+                    .append(' ').append(ALIAS);
+            int length = jpql.append(" where ").length();
+            specification.renderJpql(new JpqlRenderer(jpql, ALIAS));
+            if (jpql.length() == length) {
+                jpql.setLength(length - " where ".length());
+            }
+            template = jpql.toString();
+            templates.put(key, template);
+        }
+        return template;
+    }
+
+    private static <R, T> TypedQuery<R> bind(TypedQuery<R> query, JpqlSpecification<T> specification) {
+        List<Object> parameters = new ArrayList<>();
+        specification.collectParameters(parameters);
+        for (int i = 0; i < parameters.size(); i++) {
+            query.setParameter(JpqlRenderer.PARAMETER_PREFIX + i, parameters.get(i));
+        }
+        return query;
+    }
+
+    private static <T> JpqlSpecification<T> jpql(Specification<T> specification) {
+        if (specification instanceof JpqlSpecification<T> jpqlSpecification) {
+            return jpqlSpecification;
+        }
+        throw new IllegalArgumentException("Specification must be built by SpecificationBuilder");
+    }
+}
@@ -0,0 +1,63 @@
+package io.github.aurifolia.jpa.query;
+
+import io.github.aurifolia.jpa.SpecificationBuilder;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+
+import java.util.List;
+
+/**
+ * a page fetched by keyset (seek) pagination
+ *
+ * @author Peng Dan
+ * @since 1.0
+ */
+@Getter
+@RequiredArgsConstructor
+public class KeysetPage<T> {
+    /**
+     * rows of the page
+     */
+    private final List<T> content;
+    /**
+     * token of the next page, null if this is the last page
+     */
+    private final String nextToken;
+
+    /**
+     * whether there is a next page
+     *
+     * @return true if there is a next page
+     */
+    public boolean hasNext() {
+        return nextToken != null;
+    }
+
+    /**
+     * Fetch the page after the token, the keyset condition is appended to the builder.
+     * The sort attributes must not be null and the last one should be unique, e.g. the ID.
+     *
+     * @param executor    JpaSpecificationExecutor
+     * @param domainClass domain class
+     * @param builder     builder of the other conditions
+     * @param sort        sort orders
+     * @param size        page size
+     * @param token       token returned by the previous page, null for the first page
+     * @param <T>         domain type
+     * @return KeysetPage
+     */
+    public static <T> KeysetPage<T> find(JpaSpecificationExecutor<T> executor, Class<T> domainClass, SpecificationBuilder<T> builder,
+                                         Sort sort, int size, String token) {
+        if (token != null) {
+            builder.keyset(true, sort, KeysetToken.decode(token, sort, domainClass));
+        }
+        List<T> rows = executor.findBy(builder.build(), query -> query.sortBy(sort).limit(size + 1).all());
+        if (rows.size() <= size) {
+            return new KeysetPage<>(rows, null);
+        }
+        List<T> content = rows.subList(0, size);
+        return new KeysetPage<>(content, KeysetToken.encode(sort, content.get(size - 1)));
+    }
+}
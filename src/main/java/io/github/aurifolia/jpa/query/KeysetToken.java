@@ -0,0 +1,68 @@
+package io.github.aurifolia.jpa.query;
+
+import io.github.aurifolia.jpa.support.AttributeAccessor;
+import io.github.aurifolia.jpa.support.Values;
+import org.springframework.data.domain.Sort;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * encodes the sort values of the last row of a page as an opaque, URL-safe continuation token
+ *
+ * @author Peng Dan
+ * @since 1.0
+ */
+public final class KeysetToken {
+    /**
+     * separator of the encoded values
+     */
+    private static final String SEPARATOR = ".";
+
+    private KeysetToken() {
+    }
+
+    /**
+     * encode the sort values of the row
+     *
+     * @param sort sort orders
+     * @param row  last row of the page
+     * @return token
+     */
+    public static String encode(Sort sort, Object row) {
+        StringBuilder token = new StringBuilder();
+        for (Sort.Order order : sort) {
+            if (!token.isEmpty()) {
+                token.append(SEPARATOR);
+            }
+            Object value = AttributeAccessor.of(row.getClass(), order.getProperty()).get(row);
+            token.append(Base64.getUrlEncoder().withoutPadding()
+                    .encodeToString(Values.format(value).getBytes(StandardCharsets.UTF_8)));
+        }
+        return token.toString();
+    }
+
+    /**
+     * decode the sort values, each one is converted to the type of its attribute
+     *
+     * @param token       token
+     * @param sort        sort orders
+     * @param domainClass domain class
+     * @return sort values
+     */
+    public static List<Object> decode(String token, Sort sort, Class<?> domainClass) {
+        String[] parts = token.split("\\" + SEPARATOR, -1);
+        List<Sort.Order> orders = sort.toList();
+        if (parts.length != orders.size()) {
+            throw new IllegalArgumentException("Invalid keyset token [" + token + "]");
+        }
+        List<Object> values = new ArrayList<>(parts.length);
+        for (int i = 0; i < parts.length; i++) {
+            String text = new String(Base64.getUrlDecoder().decode(parts[i]), StandardCharsets.UTF_8);
+            values.add(Values.convert(text, AttributeAccessor.of(domainClass, orders.get(i).getProperty()).getType()));
+        }
+        return values;
+    }
+}
@@ -0,0 +1,358 @@
+package io.github.aurifolia.jpa.query;
+
+import io.github.aurifolia.jpa.specification.CompositeSpecification;
+import io.github.aurifolia.jpa.specification.GreaterThanOrEqualSpecification;
+import io.github.aurifolia.jpa.specification.LessThanOrEqualSpecification;
+import io.github.aurifolia.jpa.specification.LessThanSpecification;
+import io.github.aurifolia.jpa.support.Paths;
+import io.github.aurifolia.jpa.support.VirtualThreads;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.EntityTransaction;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Range;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.RoundingMode;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+
+import static jakarta.persistence.criteria.Predicate.BooleanOperator.AND;
+
+/**
+ * Runs a query over a huge table as several range queries at the same time. The key range of the partition attribute
+ * is split into sub-ranges, every sub-range is ANDed with the specification and queried on its own EntityManager,
+ * and at most maxConcurrency queries, i.e. connections, are used at a time. Sub-ranges are half-open except the last
+ * one, so no row is read twice. The partition attribute should be indexed, numeric (Long, Integer, Short, Byte,
+ * BigInteger, BigDecimal, Double, Float) or temporal (LocalDate, LocalDateTime, Instant) and not null.
+ * Queries run on virtual threads if the JVM supports them, see {@link VirtualThreads}.
+ *
+ * @author Peng Dan
+ * @since 1.0
+ */
+public class PartitionedExecutor {
+    /**
+     * EntityManagerFactory
+     */
+    private final EntityManagerFactory entityManagerFactory;
+    /**
+     * executor of the partition queries
+     */
+    private final Executor executor;
+    /**
+     * bounds the number of connections in use
+     */
+    private final Semaphore permits;
+
+    /**
+     * constructor, queries run on {@link VirtualThreads#executor()}
+     *
+     * @param entityManagerFactory EntityManagerFactory
+     * @param maxConcurrency       max number of partition queries running at the same time
+     */
+    public PartitionedExecutor(EntityManagerFactory entityManagerFactory, int maxConcurrency) {
+        this(entityManagerFactory, maxConcurrency, VirtualThreads.executor());
+    }
+
+    /**
+     * constructor
+     *
+     * @param entityManagerFactory EntityManagerFactory
+     * @param maxConcurrency       max number of partition queries running at the same time
+     * @param executor             executor of the partition queries
+     */
+    public PartitionedExecutor(EntityManagerFactory entityManagerFactory, int maxConcurrency, Executor executor) {
+        if (maxConcurrency <= 0) {
+            throw new IllegalArgumentException("maxConcurrency must be positive");
+        }
+        this.entityManagerFactory = entityManagerFactory;
+        this.executor = executor;
+        this.permits = new Semaphore(maxConcurrency);
+    }
+
+    /**
+     * Find all entities matching the specification, the key range is the min and max of the partition attribute
+     * among them.
+     *
+     * @param domainClass        domain class
+     * @param specification      specification, nullable
+     * @param partitionAttribute partition attribute
+     * @param partitions         number of sub-ranges
+     * @param ordered            whether the entities are ordered by the partition attribute
+     * @param <T>                domain type
+     * @return detached entities
+     */
+    public <T> List<T> findAll(Class<T> domainClass, Specification<T> specification, String partitionAttribute, int partitions, boolean ordered) {
+        Range<Comparable<?>> range = keyRange(domainClass, specification, partitionAttribute);
+        return range == null ? List.of() : findAll(domainClass, specification, partitionAttribute, split(range, partitions), ordered);
+    }
+
+    /**
+     * find all entities matching the specification within the given sub-ranges of the partition attribute
+     *
+     * @param domainClass        domain class
+     * @param specification      specification, nullable
+     * @param partitionAttribute partition attribute
+     * @param ranges             sub-ranges, see {@link #split(Range, int)}
+     * @param ordered            whether the entities of every sub-range are ordered by the partition attribute
+     * @param <T>                domain type
+     * @return detached entities, the entities of the first sub-range first
+     */
+    public <T> List<T> findAll(Class<T> domainClass, Specification<T> specification, String partitionAttribute,
+                               List<Range<Comparable<?>>> ranges, boolean ordered) {
+        List<List<T>> results = run(ranges, range -> query(entityManager -> {
+            CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+            CriteriaQuery<T> query = criteriaBuilder.createQuery(domainClass);
+            Root<T> root = query.from(domainClass);
+            Predicate predicate = restrict(specification, partitionAttribute, range).toPredicate(root, query, criteriaBuilder);
+            if (predicate != null) {
+                query.where(predicate);
+            }
+            if (ordered) {
+                query.orderBy(criteriaBuilder.asc(Paths.get(root, partitionAttribute)));
+            }
+            return entityManager.createQuery(query).setHint(HibernateHints.HINT_READ_ONLY, true).getResultList();
+        }));
+        List<T> all = new ArrayList<>(results.stream().mapToInt(List::size).sum());
+        results.forEach(all::addAll);
+        return all;
+    }
+
+    /**
+     * count the entities matching the specification
+     *
+     * @param domainClass        domain class
+     * @param specification      specification, nullable
+     * @param partitionAttribute partition attribute
+     * @param partitions         number of sub-ranges
+     * @param <T>                domain type
+     * @return count
+     */
+    public <T> long count(Class<T> domainClass, Specification<T> specification, String partitionAttribute, int partitions) {
+        Range<Comparable<?>> range = keyRange(domainClass, specification, partitionAttribute);
+        if (range == null) {
+            return 0;
+        }
+        List<Long> counts = run(split(range, partitions), partition -> query(entityManager -> {
+            CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+            CriteriaQuery<Long> query = criteriaBuilder.createQuery(Long.class);
+            Root<T> root = query.from(domainClass);
+            Predicate predicate = restrict(specification, partitionAttribute, partition).toPredicate(root, query, criteriaBuilder);
+            query.select(criteriaBuilder.count(root));
+            if (predicate != null) {
+                query.where(predicate);
+            }
+            return entityManager.createQuery(query).getSingleResult();
+        }));
+        return counts.stream().mapToLong(Long::longValue).sum();
+    }
+
+    /**
+     * Split the range into at most the given number of sub-ranges of about the same width. Every sub-range includes
+     * its lower bound and excludes its upper bound, except the last one which includes the upper bound of the range.
+     * Integral and date bounds are rounded down, so narrow ranges may give fewer sub-ranges.
+     *
+     * @param range      range with inclusive bounds
+     * @param partitions number of sub-ranges
+     * @return sub-ranges in ascending order
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public static List<Range<Comparable<?>>> split(Range<Comparable<?>> range, int partitions) {
+        if (partitions <= 0) {
+            throw new IllegalArgumentException("partitions must be positive");
+        }
+        Comparable<?> lower = range.getLowerBound().getValue().orElseThrow();
+        Comparable<?> upper = range.getUpperBound().getValue().orElseThrow();
+        BigDecimal from = toDecimal(lower);
+        BigDecimal width = toDecimal(upper).subtract(from);
+        List<Comparable<?>> bounds = new ArrayList<>(partitions + 1);
+        bounds.add(lower);
+        for (int i = 1; i < partitions; i++) {
+            BigDecimal offset = width.multiply(BigDecimal.valueOf(i)).divide(BigDecimal.valueOf(partitions), 9, RoundingMode.FLOOR);
+            Comparable bound = fromDecimal(from.add(offset), lower);
+            if (bound.compareTo(bounds.get(bounds.size() - 1)) > 0 && bound.compareTo(upper) < 0) {
+                bounds.add(bound);
+            }
+        }
+        bounds.add(upper);
+        List<Range<Comparable<?>>> ranges = new ArrayList<>(bounds.size() - 1);
+        for (int i = 0; i < bounds.size() - 1; i++) {
+            Range.Bound<Comparable<?>> end = i == bounds.size() - 2
+                    ? Range.Bound.inclusive((Comparable) bounds.get(i + 1)) : Range.Bound.exclusive((Comparable) bounds.get(i + 1));
+            ranges.add(Range.of(Range.Bound.inclusive((Comparable) bounds.get(i)), end));
+        }
+        return ranges;
+    }
+
+    private <T> Range<Comparable<?>> keyRange(Class<T> domainClass, Specification<T> specification, String partitionAttribute) {
+        Tuple bounds = query(entityManager -> {
+            CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+            CriteriaQuery<Tuple> query = criteriaBuilder.createTupleQuery();
+            Root<T> root = query.from(domainClass);
+            Expression<Comparable<Object>> path = Paths.get(root, partitionAttribute);
+            query.multiselect(criteriaBuilder.least(path), criteriaBuilder.greatest(path));
+            Predicate predicate = specification == null ? null : specification.toPredicate(root, query, criteriaBuilder);
+            if (predicate != null) {
+                query.where(predicate);
+            }
+            return entityManager.createQuery(query).getSingleResult();
+        });
+        Comparable<?> lower = (Comparable<?>) bounds.get(0);
+        Comparable<?> upper = (Comparable<?>) bounds.get(1);
+        return lower == null ? null : Range.closed(lower, upper);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> Specification<T> restrict(Specification<T> specification, String partitionAttribute, Range<Comparable<?>> range) {
+        List<Specification<T>> specifications = new ArrayList<>(3);
+        if (specification != null) {
+            specifications.add(specification);
+        }
+        specifications.add(new GreaterThanOrEqualSpecification<>(partitionAttribute, (Comparable<Object>) range.getLowerBound().getValue().orElseThrow()));
+        Comparable<Object> upper = (Comparable<Object>) range.getUpperBound().getValue().orElseThrow();
+        specifications.add(range.getUpperBound().isInclusive()
+                ? new LessThanOrEqualSpecification<>(partitionAttribute, upper)
+                : new LessThanSpecification<>(partitionAttribute, upper));
+        return new CompositeSpecification<>(AND, specifications);
+    }
+
+    /**
+     * run a task per range on the executor, with at most maxConcurrency tasks holding a connection,
+     * once a task fails the tasks that have not started yet are skipped
+     */
+    private <R> List<R> run(List<Range<Comparable<?>>> ranges, Function<Range<Comparable<?>>, R> task) {
+        AtomicBoolean failed = new AtomicBoolean();
+        List<CompletableFuture<R>> futures = new ArrayList<>(ranges.size());
+        for (Range<Comparable<?>> range : ranges) {
+            futures.add(CompletableFuture.supplyAsync(() -> {
+                try {
+                    permits.acquire();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new CancellationException("Interrupted while waiting for a connection");
+                }
+                try {
+                    if (failed.get()) {
+                        throw new CancellationException("Another partition failed");
+                    }
+                    return task.apply(range);
+                } catch (RuntimeException e) {
+                    failed.set(true);
+                    throw e;
+                } finally {
+                    permits.release();
+                }
+            }, executor));
+        }
+        List<R> results = new ArrayList<>(futures.size());
+        RuntimeException failure = null;
+        for (CompletableFuture<R> future : futures) {
+            try {
+                results.add(future.join());
+            } catch (CompletionException e) {
+                // report the failure that made the others skip
+                if (failure == null || failure instanceof CancellationException) {
+                    failure = e.getCause() instanceof RuntimeException cause ? cause : e;
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+        return results;
+    }
+
+    /**
+     * run the query in a read-only transaction on a new EntityManager
+     */
+    private <R> R query(Function<EntityManager, R> query) {
+        EntityManager entityManager = entityManagerFactory.createEntityManager();
+        try {
+            EntityTransaction transaction = entityManager.getTransaction();
+            transaction.begin();
+            try {
+                return query.apply(entityManager);
+            } finally {
+                transaction.rollback();
+            }
+        } finally {
+            entityManager.close();
+        }
+    }
+
+    private static BigDecimal toDecimal(Comparable<?> value) {
+        if (value instanceof LocalDate date) {
+            return BigDecimal.valueOf(date.toEpochDay());
+        }
+        if (value instanceof LocalDateTime dateTime) {
+            return BigDecimal.valueOf(dateTime.toEpochSecond(ZoneOffset.UTC)).add(BigDecimal.valueOf(dateTime.getNano(), 9));
+        }
+        if (value instanceof Instant instant) {
+            return BigDecimal.valueOf(instant.getEpochSecond()).add(BigDecimal.valueOf(instant.getNano(), 9));
+        }
+        if (value instanceof BigDecimal decimal) {
+            return decimal;
+        }
+        if (value instanceof BigInteger integer) {
+            return new BigDecimal(integer);
+        }
+        if (value instanceof Double || value instanceof Float) {
+            return BigDecimal.valueOf(((Number) value).doubleValue());
+        }
+        if (value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte) {
+            return BigDecimal.valueOf(((Number) value).longValue());
+        }
+        throw new IllegalArgumentException("Unsupported partition attribute type " + value.getClass().getName());
+    }
+
+    private static Comparable<?> fromDecimal(BigDecimal value, Comparable<?> type) {
+        if (type instanceof LocalDate) {
+            return LocalDate.ofEpochDay(value.setScale(0, RoundingMode.FLOOR).longValueExact());
+        }
+        if (type instanceof LocalDateTime || type instanceof Instant) {
+            BigDecimal seconds = value.setScale(0, RoundingMode.FLOOR);
+            int nanos = value.subtract(seconds).movePointRight(9).intValue();
+            Instant instant = Instant.ofEpochSecond(seconds.longValueExact(), nanos);
+            return type instanceof Instant ? instant : LocalDateTime.ofEpochSecond(instant.getEpochSecond(), nanos, ZoneOffset.UTC);
+        }
+        if (type instanceof BigDecimal) {
+            return value;
+        }
+        if (type instanceof Double) {
+            return value.doubleValue();
+        }
+        if (type instanceof Float) {
+            return value.floatValue();
+        }
+        BigInteger integer = value.setScale(0, RoundingMode.FLOOR).toBigIntegerExact();
+        if (type instanceof BigInteger) {
+            return integer;
+        }
+        if (type instanceof Long) {
+            return integer.longValueExact();
+        }
+        if (type instanceof Integer) {
+            return integer.intValueExact();
+        }
+        return type instanceof Short ? (Comparable<?>) integer.shortValueExact() : (Comparable<?>) integer.byteValueExact();
+    }
+}
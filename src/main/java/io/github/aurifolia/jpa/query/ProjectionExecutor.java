@@ -0,0 +1,213 @@
+package io.github.aurifolia.jpa.query;
+
+import io.github.aurifolia.jpa.support.Paths;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Selection;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+
+import java.beans.ConstructorProperties;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Parameter;
+import java.lang.reflect.RecordComponent;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Selects only some attributes of the entities matching a specification, with the same where clause as
+ * {@code findAll(specification)}, so that list views do not hydrate and dirty-track whole entities.
+ * The attributes of a projection class are the components of a record, or else the parameter names of its constructor:
+ * the one annotated with {@link ConstructorProperties}, e.g. by Lombok with
+ * {@code lombok.anyConstructor.addConstructorProperties}, or else its only constructor with parameters, whose names are
+ * available when it is compiled with {@code -parameters}.
+ *
+ * @author Peng Dan
+ * @since 1.0
+ */
+public class ProjectionExecutor {
+    /**
+     * attribute names of each projection class
+     */
+    private static final ClassValue<String[]> ATTRIBUTE_NAMES = new ClassValue<>() {
+        @Override
+        protected String[] computeValue(Class<?> type) {
+            return attributeNames(type);
+        }
+    };
+    /**
+     * EntityManager
+     */
+    private final EntityManager entityManager;
+
+    /**
+     * constructor
+     *
+     * @param entityManager EntityManager
+     */
+    public ProjectionExecutor(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    /**
+     * find the attributes of the projection class of all entities matching the specification
+     *
+     * @param domainClass   domain class
+     * @param specification specification
+     * @param projection    record or DTO class
+     * @param <T>           domain type
+     * @param <R>           projection type
+     * @return projections
+     */
+    public <T, R> List<R> findAll(Class<T> domainClass, Specification<T> specification, Class<R> projection) {
+        return findAll(domainClass, specification, Sort.unsorted(), projection);
+    }
+
+    /**
+     * find the attributes of the projection class of all entities matching the specification in the given order
+     *
+     * @param domainClass   domain class
+     * @param specification specification
+     * @param sort          sort
+     * @param projection    record or DTO class
+     * @param <T>           domain type
+     * @param <R>           projection type
+     * @return projections
+     */
+    public <T, R> List<R> findAll(Class<T> domainClass, Specification<T> specification, Sort sort, Class<R> projection) {
+        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<R> query = criteriaBuilder.createQuery(projection);
+        Root<T> root = query.from(domainClass);
+        query.select(criteriaBuilder.construct(projection, selections(root, ATTRIBUTE_NAMES.get(projection))));
+        return entityManager.createQuery(restrict(query, root, criteriaBuilder, specification, sort)).getResultList();
+    }
+
+    /**
+     * find the given attributes of all entities matching the specification
+     *
+     * @param domainClass    domain class
+     * @param specification  specification
+     * @param attributeNames attribute names
+     * @param <T>            domain type
+     * @return one map from attribute name to value per entity, in the order of the attribute names
+     */
+    public <T> List<Map<String, Object>> findAll(Class<T> domainClass, Specification<T> specification, String... attributeNames) {
+        return findAll(domainClass, specification, Sort.unsorted(), attributeNames);
+    }
+
+    /**
+     * find the given attributes of all entities matching the specification in the given order
+     *
+     * @param domainClass    domain class
+     * @param specification  specification
+     * @param sort           sort
+     * @param attributeNames attribute names
+     * @param <T>            domain type
+     * @return one map from attribute name to value per entity, in the order of the attribute names
+     */
+    public <T> List<Map<String, Object>> findAll(Class<T> domainClass, Specification<T> specification, Sort sort, String... attributeNames) {
+        if (attributeNames.length == 0) {
+            throw new IllegalArgumentException("attributeNames must not be empty");
+        }
+        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = criteriaBuilder.createTupleQuery();
+        Root<T> root = query.from(domainClass);
+        query.multiselect(selections(root, attributeNames));
+        List<Tuple> tuples = entityManager.createQuery(restrict(query, root, criteriaBuilder, specification, sort)).getResultList();
+        List<Map<String, Object>> rows = new ArrayList<>(tuples.size());
+        for (Tuple tuple : tuples) {
+            Map<String, Object> row = new LinkedHashMap<>((int) (attributeNames.length / 0.75f) + 1);
+            for (int i = 0; i < attributeNames.length; i++) {
+                row.put(attributeNames[i], tuple.get(i));
+            }
+            rows.add(row);
+        }
+        return rows;
+    }
+
+    private static <T, R> CriteriaQuery<R> restrict(CriteriaQuery<R> query, Root<T> root, CriteriaBuilder criteriaBuilder,
+                                                    Specification<T> specification, Sort sort) {
+        if (specification != null) {
+            Predicate predicate = specification.toPredicate(root, query, criteriaBuilder);
+            if (predicate != null) {
+                query.where(predicate);
+            }
+        }
+        if (sort.isSorted()) {
+            query.orderBy(QueryUtils.toOrders(sort, root, criteriaBuilder));
+        }
+        return query;
+    }
+
+    private static Selection<?>[] selections(Root<?> root, String[] attributeNames) {
+        Selection<?>[] selections = new Selection<?>[attributeNames.length];
+        for (int i = 0; i < attributeNames.length; i++) {
+            selections[i] = Paths.get(root, attributeNames[i]);
+        }
+        return selections;
+    }
+
+    private static String[] attributeNames(Class<?> projection) {
+        if (projection.isRecord()) {
+            RecordComponent[] components = projection.getRecordComponents();
+            String[] names = new String[components.length];
+            for (int i = 0; i < components.length; i++) {
+                names[i] = components[i].getName();
+            }
+            if (names.length == 0) {
+                throw new IllegalArgumentException(projection.getName() + " has no attributes");
+            }
+            return names;
+        }
+        Constructor<?> constructor = constructor(projection);
+        ConstructorProperties properties = constructor.getAnnotation(ConstructorProperties.class);
+        if (properties != null) {
+            if (properties.value().length != constructor.getParameterCount()) {
+                throw new IllegalArgumentException("@ConstructorProperties of " + projection.getName() + " does not name every parameter");
+            }
+            return properties.value();
+        }
+        Parameter[] parameters = constructor.getParameters();
+        String[] names = new String[parameters.length];
+        for (int i = 0; i < parameters.length; i++) {
+            if (!parameters[i].isNamePresent()) {
+                throw new IllegalArgumentException("The constructor parameter names of " + projection.getName()
+                        + " are not available, compile it with -parameters or annotate the constructor with @ConstructorProperties");
+            }
+            names[i] = parameters[i].getName();
+        }
+        return names;
+    }
+
+    private static Constructor<?> constructor(Class<?> projection) {
+        List<Constructor<?>> annotated = new ArrayList<>();
+        List<Constructor<?>> candidates = new ArrayList<>();
+        for (Constructor<?> constructor : projection.getDeclaredConstructors()) {
+            if (constructor.isSynthetic()) {
+                continue;
+            }
+            if (constructor.isAnnotationPresent(ConstructorProperties.class)) {
+                annotated.add(constructor);
+            }
+            if (constructor.getParameterCount() > 0) {
+                candidates.add(constructor);
+            }
+        }
+        List<Constructor<?>> constructors = annotated.isEmpty() ? candidates : annotated;
+        if (constructors.isEmpty()) {
+            throw new IllegalArgumentException(projection.getName() + " has no constructor taking its attributes");
+        }
+        if (constructors.size() > 1) {
+            throw new IllegalArgumentException(projection.getName() + " has more than one constructor taking attributes, "
+                    + "annotate the one to use with @ConstructorProperties");
+        }
+        return constructors.get(0);
+    }
+}
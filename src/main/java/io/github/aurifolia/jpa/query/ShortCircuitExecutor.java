@@ -0,0 +1,93 @@
+package io.github.aurifolia.jpa.query;
+
+import io.github.aurifolia.jpa.specification.CompositeSpecification;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Delegates to a JpaSpecificationExecutor, but answers queries whose conditions are always false,
+ * e.g. in on an empty collection, with empty results without a database round trip.
+ *
+ * @author Peng Dan
+ * @since 1.0
+ */
+@RequiredArgsConstructor
+public class ShortCircuitExecutor<T> {
+    /**
+     * delegate executor
+     */
+    private final JpaSpecificationExecutor<T> executor;
+
+    /**
+     * find all rows matching the specification
+     *
+     * @param spec Specification
+     * @return rows
+     */
+    public List<T> findAll(Specification<T> spec) {
+        return isAlwaysFalse(spec) ? List.of() : executor.findAll(spec);
+    }
+
+    /**
+     * find all rows matching the specification in the given order
+     *
+     * @param spec Specification
+     * @param sort Sort
+     * @return rows
+     */
+    public List<T> findAll(Specification<T> spec, Sort sort) {
+        return isAlwaysFalse(spec) ? List.of() : executor.findAll(spec, sort);
+    }
+
+    /**
+     * find a page of rows matching the specification
+     *
+     * @param spec     Specification
+     * @param pageable Pageable
+     * @return Page
+     */
+    public Page<T> findAll(Specification<T> spec, Pageable pageable) {
+        return isAlwaysFalse(spec) ? Page.empty(pageable) : executor.findAll(spec, pageable);
+    }
+
+    /**
+     * find the only row matching the specification
+     *
+     * @param spec Specification
+     * @return Optional
+     */
+    public Optional<T> findOne(Specification<T> spec) {
+        return isAlwaysFalse(spec) ? Optional.empty() : executor.findOne(spec);
+    }
+
+    /**
+     * count rows matching the specification
+     *
+     * @param spec Specification
+     * @return count
+     */
+    public long count(Specification<T> spec) {
+        return isAlwaysFalse(spec) ? 0 : executor.count(spec);
+    }
+
+    /**
+     * whether any row matches the specification
+     *
+     * @param spec Specification
+     * @return true if any row matches
+     */
+    public boolean exists(Specification<T> spec) {
+        return !isAlwaysFalse(spec) && executor.exists(spec);
+    }
+
+    private static boolean isAlwaysFalse(Specification<?> spec) {
+        return spec instanceof CompositeSpecification<?> composite && composite.isAlwaysFalse();
+    }
+}
@@ -0,0 +1,155 @@
+package io.github.aurifolia.jpa.query;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.EntityTransaction;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+
+import java.util.Iterator;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Streams the entities matching a specification with constant memory. Every stream uses its own read-only
+ * EntityManager, rows are fetched in batches of fetchSize and the persistence context is cleared every
+ * clearInterval rows, so a row handed out stays managed until clearInterval more rows have been read.
+ *
+ * @author Peng Dan
+ * @since 1.0
+ */
+public class StreamingExecutor {
+    /**
+     * EntityManagerFactory
+     */
+    private final EntityManagerFactory entityManagerFactory;
+    /**
+     * JDBC fetch size
+     */
+    private final int fetchSize;
+    /**
+     * number of rows after which the persistence context is cleared
+     */
+    private final int clearInterval;
+
+    /**
+     * constructor
+     *
+     * @param entityManagerFactory EntityManagerFactory
+     * @param fetchSize            JDBC fetch size
+     * @param clearInterval        number of rows after which the persistence context is cleared
+     */
+    public StreamingExecutor(EntityManagerFactory entityManagerFactory, int fetchSize, int clearInterval) {
+        if (fetchSize <= 0 || clearInterval <= 0) {
+            throw new IllegalArgumentException("fetchSize and clearInterval must be positive");
+        }
+        this.entityManagerFactory = entityManagerFactory;
+        this.fetchSize = fetchSize;
+        this.clearInterval = clearInterval;
+    }
+
+    /**
+     * Stream the entities matching the specification, the stream must be closed, e.g. by try-with-resources.
+     *
+     * @param domainClass   domain class
+     * @param specification specification
+     * @param sort          sort
+     * @param <T>           domain type
+     * @return Stream
+     */
+    public <T> Stream<T> stream(Class<T> domainClass, Specification<T> specification, Sort sort) {
+        EntityManager entityManager = entityManagerFactory.createEntityManager();
+        EntityTransaction transaction = entityManager.getTransaction();
+        Stream<T> rows = null;
+        try {
+            // some drivers, e.g. PostgreSQL, only honor the fetch size inside a transaction
+            transaction.begin();
+            rows = createQuery(entityManager, domainClass, specification, sort).getResultStream();
+            Iterator<T> iterator = rows.iterator();
+            Stream<T> resultStream = rows;
+            return StreamSupport.stream(new Spliterators.AbstractSpliterator<T>(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL) {
+                private long count;
+
+                @Override
+                public boolean tryAdvance(Consumer<? super T> action) {
+                    if (count > 0 && count % clearInterval == 0) {
+                        entityManager.clear();
+                    }
+                    if (!iterator.hasNext()) {
+                        return false;
+                    }
+                    count++;
+                    action.accept(iterator.next());
+                    return true;
+                }
+            }, false).onClose(() -> close(resultStream, entityManager));
+        } catch (RuntimeException e) {
+            close(rows, entityManager);
+            throw e;
+        }
+    }
+
+    /**
+     * Pass every entity matching the specification to the consumer, resources are closed before returning.
+     *
+     * @param domainClass   domain class
+     * @param specification specification
+     * @param sort          sort
+     * @param consumer      consumer
+     * @param <T>           domain type
+     * @return number of entities
+     */
+    public <T> long forEach(Class<T> domainClass, Specification<T> specification, Sort sort, Consumer<? super T> consumer) {
+        long[] count = new long[1];
+        try (Stream<T> stream = stream(domainClass, specification, sort)) {
+            stream.forEach(t -> {
+                consumer.accept(t);
+                count[0]++;
+            });
+        }
+        return count[0];
+    }
+
+    private <T> TypedQuery<T> createQuery(EntityManager entityManager, Class<T> domainClass, Specification<T> specification, Sort sort) {
+        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<T> query = criteriaBuilder.createQuery(domainClass);
+        Root<T> root = query.from(domainClass);
+        Predicate predicate = specification.toPredicate(root, query, criteriaBuilder);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        if (sort.isSorted()) {
+            query.orderBy(QueryUtils.toOrders(sort, root, criteriaBuilder));
+        }
+        return entityManager.createQuery(query)
+                .setHint(HibernateHints.HINT_FETCH_SIZE, fetchSize)
+                .setHint(HibernateHints.HINT_READ_ONLY, true);
+    }
+
+    private static void close(Stream<?> rows, EntityManager entityManager) {
+        try {
+            if (rows != null) {
+                rows.close();
+            }
+        } finally {
+            try {
+                EntityTransaction transaction = entityManager.getTransaction();
+                if (transaction.isActive()) {
+                    transaction.rollback();
+                }
+            } finally {
+                entityManager.close();
+            }
+        }
+    }
+}
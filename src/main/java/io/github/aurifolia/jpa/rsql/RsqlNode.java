@@ -0,0 +1,105 @@
+package io.github.aurifolia.jpa.rsql;
+
+import io.github.aurifolia.jpa.SpecificationBuilder;
+
+import java.util.List;
+
+/**
+ * parsed filter expression, values are already converted to the attribute types, so that a cached node only appends
+ * builder calls
+ *
+ * @author Peng Dan
+ * @since 1.0
+ */
+sealed interface RsqlNode {
+    /**
+     * append the conditions to the builder
+     *
+     * @param builder SpecificationBuilder
+     */
+    void apply(SpecificationBuilder<Object> builder);
+
+    /**
+     * conditions joined by ';' (and) or ',' (or)
+     *
+     * @param and   whether the conditions are joined by and
+     * @param nodes conditions
+     */
+    record Group(boolean and, List<RsqlNode> nodes) implements RsqlNode {
+        @Override
+        public void apply(SpecificationBuilder<Object> builder) {
+            if (and) {
+                builder.and(group -> {
+                    nodes.forEach(node -> node.apply(group));
+                    return group;
+                });
+            } else {
+                builder.or(group -> {
+                    nodes.forEach(node -> node.apply(group));
+                    return group;
+                });
+            }
+        }
+    }
+
+    /**
+     * a builder call on an attribute
+     *
+     * @param call          builder call
+     * @param attributeName attribute name
+     * @param values        converted values
+     */
+    record Comparison(Call call, String attributeName, List<Object> values) implements RsqlNode {
+        @Override
+        public void apply(SpecificationBuilder<Object> builder) {
+            switch (call) {
+                case EQUAL -> builder.equal(true, attributeName, values.get(0));
+                case NOT_EQUAL -> builder.notEqual(true, attributeName, values.get(0));
+                case MATCHES -> builder.matches(true, attributeName, (String) values.get(0));
+                case NOT_MATCHES -> builder.notMatches(true, attributeName, (String) values.get(0));
+                case LIKE_RIGHT_IGNORE_CASE -> builder.likeRightIgnoreCase(true, attributeName, (String) values.get(0));
+                case GREATER_THAN -> builder.greaterThan(true, attributeName, (Comparable<?>) values.get(0));
+                case GREATER_THAN_OR_EQUAL -> builder.greaterThanOrEqual(true, attributeName, (Comparable<?>) values.get(0));
+                case LESS_THAN -> builder.lessThan(true, attributeName, (Comparable<?>) values.get(0));
+                case LESS_THAN_OR_EQUAL -> builder.lessThanOrEqual(true, attributeName, (Comparable<?>) values.get(0));
+                case BETWEEN -> builder.between(true, attributeName, (Comparable<?>) values.get(0), (Comparable<?>) values.get(1));
+                case IN -> builder.in(true, attributeName, values);
+                case NOT_IN -> builder.notIn(true, attributeName, values);
+                case IS_NULL -> builder.isNull(true, attributeName);
+                case IS_NOT_NULL -> builder.isNotNull(true, attributeName);
+            }
+        }
+    }
+
+    /**
+     * exists or not exists on a to-many association
+     *
+     * @param negated       whether it is not exists
+     * @param attributeName attribute name of the association
+     * @param elements      conditions on the elements
+     */
+    record Exists(boolean negated, String attributeName, RsqlNode elements) implements RsqlNode {
+        @Override
+        public void apply(SpecificationBuilder<Object> builder) {
+            if (negated) {
+                builder.notExists(true, attributeName, (SpecificationBuilder<Object> nested) -> {
+                    elements.apply(nested);
+                    return nested;
+                });
+            } else {
+                builder.exists(true, attributeName, (SpecificationBuilder<Object> nested) -> {
+                    elements.apply(nested);
+                    return nested;
+                });
+            }
+        }
+    }
+
+    /**
+     * builder calls
+     */
+    enum Call {
+        EQUAL, NOT_EQUAL, MATCHES, NOT_MATCHES, LIKE_RIGHT_IGNORE_CASE, GREATER_THAN, GREATER_THAN_OR_EQUAL, LESS_THAN,
+        LESS_THAN_OR_EQUAL, BETWEEN, IN, NOT_IN, IS_NULL, IS_NOT_NULL
+    }
+}
@@ -0,0 +1,496 @@
+package io.github.aurifolia.jpa.rsql;
+
+import io.github.aurifolia.jpa.SpecificationBuilder;
+import io.github.aurifolia.jpa.support.Values;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.metamodel.Attribute;
+import jakarta.persistence.metamodel.ManagedType;
+import jakarta.persistence.metamodel.PluralAttribute;
+import jakarta.persistence.metamodel.SingularAttribute;
+import jakarta.persistence.metamodel.Type;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.util.ClassUtils;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Parses RSQL filter expressions, e.g. {@code status==ACTIVE;age=gt=30,name=like=jo*}, into builder calls.
+ * ';' is and, ',' is or and binds weaker, parentheses group. Values are unquoted or quoted with " or ',
+ * a backslash escapes the next character, '\*' is a literal '*' in patterns.
+ * <ul>
+ * <li>== and !=: equal / not equal, on strings '*' at the start or the end is a wildcard, see
+ * {@link SpecificationBuilder#matches(boolean, String, String)}</li>
+ * <li>=gt= (&gt;), =ge= (&gt;=), =lt= (&lt;), =le= (&lt;=), =between=(lower,upper)</li>
+ * <li>=in=(a,b) and =out=(a,b)</li>
+ * <li>=like= and =notlike=: a pattern, contains if it has no wildcard; =ilike=abc*: case insensitive prefix</li>
+ * <li>=isnull=true and =isnull=false</li>
+ * <li>=exists=(filter) and =notexists=(filter): conditions on the elements of a to-many association</li>
+ * </ul>
+ * Only the whitelisted attributes can be filtered, attributes of the elements of an association are whitelisted
+ * with its name as prefix, e.g. "departments.name". Values are converted to the attribute types of the JPA metamodel.
+ * Parsed filters are cached by filter string, least recently used first out, so a repeated filter only appends the
+ * builder calls. Filters longer than {@value #MAX_LENGTH} characters or nested deeper than {@value #MAX_DEPTH} levels,
+ * parentheses and exists included, are rejected. Errors are reported as IllegalArgumentException.
+ *
+ * @author Peng Dan
+ * @since 1.0
+ */
+public class RsqlParser<T> {
+    /**
+     * max length of a filter
+     */
+    public static final int MAX_LENGTH = 8192;
+    /**
+     * max nesting depth of a filter
+     */
+    public static final int MAX_DEPTH = 64;
+    /**
+     * characters ending a selector or an unquoted value
+     */
+    private static final String RESERVED = "\"'();,=!~<> \t\r\n";
+    /**
+     * operators of the =name= form
+     */
+    private static final Set<String> OPERATORS = Set.of("gt", "ge", "lt", "le", "in", "out", "like", "notlike", "ilike",
+            "between", "isnull", "exists", "notexists");
+    /**
+     * managed type of the domain class
+     */
+    private final ManagedType<T> managedType;
+    /**
+     * attributes that can be filtered
+     */
+    private final Set<String> attributes;
+    /**
+     * parsed filters, least recently used first
+     */
+    private final Map<String, RsqlNode> nodes;
+
+    /**
+     * constructor
+     *
+     * @param entityManagerFactory EntityManagerFactory
+     * @param domainClass          domain class
+     * @param attributes           attributes that can be filtered, dotted paths for associations
+     * @param maximumSize          max number of cached filters
+     */
+    public RsqlParser(EntityManagerFactory entityManagerFactory, Class<T> domainClass, Collection<String> attributes, int maximumSize) {
+        if (maximumSize <= 0) {
+            throw new IllegalArgumentException("maximumSize must be positive");
+        }
+        this.managedType = entityManagerFactory.getMetamodel().managedType(domainClass);
+        for (String attributeName : attributes) {
+            resolve(managedType, attributeName, attributeName);
+        }
+        this.attributes = Set.copyOf(attributes);
+        this.nodes = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, RsqlNode> eldest) {
+                return size() > maximumSize;
+            }
+        });
+    }
+
+    /**
+     * parse the filter
+     *
+     * @param filter filter expression, null or blank means no conditions
+     * @return specification
+     */
+    public Specification<T> parse(String filter) {
+        return apply(new SpecificationBuilder<>(), filter).build();
+    }
+
+    /**
+     * append the conditions of the filter to the builder, so that its options apply and further conditions can be chained
+     *
+     * @param builder SpecificationBuilder
+     * @param filter  filter expression, null or blank means no conditions
+     * @return builder
+     */
+    @SuppressWarnings("unchecked")
+    public SpecificationBuilder<T> apply(SpecificationBuilder<T> builder, String filter) {
+        if (filter == null || filter.isBlank()) {
+            return builder;
+        }
+        if (filter.length() > MAX_LENGTH) {
+            throw new IllegalArgumentException("Filter is longer than " + MAX_LENGTH + " characters");
+        }
+        RsqlNode node = nodes.get(filter);
+        if (node == null) {
+            node = new Parser(filter).parse();
+            nodes.put(filter, node);
+        }
+        node.apply((SpecificationBuilder<Object>) builder);
+        return builder;
+    }
+
+    /**
+     * number of cached filters
+     *
+     * @return size
+     */
+    public int size() {
+        return nodes.size();
+    }
+
+    private static Attribute<?, ?> resolve(ManagedType<?> type, String path, String fullPath) {
+        Attribute<?, ?> attribute = null;
+        ManagedType<?> current = type;
+        for (String name : path.split("\\.", -1)) {
+            if (current == null) {
+                throw new IllegalArgumentException("Attribute [" + fullPath + "] of " + type.getJavaType().getName() + " does not exist");
+            }
+            try {
+                attribute = current.getAttribute(name);
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Attribute [" + fullPath + "] of " + type.getJavaType().getName() + " does not exist", e);
+            }
+            current = managedType(attribute);
+        }
+        return attribute;
+    }
+
+    private static ManagedType<?> managedType(Attribute<?, ?> attribute) {
+        Type<?> type = attribute instanceof PluralAttribute<?, ?, ?> plural
+                ? plural.getElementType()
+                : ((SingularAttribute<?, ?>) attribute).getType();
+        return type instanceof ManagedType<?> managed ? managed : null;
+    }
+
+    /**
+     * recursive descent parser of one filter
+     */
+    private final class Parser {
+        /**
+         * filter
+         */
+        private final String text;
+        /**
+         * current position
+         */
+        private int position;
+        /**
+         * number of open groups
+         */
+        private int depth;
+
+        Parser(String text) {
+            this.text = text;
+        }
+
+        RsqlNode parse() {
+            RsqlNode node = or(managedType, "");
+            whitespace();
+            if (position < text.length()) {
+                throw error("Unexpected character '" + text.charAt(position) + "'");
+            }
+            return node;
+        }
+
+        private RsqlNode or(ManagedType<?> type, String prefix) {
+            if (++depth > MAX_DEPTH) {
+                throw error("Filter is nested deeper than " + MAX_DEPTH + " levels");
+            }
+            List<RsqlNode> nodes = new ArrayList<>();
+            nodes.add(and(type, prefix));
+            while (accept(',')) {
+                nodes.add(and(type, prefix));
+            }
+            depth--;
+            return nodes.size() == 1 ? nodes.get(0) : new RsqlNode.Group(false, List.copyOf(nodes));
+        }
+
+        private RsqlNode and(ManagedType<?> type, String prefix) {
+            List<RsqlNode> nodes = new ArrayList<>();
+            nodes.add(constraint(type, prefix));
+            while (accept(';')) {
+                nodes.add(constraint(type, prefix));
+            }
+            return nodes.size() == 1 ? nodes.get(0) : new RsqlNode.Group(true, List.copyOf(nodes));
+        }
+
+        private RsqlNode constraint(ManagedType<?> type, String prefix) {
+            if (accept('(')) {
+                RsqlNode node = or(type, prefix);
+                expect(')');
+                return node;
+            }
+            whitespace();
+            int start = position;
+            String selector = unquoted();
+            if (selector.isEmpty()) {
+                throw error("Expected an attribute");
+            }
+            if (!attributes.contains(prefix + selector)) {
+                position = start;
+                throw error("Attribute [" + prefix + selector + "] is not allowed");
+            }
+            Attribute<?, ?> attribute = resolve(type, selector, prefix + selector);
+            String operator = operator();
+            if (operator.equals("exists") || operator.equals("notexists")) {
+                ManagedType<?> elementType = managedType(attribute);
+                if (!(attribute instanceof PluralAttribute<?, ?, ?>) || elementType == null) {
+                    throw error("Attribute [" + prefix + selector + "] is not a to-many association");
+                }
+                expect('(');
+                RsqlNode elements = or(elementType, prefix + selector + ".");
+                expect(')');
+                return new RsqlNode.Exists(operator.equals("notexists"), selector, elements);
+            }
+            if (attribute instanceof PluralAttribute<?, ?, ?>) {
+                throw error("Attribute [" + prefix + selector + "] is a collection, use =exists=");
+            }
+            return comparison(operator, selector, prefix + selector, ClassUtils.resolvePrimitiveIfNecessary(attribute.getJavaType()), arguments());
+        }
+
+        private RsqlNode comparison(String operator, String attributeName, String path, Class<?> type, List<String> arguments) {
+            boolean text = type == String.class;
+            switch (operator) {
+                case "==", "!=" -> {
+                    String argument = single(operator, arguments);
+                    if (text) {
+                        return node(operator.equals("==") ? RsqlNode.Call.MATCHES : RsqlNode.Call.NOT_MATCHES, attributeName, pattern(argument));
+                    }
+                    return node(operator.equals("==") ? RsqlNode.Call.EQUAL : RsqlNode.Call.NOT_EQUAL, attributeName, convert(argument, type, path));
+                }
+                case "like", "notlike" -> {
+                    requireText(text, operator, path);
+                    String pattern = pattern(single(operator, arguments));
+                    if (!pattern.startsWith("*") && !trailingWildcard(pattern)) {
+                        pattern = "*" + pattern + "*";
+                    }
+                    return node(operator.equals("like") ? RsqlNode.Call.MATCHES : RsqlNode.Call.NOT_MATCHES, attributeName, pattern);
+                }
+                case "ilike" -> {
+                    requireText(text, operator, path);
+                    String pattern = pattern(single(operator, arguments));
+                    if (pattern.startsWith("*") || !trailingWildcard(pattern)) {
+                        throw error("=ilike= only supports prefix patterns like abc*");
+                    }
+                    return node(RsqlNode.Call.LIKE_RIGHT_IGNORE_CASE, attributeName, unescape(pattern.substring(0, pattern.length() - 1)));
+                }
+                case "gt", ">" -> {
+                    return node(RsqlNode.Call.GREATER_THAN, attributeName, comparable(single(operator, arguments), type, path));
+                }
+                case "ge", ">=" -> {
+                    return node(RsqlNode.Call.GREATER_THAN_OR_EQUAL, attributeName, comparable(single(operator, arguments), type, path));
+                }
+                case "lt", "<" -> {
+                    return node(RsqlNode.Call.LESS_THAN, attributeName, comparable(single(operator, arguments), type, path));
+                }
+                case "le", "<=" -> {
+                    return node(RsqlNode.Call.LESS_THAN_OR_EQUAL, attributeName, comparable(single(operator, arguments), type, path));
+                }
+                case "between" -> {
+                    if (arguments.size() != 2) {
+                        throw error("=between= expects 2 values but got " + arguments.size());
+                    }
+                    List<Object> values = new ArrayList<>(2);
+                    values.add(comparable(arguments.get(0), type, path));
+                    values.add(comparable(arguments.get(1), type, path));
+                    return new RsqlNode.Comparison(RsqlNode.Call.BETWEEN, attributeName, Collections.unmodifiableList(values));
+                }
+                case "in", "out" -> {
+                    List<Object> values = new ArrayList<>(arguments.size());
+                    for (String argument : arguments) {
+                        values.add(convert(argument, type, path));
+                    }
+                    return new RsqlNode.Comparison(operator.equals("in") ? RsqlNode.Call.IN : RsqlNode.Call.NOT_IN, attributeName,
+                            Collections.unmodifiableList(values));
+                }
+                case "isnull" -> {
+                    String argument = single(operator, arguments);
+                    if (!argument.equals("true") && !argument.equals("false")) {
+                        throw error("=isnull= expects true or false");
+                    }
+                    return new RsqlNode.Comparison(argument.equals("true") ? RsqlNode.Call.IS_NULL : RsqlNode.Call.IS_NOT_NULL,
+                            attributeName, List.of());
+                }
+                default -> throw error("Unknown operator =" + operator + "=");
+            }
+        }
+
+        private RsqlNode node(RsqlNode.Call call, String attributeName, Object value) {
+            return new RsqlNode.Comparison(call, attributeName, List.of(value));
+        }
+
+        private String single(String operator, List<String> arguments) {
+            if (arguments.size() != 1) {
+                throw error("Operator " + operator + " expects a single value but got " + arguments.size());
+            }
+            return arguments.get(0);
+        }
+
+        /**
+         * a pattern of leading and trailing wildcards, rejected here if it has others, so that it fails when parsed
+         * and not when it is applied from the cache
+         */
+        private String pattern(String pattern) {
+            int start = pattern.startsWith("*") ? 1 : 0;
+            int end = pattern.length() > start && trailingWildcard(pattern) ? pattern.length() - 1 : pattern.length();
+            for (int i = start; i < end; i++) {
+                char c = pattern.charAt(i);
+                if (c == '\\' && i + 1 < end && pattern.charAt(i + 1) == '*') {
+                    i++;
+                } else if (c == '*') {
+                    throw error("Only leading and trailing wildcards are supported: " + pattern);
+                }
+            }
+            return pattern;
+        }
+
+        private void requireText(boolean text, String operator, String path) {
+            if (!text) {
+                throw error("=" + operator + "= requires a string attribute, [" + path + "] is not");
+            }
+        }
+
+        private Object convert(String argument, Class<?> type, String path) {
+            String value = unescape(argument);
+            try {
+                Object converted = Values.convert(value, type);
+                if (converted == null) {
+                    throw new IllegalArgumentException("null");
+                }
+                return converted;
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException("Invalid value [" + value + "] of attribute [" + path + "], expected "
+                        + type.getSimpleName(), e);
+            }
+        }
+
+        private Comparable<?> comparable(String argument, Class<?> type, String path) {
+            if (!Comparable.class.isAssignableFrom(type)) {
+                throw error("Attribute [" + path + "] is not comparable");
+            }
+            return (Comparable<?>) convert(argument, type, path);
+        }
+
+        private String operator() {
+            whitespace();
+            int start = position;
+            if (text.startsWith("==", position) || text.startsWith("!=", position)
+                    || text.startsWith("<=", position) || text.startsWith(">=", position)) {
+                position += 2;
+                return text.substring(start, position);
+            }
+            if (text.startsWith("<", position) || text.startsWith(">", position)) {
+                position++;
+                return text.substring(start, position);
+            }
+            if (accept('=')) {
+                int end = text.indexOf('=', position);
+                if (end > position && OPERATORS.contains(text.substring(position, end))) {
+                    String operator = text.substring(position, end);
+                    position = end + 1;
+                    return operator;
+                }
+            }
+            position = start;
+            throw error("Expected an operator");
+        }
+
+        private List<String> arguments() {
+            List<String> arguments = new ArrayList<>();
+            if (accept('(')) {
+                do {
+                    arguments.add(value());
+                } while (accept(','));
+                expect(')');
+            } else {
+                arguments.add(value());
+            }
+            return arguments;
+        }
+
+        /**
+         * a quoted or unquoted value, escapes are resolved except '\*'
+         */
+        private String value() {
+            whitespace();
+            if (position < text.length() && (text.charAt(position) == '"' || text.charAt(position) == '\'')) {
+                char quote = text.charAt(position++);
+                StringBuilder value = new StringBuilder();
+                while (true) {
+                    if (position >= text.length()) {
+                        throw error("Unterminated string");
+                    }
+                    char c = text.charAt(position++);
+                    if (c == quote) {
+                        return value.toString();
+                    }
+                    escaped(value, c);
+                }
+            }
+            String value = unquoted();
+            if (value.isEmpty()) {
+                throw error("Expected a value");
+            }
+            return value;
+        }
+
+        private String unquoted() {
+            StringBuilder value = new StringBuilder();
+            while (position < text.length() && RESERVED.indexOf(text.charAt(position)) < 0) {
+                escaped(value, text.charAt(position++));
+            }
+            return value.toString();
+        }
+
+        private void escaped(StringBuilder value, char c) {
+            if (c != '\\') {
+                value.append(c);
+                return;
+            }
+            if (position >= text.length()) {
+                throw error("Unterminated escape");
+            }
+            char next = text.charAt(position++);
+            if (next == '*') {
+                // kept for the patterns
+                value.append('\\');
+            }
+            value.append(next);
+        }
+
+        private boolean accept(char c) {
+            whitespace();
+            if (position < text.length() && text.charAt(position) == c) {
+                position++;
+                return true;
+            }
+            return false;
+        }
+
+        private void expect(char c) {
+            if (!accept(c)) {
+                throw error("Expected '" + c + "'");
+            }
+        }
+
+        private void whitespace() {
+            while (position < text.length() && Character.isWhitespace(text.charAt(position))) {
+                position++;
+            }
+        }
+
+        private IllegalArgumentException error(String message) {
+            return new IllegalArgumentException(message + " at position " + position + " of filter: " + text);
+        }
+    }
+
+    private static boolean trailingWildcard(String pattern) {
+        return pattern.endsWith("*") && !pattern.endsWith("\\*");
+    }
+
+    private static String unescape(String value) {
+        return value.replace("\\*", "*");
+    }
+}
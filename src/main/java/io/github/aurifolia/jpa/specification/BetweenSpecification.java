@@ -1,11 +1,17 @@
 package io.github.aurifolia.jpa.specification;
 
+import io.github.aurifolia.jpa.support.AttributeAccessor;
+import io.github.aurifolia.jpa.support.Paths;
+import io.github.aurifolia.jpa.support.Values;
 import jakarta.persistence.criteria.CriteriaBuilder;
 import jakarta.persistence.criteria.CriteriaQuery;
 import jakarta.persistence.criteria.Predicate;
 import jakarta.persistence.criteria.Root;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
 import lombok.RequiredArgsConstructor;
-import org.springframework.data.jpa.domain.Specification;
+
+import java.util.List;
 
 /**
  * where {attributeName} between {lower} and {upper}
@@ -13,8 +19,10 @@ import org.springframework.data.jpa.domain.Specification;
  * @author Peng Dan
  * @since 1.0
  */
+@Getter
+@EqualsAndHashCode
 @RequiredArgsConstructor
-public class BetweenSpecification<T> implements Specification<T> {
+public class BetweenSpecification<T> implements InMemorySpecification<T>, JpqlSpecification<T> {
     /**
      * attribute name
      */
@@ -30,6 +38,32 @@ public class BetweenSpecification<T> implements Specification<T> {
 
     @Override
     public Predicate toPredicate(Root<T> root, CriteriaQuery<?> query, CriteriaBuilder criteriaBuilder) {
-        return criteriaBuilder.between(root.get(attributeName), lower, upper);
+        return criteriaBuilder.between(Paths.get(root, attributeName), lower, upper);
+    }
+
+    @Override
+    public String getShape() {
+        return "between(" + attributeName + ")";
+    }
+
+    @Override
+    public void renderJpql(JpqlRenderer renderer) {
+        renderer.path(attributeName).append(" between ").parameter().append(" and ").parameter();
+    }
+
+    @Override
+    public void collectParameters(List<Object> parameters) {
+        parameters.add(lower);
+        parameters.add(upper);
+    }
+
+    @Override
+    public java.util.function.Predicate<T> toInMemoryPredicate(Class<T> domainClass) {
+        AttributeAccessor accessor = AttributeAccessor.of(domainClass, attributeName);
+        return t -> {
+            Object actual = accessor.get(t);
+            return actual != null && lower != null && upper != null
+                    && Values.compare(actual, lower) >= 0 && Values.compare(actual, upper) <= 0;
+        };
     }
 }
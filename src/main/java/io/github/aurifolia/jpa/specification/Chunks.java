@@ -0,0 +1,60 @@
+package io.github.aurifolia.jpa.specification;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+
+/**
+ * splits in / not in values into groups
+ *
+ * @author Peng Dan
+ * @since 1.0
+ */
+final class Chunks {
+    private Chunks() {
+    }
+
+    /**
+     * remove duplicate values and split the rest into groups of at most chunkSize values,
+     * if padding is true, every group is padded to a power of two (at most chunkSize) by repeating its last value
+     *
+     * @param values    values
+     * @param chunkSize max number of values in one group, non-positive means a single group
+     * @param padding   whether to pad groups
+     * @return value groups, null if neither chunking nor padding is required
+     */
+    static List<List<Object>> split(Collection<?> values, int chunkSize, boolean padding) {
+        if (chunkSize <= 0 && !padding) {
+            return null;
+        }
+        List<Object> distinct = new ArrayList<>(new LinkedHashSet<>(values));
+        int size = chunkSize > 0 ? chunkSize : Math.max(distinct.size(), 1);
+        List<List<Object>> chunks = new ArrayList<>((distinct.size() + size - 1) / size);
+        for (int from = 0; from < distinct.size(); from += size) {
+            List<Object> chunk = new ArrayList<>(distinct.subList(from, Math.min(from + size, distinct.size())));
+            if (padding) {
+                int target = chunkSize > 0 ? Math.min(bucket(chunk.size()), chunkSize) : bucket(chunk.size());
+                Object last = chunk.get(chunk.size() - 1);
+                while (chunk.size() < target) {
+                    chunk.add(last);
+                }
+            }
+            chunks.add(chunk);
+        }
+        if (chunks.isEmpty()) {
+            chunks.add(List.of());
+        }
+        return chunks;
+    }
+
+    /**
+     * the smallest power of two that is not less than size
+     *
+     * @param size size
+     * @return power of two
+     */
+    private static int bucket(int size) {
+        return size <= 1 ? 1 : Integer.highestOneBit(size - 1) << 1;
+    }
+}
@@ -0,0 +1,240 @@
+package io.github.aurifolia.jpa.specification;
+
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import lombok.AccessLevel;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static jakarta.persistence.criteria.Predicate.BooleanOperator.AND;
+
+/**
+ * where ({specifications[0]} and|or {specifications[1]} ...)
+ *
+ * @author Peng Dan
+ * @since 1.0
+ */
+@Getter
+@EqualsAndHashCode
+public class CompositeSpecification<T> implements InMemorySpecification<T>, JpqlSpecification<T> {
+    /**
+     * boolean operator
+     */
+    private final Predicate.BooleanOperator operator;
+    /**
+     * specifications
+     */
+    private final List<Specification<T>> specifications;
+    /**
+     * shape, computed on first use
+     */
+    @Getter(AccessLevel.NONE)
+    @EqualsAndHashCode.Exclude
+    private String shape;
+
+    /**
+     * constructor
+     *
+     * @param operator       Predicate.BooleanOperator
+     * @param specifications specifications
+     */
+    public CompositeSpecification(Predicate.BooleanOperator operator, List<Specification<T>> specifications) {
+        this.operator = operator;
+        this.specifications = List.copyOf(specifications);
+    }
+
+    @Override
+    public Predicate toPredicate(Root<T> root, CriteriaQuery<?> query, CriteriaBuilder criteriaBuilder) {
+        List<Predicate> predicates = new ArrayList<>(specifications.size());
+        for (Specification<T> specification : specifications) {
+            Predicate predicate = specification.toPredicate(root, query, criteriaBuilder);
+            if (predicate != null) {
+                predicates.add(predicate);
+            }
+        }
+        if (predicates.isEmpty()) {
+            return null;
+        }
+        if (predicates.size() == 1) {
+            return predicates.get(0);
+        }
+        Predicate[] restrictions = predicates.toArray(new Predicate[0]);
+        return operator == AND ? criteriaBuilder.and(restrictions) : criteriaBuilder.or(restrictions);
+    }
+
+    /**
+     * whether there are no conditions at all, nested empty groups included
+     *
+     * @return true if no predicate is rendered
+     */
+    public boolean isEmpty() {
+        for (Specification<T> specification : specifications) {
+            if (!(specification instanceof CompositeSpecification<T> composite) || !composite.isEmpty()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * whether no row can match, e.g. an empty in under AND, so that the query can be skipped
+     *
+     * @return true if the conditions are always false
+     */
+    public boolean isAlwaysFalse() {
+        return alwaysFalse(this);
+    }
+
+    /**
+     * whether every row matches, e.g. no conditions at all or an empty not in
+     *
+     * @return true if the conditions are always true
+     */
+    public boolean isAlwaysTrue() {
+        return alwaysTrue(this);
+    }
+
+    @Override
+    public String getShape() {
+        if (shape == null) {
+            StringBuilder builder = new StringBuilder(operator == AND ? "and(" : "or(");
+            for (int i = 0; i < specifications.size(); i++) {
+                if (i > 0) {
+                    builder.append(',');
+                }
+                builder.append(jpql(specifications.get(i)).getShape());
+            }
+            shape = builder.append(')').toString();
+        }
+        return shape;
+    }
+
+    @Override
+    public void renderJpql(JpqlRenderer renderer) {
+        StringBuilder jpql = renderer.getJpql();
+        int start = jpql.length();
+        int rendered = 0;
+        for (Specification<T> specification : specifications) {
+            int mark = jpql.length();
+            if (rendered > 0) {
+                jpql.append(operator == AND ? " and " : " or ");
+            }
+            int length = jpql.length();
+            jpql(specification).renderJpql(renderer);
+            if (jpql.length() == length) {
+                jpql.setLength(mark);
+            } else {
+                rendered++;
+            }
+        }
+        if (rendered > 1) {
+            jpql.insert(start, '(').append(')');
+        }
+    }
+
+    @Override
+    public void collectParameters(List<Object> parameters) {
+        for (Specification<T> specification : specifications) {
+            jpql(specification).collectParameters(parameters);
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public java.util.function.Predicate<T> toInMemoryPredicate(Class<T> domainClass) {
+        List<java.util.function.Predicate<T>> restrictions = new ArrayList<>(specifications.size());
+        for (Specification<T> specification : specifications) {
+            if (specification instanceof CompositeSpecification<T> composite && composite.isEmpty()) {
+                // renders no predicate, just like toPredicate returns null
+                continue;
+            }
+            if (!(specification instanceof InMemorySpecification<T> inMemorySpecification)) {
+                throw new UnsupportedOperationException(specification.getClass().getName() + " cannot be evaluated in memory");
+            }
+            restrictions.add(inMemorySpecification.toInMemoryPredicate(domainClass));
+        }
+        java.util.function.Predicate<T>[] predicates = restrictions.toArray(new java.util.function.Predicate[0]);
+        if (predicates.length == 0) {
+            return t -> true;
+        }
+        if (predicates.length == 1) {
+            return predicates[0];
+        }
+        if (operator == AND) {
+            return t -> {
+                for (java.util.function.Predicate<T> predicate : predicates) {
+                    if (!predicate.test(t)) {
+                        return false;
+                    }
+                }
+                return true;
+            };
+        }
+        return t -> {
+            for (java.util.function.Predicate<T> predicate : predicates) {
+                if (predicate.test(t)) {
+                    return true;
+                }
+            }
+            return false;
+        };
+    }
+
+    private static <T> JpqlSpecification<T> jpql(Specification<T> specification) {
+        if (specification instanceof JpqlSpecification<T> jpqlSpecification) {
+            return jpqlSpecification;
+        }
+        throw new UnsupportedOperationException(specification.getClass().getName() + " cannot be rendered as JPQL");
+    }
+
+    private static boolean alwaysFalse(Specification<?> specification) {
+        if (specification instanceof ConstantSpecification<?> constant) {
+            return !constant.isValue();
+        }
+        if (specification instanceof InSpecification<?> in) {
+            return in.getValues().isEmpty();
+        }
+        if (!(specification instanceof CompositeSpecification<?> composite) || composite.isEmpty()) {
+            return false;
+        }
+        for (Specification<?> child : composite.specifications) {
+            if (child instanceof CompositeSpecification<?> group && group.isEmpty()) {
+                continue;
+            }
+            if (alwaysFalse(child) == (composite.operator == AND)) {
+                return composite.operator == AND;
+            }
+        }
+        return composite.operator != AND;
+    }
+
+    private static boolean alwaysTrue(Specification<?> specification) {
+        if (specification instanceof ConstantSpecification<?> constant) {
+            return constant.isValue();
+        }
+        if (specification instanceof NotInSpecification<?> notIn) {
+            return notIn.getValues().isEmpty();
+        }
+        if (!(specification instanceof CompositeSpecification<?> composite)) {
+            return false;
+        }
+        if (composite.isEmpty()) {
+            return true;
+        }
+        for (Specification<?> child : composite.specifications) {
+            if (child instanceof CompositeSpecification<?> group && group.isEmpty()) {
+                continue;
+            }
+            if (alwaysTrue(child) != (composite.operator == AND)) {
+                return composite.operator != AND;
+            }
+        }
+        return composite.operator == AND;
+    }
+}
@@ -0,0 +1,53 @@
+package io.github.aurifolia.jpa.specification;
+
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.util.List;
+
+/**
+ * where 1 = 1, or where 1 = 0
+ * <p>a condition whose result is known without the database</p>
+ *
+ * @author Peng Dan
+ * @since 1.0
+ */
+@Getter
+@EqualsAndHashCode
+@RequiredArgsConstructor
+public class ConstantSpecification<T> implements InMemorySpecification<T>, JpqlSpecification<T> {
+    /**
+     * result of the condition
+     */
+    private final boolean value;
+
+    @Override
+    public Predicate toPredicate(Root<T> root, CriteriaQuery<?> query, CriteriaBuilder criteriaBuilder) {
+        return value ? criteriaBuilder.conjunction() : criteriaBuilder.disjunction();
+    }
+
+    @Override
+    public String getShape() {
+        return String.valueOf(value);
+    }
+
+    @Override
+    public void renderJpql(JpqlRenderer renderer) {
+        renderer.append(value ? "1 = 1" : "1 = 0");
+    }
+
+    @Override
+    public void collectParameters(List<Object> parameters) {
+        // no parameters
+    }
+
+    @Override
+    public java.util.function.Predicate<T> toInMemoryPredicate(Class<T> domainClass) {
+        return t -> value;
+    }
+}
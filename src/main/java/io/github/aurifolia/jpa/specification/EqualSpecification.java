@@ -1,11 +1,17 @@
 package io.github.aurifolia.jpa.specification;
 
+import io.github.aurifolia.jpa.support.AttributeAccessor;
+import io.github.aurifolia.jpa.support.Paths;
+import io.github.aurifolia.jpa.support.Values;
 import jakarta.persistence.criteria.CriteriaBuilder;
 import jakarta.persistence.criteria.CriteriaQuery;
 import jakarta.persistence.criteria.Predicate;
 import jakarta.persistence.criteria.Root;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
 import lombok.RequiredArgsConstructor;
-import org.springframework.data.jpa.domain.Specification;
+
+import java.util.List;
 
 /**
  * where {attributeName} = {value}
@@ -13,8 +19,10 @@ import org.springframework.data.jpa.domain.Specification;
  * @author Peng Dan
  * @since 1.0
  */
+@Getter
+@EqualsAndHashCode
 @RequiredArgsConstructor
-public class EqualSpecification<T> implements Specification<T> {
+public class EqualSpecification<T> implements InMemorySpecification<T>, JpqlSpecification<T> {
     /**
      * attribute name
      */
@@ -22,10 +30,35 @@ public class EqualSpecification<T> implements Specification<T> {
     /**
      * value
      */
+    @EqualsAndHashCode.Include
     private final transient Object value;
 
     @Override
     public Predicate toPredicate(Root<T> root, CriteriaQuery<?> query, CriteriaBuilder criteriaBuilder) {
-        return criteriaBuilder.equal(root.get(attributeName), value);
+        return criteriaBuilder.equal(Paths.get(root, attributeName), value);
+    }
+
+    @Override
+    public String getShape() {
+        return "equal(" + attributeName + ")";
+    }
+
+    @Override
+    public void renderJpql(JpqlRenderer renderer) {
+        renderer.path(attributeName).append(" = ").parameter();
+    }
+
+    @Override
+    public void collectParameters(List<Object> parameters) {
+        parameters.add(value);
+    }
+
+    @Override
+    public java.util.function.Predicate<T> toInMemoryPredicate(Class<T> domainClass) {
+        AttributeAccessor accessor = AttributeAccessor.of(domainClass, attributeName);
+        return t -> {
+            Object actual = accessor.get(t);
+            return actual != null && Values.equals(actual, value);
+        };
     }
 }
@@ -0,0 +1,182 @@
+package io.github.aurifolia.jpa.specification;
+
+import io.github.aurifolia.jpa.support.AttributeAccessor;
+import jakarta.persistence.OneToMany;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Subquery;
+import jakarta.persistence.metamodel.Attribute;
+import jakarta.persistence.metamodel.PluralAttribute;
+import jakarta.persistence.metamodel.Type;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.lang.reflect.AnnotatedElement;
+import java.lang.reflect.ParameterizedType;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * where exists (select 1 from {element of attributeName} c where c.{mappedBy} = root and {specification})
+ * <p>the specification is applied to the elements of a to-many association in a correlated subquery, so the root
+ * rows are not duplicated and no distinct is needed. If the association has no mappedBy, the subquery joins
+ * the association of the correlated root instead.</p>
+ * <p>As JPQL it renders exists (select 1 from e.{attributeName} e_{attributeName} where ...), in memory it matches
+ * if any element of the collection matches.</p>
+ *
+ * @author Peng Dan
+ * @since 1.0
+ */
+@Getter
+@EqualsAndHashCode
+@RequiredArgsConstructor
+public class ExistsSpecification<T> implements InMemorySpecification<T>, JpqlSpecification<T> {
+    /**
+     * attribute name of the to-many association
+     */
+    private final String attributeName;
+    /**
+     * conditions on the elements
+     */
+    private final Specification<?> specification;
+
+    @Override
+    public Predicate toPredicate(Root<T> root, CriteriaQuery<?> query, CriteriaBuilder criteriaBuilder) {
+        return criteriaBuilder.exists(subquery(root, query, criteriaBuilder, attributeName, specification));
+    }
+
+    @Override
+    public String getShape() {
+        return "exists(" + attributeName + "," + jpql(specification).getShape() + ")";
+    }
+
+    @Override
+    public void renderJpql(JpqlRenderer renderer) {
+        render(renderer, attributeName, specification);
+    }
+
+    @Override
+    public void collectParameters(List<Object> parameters) {
+        jpql(specification).collectParameters(parameters);
+    }
+
+    @Override
+    public java.util.function.Predicate<T> toInMemoryPredicate(Class<T> domainClass) {
+        return anyElement(domainClass, attributeName, specification);
+    }
+
+    /**
+     * create the correlated subquery of the elements matching the specification
+     */
+    @SuppressWarnings("unchecked")
+    static <T, C> Subquery<Integer> subquery(Root<T> root, CriteriaQuery<?> query, CriteriaBuilder criteriaBuilder,
+                                             String attributeName, Specification<?> specification) {
+        Attribute<? super T, ?> attribute = root.getModel().getAttribute(attributeName);
+        if (!(attribute instanceof PluralAttribute<?, ?, ?> plural) || plural.getElementType().getPersistenceType() != Type.PersistenceType.ENTITY) {
+            throw new IllegalArgumentException("Attribute [" + attributeName + "] of " + root.getJavaType().getName() + " is not a to-many association");
+        }
+        if (query == null) {
+            throw new IllegalArgumentException("Exists conditions need a CriteriaQuery, they are not supported in bulk statements");
+        }
+        Subquery<Integer> subquery = query.subquery(Integer.class);
+        Root<C> element = subquery.from((Class<C>) plural.getElementType().getJavaType());
+        String mappedBy = mappedBy(attribute);
+        Predicate correlation = mappedBy == null
+                ? criteriaBuilder.equal(subquery.correlate(root).join(attributeName), element)
+                : criteriaBuilder.equal(element.get(mappedBy), root);
+        Predicate predicate = ((Specification<C>) specification).toPredicate(element, query, criteriaBuilder);
+        subquery.select(criteriaBuilder.literal(1))
+                .where(predicate == null ? correlation : criteriaBuilder.and(correlation, predicate));
+        return subquery;
+    }
+
+    private static String mappedBy(Attribute<?, ?> attribute) {
+        if (attribute.getJavaMember() instanceof AnnotatedElement member) {
+            OneToMany oneToMany = member.getAnnotation(OneToMany.class);
+            if (oneToMany != null && !oneToMany.mappedBy().isEmpty()) {
+                return oneToMany.mappedBy();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * render exists (select 1 from e.{attributeName} e_{attributeName} where {specification})
+     */
+    static void render(JpqlRenderer renderer, String attributeName, Specification<?> specification) {
+        JpqlSpecification<?> elements = jpql(specification);
+        renderer.append("exists (select 1 from ").correlate(attributeName, subquery -> {
+            StringBuilder jpql = subquery.getJpql();
+            int length = jpql.append(" where ").length();
+            elements.renderJpql(subquery);
+            if (jpql.length() == length) {
+                jpql.setLength(length - " where ".length());
+            }
+        }).append(")");
+    }
+
+    /**
+     * compile into a predicate that matches if any element of the collection matches the specification,
+     * a null collection has no elements
+     */
+    @SuppressWarnings("unchecked")
+    static <T, C> java.util.function.Predicate<T> anyElement(Class<T> domainClass, String attributeName, Specification<?> specification) {
+        if (!(specification instanceof InMemorySpecification<?> inMemorySpecification)) {
+            throw new UnsupportedOperationException(specification.getClass().getName() + " cannot be evaluated in memory");
+        }
+        AttributeAccessor accessor = AttributeAccessor.of(domainClass, attributeName);
+        if (!Iterable.class.isAssignableFrom(accessor.getType())) {
+            throw new IllegalArgumentException("Attribute [" + attributeName + "] of " + domainClass.getName() + " is not a to-many association");
+        }
+        java.util.function.Predicate<C> predicate = ((InMemorySpecification<C>) inMemorySpecification)
+                .toInMemoryPredicate((Class<C>) elementType(domainClass, attributeName));
+        return t -> {
+            Iterable<C> elements = (Iterable<C>) accessor.get(t);
+            if (elements != null) {
+                for (C element : elements) {
+                    if (predicate.test(element)) {
+                        return true;
+                    }
+                }
+            }
+            return false;
+        };
+    }
+
+    static <C> JpqlSpecification<C> jpql(Specification<C> specification) {
+        if (specification instanceof JpqlSpecification<C> jpqlSpecification) {
+            return jpqlSpecification;
+        }
+        throw new UnsupportedOperationException(specification.getClass().getName() + " cannot be rendered as JPQL");
+    }
+
+    /**
+     * the type argument of the collection field or getter
+     */
+    private static Class<?> elementType(Class<?> domainClass, String attributeName) {
+        java.lang.reflect.Type type = null;
+        for (Class<?> declaring = domainClass; type == null && declaring != null && declaring != Object.class; declaring = declaring.getSuperclass()) {
+            try {
+                type = declaring.getDeclaredField(attributeName).getGenericType();
+            } catch (NoSuchFieldException ignored) {
+                // look up the superclass
+            }
+        }
+        if (type == null) {
+            try {
+                type = domainClass.getMethod("get" + Character.toUpperCase(attributeName.charAt(0)) + attributeName.substring(1)).getGenericReturnType();
+            } catch (NoSuchMethodException ignored) {
+                // not resolvable
+            }
+        }
+        if (type instanceof ParameterizedType parameterized && parameterized.getRawType() instanceof Class<?> raw
+                && Collection.class.isAssignableFrom(raw) && parameterized.getActualTypeArguments()[0] instanceof Class<?> element) {
+            return element;
+        }
+        throw new IllegalArgumentException("Unable to resolve the element type of [" + attributeName + "] on " + domainClass.getName());
+    }
+}
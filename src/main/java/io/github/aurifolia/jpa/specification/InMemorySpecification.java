@@ -0,0 +1,22 @@
+package io.github.aurifolia.jpa.specification;
+
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.function.Predicate;
+
+/**
+ * a Specification that can also be evaluated against domain objects held in memory
+ *
+ * @author Peng Dan
+ * @since 1.0
+ */
+public interface InMemorySpecification<T> extends Specification<T> {
+    /**
+     * compile into a predicate that evaluates the same condition as {@link #toPredicate} without a database,
+     * a row whose attribute is null never matches, just like SQL
+     *
+     * @param domainClass domain class
+     * @return Predicate
+     */
+    Predicate<T> toInMemoryPredicate(Class<T> domainClass);
+}
@@ -1,22 +1,35 @@
 package io.github.aurifolia.jpa.specification;
 
+import io.github.aurifolia.jpa.support.AttributeAccessor;
+import io.github.aurifolia.jpa.support.Paths;
+import io.github.aurifolia.jpa.support.Values;
 import jakarta.persistence.criteria.CriteriaBuilder;
 import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Path;
 import jakarta.persistence.criteria.Predicate;
 import jakarta.persistence.criteria.Root;
-import lombok.RequiredArgsConstructor;
-import org.springframework.data.jpa.domain.Specification;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
 
 import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
 
 /**
  * where {attributeName} in (values[0], values[1], ...)
+ * <p>if chunkSize is positive, the distinct values are split into groups of at most chunkSize values:</p>
+ * <p>where ({attributeName} in (...) or {attributeName} in (...) ...)</p>
+ * <p>if padding is true, every group is padded to a power of two by repeating its last value,
+ * so that lists of different sizes share a few statement shapes</p>
+ * <p>an empty values collection renders where 1 = 0</p>
  *
  * @author Peng Dan
  * @since 1.0
  */
-@RequiredArgsConstructor
-public class InSpecification<T> implements Specification<T> {
+@Getter
+@EqualsAndHashCode
+public class InSpecification<T> implements InMemorySpecification<T>, JpqlSpecification<T> {
     /**
      * attribute name
      */
@@ -25,9 +38,115 @@ public class InSpecification<T> implements Specification<T> {
      * values
      */
     private final Collection<?> values;
+    /**
+     * max number of values in one group, non-positive means no chunking
+     */
+    private final int chunkSize;
+    /**
+     * whether every group is padded to a power of two by repeating its last value
+     */
+    private final boolean padding;
+    /**
+     * value groups
+     */
+    @EqualsAndHashCode.Exclude
+    private final List<List<Object>> chunks;
+
+    /**
+     * constructor
+     *
+     * @param attributeName attribute name
+     * @param values        values
+     */
+    public InSpecification(String attributeName, Collection<?> values) {
+        this(attributeName, values, 0, false);
+    }
+
+    /**
+     * constructor
+     *
+     * @param attributeName attribute name
+     * @param values        values
+     * @param chunkSize     max number of values in one group, non-positive means no chunking
+     * @param padding       whether every group is padded to a power of two by repeating its last value
+     */
+    public InSpecification(String attributeName, Collection<?> values, int chunkSize, boolean padding) {
+        this.attributeName = attributeName;
+        this.values = values;
+        this.chunkSize = chunkSize;
+        this.padding = padding;
+        this.chunks = Chunks.split(values, chunkSize, padding);
+    }
 
     @Override
     public Predicate toPredicate(Root<T> root, CriteriaQuery<?> query, CriteriaBuilder criteriaBuilder) {
-        return root.get(attributeName).in(values);
+        if (values.isEmpty()) {
+            return criteriaBuilder.disjunction();
+        }
+        if (chunks == null) {
+            return Paths.get(root, attributeName).in(values);
+        }
+        Path<Object> path = Paths.get(root, attributeName);
+        if (chunks.size() == 1) {
+            return path.in(chunks.get(0));
+        }
+        Predicate[] predicates = new Predicate[chunks.size()];
+        for (int i = 0; i < predicates.length; i++) {
+            predicates[i] = path.in(chunks.get(i));
+        }
+        return criteriaBuilder.or(predicates);
+    }
+
+    @Override
+    public String getShape() {
+        if (values.isEmpty()) {
+            return "false";
+        }
+        return chunks == null ? "in(" + attributeName + ")" : "in(" + attributeName + ")[" + chunks.size() + "]";
+    }
+
+    @Override
+    public void renderJpql(JpqlRenderer renderer) {
+        if (values.isEmpty()) {
+            renderer.append("1 = 0");
+            return;
+        }
+        if (chunks == null || chunks.size() == 1) {
+            renderer.path(attributeName).append(" in ").parameter();
+            return;
+        }
+        renderer.append("(");
+        for (int i = 0; i < chunks.size(); i++) {
+            if (i > 0) {
+                renderer.append(" or ");
+            }
+            renderer.path(attributeName).append(" in ").parameter();
+        }
+        renderer.append(")");
+    }
+
+    @Override
+    public void collectParameters(List<Object> parameters) {
+        if (values.isEmpty()) {
+            return;
+        }
+        if (chunks == null) {
+            parameters.add(values);
+        } else {
+            parameters.addAll(chunks);
+        }
+    }
+
+    @Override
+    public java.util.function.Predicate<T> toInMemoryPredicate(Class<T> domainClass) {
+        AttributeAccessor accessor = AttributeAccessor.of(domainClass, attributeName);
+        Set<Object> candidates = new HashSet<>();
+        for (Object value : values) {
+            candidates.add(Values.normalize(value));
+        }
+        return t -> {
+            Object actual = accessor.get(t);
+            return actual != null && candidates.contains(Values.normalize(actual));
+        };
     }
 }
@@ -0,0 +1,96 @@
+package io.github.aurifolia.jpa.specification;
+
+import lombok.Getter;
+
+import java.util.function.Consumer;
+
+/**
+ * renders JPQL conditions, parameters are named p0, p1, ...
+ *
+ * @author Peng Dan
+ * @since 1.0
+ */
+public class JpqlRenderer {
+    /**
+     * parameter name prefix
+     */
+    public static final String PARAMETER_PREFIX = "p";
+    /**
+     * JPQL
+     */
+    @Getter
+    private final StringBuilder jpql;
+    /**
+     * alias of the entity the paths are rendered on, the element of a correlated subquery while it is rendered
+     */
+    private String alias;
+    /**
+     * number of declared parameters
+     */
+    @Getter
+    private int parameterCount;
+
+    /**
+     * constructor
+     *
+     * @param jpql  JPQL
+     * @param alias alias of the root entity
+     */
+    public JpqlRenderer(StringBuilder jpql, String alias) {
+        this.jpql = jpql;
+        this.alias = alias;
+    }
+
+    /**
+     * append the path of the attribute
+     *
+     * @param attributeName attribute name
+     * @return JpqlRenderer
+     */
+    public JpqlRenderer path(String attributeName) {
+        jpql.append(alias).append('.').append(attributeName);
+        return this;
+    }
+
+    /**
+     * append text
+     *
+     * @param text text
+     * @return JpqlRenderer
+     */
+    public JpqlRenderer append(String text) {
+        jpql.append(text);
+        return this;
+    }
+
+    /**
+     * declare the next parameter
+     *
+     * @return JpqlRenderer
+     */
+    public JpqlRenderer parameter() {
+        jpql.append(':').append(PARAMETER_PREFIX).append(parameterCount++);
+        return this;
+    }
+
+    /**
+     * append a to-many association of the current entity as the range of a correlated subquery,
+     * e.g. "e.employees e_employees", the paths rendered by the subquery refer to its elements
+     *
+     * @param attributeName attribute name of the to-many association
+     * @param subquery      renders the rest of the subquery
+     * @return JpqlRenderer
+     */
+    public JpqlRenderer correlate(String attributeName, Consumer<JpqlRenderer> subquery) {
+        String outer = alias;
+        String element = outer + '_' + attributeName;
+        jpql.append(outer).append('.').append(attributeName).append(' ').append(element);
+        alias = element;
+        try {
+            subquery.accept(this);
+        } finally {
+            alias = outer;
+        }
+        return this;
+    }
+}
@@ -0,0 +1,35 @@
+package io.github.aurifolia.jpa.specification;
+
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.List;
+
+/**
+ * a Specification that can be rendered as a JPQL template whose parameters are bound separately
+ *
+ * @author Peng Dan
+ * @since 1.0
+ */
+public interface JpqlSpecification<T> extends Specification<T> {
+    /**
+     * the shape of the condition: operators, attribute names and nesting, but not the values,
+     * conditions with the same shape render the same JPQL
+     *
+     * @return shape
+     */
+    String getShape();
+
+    /**
+     * render the condition as JPQL, every value is replaced by a parameter
+     *
+     * @param renderer JpqlRenderer
+     */
+    void renderJpql(JpqlRenderer renderer);
+
+    /**
+     * collect the parameter values in the same order as {@link #renderJpql(JpqlRenderer)} declares them
+     *
+     * @param parameters parameter values
+     */
+    void collectParameters(List<Object> parameters);
+}
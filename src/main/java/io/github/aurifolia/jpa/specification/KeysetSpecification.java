@@ -0,0 +1,130 @@
+package io.github.aurifolia.jpa.specification;
+
+import io.github.aurifolia.jpa.support.AttributeAccessor;
+import io.github.aurifolia.jpa.support.Paths;
+import io.github.aurifolia.jpa.support.Values;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import org.springframework.data.domain.Sort;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * where ({orders[0]} &gt; {values[0]}) or ({orders[0]} = {values[0]} and {orders[1]} &gt; {values[1]}) ...
+ * <p>rows after the given keyset in the given order, &lt; is used for descending orders. Sort properties may be
+ * association paths such as "department.name", see {@link Paths}</p>
+ *
+ * @author Peng Dan
+ * @since 1.0
+ */
+@Getter
+@EqualsAndHashCode
+public class KeysetSpecification<T> implements InMemorySpecification<T>, JpqlSpecification<T> {
+    /**
+     * sort orders, the last one should be unique, e.g. the ID
+     */
+    private final List<Sort.Order> orders;
+    /**
+     * values of the last row, one for each order
+     */
+    private final List<Object> values;
+
+    /**
+     * constructor
+     *
+     * @param sort   sort orders, the last one should be unique, e.g. the ID
+     * @param values values of the last row, one for each order
+     */
+    public KeysetSpecification(Sort sort, List<?> values) {
+        this.orders = sort.toList();
+        if (orders.isEmpty() || orders.size() != values.size()) {
+            throw new IllegalArgumentException("Expected " + orders.size() + " keyset values but got " + values.size());
+        }
+        for (Object value : values) {
+            if (value == null) {
+                throw new IllegalArgumentException("Keyset values must not be null");
+            }
+        }
+        this.values = List.copyOf(values);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Predicate toPredicate(Root<T> root, CriteriaQuery<?> query, CriteriaBuilder criteriaBuilder) {
+        Predicate[] predicates = new Predicate[orders.size()];
+        for (int i = 0; i < predicates.length; i++) {
+            Predicate[] restrictions = new Predicate[i + 1];
+            for (int j = 0; j < i; j++) {
+                restrictions[j] = criteriaBuilder.equal(Paths.get(root, orders.get(j).getProperty()), values.get(j));
+            }
+            Comparable<Object> value = (Comparable<Object>) values.get(i);
+            restrictions[i] = orders.get(i).isAscending()
+                    ? criteriaBuilder.greaterThan(Paths.<Comparable<Object>>get(root, orders.get(i).getProperty()), value)
+                    : criteriaBuilder.lessThan(Paths.<Comparable<Object>>get(root, orders.get(i).getProperty()), value);
+            predicates[i] = i == 0 ? restrictions[0] : criteriaBuilder.and(restrictions);
+        }
+        return predicates.length == 1 ? predicates[0] : criteriaBuilder.or(predicates);
+    }
+
+    @Override
+    public String getShape() {
+        StringBuilder shape = new StringBuilder("keyset(");
+        for (int i = 0; i < orders.size(); i++) {
+            if (i > 0) {
+                shape.append(',');
+            }
+            shape.append(orders.get(i).getProperty()).append(' ').append(orders.get(i).getDirection());
+        }
+        return shape.append(')').toString();
+    }
+
+    @Override
+    public void renderJpql(JpqlRenderer renderer) {
+        renderer.append("(");
+        for (int i = 0; i < orders.size(); i++) {
+            if (i > 0) {
+                renderer.append(" or ");
+            }
+            renderer.append("(");
+            for (int j = 0; j < i; j++) {
+                renderer.path(orders.get(j).getProperty()).append(" = ").parameter().append(" and ");
+            }
+            renderer.path(orders.get(i).getProperty()).append(orders.get(i).isAscending() ? " > " : " < ").parameter();
+            renderer.append(")");
+        }
+        renderer.append(")");
+    }
+
+    @Override
+    public void collectParameters(List<Object> parameters) {
+        for (int i = 0; i < orders.size(); i++) {
+            parameters.addAll(values.subList(0, i + 1));
+        }
+    }
+
+    @Override
+    public java.util.function.Predicate<T> toInMemoryPredicate(Class<T> domainClass) {
+        List<AttributeAccessor> accessors = new ArrayList<>(orders.size());
+        for (Sort.Order order : orders) {
+            accessors.add(AttributeAccessor.of(domainClass, order.getProperty()));
+        }
+        return t -> {
+            for (int i = 0; i < accessors.size(); i++) {
+                Object actual = accessors.get(i).get(t);
+                if (actual == null) {
+                    return false;
+                }
+                int comparison = Values.compare(actual, values.get(i));
+                if (comparison != 0) {
+                    return orders.get(i).isAscending() == comparison > 0;
+                }
+            }
+            return false;
+        };
+    }
+}
@@ -0,0 +1,59 @@
+package io.github.aurifolia.jpa.specification;
+
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.List;
+
+/**
+ * where not exists (select 1 from {element of attributeName} c where c.{mappedBy} = root and {specification})
+ * <p>in memory it matches if no element of the collection matches, a null collection included</p>
+ *
+ * @author Peng Dan
+ * @see ExistsSpecification
+ * @since 1.0
+ */
+@Getter
+@EqualsAndHashCode
+@RequiredArgsConstructor
+public class NotExistsSpecification<T> implements InMemorySpecification<T>, JpqlSpecification<T> {
+    /**
+     * attribute name of the to-many association
+     */
+    private final String attributeName;
+    /**
+     * conditions on the elements
+     */
+    private final Specification<?> specification;
+
+    @Override
+    public Predicate toPredicate(Root<T> root, CriteriaQuery<?> query, CriteriaBuilder criteriaBuilder) {
+        return criteriaBuilder.not(criteriaBuilder.exists(ExistsSpecification.subquery(root, query, criteriaBuilder, attributeName, specification)));
+    }
+
+    @Override
+    public String getShape() {
+        return "notExists(" + attributeName + "," + ExistsSpecification.jpql(specification).getShape() + ")";
+    }
+
+    @Override
+    public void renderJpql(JpqlRenderer renderer) {
+        ExistsSpecification.render(renderer.append("not "), attributeName, specification);
+    }
+
+    @Override
+    public void collectParameters(List<Object> parameters) {
+        ExistsSpecification.jpql(specification).collectParameters(parameters);
+    }
+
+    @Override
+    public java.util.function.Predicate<T> toInMemoryPredicate(Class<T> domainClass) {
+        return ExistsSpecification.anyElement(domainClass, attributeName, specification).negate();
+    }
+}
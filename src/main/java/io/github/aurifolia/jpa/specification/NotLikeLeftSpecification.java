@@ -1,20 +1,28 @@
 package io.github.aurifolia.jpa.specification;
 
+import io.github.aurifolia.jpa.support.AttributeAccessor;
+import io.github.aurifolia.jpa.support.LikePatterns;
+import io.github.aurifolia.jpa.support.Paths;
 import jakarta.persistence.criteria.CriteriaBuilder;
 import jakarta.persistence.criteria.CriteriaQuery;
 import jakarta.persistence.criteria.Predicate;
 import jakarta.persistence.criteria.Root;
-import lombok.RequiredArgsConstructor;
-import org.springframework.data.jpa.domain.Specification;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+
+import java.util.List;
+import java.util.regex.Pattern;
 
 /**
- * where {attributeName} not like '%{keyword}'
+ * where {attributeName} not like '%{keyword}' escape '\'
+ * <p>'%', '_' and '\' in the keyword are escaped, so they match literally</p>
  *
  * @author Peng Dan
  * @since 1.0
  */
-@RequiredArgsConstructor
-public class NotLikeLeftSpecification<T> implements Specification<T> {
+@Getter
+@EqualsAndHashCode
+public class NotLikeLeftSpecification<T> implements InMemorySpecification<T>, JpqlSpecification<T> {
     /**
      * pattern
      */
@@ -27,9 +35,51 @@ public class NotLikeLeftSpecification<T> implements Specification<T> {
      * keyword
      */
     private final String keyword;
+    /**
+     * escaped like pattern, computed once
+     */
+    @EqualsAndHashCode.Exclude
+    private final String pattern;
+
+    /**
+     * constructor
+     *
+     * @param attributeName attribute name
+     * @param keyword       keyword
+     */
+    public NotLikeLeftSpecification(String attributeName, String keyword) {
+        this.attributeName = attributeName;
+        this.keyword = keyword;
+        this.pattern = String.format(LIKE_PATTERN, LikePatterns.escape(keyword));
+    }
 
     @Override
     public Predicate toPredicate(Root<T> root, CriteriaQuery<?> query, CriteriaBuilder criteriaBuilder) {
-        return criteriaBuilder.notLike(root.get(attributeName), String.format(LIKE_PATTERN, keyword));
+        return criteriaBuilder.notLike(Paths.get(root, attributeName), pattern, LikePatterns.ESCAPE);
+    }
+
+    @Override
+    public String getShape() {
+        return "notLikeLeft(" + attributeName + ")";
+    }
+
+    @Override
+    public void renderJpql(JpqlRenderer renderer) {
+        renderer.path(attributeName).append(" not like ").parameter().append(LikePatterns.JPQL_ESCAPE);
+    }
+
+    @Override
+    public void collectParameters(List<Object> parameters) {
+        parameters.add(pattern);
+    }
+
+    @Override
+    public java.util.function.Predicate<T> toInMemoryPredicate(Class<T> domainClass) {
+        AttributeAccessor accessor = AttributeAccessor.of(domainClass, attributeName);
+        Pattern regex = LikePatterns.compile(pattern, LikePatterns.ESCAPE);
+        return t -> {
+            Object actual = accessor.get(t);
+            return actual != null && !regex.matcher(actual.toString()).matches();
+        };
     }
 }
@@ -0,0 +1,116 @@
+package io.github.aurifolia.jpa.specification;
+
+import io.github.aurifolia.jpa.support.AttributeAccessor;
+import io.github.aurifolia.jpa.support.LikePatterns;
+import io.github.aurifolia.jpa.support.Paths;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * where {attributeName} like '{prefix}%' rewritten into a range that a B-tree index can scan:
+ * <p>where ({attributeName} &gt;= '{prefix}' and {attributeName} &lt; '{upper bound}')</p>
+ * <p>if ignoreCase is true, lower({attributeName}) is compared with the lower case prefix, which can use
+ * a functional index on lower({attributeName})</p>
+ * The upper bound is computed by {@link LikePatterns#prefixUpperBound(String)}, so the range matches the same rows
+ * as the like only under a binary collation, e.g. "C" in PostgreSQL or utf8mb4_bin in MySQL.
+ *
+ * @author Peng Dan
+ * @since 1.0
+ */
+@Getter
+@EqualsAndHashCode
+public class PrefixRangeSpecification<T> implements InMemorySpecification<T>, JpqlSpecification<T> {
+    /**
+     * attribute name
+     */
+    private final String attributeName;
+    /**
+     * prefix, in lower case if ignoreCase is true
+     */
+    private final String prefix;
+    /**
+     * whether lower({attributeName}) is compared
+     */
+    private final boolean ignoreCase;
+    /**
+     * exclusive upper bound, null if there is none
+     */
+    @EqualsAndHashCode.Exclude
+    private final String upperBound;
+
+    /**
+     * constructor
+     *
+     * @param attributeName attribute name
+     * @param prefix        prefix
+     * @param ignoreCase    whether lower({attributeName}) is compared
+     */
+    public PrefixRangeSpecification(String attributeName, String prefix, boolean ignoreCase) {
+        this.attributeName = attributeName;
+        this.prefix = ignoreCase ? prefix.toLowerCase(Locale.ROOT) : prefix;
+        this.ignoreCase = ignoreCase;
+        this.upperBound = LikePatterns.prefixUpperBound(this.prefix);
+    }
+
+    @Override
+    public Predicate toPredicate(Root<T> root, CriteriaQuery<?> query, CriteriaBuilder criteriaBuilder) {
+        Expression<String> path = Paths.get(root, attributeName);
+        if (ignoreCase) {
+            path = criteriaBuilder.lower(path);
+        }
+        Predicate lower = criteriaBuilder.greaterThanOrEqualTo(path, prefix);
+        return upperBound == null ? lower : criteriaBuilder.and(lower, criteriaBuilder.lessThan(path, upperBound));
+    }
+
+    @Override
+    public String getShape() {
+        return (ignoreCase ? "prefixRangeIgnoreCase(" : "prefixRange(") + attributeName + (upperBound == null ? ",unbounded)" : ")");
+    }
+
+    @Override
+    public void renderJpql(JpqlRenderer renderer) {
+        if (upperBound == null) {
+            path(renderer).append(" >= ").parameter();
+            return;
+        }
+        renderer.append("(");
+        path(renderer).append(" >= ").parameter().append(" and ");
+        path(renderer).append(" < ").parameter().append(")");
+    }
+
+    @Override
+    public void collectParameters(List<Object> parameters) {
+        parameters.add(prefix);
+        if (upperBound != null) {
+            parameters.add(upperBound);
+        }
+    }
+
+    @Override
+    public java.util.function.Predicate<T> toInMemoryPredicate(Class<T> domainClass) {
+        AttributeAccessor accessor = AttributeAccessor.of(domainClass, attributeName);
+        return t -> {
+            Object actual = accessor.get(t);
+            if (actual == null) {
+                return false;
+            }
+            String value = ignoreCase ? actual.toString().toLowerCase(Locale.ROOT) : actual.toString();
+            return value.startsWith(prefix);
+        };
+    }
+
+    private JpqlRenderer path(JpqlRenderer renderer) {
+        if (ignoreCase) {
+            return renderer.append("lower(").path(attributeName).append(")");
+        }
+        return renderer.path(attributeName);
+    }
+}
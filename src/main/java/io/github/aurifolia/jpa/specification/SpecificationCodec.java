@@ -0,0 +1,880 @@
+package io.github.aurifolia.jpa.specification;
+
+import io.github.aurifolia.jpa.support.Json;
+import io.github.aurifolia.jpa.support.Values;
+import jakarta.persistence.criteria.Predicate;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+
+import static jakarta.persistence.criteria.Predicate.BooleanOperator.AND;
+import static jakarta.persistence.criteria.Predicate.BooleanOperator.OR;
+
+/**
+ * Writes the specification trees built by {@link io.github.aurifolia.jpa.SpecificationBuilder} as compact binary or
+ * JSON and reads them back into equal, executable specifications, e.g. to pass filters between services or to store
+ * them next to cached results. Only the specification classes of this package can be written, lambdas cannot.
+ * Values may be null, strings, booleans, numbers, characters, dates and times, UUIDs and enums; enums are read back
+ * by class name, other classes are never loaded.
+ * <p>JSON nodes are objects with an "op", e.g. {"op":"equal","attribute":"username","value":"Ross"}, groups have
+ * "specifications". Strings, booleans and longs are plain JSON values, the others are {"type":"date","value":"2024-01-01"}.
+ * The binary form starts with a version byte, numbers are variable length. Input nested deeper than
+ * {@value Json#MAX_DEPTH} levels is rejected.</p>
+ *
+ * @author Peng Dan
+ * @since 1.0
+ */
+public final class SpecificationCodec {
+    /**
+     * version of the binary form
+     */
+    private static final int VERSION = 1;
+    /**
+     * max nesting depth of the binary form, groups and exists included
+     */
+    private static final int MAX_DEPTH = Json.MAX_DEPTH;
+
+    private SpecificationCodec() {
+    }
+
+    /**
+     * write the specification as binary
+     *
+     * @param specification specification
+     * @return binary form
+     */
+    public static byte[] toBinary(Specification<?> specification) {
+        Output output = new Output();
+        output.writeByte(VERSION);
+        write(output, specification, false);
+        return output.toByteArray();
+    }
+
+    /**
+     * read the binary form
+     *
+     * @param binary binary form
+     * @param <T>    domain type
+     * @return specification
+     */
+    public static <T> Specification<T> fromBinary(byte[] binary) {
+        Input input = new Input(binary);
+        int version = input.readByte();
+        if (version != VERSION) {
+            throw new IllegalArgumentException("Unsupported binary version " + version);
+        }
+        Specification<T> specification = read(input, 1);
+        if (input.position != binary.length) {
+            throw new IllegalArgumentException("Unexpected trailing bytes");
+        }
+        return specification;
+    }
+
+    /**
+     * write the specification as JSON
+     *
+     * @param specification specification
+     * @return JSON text
+     */
+    public static String toJson(Specification<?> specification) {
+        StringBuilder json = new StringBuilder();
+        writeJson(json, specification);
+        return json.toString();
+    }
+
+    /**
+     * read the JSON form
+     *
+     * @param json JSON text
+     * @param <T>  domain type
+     * @return specification
+     */
+    public static <T> Specification<T> fromJson(String json) {
+        return readJson(Json.parse(json));
+    }
+
+    /**
+     * write the canonical binary form: children of groups and in values are sorted, duplicate in values are removed,
+     * in chunking is left out and integral numbers are widened, so that equivalent trees are written the same way
+     *
+     * @param specification specification
+     * @return canonical binary form
+     */
+    static byte[] toCanonicalBinary(Specification<?> specification) {
+        Output output = new Output();
+        output.writeByte(VERSION);
+        write(output, specification, true);
+        return output.toByteArray();
+    }
+
+    private static void write(Output output, Specification<?> specification, boolean canonical) {
+        Kind kind = Kind.of(specification);
+        output.writeByte(kind.ordinal());
+        switch (kind) {
+            case AND, OR -> {
+                List<? extends Specification<?>> children = ((CompositeSpecification<?>) specification).getSpecifications();
+                output.writeVarLong(children.size());
+                if (canonical) {
+                    byte[][] encoded = new byte[children.size()][];
+                    for (int i = 0; i < encoded.length; i++) {
+                        Output child = new Output();
+                        write(child, children.get(i), true);
+                        encoded[i] = child.toByteArray();
+                    }
+                    Arrays.sort(encoded, Arrays::compareUnsigned);
+                    for (byte[] child : encoded) {
+                        output.writeBytes(child, child.length);
+                    }
+                } else {
+                    for (Specification<?> child : children) {
+                        write(output, child, false);
+                    }
+                }
+            }
+            case CONSTANT -> output.writeByte(((ConstantSpecification<?>) specification).isValue() ? 1 : 0);
+            case EQUAL -> writeCondition(output, ((EqualSpecification<?>) specification).getAttributeName(),
+                    ((EqualSpecification<?>) specification).getValue(), canonical);
+            case NOT_EQUAL -> writeCondition(output, ((NotEqualSpecification<?>) specification).getAttributeName(),
+                    ((NotEqualSpecification<?>) specification).getValue(), canonical);
+            case GREATER_THAN -> writeCondition(output, ((GreaterThanSpecification<?>) specification).getAttributeName(),
+                    ((GreaterThanSpecification<?>) specification).getValue(), canonical);
+            case GREATER_THAN_OR_EQUAL -> writeCondition(output, ((GreaterThanOrEqualSpecification<?>) specification).getAttributeName(),
+                    ((GreaterThanOrEqualSpecification<?>) specification).getValue(), canonical);
+            case LESS_THAN -> writeCondition(output, ((LessThanSpecification<?>) specification).getAttributeName(),
+                    ((LessThanSpecification<?>) specification).getValue(), canonical);
+            case LESS_THAN_OR_EQUAL -> writeCondition(output, ((LessThanOrEqualSpecification<?>) specification).getAttributeName(),
+                    ((LessThanOrEqualSpecification<?>) specification).getValue(), canonical);
+            case BETWEEN -> {
+                BetweenSpecification<?> between = (BetweenSpecification<?>) specification;
+                writeCondition(output, between.getAttributeName(), between.getLower(), canonical);
+                writeValue(output, between.getUpper(), canonical);
+            }
+            case LIKE, LIKE_LEFT, LIKE_RIGHT, NOT_LIKE, NOT_LIKE_LEFT, NOT_LIKE_RIGHT -> {
+                output.writeString(attributeName(specification));
+                output.writeString(keyword(specification));
+            }
+            case IN -> writeIn(output, ((InSpecification<?>) specification).getAttributeName(), ((InSpecification<?>) specification).getValues(),
+                    ((InSpecification<?>) specification).getChunkSize(), ((InSpecification<?>) specification).isPadding(), canonical);
+            case NOT_IN -> writeIn(output, ((NotInSpecification<?>) specification).getAttributeName(), ((NotInSpecification<?>) specification).getValues(),
+                    ((NotInSpecification<?>) specification).getChunkSize(), ((NotInSpecification<?>) specification).isPadding(), canonical);
+            case IS_NULL, IS_NOT_NULL -> output.writeString(attributeName(specification));
+            case PREFIX_RANGE -> {
+                PrefixRangeSpecification<?> prefixRange = (PrefixRangeSpecification<?>) specification;
+                output.writeString(prefixRange.getAttributeName());
+                output.writeString(prefixRange.getPrefix());
+                output.writeByte(prefixRange.isIgnoreCase() ? 1 : 0);
+            }
+            case KEYSET -> {
+                KeysetSpecification<?> keyset = (KeysetSpecification<?>) specification;
+                output.writeVarLong(keyset.getOrders().size());
+                for (int i = 0; i < keyset.getOrders().size(); i++) {
+                    output.writeString(keyset.getOrders().get(i).getProperty());
+                    output.writeByte(keyset.getOrders().get(i).isAscending() ? 0 : 1);
+                    writeValue(output, keyset.getValues().get(i), canonical);
+                }
+            }
+            case EXISTS -> {
+                output.writeString(((ExistsSpecification<?>) specification).getAttributeName());
+                write(output, ((ExistsSpecification<?>) specification).getSpecification(), canonical);
+            }
+            case NOT_EXISTS -> {
+                output.writeString(((NotExistsSpecification<?>) specification).getAttributeName());
+                write(output, ((NotExistsSpecification<?>) specification).getSpecification(), canonical);
+            }
+        }
+    }
+
+    private static void writeCondition(Output output, String attributeName, Object value, boolean canonical) {
+        output.writeString(attributeName);
+        writeValue(output, value, canonical);
+    }
+
+    private static void writeIn(Output output, String attributeName, Collection<?> values, int chunkSize, boolean padding, boolean canonical) {
+        output.writeString(attributeName);
+        if (!canonical) {
+            output.writeZigZag(chunkSize);
+            output.writeByte(padding ? 1 : 0);
+            output.writeVarLong(values.size());
+            for (Object value : values) {
+                writeValue(output, value, false);
+            }
+            return;
+        }
+        output.writeZigZag(0);
+        output.writeByte(0);
+        long[] numbers = integral(values);
+        if (numbers != null) {
+            // the common case of ids, sorted by value without encoding every value on its own
+            Arrays.sort(numbers);
+            int distinct = 0;
+            for (int i = 0; i < numbers.length; i++) {
+                if (i == 0 || numbers[i] != numbers[i - 1]) {
+                    numbers[distinct++] = numbers[i];
+                }
+            }
+            output.writeVarLong(distinct);
+            for (int i = 0; i < distinct; i++) {
+                output.writeByte(ValueType.LONG.ordinal());
+                output.writeZigZag(numbers[i]);
+            }
+            return;
+        }
+        List<byte[]> encoded = new ArrayList<>(values.size());
+        for (Object value : new LinkedHashSet<>(values)) {
+            Output element = new Output();
+            writeValue(element, value, true);
+            encoded.add(element.toByteArray());
+        }
+        encoded.sort(Arrays::compareUnsigned);
+        byte[] previous = null;
+        List<byte[]> distinct = new ArrayList<>(encoded.size());
+        for (byte[] element : encoded) {
+            // 1 and 1L are the same value once widened
+            if (previous == null || !Arrays.equals(previous, element)) {
+                distinct.add(element);
+            }
+            previous = element;
+        }
+        output.writeVarLong(distinct.size());
+        for (byte[] element : distinct) {
+            output.writeBytes(element, element.length);
+        }
+    }
+
+    /**
+     * the values as longs, null if any of them is not an integral number
+     */
+    private static long[] integral(Collection<?> values) {
+        long[] numbers = new long[values.size()];
+        int i = 0;
+        for (Object value : values) {
+            if (!(value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte)) {
+                return null;
+            }
+            numbers[i++] = ((Number) value).longValue();
+        }
+        return numbers;
+    }
+
+    private static void writeValue(Output output, Object value, boolean canonical) {
+        if (canonical) {
+            value = Values.normalize(value);
+        }
+        ValueType type = ValueType.of(value);
+        output.writeByte(type.ordinal());
+        switch (type) {
+            case NULL -> {
+            }
+            case BOOLEAN -> output.writeByte((Boolean) value ? 1 : 0);
+            case LONG, INTEGER, SHORT, BYTE -> output.writeZigZag(((Number) value).longValue());
+            case DOUBLE -> output.writeFixed(Double.doubleToLongBits((Double) value), 8);
+            case FLOAT -> output.writeFixed(Float.floatToIntBits((Float) value), 4);
+            case CHARACTER -> output.writeVarLong((Character) value);
+            case LOCAL_DATE -> output.writeZigZag(((LocalDate) value).toEpochDay());
+            case DATE -> output.writeZigZag(((Date) value).getTime());
+            case ENUM -> {
+                output.writeString(((Enum<?>) value).getDeclaringClass().getName());
+                output.writeString(((Enum<?>) value).name());
+            }
+            default -> output.writeString(type.format(value));
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> Specification<T> read(Input input, int depth) {
+        if (depth > MAX_DEPTH) {
+            throw new IllegalArgumentException("Specification is nested deeper than " + MAX_DEPTH + " levels");
+        }
+        Kind kind = Kind.of(input.readByte());
+        switch (kind) {
+            case AND, OR -> {
+                int size = input.readSize();
+                List<Specification<T>> children = new ArrayList<>(size);
+                for (int i = 0; i < size; i++) {
+                    children.add(read(input, depth + 1));
+                }
+                return new CompositeSpecification<>(kind == Kind.AND ? AND : OR, children);
+            }
+            case CONSTANT -> {
+                return new ConstantSpecification<>(input.readByte() != 0);
+            }
+            case BETWEEN -> {
+                String attributeName = input.readString();
+                Object lower = readValue(input);
+                return kind.create(attributeName, lower, readValue(input));
+            }
+            case LIKE, LIKE_LEFT, LIKE_RIGHT, NOT_LIKE, NOT_LIKE_LEFT, NOT_LIKE_RIGHT -> {
+                String attributeName = input.readString();
+                return kind.create(attributeName, input.readString(), null);
+            }
+            case IN, NOT_IN -> {
+                String attributeName = input.readString();
+                int chunkSize = (int) input.readZigZag();
+                boolean padding = input.readByte() != 0;
+                int size = input.readSize();
+                List<Object> values = new ArrayList<>(size);
+                for (int i = 0; i < size; i++) {
+                    values.add(readValue(input));
+                }
+                return kind == Kind.IN
+                        ? new InSpecification<>(attributeName, values, chunkSize, padding)
+                        : new NotInSpecification<>(attributeName, values, chunkSize, padding);
+            }
+            case IS_NULL, IS_NOT_NULL -> {
+                return kind.create(input.readString(), null, null);
+            }
+            case PREFIX_RANGE -> {
+                String attributeName = input.readString();
+                String prefix = input.readString();
+                return new PrefixRangeSpecification<>(attributeName, prefix, input.readByte() != 0);
+            }
+            case KEYSET -> {
+                int size = input.readSize();
+                List<Sort.Order> orders = new ArrayList<>(size);
+                List<Object> values = new ArrayList<>(size);
+                for (int i = 0; i < size; i++) {
+                    String property = input.readString();
+                    orders.add(input.readByte() == 0 ? Sort.Order.asc(property) : Sort.Order.desc(property));
+                    values.add(readValue(input));
+                }
+                return new KeysetSpecification<>(Sort.by(orders), values);
+            }
+            case EXISTS, NOT_EXISTS -> {
+                String attributeName = input.readString();
+                Specification<Object> elements = read(input, depth + 1);
+                return kind == Kind.EXISTS
+                        ? new ExistsSpecification<>(attributeName, elements)
+                        : new NotExistsSpecification<>(attributeName, elements);
+            }
+            default -> {
+                String attributeName = input.readString();
+                return kind.create(attributeName, readValue(input), null);
+            }
+        }
+    }
+
+    private static Object readValue(Input input) {
+        ValueType type = ValueType.of(input.readByte());
+        return switch (type) {
+            case NULL -> null;
+            case BOOLEAN -> input.readByte() != 0;
+            case LONG -> input.readZigZag();
+            case INTEGER -> (int) input.readZigZag();
+            case SHORT -> (short) input.readZigZag();
+            case BYTE -> (byte) input.readZigZag();
+            case DOUBLE -> Double.longBitsToDouble(input.readFixed(8));
+            case FLOAT -> Float.intBitsToFloat((int) input.readFixed(4));
+            case CHARACTER -> (char) input.readVarLong();
+            case LOCAL_DATE -> LocalDate.ofEpochDay(input.readZigZag());
+            case DATE -> new Date(input.readZigZag());
+            case ENUM -> {
+                String className = input.readString();
+                yield ValueType.enumConstant(className, input.readString());
+            }
+            default -> type.parse(input.readString());
+        };
+    }
+
+    private static void writeJson(StringBuilder json, Specification<?> specification) {
+        Kind kind = Kind.of(specification);
+        json.append("{\"op\":\"").append(kind.op).append('"');
+        switch (kind) {
+            case AND, OR -> {
+                json.append(",\"specifications\":[");
+                List<? extends Specification<?>> children = ((CompositeSpecification<?>) specification).getSpecifications();
+                for (int i = 0; i < children.size(); i++) {
+                    if (i > 0) {
+                        json.append(',');
+                    }
+                    writeJson(json, children.get(i));
+                }
+                json.append(']');
+            }
+            case CONSTANT -> json.append(",\"value\":").append(((ConstantSpecification<?>) specification).isValue());
+            case EQUAL -> writeJsonCondition(json, attributeName(specification), ((EqualSpecification<?>) specification).getValue());
+            case NOT_EQUAL -> writeJsonCondition(json, attributeName(specification), ((NotEqualSpecification<?>) specification).getValue());
+            case GREATER_THAN -> writeJsonCondition(json, attributeName(specification), ((GreaterThanSpecification<?>) specification).getValue());
+            case GREATER_THAN_OR_EQUAL -> writeJsonCondition(json, attributeName(specification), ((GreaterThanOrEqualSpecification<?>) specification).getValue());
+            case LESS_THAN -> writeJsonCondition(json, attributeName(specification), ((LessThanSpecification<?>) specification).getValue());
+            case LESS_THAN_OR_EQUAL -> writeJsonCondition(json, attributeName(specification), ((LessThanOrEqualSpecification<?>) specification).getValue());
+            case BETWEEN -> {
+                BetweenSpecification<?> between = (BetweenSpecification<?>) specification;
+                writeJsonAttribute(json, between.getAttributeName());
+                json.append(",\"lower\":");
+                writeJsonValue(json, between.getLower());
+                json.append(",\"upper\":");
+                writeJsonValue(json, between.getUpper());
+            }
+            case LIKE, LIKE_LEFT, LIKE_RIGHT, NOT_LIKE, NOT_LIKE_LEFT, NOT_LIKE_RIGHT -> {
+                writeJsonAttribute(json, attributeName(specification));
+                json.append(",\"keyword\":");
+                Json.quote(json, keyword(specification));
+            }
+            case IN -> writeJsonIn(json, ((InSpecification<?>) specification).getAttributeName(), ((InSpecification<?>) specification).getValues(),
+                    ((InSpecification<?>) specification).getChunkSize(), ((InSpecification<?>) specification).isPadding());
+            case NOT_IN -> writeJsonIn(json, ((NotInSpecification<?>) specification).getAttributeName(), ((NotInSpecification<?>) specification).getValues(),
+                    ((NotInSpecification<?>) specification).getChunkSize(), ((NotInSpecification<?>) specification).isPadding());
+            case IS_NULL, IS_NOT_NULL -> writeJsonAttribute(json, attributeName(specification));
+            case PREFIX_RANGE -> {
+                PrefixRangeSpecification<?> prefixRange = (PrefixRangeSpecification<?>) specification;
+                writeJsonAttribute(json, prefixRange.getAttributeName());
+                json.append(",\"prefix\":");
+                Json.quote(json, prefixRange.getPrefix());
+                json.append(",\"ignoreCase\":").append(prefixRange.isIgnoreCase());
+            }
+            case KEYSET -> {
+                KeysetSpecification<?> keyset = (KeysetSpecification<?>) specification;
+                json.append(",\"orders\":[");
+                for (int i = 0; i < keyset.getOrders().size(); i++) {
+                    if (i > 0) {
+                        json.append(',');
+                    }
+                    json.append("{\"property\":");
+                    Json.quote(json, keyset.getOrders().get(i).getProperty());
+                    json.append(",\"direction\":\"").append(keyset.getOrders().get(i).getDirection()).append("\",\"value\":");
+                    writeJsonValue(json, keyset.getValues().get(i));
+                    json.append('}');
+                }
+                json.append(']');
+            }
+            case EXISTS -> {
+                writeJsonAttribute(json, ((ExistsSpecification<?>) specification).getAttributeName());
+                json.append(",\"specification\":");
+                writeJson(json, ((ExistsSpecification<?>) specification).getSpecification());
+            }
+            case NOT_EXISTS -> {
+                writeJsonAttribute(json, ((NotExistsSpecification<?>) specification).getAttributeName());
+                json.append(",\"specification\":");
+                writeJson(json, ((NotExistsSpecification<?>) specification).getSpecification());
+            }
+        }
+        json.append('}');
+    }
+
+    private static void writeJsonAttribute(StringBuilder json, String attributeName) {
+        json.append(",\"attribute\":");
+        Json.quote(json, attributeName);
+    }
+
+    private static void writeJsonCondition(StringBuilder json, String attributeName, Object value) {
+        writeJsonAttribute(json, attributeName);
+        json.append(",\"value\":");
+        writeJsonValue(json, value);
+    }
+
+    private static void writeJsonIn(StringBuilder json, String attributeName, Collection<?> values, int chunkSize, boolean padding) {
+        writeJsonAttribute(json, attributeName);
+        json.append(",\"values\":[");
+        boolean first = true;
+        for (Object value : values) {
+            if (!first) {
+                json.append(',');
+            }
+            first = false;
+            writeJsonValue(json, value);
+        }
+        json.append(']');
+        if (chunkSize != 0 || padding) {
+            json.append(",\"chunkSize\":").append(chunkSize).append(",\"padding\":").append(padding);
+        }
+    }
+
+    private static void writeJsonValue(StringBuilder json, Object value) {
+        ValueType type = ValueType.of(value);
+        switch (type) {
+            case NULL -> json.append("null");
+            case STRING -> Json.quote(json, (String) value);
+            case BOOLEAN, LONG -> json.append(value);
+            default -> {
+                json.append("{\"type\":\"").append(type.typeName).append('"');
+                if (type == ValueType.ENUM) {
+                    json.append(",\"class\":");
+                    Json.quote(json, ((Enum<?>) value).getDeclaringClass().getName());
+                }
+                json.append(",\"value\":");
+                Json.quote(json, type.format(value));
+                json.append('}');
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> Specification<T> readJson(Object node) {
+        if (!(node instanceof Map<?, ?> object)) {
+            throw new IllegalArgumentException("Expected a specification object but got " + node);
+        }
+        Kind kind = Kind.of((String) object.get("op"));
+        switch (kind) {
+            case AND, OR -> {
+                List<Specification<T>> children = new ArrayList<>();
+                for (Object child : list(object, "specifications")) {
+                    children.add(readJson(child));
+                }
+                return new CompositeSpecification<>(kind == Kind.AND ? AND : OR, children);
+            }
+            case CONSTANT -> {
+                return new ConstantSpecification<>(Boolean.TRUE.equals(object.get("value")));
+            }
+            case BETWEEN -> {
+                return kind.create(string(object, "attribute"), readJsonValue(object.get("lower")), readJsonValue(object.get("upper")));
+            }
+            case LIKE, LIKE_LEFT, LIKE_RIGHT, NOT_LIKE, NOT_LIKE_LEFT, NOT_LIKE_RIGHT -> {
+                return kind.create(string(object, "attribute"), string(object, "keyword"), null);
+            }
+            case IN, NOT_IN -> {
+                List<Object> values = new ArrayList<>();
+                for (Object value : list(object, "values")) {
+                    values.add(readJsonValue(value));
+                }
+                int chunkSize = object.get("chunkSize") instanceof Number number ? number.intValue() : 0;
+                boolean padding = Boolean.TRUE.equals(object.get("padding"));
+                return kind == Kind.IN
+                        ? new InSpecification<>(string(object, "attribute"), values, chunkSize, padding)
+                        : new NotInSpecification<>(string(object, "attribute"), values, chunkSize, padding);
+            }
+            case IS_NULL, IS_NOT_NULL -> {
+                return kind.create(string(object, "attribute"), null, null);
+            }
+            case PREFIX_RANGE -> {
+                return new PrefixRangeSpecification<>(string(object, "attribute"), string(object, "prefix"),
+                        Boolean.TRUE.equals(object.get("ignoreCase")));
+            }
+            case KEYSET -> {
+                List<Sort.Order> orders = new ArrayList<>();
+                List<Object> values = new ArrayList<>();
+                for (Object order : list(object, "orders")) {
+                    Map<?, ?> map = (Map<?, ?>) order;
+                    orders.add(new Sort.Order(Sort.Direction.fromString(string(map, "direction")), string(map, "property")));
+                    values.add(readJsonValue(map.get("value")));
+                }
+                return new KeysetSpecification<>(Sort.by(orders), values);
+            }
+            case EXISTS, NOT_EXISTS -> {
+                Specification<Object> elements = readJson(object.get("specification"));
+                return kind == Kind.EXISTS
+                        ? new ExistsSpecification<>(string(object, "attribute"), elements)
+                        : new NotExistsSpecification<>(string(object, "attribute"), elements);
+            }
+            default -> {
+                return kind.create(string(object, "attribute"), readJsonValue(object.get("value")), null);
+            }
+        }
+    }
+
+    private static Object readJsonValue(Object value) {
+        if (!(value instanceof Map<?, ?> typed)) {
+            // null, string, boolean, long or a hand written double
+            return value;
+        }
+        ValueType type = ValueType.of(string(typed, "type"));
+        return type == ValueType.ENUM
+                ? ValueType.enumConstant(string(typed, "class"), string(typed, "value"))
+                : type.parse(string(typed, "value"));
+    }
+
+    private static String string(Map<?, ?> object, String name) {
+        if (!(object.get(name) instanceof String value)) {
+            throw new IllegalArgumentException("Expected a string " + name + " in " + object);
+        }
+        return value;
+    }
+
+    private static List<?> list(Map<?, ?> object, String name) {
+        if (!(object.get(name) instanceof List<?> value)) {
+            throw new IllegalArgumentException("Expected an array " + name + " in " + object);
+        }
+        return value;
+    }
+
+    private static String attributeName(Specification<?> specification) {
+        if (specification instanceof EqualSpecification<?> s) {
+            return s.getAttributeName();
+        } else if (specification instanceof NotEqualSpecification<?> s) {
+            return s.getAttributeName();
+        } else if (specification instanceof GreaterThanSpecification<?> s) {
+            return s.getAttributeName();
+        } else if (specification instanceof GreaterThanOrEqualSpecification<?> s) {
+            return s.getAttributeName();
+        } else if (specification instanceof LessThanSpecification<?> s) {
+            return s.getAttributeName();
+        } else if (specification instanceof LessThanOrEqualSpecification<?> s) {
+            return s.getAttributeName();
+        } else if (specification instanceof LikeSpecification<?> s) {
+            return s.getAttributeName();
+        } else if (specification instanceof LikeLeftSpecification<?> s) {
+            return s.getAttributeName();
+        } else if (specification instanceof LikeRightSpecification<?> s) {
+            return s.getAttributeName();
+        } else if (specification instanceof NotLikeSpecification<?> s) {
+            return s.getAttributeName();
+        } else if (specification instanceof NotLikeLeftSpecification<?> s) {
+            return s.getAttributeName();
+        } else if (specification instanceof NotLikeRightSpecification<?> s) {
+            return s.getAttributeName();
+        } else if (specification instanceof NullSpecification<?> s) {
+            return s.getAttributeName();
+        } else if (specification instanceof NotNullSpecification<?> s) {
+            return s.getAttributeName();
+        }
+        throw new IllegalArgumentException(specification.getClass().getName() + " has no attribute name");
+    }
+
+    private static String keyword(Specification<?> specification) {
+        if (specification instanceof LikeSpecification<?> s) {
+            return s.getKeyword();
+        } else if (specification instanceof LikeLeftSpecification<?> s) {
+            return s.getKeyword();
+        } else if (specification instanceof LikeRightSpecification<?> s) {
+            return s.getKeyword();
+        } else if (specification instanceof NotLikeSpecification<?> s) {
+            return s.getKeyword();
+        } else if (specification instanceof NotLikeLeftSpecification<?> s) {
+            return s.getKeyword();
+        } else if (specification instanceof NotLikeRightSpecification<?> s) {
+            return s.getKeyword();
+        }
+        throw new IllegalArgumentException(specification.getClass().getName() + " has no keyword");
+    }
+
+    /**
+     * node kinds, the ordinal is the binary tag and must not change
+     */
+    private enum Kind {
+        AND(null, "and"),
+        OR(null, "or"),
+        CONSTANT(ConstantSpecification.class, "constant"),
+        EQUAL(EqualSpecification.class, "equal"),
+        NOT_EQUAL(NotEqualSpecification.class, "notEqual"),
+        GREATER_THAN(GreaterThanSpecification.class, "greaterThan"),
+        GREATER_THAN_OR_EQUAL(GreaterThanOrEqualSpecification.class, "greaterThanOrEqual"),
+        LESS_THAN(LessThanSpecification.class, "lessThan"),
+        LESS_THAN_OR_EQUAL(LessThanOrEqualSpecification.class, "lessThanOrEqual"),
+        BETWEEN(BetweenSpecification.class, "between"),
+        LIKE(LikeSpecification.class, "like"),
+        LIKE_LEFT(LikeLeftSpecification.class, "likeLeft"),
+        LIKE_RIGHT(LikeRightSpecification.class, "likeRight"),
+        NOT_LIKE(NotLikeSpecification.class, "notLike"),
+        NOT_LIKE_LEFT(NotLikeLeftSpecification.class, "notLikeLeft"),
+        NOT_LIKE_RIGHT(NotLikeRightSpecification.class, "notLikeRight"),
+        IN(InSpecification.class, "in"),
+        NOT_IN(NotInSpecification.class, "notIn"),
+        IS_NULL(NullSpecification.class, "isNull"),
+        IS_NOT_NULL(NotNullSpecification.class, "isNotNull"),
+        PREFIX_RANGE(PrefixRangeSpecification.class, "prefixRange"),
+        KEYSET(KeysetSpecification.class, "keyset"),
+        EXISTS(ExistsSpecification.class, "exists"),
+        NOT_EXISTS(NotExistsSpecification.class, "notExists");
+
+        /**
+         * kind of each class
+         */
+        private static final Map<Class<?>, Kind> TYPES = new HashMap<>();
+        /**
+         * kind of each op
+         */
+        private static final Map<String, Kind> OPS = new HashMap<>();
+        /**
+         * all kinds by ordinal
+         */
+        private static final Kind[] VALUES = values();
+
+        static {
+            for (Kind kind : VALUES) {
+                if (kind.type != null) {
+                    TYPES.put(kind.type, kind);
+                }
+                OPS.put(kind.op, kind);
+            }
+        }
+
+        /**
+         * specification class
+         */
+        private final Class<?> type;
+        /**
+         * op in JSON
+         */
+        private final String op;
+
+        Kind(Class<?> type, String op) {
+            this.type = type;
+            this.op = op;
+        }
+
+        static Kind of(Specification<?> specification) {
+            if (specification instanceof CompositeSpecification<?> composite) {
+                return composite.getOperator() == Predicate.BooleanOperator.AND ? AND : OR;
+            }
+            Kind kind = specification == null ? null : TYPES.get(specification.getClass());
+            if (kind == null) {
+                throw new IllegalArgumentException((specification == null ? "null" : specification.getClass().getName())
+                        + " is not serializable, only the specifications built by SpecificationBuilder are");
+            }
+            return kind;
+        }
+
+        static Kind of(int tag) {
+            if (tag < 0 || tag >= VALUES.length) {
+                throw new IllegalArgumentException("Unknown specification tag " + tag);
+            }
+            return VALUES[tag];
+        }
+
+        static Kind of(String op) {
+            Kind kind = op == null ? null : OPS.get(op);
+            if (kind == null) {
+                throw new IllegalArgumentException("Unknown specification op " + op);
+            }
+            return kind;
+        }
+
+        /**
+         * create a condition on an attribute
+         */
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        <T> Specification<T> create(String attributeName, Object value, Object upper) {
+            return switch (this) {
+                case EQUAL -> new EqualSpecification<>(attributeName, value);
+                case NOT_EQUAL -> new NotEqualSpecification<>(attributeName, value);
+                case GREATER_THAN -> new GreaterThanSpecification<>(attributeName, (Comparable) value);
+                case GREATER_THAN_OR_EQUAL -> new GreaterThanOrEqualSpecification<>(attributeName, (Comparable) value);
+                case LESS_THAN -> new LessThanSpecification<>(attributeName, (Comparable) value);
+                case LESS_THAN_OR_EQUAL -> new LessThanOrEqualSpecification<>(attributeName, (Comparable) value);
+                case BETWEEN -> new BetweenSpecification<>(attributeName, (Comparable) value, (Comparable) upper);
+                case LIKE -> new LikeSpecification<>(attributeName, (String) value);
+                case LIKE_LEFT -> new LikeLeftSpecification<>(attributeName, (String) value);
+                case LIKE_RIGHT -> new LikeRightSpecification<>(attributeName, (String) value);
+                case NOT_LIKE -> new NotLikeSpecification<>(attributeName, (String) value);
+                case NOT_LIKE_LEFT -> new NotLikeLeftSpecification<>(attributeName, (String) value);
+                case NOT_LIKE_RIGHT -> new NotLikeRightSpecification<>(attributeName, (String) value);
+                case IS_NULL -> new NullSpecification<>(attributeName);
+                case IS_NOT_NULL -> new NotNullSpecification<>(attributeName);
+                default -> throw new IllegalStateException(name() + " is not a condition on an attribute");
+            };
+        }
+    }
+
+    /**
+     * growing byte array
+     */
+    private static final class Output {
+        private byte[] bytes = new byte[64];
+        private int size;
+
+        void writeByte(int value) {
+            ensure(1);
+            bytes[size++] = (byte) value;
+        }
+
+        void writeBytes(byte[] value, int length) {
+            ensure(length);
+            System.arraycopy(value, 0, bytes, size, length);
+            size += length;
+        }
+
+        void writeVarLong(long value) {
+            ensure(10);
+            while ((value & ~0x7FL) != 0) {
+                bytes[size++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            bytes[size++] = (byte) value;
+        }
+
+        void writeZigZag(long value) {
+            writeVarLong((value << 1) ^ (value >> 63));
+        }
+
+        void writeFixed(long value, int length) {
+            ensure(length);
+            for (int i = length - 1; i >= 0; i--) {
+                bytes[size++] = (byte) (value >>> (i * 8));
+            }
+        }
+
+        void writeString(String value) {
+            byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+            writeVarLong(utf8.length);
+            writeBytes(utf8, utf8.length);
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(bytes, size);
+        }
+
+        private void ensure(int length) {
+            if (size + length > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, size + length));
+            }
+        }
+    }
+
+    /**
+     * byte array reader
+     */
+    private static final class Input {
+        private final byte[] bytes;
+        private int position;
+
+        Input(byte[] bytes) {
+            this.bytes = bytes;
+        }
+
+        int readByte() {
+            if (position >= bytes.length) {
+                throw new IllegalArgumentException("Unexpected end of binary");
+            }
+            return bytes[position++] & 0xFF;
+        }
+
+        long readVarLong() {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                int b = readByte();
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new IllegalArgumentException("Malformed variable length number");
+        }
+
+        long readZigZag() {
+            long value = readVarLong();
+            return (value >>> 1) ^ -(value & 1);
+        }
+
+        long readFixed(int length) {
+            long value = 0;
+            for (int i = 0; i < length; i++) {
+                value = (value << 8) | readByte();
+            }
+            return value;
+        }
+
+        int readSize() {
+            long size = readVarLong();
+            if (size < 0 || size > bytes.length - position) {
+                throw new IllegalArgumentException("Invalid size " + size);
+            }
+            return (int) size;
+        }
+
+        String readString() {
+            int length = readSize();
+            String value = new String(bytes, position, length, StandardCharsets.UTF_8);
+            position += length;
+            return value;
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package io.github.aurifolia.jpa.specification;
+
+import org.springframework.data.jpa.domain.Specification;
+
+/**
+ * Deterministic hash of a specification tree for cache keys shared between JVMs, MurmurHash3 x64 128 of the
+ * canonical binary form of {@link SpecificationCodec}. Equivalent trees have the same hash: the order of the
+ * conditions of a group and of in values, duplicate in values, in chunking and Integer vs Long values do not matter.
+ *
+ * @author Peng Dan
+ * @since 1.0
+ */
+public final class SpecificationHash {
+    private static final long C1 = 0x87c37b91114253d5L;
+    private static final long C2 = 0x4cf5ad432745937fL;
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private SpecificationHash() {
+    }
+
+    /**
+     * 64-bit hash of the specification
+     *
+     * @param specification specification
+     * @return hash
+     */
+    public static long hash64(Specification<?> specification) {
+        return murmur3(SpecificationCodec.toCanonicalBinary(specification))[0];
+    }
+
+    /**
+     * 128-bit hash of the specification as 32 hex digits
+     *
+     * @param specification specification
+     * @return hash
+     */
+    public static String hash128(Specification<?> specification) {
+        long[] hash = murmur3(SpecificationCodec.toCanonicalBinary(specification));
+        char[] hex = new char[32];
+        for (int i = 0; i < 16; i++) {
+            int b = (int) (hash[i / 8] >>> (56 - (i % 8) * 8)) & 0xFF;
+            hex[i * 2] = HEX[b >>> 4];
+            hex[i * 2 + 1] = HEX[b & 0xF];
+        }
+        return new String(hex);
+    }
+
+    /**
+     * MurmurHash3 x64 128 with seed 0
+     */
+    static long[] murmur3(byte[] data) {
+        long h1 = 0;
+        long h2 = 0;
+        int blocks = data.length / 16;
+        for (int i = 0; i < blocks; i++) {
+            long k1 = littleEndian(data, i * 16, 8);
+            long k2 = littleEndian(data, i * 16 + 8, 8);
+            h1 ^= mixK1(k1);
+            h1 = Long.rotateLeft(h1, 27) + h2;
+            h1 = h1 * 5 + 0x52dce729;
+            h2 ^= mixK2(k2);
+            h2 = Long.rotateLeft(h2, 31) + h1;
+            h2 = h2 * 5 + 0x38495ab5;
+        }
+        int tail = blocks * 16;
+        int remaining = data.length - tail;
+        if (remaining > 8) {
+            h2 ^= mixK2(littleEndian(data, tail + 8, remaining - 8));
+        }
+        if (remaining > 0) {
+            h1 ^= mixK1(littleEndian(data, tail, Math.min(remaining, 8)));
+        }
+        h1 ^= data.length;
+        h2 ^= data.length;
+        h1 += h2;
+        h2 += h1;
+        h1 = fmix(h1);
+        h2 = fmix(h2);
+        h1 += h2;
+        h2 += h1;
+        return new long[]{h1, h2};
+    }
+
+    private static long littleEndian(byte[] data, int offset, int length) {
+        long value = 0;
+        for (int i = length - 1; i >= 0; i--) {
+            value = (value << 8) | (data[offset + i] & 0xFF);
+        }
+        return value;
+    }
+
+    private static long mixK1(long k1) {
+        return Long.rotateLeft(k1 * C1, 31) * C2;
+    }
+
+    private static long mixK2(long k2) {
+        return Long.rotateLeft(k2 * C2, 33) * C1;
+    }
+
+    private static long fmix(long k) {
+        k ^= k >>> 33;
+        k *= 0xff51afd7ed558ccdL;
+        k ^= k >>> 33;
+        k *= 0xc4ceb9fe1a85ec53L;
+        k ^= k >>> 33;
+        return k;
+    }
+}
@@ -0,0 +1,426 @@
+package io.github.aurifolia.jpa.specification;
+
+import io.github.aurifolia.jpa.support.Values;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static jakarta.persistence.criteria.Predicate.BooleanOperator.AND;
+
+/**
+ * Rewrites a specification tree into an equivalent but cheaper one:
+ * <ul>
+ * <li>nested groups with the same operator are flattened, empty groups and duplicate conditions are removed</li>
+ * <li>an empty in is false and an empty not in is true, constants are folded into their groups</li>
+ * <li>exists with always false conditions is false, not exists with always false conditions is true</li>
+ * <li>equal / in conditions on the same attribute under OR are merged into a single in</li>
+ * <li>equal / in / range conditions on the same attribute under AND are intersected,
+ * a contradiction turns the whole group into {@link ConstantSpecification} false</li>
+ * </ul>
+ * Intersection only applies to values whose order does not depend on the database collation:
+ * integral numbers, BigDecimal, LocalDate, LocalDateTime, LocalTime and Instant.
+ *
+ * @author Peng Dan
+ * @since 1.0
+ */
+public class SpecificationOptimizer {
+    /**
+     * value types that are compared the same way in Java and in the database
+     */
+    private static final Set<Class<?>> EXACT_TYPES = Set.of(Long.class, Integer.class, Short.class, Byte.class,
+            BigInteger.class, BigDecimal.class, LocalDate.class, LocalDateTime.class, LocalTime.class, Instant.class);
+    /**
+     * max number of values in one in group of merged conditions
+     */
+    private final int inChunkSize;
+    /**
+     * whether the values of merged in conditions are padded
+     */
+    private final boolean inPadding;
+
+    /**
+     * constructor
+     *
+     * @param inChunkSize max number of values in one in group of merged conditions, non-positive means no chunking
+     * @param inPadding   whether the values of merged in conditions are padded
+     */
+    public SpecificationOptimizer(int inChunkSize, boolean inPadding) {
+        this.inChunkSize = inChunkSize;
+        this.inPadding = inPadding;
+    }
+
+    /**
+     * optimize the specification, only CompositeSpecification is rewritten
+     *
+     * @param specification specification
+     * @param <T>           domain type
+     * @return an equivalent specification
+     */
+    public <T> Specification<T> optimize(Specification<T> specification) {
+        if (specification instanceof InSpecification<T> in && in.getValues().isEmpty()) {
+            return new ConstantSpecification<>(false);
+        }
+        if (specification instanceof NotInSpecification<T> notIn && notIn.getValues().isEmpty()) {
+            return new ConstantSpecification<>(true);
+        }
+        if (specification instanceof ExistsSpecification<T> exists
+                && exists.getSpecification() instanceof CompositeSpecification<?> elements && elements.isAlwaysFalse()) {
+            return new ConstantSpecification<>(false);
+        }
+        if (specification instanceof NotExistsSpecification<T> notExists
+                && notExists.getSpecification() instanceof CompositeSpecification<?> elements && elements.isAlwaysFalse()) {
+            return new ConstantSpecification<>(true);
+        }
+        if (!(specification instanceof CompositeSpecification<T> composite)) {
+            return specification;
+        }
+        boolean and = composite.getOperator() == AND;
+        List<Specification<T>> children = new ArrayList<>();
+        boolean restricted = false;
+        for (Specification<T> child : composite.getSpecifications()) {
+            Specification<T> optimized = optimize(child);
+            if (optimized instanceof CompositeSpecification<T> group) {
+                if (group.getSpecifications().isEmpty()) {
+                    continue;
+                }
+                if (group.getOperator() == composite.getOperator()) {
+                    restricted = true;
+                    children.addAll(group.getSpecifications());
+                    continue;
+                }
+            }
+            restricted = true;
+            children.add(optimized);
+        }
+        Set<Specification<T>> distinct = new LinkedHashSet<>();
+        for (Specification<T> child : children) {
+            if (child instanceof ConstantSpecification<T> constant) {
+                if (constant.isValue() != and) {
+                    // false under AND, true under OR
+                    return constant;
+                }
+            } else {
+                distinct.add(child);
+            }
+        }
+        if (distinct.isEmpty()) {
+            // every child is true under AND, or false under OR
+            return restricted ? new ConstantSpecification<>(and) : new CompositeSpecification<>(composite.getOperator(), List.of());
+        }
+        children = and ? intersect(new ArrayList<>(distinct)) : merge(new ArrayList<>(distinct));
+        if (children == null) {
+            return new ConstantSpecification<>(false);
+        }
+        if (children.size() == 1) {
+            return children.get(0);
+        }
+        return new CompositeSpecification<>(composite.getOperator(), children);
+    }
+
+    /**
+     * whether optimizing a group may combine the two conditions: remove one of them as a duplicate,
+     * merge them or intersect them
+     *
+     * @param first  condition
+     * @param second condition
+     * @return whether the conditions may be combined
+     */
+    public static boolean combines(Specification<?> first, Specification<?> second) {
+        if (first.equals(second)) {
+            return true;
+        }
+        String attributeName = rangeAttribute(first);
+        if (attributeName != null && attributeName.equals(rangeAttribute(second))) {
+            return true;
+        }
+        attributeName = equalityAttribute(first);
+        return attributeName != null && attributeName.equals(equalityAttribute(second));
+    }
+
+    /**
+     * merge equal / in conditions on the same attribute into a single in
+     */
+    private <T> List<Specification<T>> merge(List<Specification<T>> specifications) {
+        Map<String, List<Specification<T>>> groups = new LinkedHashMap<>();
+        for (Specification<T> specification : specifications) {
+            String attributeName = equalityAttribute(specification);
+            if (attributeName != null) {
+                groups.computeIfAbsent(attributeName, k -> new ArrayList<>()).add(specification);
+            }
+        }
+        List<Specification<T>> result = new ArrayList<>(specifications.size());
+        Set<String> merged = new HashSet<>();
+        for (Specification<T> specification : specifications) {
+            String attributeName = equalityAttribute(specification);
+            List<Specification<T>> group = attributeName == null ? null : groups.get(attributeName);
+            if (group == null || group.size() < 2) {
+                result.add(specification);
+            } else if (merged.add(attributeName)) {
+                Set<Object> values = new LinkedHashSet<>();
+                for (Specification<T> member : group) {
+                    values.addAll(values(member));
+                }
+                result.add(new InSpecification<>(attributeName, new ArrayList<>(values), inChunkSize, inPadding));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * intersect equal / in / range conditions on the same attribute
+     *
+     * @return intersected conditions, null if they contradict each other
+     */
+    private <T> List<Specification<T>> intersect(List<Specification<T>> specifications) {
+        Map<String, List<Specification<T>>> groups = new LinkedHashMap<>();
+        for (Specification<T> specification : specifications) {
+            String attributeName = rangeAttribute(specification);
+            if (attributeName != null) {
+                groups.computeIfAbsent(attributeName, k -> new ArrayList<>()).add(specification);
+            }
+        }
+        List<Specification<T>> result = new ArrayList<>(specifications.size());
+        Set<String> intersected = new HashSet<>();
+        for (Specification<T> specification : specifications) {
+            String attributeName = rangeAttribute(specification);
+            List<Specification<T>> group = attributeName == null ? null : groups.get(attributeName);
+            if (group == null || group.size() < 2 || !comparable(group)) {
+                result.add(specification);
+            } else if (intersected.add(attributeName)) {
+                List<Specification<T>> range = intersect(attributeName, group);
+                if (range == null) {
+                    return null;
+                }
+                result.addAll(range);
+            }
+        }
+        return result;
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> List<Specification<T>> intersect(String attributeName, List<Specification<T>> group) {
+        List<Object> candidates = null;
+        Bound lower = null;
+        Bound upper = null;
+        for (Specification<T> specification : group) {
+            if (specification instanceof EqualSpecification<T> || specification instanceof InSpecification<T>) {
+                candidates = retain(candidates, values(specification));
+            } else if (specification instanceof GreaterThanSpecification<T> s) {
+                lower = Bound.tighter(lower, new Bound(s.getValue(), false), 1);
+            } else if (specification instanceof GreaterThanOrEqualSpecification<T> s) {
+                lower = Bound.tighter(lower, new Bound(s.getValue(), true), 1);
+            } else if (specification instanceof LessThanSpecification<T> s) {
+                upper = Bound.tighter(upper, new Bound(s.getValue(), false), -1);
+            } else if (specification instanceof LessThanOrEqualSpecification<T> s) {
+                upper = Bound.tighter(upper, new Bound(s.getValue(), true), -1);
+            } else if (specification instanceof BetweenSpecification<T> s) {
+                lower = Bound.tighter(lower, new Bound(s.getLower(), true), 1);
+                upper = Bound.tighter(upper, new Bound(s.getUpper(), true), -1);
+            }
+        }
+        if (candidates != null) {
+            List<Object> values = new ArrayList<>(candidates.size());
+            for (Object candidate : candidates) {
+                if ((lower == null || lower.admits(candidate, 1)) && (upper == null || upper.admits(candidate, -1))) {
+                    values.add(candidate);
+                }
+            }
+            if (values.isEmpty()) {
+                return null;
+            }
+            return List.of(values.size() == 1
+                    ? new EqualSpecification<>(attributeName, values.get(0))
+                    : new InSpecification<>(attributeName, values, inChunkSize, inPadding));
+        }
+        if (lower != null && upper != null) {
+            int comparison = Values.compare(lower.value, upper.value);
+            if (comparison > 0 || comparison == 0 && !(lower.inclusive && upper.inclusive)) {
+                return null;
+            }
+            if (comparison == 0) {
+                return List.of(new EqualSpecification<>(attributeName, lower.value));
+            }
+            if (lower.inclusive && upper.inclusive) {
+                return List.of(new BetweenSpecification<>(attributeName, (Comparable<Object>) lower.value, (Comparable<Object>) upper.value));
+            }
+        }
+        List<Specification<T>> result = new ArrayList<>(2);
+        if (lower != null) {
+            result.add(lower.inclusive
+                    ? new GreaterThanOrEqualSpecification<>(attributeName, (Comparable<Object>) lower.value)
+                    : new GreaterThanSpecification<>(attributeName, (Comparable<Object>) lower.value));
+        }
+        if (upper != null) {
+            result.add(upper.inclusive
+                    ? new LessThanOrEqualSpecification<>(attributeName, (Comparable<Object>) upper.value)
+                    : new LessThanSpecification<>(attributeName, (Comparable<Object>) upper.value));
+        }
+        return result;
+    }
+
+    private static List<Object> retain(List<Object> candidates, Collection<?> values) {
+        Set<Object> retained = null;
+        if (candidates != null) {
+            retained = new HashSet<>();
+            for (Object value : values) {
+                retained.add(Values.key(value));
+            }
+        }
+        Set<Object> seen = new HashSet<>();
+        List<Object> result = new ArrayList<>();
+        for (Object value : candidates == null ? values : candidates) {
+            Object key = Values.key(value);
+            if ((retained == null || retained.contains(key)) && seen.add(key)) {
+                result.add(value);
+            }
+        }
+        return result;
+    }
+
+    private static <T> boolean comparable(List<Specification<T>> group) {
+        Class<?> type = null;
+        for (Specification<T> specification : group) {
+            for (Object value : values(specification)) {
+                Class<?> valueType = value instanceof Number ? Number.class : value.getClass();
+                if (type != null && type != valueType) {
+                    return false;
+                }
+                type = valueType;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * attribute name of an equal / in condition without null values
+     */
+    private static <T> String equalityAttribute(Specification<T> specification) {
+        String attributeName = null;
+        if (specification instanceof EqualSpecification<T> s) {
+            attributeName = s.getAttributeName();
+        } else if (specification instanceof InSpecification<T> s) {
+            attributeName = s.getAttributeName();
+        }
+        if (attributeName == null) {
+            return null;
+        }
+        for (Object value : values(specification)) {
+            if (value == null) {
+                return null;
+            }
+        }
+        return attributeName;
+    }
+
+    /**
+     * attribute name of an equal / in / range condition whose values are all of exact types
+     */
+    private static <T> String rangeAttribute(Specification<T> specification) {
+        String attributeName;
+        if (specification instanceof EqualSpecification<T> s) {
+            attributeName = s.getAttributeName();
+        } else if (specification instanceof InSpecification<T> s) {
+            attributeName = s.getAttributeName();
+        } else if (specification instanceof GreaterThanSpecification<T> s) {
+            attributeName = s.getAttributeName();
+        } else if (specification instanceof GreaterThanOrEqualSpecification<T> s) {
+            attributeName = s.getAttributeName();
+        } else if (specification instanceof LessThanSpecification<T> s) {
+            attributeName = s.getAttributeName();
+        } else if (specification instanceof LessThanOrEqualSpecification<T> s) {
+            attributeName = s.getAttributeName();
+        } else if (specification instanceof BetweenSpecification<T> s) {
+            attributeName = s.getAttributeName();
+        } else {
+            return null;
+        }
+        for (Object value : values(specification)) {
+            if (value == null || !EXACT_TYPES.contains(value.getClass())) {
+                return null;
+            }
+        }
+        return attributeName;
+    }
+
+    private static <T> Collection<?> values(Specification<T> specification) {
+        if (specification instanceof EqualSpecification<T> s) {
+            return Collections.singletonList(s.getValue());
+        }
+        if (specification instanceof InSpecification<T> s) {
+            return s.getValues();
+        }
+        if (specification instanceof GreaterThanSpecification<T> s) {
+            return Collections.singletonList(s.getValue());
+        }
+        if (specification instanceof GreaterThanOrEqualSpecification<T> s) {
+            return Collections.singletonList(s.getValue());
+        }
+        if (specification instanceof LessThanSpecification<T> s) {
+            return Collections.singletonList(s.getValue());
+        }
+        if (specification instanceof LessThanOrEqualSpecification<T> s) {
+            return Collections.singletonList(s.getValue());
+        }
+        if (specification instanceof BetweenSpecification<T> s) {
+            return Arrays.asList(s.getLower(), s.getUpper());
+        }
+        return List.of();
+    }
+
+    /**
+     * lower or upper bound of a range
+     *
+     * @param value     bound value
+     * @param inclusive whether the bound value is in the range
+     */
+    private record Bound(Object value, boolean inclusive) {
+        /**
+         * the tighter one of the two bounds
+         *
+         * @param current   current bound, nullable
+         * @param candidate new bound
+         * @param direction 1 for lower bounds, -1 for upper bounds
+         * @return Bound
+         */
+        static Bound tighter(Bound current, Bound candidate, int direction) {
+            if (current == null) {
+                return candidate;
+            }
+            int comparison = Values.compare(candidate.value, current.value) * direction;
+            if (comparison > 0) {
+                return candidate;
+            }
+            if (comparison < 0) {
+                return current;
+            }
+            return new Bound(current.value, current.inclusive && candidate.inclusive);
+        }
+
+        /**
+         * whether the value is within this bound
+         *
+         * @param value     value
+         * @param direction 1 for lower bounds, -1 for upper bounds
+         * @return true if within the bound
+         */
+        boolean admits(Object value, int direction) {
+            int comparison = Values.compare(value, this.value) * direction;
+            return comparison > 0 || comparison == 0 && inclusive;
+        }
+    }
+}
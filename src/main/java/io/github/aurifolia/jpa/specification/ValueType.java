@@ -0,0 +1,180 @@
+package io.github.aurifolia.jpa.specification;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.OffsetDateTime;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * value types of the specification codec, the ordinal is the binary tag and must not change.
+ * Every value has a text form used by JSON, enums are written as the class name and the constant name.
+ *
+ * @author Peng Dan
+ * @since 1.0
+ */
+enum ValueType {
+    NULL(Void.class, "null", null, null),
+    STRING(String.class, "string", text -> text, Object::toString),
+    BOOLEAN(Boolean.class, "boolean", Boolean::valueOf, Object::toString),
+    LONG(Long.class, "long", Long::valueOf, Object::toString),
+    INTEGER(Integer.class, "int", Integer::valueOf, Object::toString),
+    SHORT(Short.class, "short", Short::valueOf, Object::toString),
+    BYTE(Byte.class, "byte", Byte::valueOf, Object::toString),
+    DOUBLE(Double.class, "double", Double::valueOf, Object::toString),
+    FLOAT(Float.class, "float", Float::valueOf, Object::toString),
+    BIG_DECIMAL(BigDecimal.class, "decimal", BigDecimal::new, Object::toString),
+    BIG_INTEGER(BigInteger.class, "bigint", BigInteger::new, Object::toString),
+    CHARACTER(Character.class, "char", text -> text.charAt(0), Object::toString),
+    LOCAL_DATE(LocalDate.class, "date", LocalDate::parse, Object::toString),
+    LOCAL_TIME(LocalTime.class, "time", LocalTime::parse, Object::toString),
+    LOCAL_DATE_TIME(LocalDateTime.class, "datetime", LocalDateTime::parse, Object::toString),
+    INSTANT(Instant.class, "instant", Instant::parse, Object::toString),
+    OFFSET_DATE_TIME(OffsetDateTime.class, "offsetdatetime", OffsetDateTime::parse, Object::toString),
+    DATE(Date.class, "timestamp", text -> new Date(Long.parseLong(text)), value -> Long.toString(((Date) value).getTime())),
+    UUID(java.util.UUID.class, "uuid", java.util.UUID::fromString, Object::toString),
+    ENUM(Enum.class, "enum", null, value -> ((Enum<?>) value).name());
+
+    /**
+     * type of each class
+     */
+    private static final Map<Class<?>, ValueType> TYPES = new HashMap<>();
+    /**
+     * type of each name
+     */
+    private static final Map<String, ValueType> NAMES = new HashMap<>();
+    /**
+     * all types by ordinal
+     */
+    private static final ValueType[] VALUES = values();
+
+    static {
+        for (ValueType type : VALUES) {
+            TYPES.put(type.type, type);
+            NAMES.put(type.typeName, type);
+        }
+    }
+
+    /**
+     * java type
+     */
+    private final Class<?> type;
+    /**
+     * name in JSON
+     */
+    final String typeName;
+    /**
+     * parses the text form
+     */
+    private final Function<String, Object> parser;
+    /**
+     * formats the text form
+     */
+    private final Function<Object, String> formatter;
+
+    ValueType(Class<?> type, String typeName, Function<String, Object> parser, Function<Object, String> formatter) {
+        this.type = type;
+        this.typeName = typeName;
+        this.parser = parser;
+        this.formatter = formatter;
+    }
+
+    /**
+     * get the type of the value
+     *
+     * @param value value, nullable
+     * @return ValueType
+     */
+    static ValueType of(Object value) {
+        if (value == null) {
+            return NULL;
+        }
+        if (value instanceof Enum<?>) {
+            return ENUM;
+        }
+        ValueType type = TYPES.get(value.getClass());
+        if (type == null) {
+            if (value instanceof Date) {
+                // java.sql.Timestamp and friends are read back as Date
+                return DATE;
+            }
+            throw new IllegalArgumentException("Values of " + value.getClass().getName() + " are not serializable");
+        }
+        return type;
+    }
+
+    /**
+     * get the type of the binary tag
+     *
+     * @param tag tag
+     * @return ValueType
+     */
+    static ValueType of(int tag) {
+        if (tag < 0 || tag >= VALUES.length) {
+            throw new IllegalArgumentException("Unknown value tag " + tag);
+        }
+        return VALUES[tag];
+    }
+
+    /**
+     * get the type of the JSON name
+     *
+     * @param typeName name
+     * @return ValueType
+     */
+    static ValueType of(String typeName) {
+        ValueType type = NAMES.get(typeName);
+        if (type == null) {
+            throw new IllegalArgumentException("Unknown value type " + typeName);
+        }
+        return type;
+    }
+
+    /**
+     * format the value
+     *
+     * @param value value
+     * @return text form
+     */
+    String format(Object value) {
+        return formatter.apply(value);
+    }
+
+    /**
+     * parse the text form
+     *
+     * @param text text form
+     * @return value
+     */
+    Object parse(String text) {
+        return parser.apply(text);
+    }
+
+    /**
+     * get the constant of an enum, only enum classes are loaded
+     *
+     * @param className class name
+     * @param name      constant name
+     * @return constant
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    static Object enumConstant(String className, String name) {
+        ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+        Class<?> enumClass;
+        try {
+            enumClass = Class.forName(className, false, classLoader == null ? ValueType.class.getClassLoader() : classLoader);
+        } catch (ClassNotFoundException e) {
+            throw new IllegalArgumentException("Unknown enum " + className, e);
+        }
+        if (!enumClass.isEnum()) {
+            throw new IllegalArgumentException(className + " is not an enum");
+        }
+        return Enum.valueOf((Class<Enum>) enumClass, name);
+    }
+}
@@ -0,0 +1,173 @@
+package io.github.aurifolia.jpa.support;
+
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * reads an attribute of a domain object through a cached MethodHandle, getters are called through a
+ * LambdaMetafactory generated Function when the class is accessible. A dotted attribute name such as
+ * "department.name" reads the attributes one after another, a null on the way reads as null
+ *
+ * @author Peng Dan
+ * @since 1.0
+ */
+public final class AttributeAccessor {
+    /**
+     * accessors of each domain class, keyed by attribute name
+     */
+    private static final ClassValue<Map<String, AttributeAccessor>> ACCESSORS = new ClassValue<>() {
+        @Override
+        protected Map<String, AttributeAccessor> computeValue(Class<?> type) {
+            return new ConcurrentHashMap<>();
+        }
+    };
+    /**
+     * getter type
+     */
+    private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+    /**
+     * attribute name
+     */
+    private final String attributeName;
+    /**
+     * attribute type
+     */
+    private final Class<?> type;
+    /**
+     * (Object) -> Object
+     */
+    private final MethodHandle getter;
+    /**
+     * generated getter function, null if the getter could not be spun
+     */
+    private final Function<Object, Object> function;
+    /**
+     * accessor of the rest of a dotted attribute name, null if there is none
+     */
+    private final AttributeAccessor next;
+
+    private AttributeAccessor(String attributeName, MethodHandle getter, Function<Object, Object> function) {
+        this.attributeName = attributeName;
+        this.type = getter.type().returnType();
+        this.getter = getter.asType(GETTER_TYPE);
+        this.function = function;
+        this.next = null;
+    }
+
+    private AttributeAccessor(AttributeAccessor first, AttributeAccessor next) {
+        this.attributeName = first.attributeName;
+        this.type = next.type;
+        this.getter = first.getter;
+        this.function = first.function;
+        this.next = next;
+    }
+
+    /**
+     * get the cached accessor of the attribute
+     *
+     * @param domainClass   domain class
+     * @param attributeName attribute name
+     * @return AttributeAccessor
+     */
+    public static AttributeAccessor of(Class<?> domainClass, String attributeName) {
+        Map<String, AttributeAccessor> accessors = ACCESSORS.get(domainClass);
+        AttributeAccessor accessor = accessors.get(attributeName);
+        if (accessor == null) {
+            // not computeIfAbsent, a dotted name resolves its segments into the same map
+            accessor = resolve(domainClass, attributeName);
+            AttributeAccessor existing = accessors.putIfAbsent(attributeName, accessor);
+            return existing == null ? accessor : existing;
+        }
+        return accessor;
+    }
+
+    /**
+     * get the attribute type
+     *
+     * @return attribute type
+     */
+    public Class<?> getType() {
+        return type;
+    }
+
+    /**
+     * read the attribute value
+     *
+     * @param target domain object
+     * @return attribute value
+     */
+    public Object get(Object target) {
+        if (next != null) {
+            Object value = read(target);
+            return value == null ? null : next.get(value);
+        }
+        return read(target);
+    }
+
+    private Object read(Object target) {
+        if (function != null) {
+            return function.apply(target);
+        }
+        try {
+            return (Object) getter.invokeExact(target);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new IllegalStateException("Unable to read attribute [" + attributeName + "]", e);
+        }
+    }
+
+    private static AttributeAccessor resolve(Class<?> domainClass, String attributeName) {
+        int dot = attributeName.indexOf('.');
+        if (dot > 0) {
+            AttributeAccessor first = of(domainClass, attributeName.substring(0, dot));
+            return new AttributeAccessor(first, of(first.type, attributeName.substring(dot + 1)));
+        }
+        String suffix = Character.toUpperCase(attributeName.charAt(0)) + attributeName.substring(1);
+        for (String prefix : new String[]{"get", "is"}) {
+            try {
+                Method method = domainClass.getMethod(prefix + suffix);
+                if (!Modifier.isStatic(method.getModifiers()) && method.getReturnType() != void.class) {
+                    return new AttributeAccessor(attributeName, MethodHandles.publicLookup().unreflect(method), spin(method));
+                }
+            } catch (NoSuchMethodException ignored) {
+                // try the next prefix, then the field itself
+            } catch (IllegalAccessException e) {
+                break;
+            }
+        }
+        for (Class<?> type = domainClass; type != null && type != Object.class; type = type.getSuperclass()) {
+            try {
+                Field field = type.getDeclaredField(attributeName);
+                MethodHandle getter = MethodHandles.privateLookupIn(type, MethodHandles.lookup()).unreflectGetter(field);
+                return new AttributeAccessor(attributeName, getter, null);
+            } catch (NoSuchFieldException ignored) {
+                // look up the superclass
+            } catch (IllegalAccessException e) {
+                throw new IllegalArgumentException("Unable to access attribute [" + attributeName + "] of " + domainClass.getName(), e);
+            }
+        }
+        throw new IllegalArgumentException("Unable to locate attribute [" + attributeName + "] on " + domainClass.getName());
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Function<Object, Object> spin(Method method) {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.privateLookupIn(method.getDeclaringClass(), MethodHandles.lookup());
+            MethodHandle handle = lookup.unreflect(method);
+            return (Function<Object, Object>) LambdaMetafactory.metafactory(lookup, "apply", MethodType.methodType(Function.class),
+                    GETTER_TYPE.erase(), handle, handle.type().wrap()).getTarget().invokeExact();
+        } catch (Throwable e) {
+            // e.g. the class is in another module or class loader, fall back to the MethodHandle
+            return null;
+        }
+    }
+}
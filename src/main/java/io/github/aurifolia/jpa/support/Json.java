@@ -0,0 +1,256 @@
+package io.github.aurifolia.jpa.support;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Minimal JSON reader and string quoting, so that no JSON library is required. Objects are read as LinkedHashMap,
+ * arrays as ArrayList, integral numbers as Long and other numbers as Double. Objects and arrays are nested at most
+ * {@value #MAX_DEPTH} levels deep, so that a hostile text cannot overflow the stack.
+ *
+ * @author Peng Dan
+ * @since 1.0
+ */
+public final class Json {
+    /**
+     * max nesting depth of objects and arrays
+     */
+    public static final int MAX_DEPTH = 256;
+    /**
+     * text
+     */
+    private final String text;
+    /**
+     * current position
+     */
+    private int position;
+    /**
+     * number of objects and arrays around the current position
+     */
+    private int depth;
+
+    private Json(String text) {
+        this.text = text;
+    }
+
+    /**
+     * parse the JSON text
+     *
+     * @param text JSON text
+     * @return Map, List, String, Long, Double, Boolean or null
+     */
+    public static Object parse(String text) {
+        Json json = new Json(text);
+        Object value = json.value();
+        json.whitespace();
+        if (json.position != text.length()) {
+            throw json.error("Unexpected trailing characters");
+        }
+        return value;
+    }
+
+    /**
+     * append the string as a JSON string literal
+     *
+     * @param json  JSON text
+     * @param value string
+     */
+    public static void quote(StringBuilder json, String value) {
+        json.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"' -> json.append("\\\"");
+                case '\\' -> json.append("\\\\");
+                case '\n' -> json.append("\\n");
+                case '\r' -> json.append("\\r");
+                case '\t' -> json.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        json.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        json.append(c);
+                    }
+                }
+            }
+        }
+        json.append('"');
+    }
+
+    private Object value() {
+        whitespace();
+        if (position >= text.length()) {
+            throw error("Unexpected end");
+        }
+        char c = text.charAt(position);
+        switch (c) {
+            case '{':
+                return object();
+            case '[':
+                return array();
+            case '"':
+                return string();
+            case 't':
+                return literal("true", Boolean.TRUE);
+            case 'f':
+                return literal("false", Boolean.FALSE);
+            case 'n':
+                return literal("null", null);
+            default:
+                return number();
+        }
+    }
+
+    private Map<String, Object> object() {
+        Map<String, Object> object = new LinkedHashMap<>();
+        enter();
+        whitespace();
+        if (peek() == '}') {
+            position++;
+            depth--;
+            return object;
+        }
+        while (true) {
+            whitespace();
+            if (peek() != '"') {
+                throw error("Expected a name");
+            }
+            String name = string();
+            whitespace();
+            expect(':');
+            object.put(name, value());
+            whitespace();
+            if (peek() == ',') {
+                position++;
+            } else {
+                expect('}');
+                depth--;
+                return object;
+            }
+        }
+    }
+
+    private List<Object> array() {
+        List<Object> array = new ArrayList<>();
+        enter();
+        whitespace();
+        if (peek() == ']') {
+            position++;
+            depth--;
+            return array;
+        }
+        while (true) {
+            array.add(value());
+            whitespace();
+            if (peek() == ',') {
+                position++;
+            } else {
+                expect(']');
+                depth--;
+                return array;
+            }
+        }
+    }
+
+    private void enter() {
+        if (++depth > MAX_DEPTH) {
+            throw error("Nested deeper than " + MAX_DEPTH + " levels");
+        }
+        position++;
+    }
+
+    private String string() {
+        position++;
+        StringBuilder value = new StringBuilder();
+        while (true) {
+            if (position >= text.length()) {
+                throw error("Unterminated string");
+            }
+            char c = text.charAt(position++);
+            if (c == '"') {
+                return value.toString();
+            }
+            if (c != '\\') {
+                value.append(c);
+                continue;
+            }
+            if (position >= text.length()) {
+                throw error("Unterminated string");
+            }
+            char escaped = text.charAt(position++);
+            switch (escaped) {
+                case 'b' -> value.append('\b');
+                case 'f' -> value.append('\f');
+                case 'n' -> value.append('\n');
+                case 'r' -> value.append('\r');
+                case 't' -> value.append('\t');
+                case 'u' -> {
+                    if (position + 4 > text.length()) {
+                        throw error("Invalid unicode escape");
+                    }
+                    int code = 0;
+                    for (int end = position + 4; position < end; position++) {
+                        // Integer.parseInt would accept a sign and throw NumberFormatException on other characters
+                        int digit = Character.digit(text.charAt(position), 16);
+                        if (digit < 0) {
+                            throw error("Invalid unicode escape");
+                        }
+                        code = code << 4 | digit;
+                    }
+                    value.append((char) code);
+                }
+                case '"', '\\', '/' -> value.append(escaped);
+                default -> throw error("Invalid escape");
+            }
+        }
+    }
+
+    private Object number() {
+        int start = position;
+        boolean integral = true;
+        while (position < text.length() && "+-0123456789.eE".indexOf(text.charAt(position)) >= 0) {
+            integral &= Character.isDigit(text.charAt(position)) || text.charAt(position) == '-';
+            position++;
+        }
+        if (start == position) {
+            throw error("Unexpected character");
+        }
+        String number = text.substring(start, position);
+        try {
+            return integral ? (Object) Long.valueOf(number) : (Object) Double.valueOf(number);
+        } catch (NumberFormatException e) {
+            throw error("Invalid number " + number);
+        }
+    }
+
+    private Object literal(String literal, Object value) {
+        if (!text.startsWith(literal, position)) {
+            throw error("Unexpected character");
+        }
+        position += literal.length();
+        return value;
+    }
+
+    private void whitespace() {
+        while (position < text.length() && Character.isWhitespace(text.charAt(position))) {
+            position++;
+        }
+    }
+
+    private char peek() {
+        return position < text.length() ? text.charAt(position) : 0;
+    }
+
+    private void expect(char c) {
+        if (peek() != c) {
+            throw error("Expected '" + c + "'");
+        }
+        position++;
+    }
+
+    private IllegalArgumentException error(String message) {
+        return new IllegalArgumentException(message + " at position " + position + " of JSON");
+    }
+}
@@ -0,0 +1,89 @@
+package io.github.aurifolia.jpa.support;
+
+import org.springframework.data.jpa.repository.query.EscapeCharacter;
+
+import java.util.regex.Pattern;
+
+/**
+ * escapes keywords for like patterns, translates like patterns into regular expressions and prefixes into ranges
+ *
+ * @author Peng Dan
+ * @since 1.0
+ */
+public final class LikePatterns {
+    /**
+     * escape character of the patterns built from keywords
+     */
+    public static final char ESCAPE = '\\';
+    /**
+     * JPQL escape clause
+     */
+    public static final String JPQL_ESCAPE = " escape '" + ESCAPE + "'";
+    /**
+     * escapes '%', '_' and the escape character
+     */
+    private static final EscapeCharacter ESCAPE_CHARACTER = EscapeCharacter.of(ESCAPE);
+
+    private LikePatterns() {
+    }
+
+    /**
+     * escape the keyword, so that '%', '_' and the escape character match literally
+     *
+     * @param keyword keyword
+     * @return escaped keyword
+     */
+    public static String escape(String keyword) {
+        return ESCAPE_CHARACTER.escape(keyword);
+    }
+
+    /**
+     * compile the like pattern, '%' matches any sequence and '_' matches any single character
+     *
+     * @param pattern like pattern
+     * @param escape  escape character, nullable
+     * @return Pattern
+     */
+    public static Pattern compile(String pattern, Character escape) {
+        StringBuilder regex = new StringBuilder(pattern.length() + 8);
+        StringBuilder literal = new StringBuilder();
+        for (int i = 0; i < pattern.length(); i++) {
+            char c = pattern.charAt(i);
+            if (escape != null && c == escape && i + 1 < pattern.length()) {
+                literal.append(pattern.charAt(++i));
+            } else if (c == '%' || c == '_') {
+                flush(regex, literal);
+                regex.append(c == '%' ? ".*" : ".");
+            } else {
+                literal.append(c);
+            }
+        }
+        flush(regex, literal);
+        return Pattern.compile(regex.toString(), Pattern.DOTALL);
+    }
+
+    /**
+     * The least string greater than every string starting with the prefix: the last character that is not
+     * {@link Character#MAX_VALUE} is incremented and the characters after it are dropped, "abc" gives "abd"
+     * and "ab\uffff" gives "ac". The order is the order of UTF-16 code units, i.e. a binary collation.
+     *
+     * @param prefix prefix
+     * @return upper bound, null if there is none, e.g. for an empty prefix
+     */
+    public static String prefixUpperBound(String prefix) {
+        for (int i = prefix.length() - 1; i >= 0; i--) {
+            char c = prefix.charAt(i);
+            if (c != Character.MAX_VALUE) {
+                return prefix.substring(0, i) + (char) (c + 1);
+            }
+        }
+        return null;
+    }
+
+    private static void flush(StringBuilder regex, StringBuilder literal) {
+        if (!literal.isEmpty()) {
+            regex.append(Pattern.quote(literal.toString()));
+            literal.setLength(0);
+        }
+    }
+}
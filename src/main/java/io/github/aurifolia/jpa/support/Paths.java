@@ -0,0 +1,87 @@
+package io.github.aurifolia.jpa.support;
+
+import jakarta.persistence.criteria.From;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.JoinType;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.metamodel.Attribute;
+import jakarta.persistence.metamodel.ManagedType;
+import jakarta.persistence.metamodel.PluralAttribute;
+import jakarta.persistence.metamodel.SingularAttribute;
+import jakarta.persistence.metamodel.Type;
+
+/**
+ * Resolves attribute paths such as "department.company.name". Every association on the way is inner joined,
+ * and an existing inner join of the same association is reused, so all conditions on "department.*" in one query
+ * share one join. Conditions on a to-many association therefore apply to the same element, and an entity is
+ * returned once per matching element.
+ *
+ * @author Peng Dan
+ * @since 1.0
+ */
+public final class Paths {
+    private Paths() {
+    }
+
+    /**
+     * get the path of the attribute
+     *
+     * @param root          root of the query
+     * @param attributeName attribute name, segments separated by '.'
+     * @param <Y>           attribute type
+     * @return Path
+     */
+    @SuppressWarnings("unchecked")
+    public static <Y> Path<Y> get(From<?, ?> root, String attributeName) {
+        int start = 0;
+        int dot = attributeName.indexOf('.');
+        if (dot < 0) {
+            return root.get(attributeName);
+        }
+        Path<?> path = root;
+        while (dot >= 0) {
+            String segment = attributeName.substring(start, dot);
+            if (path instanceof From<?, ?> from && isAssociation(from, segment)) {
+                path = join(from, segment);
+            } else {
+                // embedded attribute
+                path = path.get(segment);
+            }
+            start = dot + 1;
+            dot = attributeName.indexOf('.', start);
+        }
+        return (Path<Y>) path.get(attributeName.substring(start));
+    }
+
+    private static Join<?, ?> join(From<?, ?> from, String attributeName) {
+        for (Join<?, ?> join : from.getJoins()) {
+            if (join.getJoinType() == JoinType.INNER && join.getAttribute().getName().equals(attributeName)) {
+                return join;
+            }
+        }
+        return from.join(attributeName);
+    }
+
+    private static boolean isAssociation(From<?, ?> from, String attributeName) {
+        ManagedType<?> type = managedType(from);
+        if (type == null) {
+            return false;
+        }
+        Attribute<?, ?> attribute = type.getAttribute(attributeName);
+        return attribute.isAssociation() || attribute.isCollection();
+    }
+
+    private static ManagedType<?> managedType(From<?, ?> from) {
+        if (from instanceof Root<?> root) {
+            return root.getModel();
+        }
+        if (from instanceof Join<?, ?> join) {
+            Attribute<?, ?> attribute = join.getAttribute();
+            Type<?> type = attribute instanceof PluralAttribute<?, ?, ?> plural
+                    ? plural.getElementType() : ((SingularAttribute<?, ?>) attribute).getType();
+            return type instanceof ManagedType<?> managedType ? managedType : null;
+        }
+        return null;
+    }
+}
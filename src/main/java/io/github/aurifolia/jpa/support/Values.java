@@ -0,0 +1,167 @@
+package io.github.aurifolia.jpa.support;
+
+import org.springframework.core.convert.support.DefaultConversionService;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.OffsetDateTime;
+import java.time.ZonedDateTime;
+import java.util.Date;
+import java.util.Objects;
+
+/**
+ * compares attribute values the way the database does, e.g. 1 (Integer) equals 1L (Long)
+ *
+ * @author Peng Dan
+ * @since 1.0
+ */
+public final class Values {
+    /**
+     * bounds of the decimals that are keyed as Long
+     */
+    private static final BigDecimal LONG_MIN = BigDecimal.valueOf(Long.MIN_VALUE);
+    private static final BigDecimal LONG_MAX = BigDecimal.valueOf(Long.MAX_VALUE);
+
+    private Values() {
+    }
+
+    /**
+     * widen integral numbers to Long so that they can be compared by equals and hashed
+     *
+     * @param value value
+     * @return normalized value
+     */
+    public static Object normalize(Object value) {
+        if (value instanceof Integer || value instanceof Short || value instanceof Byte) {
+            return ((Number) value).longValue();
+        }
+        return value;
+    }
+
+    /**
+     * a key that is equal and has the same hash code for values that are {@link #equals(Object, Object)},
+     * e.g. 1, 1L and 1.00 all map to 1L
+     *
+     * @param value value
+     * @return hash key
+     */
+    public static Object key(Object value) {
+        Object normalized = normalize(value);
+        if (!(normalized instanceof Number number) || normalized instanceof Long) {
+            return normalized;
+        }
+        BigDecimal decimal = toBigDecimal(number).stripTrailingZeros();
+        if (decimal.scale() <= 0 && decimal.compareTo(LONG_MIN) >= 0 && decimal.compareTo(LONG_MAX) <= 0) {
+            return decimal.longValue();
+        }
+        return decimal;
+    }
+
+    /**
+     * whether the two values are equal
+     *
+     * @param left  left value
+     * @param right right value
+     * @return true if equal
+     */
+    public static boolean equals(Object left, Object right) {
+        Object l = normalize(left);
+        Object r = normalize(right);
+        if (l instanceof Number && r instanceof Number && (l.getClass() != r.getClass() || l instanceof BigDecimal)) {
+            return toBigDecimal((Number) l).compareTo(toBigDecimal((Number) r)) == 0;
+        }
+        return Objects.equals(l, r);
+    }
+
+    /**
+     * compare the two non-null values
+     *
+     * @param left  left value
+     * @param right right value
+     * @return a negative integer, zero, or a positive integer
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public static int compare(Object left, Object right) {
+        if (left instanceof Number && right instanceof Number && left.getClass() != right.getClass()) {
+            return toBigDecimal((Number) left).compareTo(toBigDecimal((Number) right));
+        }
+        return ((Comparable) left).compareTo(right);
+    }
+
+    private static BigDecimal toBigDecimal(Number number) {
+        if (number instanceof BigDecimal decimal) {
+            return decimal;
+        }
+        if (number instanceof BigInteger integer) {
+            return new BigDecimal(integer);
+        }
+        if (number instanceof Double || number instanceof Float) {
+            return BigDecimal.valueOf(number.doubleValue());
+        }
+        return BigDecimal.valueOf(number.longValue());
+    }
+
+    /**
+     * format the value as text that {@link #convert(String, Class)} turns back into the value
+     *
+     * @param value value
+     * @return text
+     */
+    public static String format(Object value) {
+        if (value instanceof Date date) {
+            return String.valueOf(date.getTime());
+        }
+        if (value instanceof Enum<?> constant) {
+            return constant.name();
+        }
+        return String.valueOf(value);
+    }
+
+    /**
+     * convert the text to the given type
+     *
+     * @param text text
+     * @param type target type
+     * @return value
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public static Object convert(String text, Class<?> type) {
+        if (text == null || type == String.class || type == Object.class) {
+            return text;
+        }
+        if (type.isEnum()) {
+            return Enum.valueOf((Class<? extends Enum>) type, text);
+        }
+        if (type == LocalDate.class) {
+            return LocalDate.parse(text);
+        }
+        if (type == LocalDateTime.class) {
+            return LocalDateTime.parse(text);
+        }
+        if (type == LocalTime.class) {
+            return LocalTime.parse(text);
+        }
+        if (type == OffsetDateTime.class) {
+            return OffsetDateTime.parse(text);
+        }
+        if (type == ZonedDateTime.class) {
+            return ZonedDateTime.parse(text);
+        }
+        if (type == Instant.class) {
+            return Instant.parse(text);
+        }
+        if (Date.class.isAssignableFrom(type)) {
+            // java.util.Date, java.sql.Date, java.sql.Time and java.sql.Timestamp all accept epoch millis
+            try {
+                return type.getConstructor(long.class).newInstance(Long.parseLong(text));
+            } catch (ReflectiveOperationException e) {
+                throw new IllegalArgumentException("Unable to convert [" + text + "] to " + type.getName(), e);
+            }
+        }
+        return DefaultConversionService.getSharedInstance().convert(text, type);
+    }
+}
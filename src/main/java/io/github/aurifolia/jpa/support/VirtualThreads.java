@@ -0,0 +1,61 @@
+package io.github.aurifolia.jpa.support;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The executor of blocking queries: one virtual thread per task on Java 21 and later, otherwise a cached pool of
+ * daemon platform threads. Either way the number of concurrent queries is bounded by the caller, not by the executor.
+ *
+ * @author Peng Dan
+ * @since 1.0
+ */
+public final class VirtualThreads {
+    /**
+     * shared executor, created on first use
+     */
+    private static volatile ExecutorService executor;
+
+    private VirtualThreads() {
+    }
+
+    /**
+     * get the shared executor, it is never shut down
+     *
+     * @return ExecutorService
+     */
+    public static ExecutorService executor() {
+        ExecutorService result = executor;
+        if (result == null) {
+            synchronized (VirtualThreads.class) {
+                result = executor;
+                if (result == null) {
+                    executor = result = newExecutor("specification-query-");
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * create an executor that runs every task on a virtual thread if the JVM supports them
+     *
+     * @param namePrefix name prefix of the platform threads
+     * @return ExecutorService
+     */
+    public static ExecutorService newExecutor(String namePrefix) {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            AtomicInteger count = new AtomicInteger();
+            ThreadFactory threadFactory = runnable -> {
+                Thread thread = new Thread(runnable, namePrefix + count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            };
+            return Executors.newCachedThreadPool(threadFactory);
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package io.github.aurifolia.jpa.template;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * a named placeholder of a template value, bound per request by {@link SpecificationTemplate#bind}
+ *
+ * @author Peng Dan
+ * @since 1.0
+ */
+@Getter
+@EqualsAndHashCode
+@RequiredArgsConstructor
+public final class Param {
+    /**
+     * parameter name
+     */
+    private final String name;
+
+    /**
+     * placeholder of the named value
+     *
+     * @param name parameter name
+     * @return Param
+     */
+    public static Param param(String name) {
+        return new Param(name);
+    }
+}
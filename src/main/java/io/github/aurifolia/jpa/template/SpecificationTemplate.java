@@ -0,0 +1,133 @@
+package io.github.aurifolia.jpa.template;
+
+import io.github.aurifolia.jpa.SpecificationBuilder;
+import io.github.aurifolia.jpa.specification.CompositeSpecification;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * An immutable, thread-safe query template, defined once and bound per request.
+ * Conditions whose parameters are not bound drop out, groups left without conditions drop out as well,
+ * so the same bound parameters always give the same statement shape. The result is the same as that of the equivalent
+ * {@link SpecificationBuilder} chain. Each set of bound parameters is compiled once into groups that are already
+ * flattened and collapsed, with the conditions without parameters created in advance, binding only creates the
+ * conditions of the bound values. Values the optimizer would rewrite, e.g. two equal conditions on one attribute in
+ * a group or an in bound to an empty collection, and templates that turn the optimizer off replay the recorded calls
+ * on a new builder instead.
+ * <pre>{@code
+ * SpecificationTemplate<User> template = SpecificationTemplate.of(t -> t
+ *         .equal("status", param("status"))
+ *         .like("username", param("username")));
+ * Specification<User> specification = template.bind(Map.of("status", Status.ACTIVE));
+ * }</pre>
+ *
+ * @author Peng Dan
+ * @since 1.0
+ */
+public final class SpecificationTemplate<T> {
+    /**
+     * max number of compiled sets of bound parameters, further sets are replayed
+     */
+    private static final int MAX_PLANS = 1024;
+    /**
+     * recorded calls
+     */
+    private final List<TemplateNode<T>> nodes;
+    /**
+     * names of the parameters
+     */
+    private final Set<String> parameterNames;
+    /**
+     * parameter names by slot, the bit of a parameter in a binding pattern
+     */
+    private final String[] names;
+    /**
+     * slots by parameter name
+     */
+    private final Map<String, Integer> slots = new HashMap<>();
+    /**
+     * compiled plans by binding pattern
+     */
+    private final Map<Long, TemplatePlan<T>> plans = new ConcurrentHashMap<>();
+
+    SpecificationTemplate(List<TemplateNode<T>> nodes, Set<String> parameterNames) {
+        this.nodes = nodes;
+        this.parameterNames = Set.copyOf(parameterNames);
+        this.names = this.parameterNames.toArray(new String[0]);
+        for (int i = 0; i < names.length; i++) {
+            slots.put(names[i], i);
+        }
+    }
+
+    /**
+     * define a template
+     *
+     * @param function defines the conditions
+     * @param <T>      domain type
+     * @return SpecificationTemplate
+     */
+    public static <T> SpecificationTemplate<T> of(Function<TemplateBuilder<T>, TemplateBuilder<T>> function) {
+        return function.apply(new TemplateBuilder<>()).build();
+    }
+
+    /**
+     * names of the parameters
+     *
+     * @return parameter names
+     */
+    public Set<String> getParameterNames() {
+        return parameterNames;
+    }
+
+    /**
+     * bind the parameter values, absent and null values are not bound
+     *
+     * @param values parameter values by name
+     * @return CompositeSpecification
+     */
+    public CompositeSpecification<T> bind(Map<String, ?> values) {
+        return bind(values::get);
+    }
+
+    /**
+     * bind the parameter values, null values are not bound
+     *
+     * @param values parameter values by name
+     * @return CompositeSpecification
+     */
+    public CompositeSpecification<T> bind(Function<String, ?> values) {
+        if (names.length >= Long.SIZE) {
+            return replay(values);
+        }
+        Object[] bound = new Object[names.length];
+        long pattern = 0;
+        for (int i = 0; i < names.length; i++) {
+            bound[i] = values.apply(names[i]);
+            if (bound[i] != null) {
+                pattern |= 1L << i;
+            }
+        }
+        TemplatePlan<T> plan = plans.get(pattern);
+        if (plan == null) {
+            if (plans.size() >= MAX_PLANS) {
+                return replay(values);
+            }
+            plan = plans.computeIfAbsent(pattern, key -> TemplatePlan.compile(nodes, slots, key));
+        }
+        CompositeSpecification<T> specification = plan.bind(bound, values);
+        return specification != null ? specification : replay(values);
+    }
+
+    private CompositeSpecification<T> replay(Function<String, ?> values) {
+        SpecificationBuilder<T> builder = new SpecificationBuilder<>();
+        for (TemplateNode<T> node : nodes) {
+            node.apply(builder, values);
+        }
+        return builder.build();
+    }
+}
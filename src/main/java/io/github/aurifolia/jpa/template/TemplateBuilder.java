@@ -0,0 +1,416 @@
+package io.github.aurifolia.jpa.template;
+
+import io.github.aurifolia.jpa.SpecificationBuilder;
+import org.springframework.data.domain.Sort;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+
+import static jakarta.persistence.criteria.Predicate.BooleanOperator.AND;
+import static jakarta.persistence.criteria.Predicate.BooleanOperator.OR;
+
+/**
+ * Defines a {@link SpecificationTemplate}. Every value is either a constant or a {@link Param} bound per request,
+ * a condition drops out if one of its parameters is not bound. The calls are recorded and bound the way a
+ * {@link SpecificationBuilder} would run them, so options and the optimizer apply exactly as they do for the builder.
+ * Bound values must have the type the condition expects, e.g. a String for like or a Collection for in.
+ *
+ * @author Peng Dan
+ * @since 1.0
+ */
+public class TemplateBuilder<T> {
+    /**
+     * recorded calls
+     */
+    private final List<TemplateNode<T>> nodes = new ArrayList<>();
+    /**
+     * names of the parameters, shared with the nested builders
+     */
+    private final Set<String> parameterNames;
+    /**
+     * builder options at the end of the recorded calls, nested builders start with the options of their parent
+     */
+    private TemplateNode.Options options;
+
+    /**
+     * constructor
+     */
+    public TemplateBuilder() {
+        this(new HashSet<>(), TemplateNode.Options.DEFAULT);
+    }
+
+    private TemplateBuilder(Set<String> parameterNames, TemplateNode.Options options) {
+        this.parameterNames = parameterNames;
+        this.options = options;
+    }
+
+    /**
+     * see {@link SpecificationBuilder#inChunkSize(int)}
+     *
+     * @param chunkSize max number of values in one group, non-positive means no chunking
+     * @return TemplateBuilder
+     */
+    public TemplateBuilder<T> inChunkSize(int chunkSize) {
+        return option(new TemplateNode.Options(chunkSize, options.inPadding(), options.prefixRange(), options.optimize()));
+    }
+
+    /**
+     * see {@link SpecificationBuilder#inPadding(boolean)}
+     *
+     * @param padding whether to pad
+     * @return TemplateBuilder
+     */
+    public TemplateBuilder<T> inPadding(boolean padding) {
+        return option(new TemplateNode.Options(options.inChunkSize(), padding, options.prefixRange(), options.optimize()));
+    }
+
+    /**
+     * see {@link SpecificationBuilder#prefixRange(boolean)}
+     *
+     * @param prefixRange whether to render likeRight as a range
+     * @return TemplateBuilder
+     */
+    public TemplateBuilder<T> prefixRange(boolean prefixRange) {
+        return option(new TemplateNode.Options(options.inChunkSize(), options.inPadding(), prefixRange, options.optimize()));
+    }
+
+    /**
+     * see {@link SpecificationBuilder#optimize(boolean)}
+     *
+     * @param optimize whether to optimize
+     * @return TemplateBuilder
+     */
+    public TemplateBuilder<T> optimize(boolean optimize) {
+        return option(new TemplateNode.Options(options.inChunkSize(), options.inPadding(), options.prefixRange(), optimize));
+    }
+
+    /**
+     * <p>where {attributeName} = {value}</p>
+     *
+     * @param attributeName attributeName
+     * @param value         value or {@link Param}
+     * @return TemplateBuilder
+     */
+    public TemplateBuilder<T> equal(String attributeName, Object value) {
+        return condition(attributeName, value, (builder, v) -> builder.equal(true, attributeName, v[0]));
+    }
+
+    /**
+     * <p>where {attributeName} != {value}</p>
+     *
+     * @param attributeName attributeName
+     * @param value         value or {@link Param}
+     * @return TemplateBuilder
+     */
+    public TemplateBuilder<T> notEqual(String attributeName, Object value) {
+        return condition(attributeName, value, (builder, v) -> builder.notEqual(true, attributeName, v[0]));
+    }
+
+    /**
+     * <p>where {attributeName} &gt; {value}</p>
+     *
+     * @param attributeName attributeName
+     * @param value         value or {@link Param}
+     * @return TemplateBuilder
+     */
+    public TemplateBuilder<T> greaterThan(String attributeName, Object value) {
+        return condition(attributeName, value, (builder, v) -> builder.greaterThan(true, attributeName, (Comparable<?>) v[0]));
+    }
+
+    /**
+     * <p>where {attributeName} &gt;= {value}</p>
+     *
+     * @param attributeName attributeName
+     * @param value         value or {@link Param}
+     * @return TemplateBuilder
+     */
+    public TemplateBuilder<T> greaterThanOrEqual(String attributeName, Object value) {
+        return condition(attributeName, value, (builder, v) -> builder.greaterThanOrEqual(true, attributeName, (Comparable<?>) v[0]));
+    }
+
+    /**
+     * <p>where {attributeName} &lt; {value}</p>
+     *
+     * @param attributeName attributeName
+     * @param value         value or {@link Param}
+     * @return TemplateBuilder
+     */
+    public TemplateBuilder<T> lessThan(String attributeName, Object value) {
+        return condition(attributeName, value, (builder, v) -> builder.lessThan(true, attributeName, (Comparable<?>) v[0]));
+    }
+
+    /**
+     * <p>where {attributeName} &lt;= {value}</p>
+     *
+     * @param attributeName attributeName
+     * @param value         value or {@link Param}
+     * @return TemplateBuilder
+     */
+    public TemplateBuilder<T> lessThanOrEqual(String attributeName, Object value) {
+        return condition(attributeName, value, (builder, v) -> builder.lessThanOrEqual(true, attributeName, (Comparable<?>) v[0]));
+    }
+
+    /**
+     * <p>where {attributeName} like '%{keyword}%'</p>
+     *
+     * @param attributeName attributeName
+     * @param keyword       keyword or {@link Param}
+     * @return TemplateBuilder
+     */
+    public TemplateBuilder<T> like(String attributeName, Object keyword) {
+        return condition(attributeName, keyword, (builder, v) -> builder.like(true, attributeName, (String) v[0]));
+    }
+
+    /**
+     * <p>where {attributeName} like '%{keyword}'</p>
+     *
+     * @param attributeName attributeName
+     * @param keyword       keyword or {@link Param}
+     * @return TemplateBuilder
+     */
+    public TemplateBuilder<T> likeLeft(String attributeName, Object keyword) {
+        return condition(attributeName, keyword, (builder, v) -> builder.likeLeft(true, attributeName, (String) v[0]));
+    }
+
+    /**
+     * <p>where {attributeName} like '{keyword}%'</p>
+     *
+     * @param attributeName attributeName
+     * @param keyword       keyword or {@link Param}
+     * @return TemplateBuilder
+     */
+    public TemplateBuilder<T> likeRight(String attributeName, Object keyword) {
+        return condition(attributeName, keyword, (builder, v) -> builder.likeRight(true, attributeName, (String) v[0]));
+    }
+
+    /**
+     * see {@link SpecificationBuilder#likeRightIgnoreCase(boolean, String, String)}
+     *
+     * @param attributeName attributeName
+     * @param keyword       keyword or {@link Param}
+     * @return TemplateBuilder
+     */
+    public TemplateBuilder<T> likeRightIgnoreCase(String attributeName, Object keyword) {
+        return condition(attributeName, keyword, (builder, v) -> builder.likeRightIgnoreCase(true, attributeName, (String) v[0]));
+    }
+
+    /**
+     * see {@link SpecificationBuilder#matches(boolean, String, String)}
+     *
+     * @param attributeName attributeName
+     * @param pattern       pattern or {@link Param}
+     * @return TemplateBuilder
+     */
+    public TemplateBuilder<T> matches(String attributeName, Object pattern) {
+        return condition(attributeName, pattern, (builder, v) -> builder.matches(true, attributeName, (String) v[0]));
+    }
+
+    /**
+     * see {@link SpecificationBuilder#notMatches(boolean, String, String)}
+     *
+     * @param attributeName attributeName
+     * @param pattern       pattern or {@link Param}
+     * @return TemplateBuilder
+     */
+    public TemplateBuilder<T> notMatches(String attributeName, Object pattern) {
+        return condition(attributeName, pattern, (builder, v) -> builder.notMatches(true, attributeName, (String) v[0]));
+    }
+
+    /**
+     * <p>where {attributeName} not like '%{keyword}%'</p>
+     *
+     * @param attributeName attributeName
+     * @param keyword       keyword or {@link Param}
+     * @return TemplateBuilder
+     */
+    public TemplateBuilder<T> notLike(String attributeName, Object keyword) {
+        return condition(attributeName, keyword, (builder, v) -> builder.notLike(true, attributeName, (String) v[0]));
+    }
+
+    /**
+     * <p>where {attributeName} not like '%{keyword}'</p>
+     *
+     * @param attributeName attributeName
+     * @param keyword       keyword or {@link Param}
+     * @return TemplateBuilder
+     */
+    public TemplateBuilder<T> notLikeLeft(String attributeName, Object keyword) {
+        return condition(attributeName, keyword, (builder, v) -> builder.notLikeLeft(true, attributeName, (String) v[0]));
+    }
+
+    /**
+     * <p>where {attributeName} not like '{keyword}%'</p>
+     *
+     * @param attributeName attributeName
+     * @param keyword       keyword or {@link Param}
+     * @return TemplateBuilder
+     */
+    public TemplateBuilder<T> notLikeRight(String attributeName, Object keyword) {
+        return condition(attributeName, keyword, (builder, v) -> builder.notLikeRight(true, attributeName, (String) v[0]));
+    }
+
+    /**
+     * <p>where {attributeName} in ({values})</p>
+     *
+     * @param attributeName attributeName
+     * @param values        collection or {@link Param} of a collection
+     * @return TemplateBuilder
+     */
+    public TemplateBuilder<T> in(String attributeName, Object values) {
+        return condition(attributeName, values, (builder, v) -> builder.in(true, attributeName, (Collection<?>) v[0]));
+    }
+
+    /**
+     * <p>where {attributeName} not in ({values})</p>
+     *
+     * @param attributeName attributeName
+     * @param values        collection or {@link Param} of a collection
+     * @return TemplateBuilder
+     */
+    public TemplateBuilder<T> notIn(String attributeName, Object values) {
+        return condition(attributeName, values, (builder, v) -> builder.notIn(true, attributeName, (Collection<?>) v[0]));
+    }
+
+    /**
+     * <p>where {attributeName} is null</p>
+     *
+     * @param attributeName attributeName
+     * @return TemplateBuilder
+     */
+    public TemplateBuilder<T> isNull(String attributeName) {
+        nodes.add(new TemplateNode.Condition<>(attributeName, new Object[0], false, (builder, v) -> builder.isNull(true, attributeName)));
+        return this;
+    }
+
+    /**
+     * <p>where {attributeName} is not null</p>
+     *
+     * @param attributeName attributeName
+     * @return TemplateBuilder
+     */
+    public TemplateBuilder<T> isNotNull(String attributeName) {
+        nodes.add(new TemplateNode.Condition<>(attributeName, new Object[0], false, (builder, v) -> builder.isNotNull(true, attributeName)));
+        return this;
+    }
+
+    /**
+     * <p>where {attributeName} between {lower} and {upper}</p>
+     * <p>if only lower is bound: where {attributeName} &gt;= {lower}</p>
+     * <p>if only upper is bound: where {attributeName} &lt;= {upper}</p>
+     *
+     * @param attributeName attributeName
+     * @param lower         lower value or {@link Param}
+     * @param upper         upper value or {@link Param}
+     * @return TemplateBuilder
+     */
+    public TemplateBuilder<T> between(String attributeName, Object lower, Object upper) {
+        register(lower);
+        register(upper);
+        nodes.add(new TemplateNode.Condition<>(attributeName, new Object[]{lower, upper}, true, (builder, v) -> {
+            if (v[0] == null) {
+                builder.lessThanOrEqual(true, attributeName, (Comparable<?>) v[1]);
+            } else if (v[1] == null) {
+                builder.greaterThanOrEqual(true, attributeName, (Comparable<?>) v[0]);
+            } else {
+                builder.between(true, attributeName, (Comparable<?>) v[0], (Comparable<?>) v[1]);
+            }
+        }));
+        return this;
+    }
+
+    /**
+     * see {@link SpecificationBuilder#keyset(boolean, Sort, List)}
+     *
+     * @param sort       sort orders
+     * @param lastValues list or {@link Param} of a list, sort values of the last row
+     * @return TemplateBuilder
+     */
+    public TemplateBuilder<T> keyset(Sort sort, Object lastValues) {
+        return condition(sort.toString(), lastValues, (builder, v) -> builder.keyset(true, sort, (List<?>) v[0]));
+    }
+
+    /**
+     * see {@link SpecificationBuilder#exists(boolean, String, Function)}, it drops out if all of the conditions
+     * on the elements drop out, without conditions it is always appended
+     *
+     * @param attributeName attribute name of the to-many association
+     * @param function      conditions on the elements
+     * @param <C>           element type
+     * @return TemplateBuilder
+     */
+    public <C> TemplateBuilder<T> exists(String attributeName, Function<TemplateBuilder<C>, TemplateBuilder<C>> function) {
+        nodes.add(new TemplateNode.Exists<>(false, attributeName, nested(function)));
+        return this;
+    }
+
+    /**
+     * see {@link SpecificationBuilder#notExists(boolean, String, Function)}, it drops out if all of the conditions
+     * on the elements drop out, without conditions it is always appended
+     *
+     * @param attributeName attribute name of the to-many association
+     * @param function      conditions on the elements
+     * @param <C>           element type
+     * @return TemplateBuilder
+     */
+    public <C> TemplateBuilder<T> notExists(String attributeName, Function<TemplateBuilder<C>, TemplateBuilder<C>> function) {
+        nodes.add(new TemplateNode.Exists<>(true, attributeName, nested(function)));
+        return this;
+    }
+
+    /**
+     * nested conditions joined by and, the group drops out if all of them drop out
+     *
+     * @param function defines the nested conditions
+     * @return TemplateBuilder
+     */
+    public TemplateBuilder<T> and(Function<TemplateBuilder<T>, TemplateBuilder<T>> function) {
+        nodes.add(new TemplateNode.Group<>(AND, nested(function)));
+        return this;
+    }
+
+    /**
+     * nested conditions joined by or, the group drops out if all of them drop out
+     *
+     * @param function defines the nested conditions
+     * @return TemplateBuilder
+     */
+    public TemplateBuilder<T> or(Function<TemplateBuilder<T>, TemplateBuilder<T>> function) {
+        nodes.add(new TemplateNode.Group<>(OR, nested(function)));
+        return this;
+    }
+
+    /**
+     * build the immutable template
+     *
+     * @return SpecificationTemplate
+     */
+    public SpecificationTemplate<T> build() {
+        return new SpecificationTemplate<>(List.copyOf(nodes), parameterNames);
+    }
+
+    private <C> List<TemplateNode<C>> nested(Function<TemplateBuilder<C>, TemplateBuilder<C>> function) {
+        return List.copyOf(function.apply(new TemplateBuilder<C>(parameterNames, options)).nodes);
+    }
+
+    private TemplateBuilder<T> option(TemplateNode.Options options) {
+        this.options = options;
+        nodes.add(new TemplateNode.Option<>(options));
+        return this;
+    }
+
+    private TemplateBuilder<T> condition(String attributeName, Object value, TemplateNode.Call<T> call) {
+        register(value);
+        nodes.add(new TemplateNode.Condition<>(attributeName, new Object[]{value}, false, call));
+        return this;
+    }
+
+    private void register(Object value) {
+        if (value instanceof Param param) {
+            parameterNames.add(param.getName());
+        }
+    }
+}
@@ -0,0 +1,203 @@
+package io.github.aurifolia.jpa.template;
+
+import io.github.aurifolia.jpa.SpecificationBuilder;
+import jakarta.persistence.criteria.Predicate;
+
+import java.util.List;
+import java.util.function.Function;
+
+import static jakarta.persistence.criteria.Predicate.BooleanOperator.AND;
+
+/**
+ * an immutable, deferred {@link SpecificationBuilder} call of a template
+ *
+ * @author Peng Dan
+ * @since 1.0
+ */
+sealed interface TemplateNode<T> {
+    /**
+     * whether the node appends a condition for the values
+     *
+     * @param values parameter values by name, null means not bound
+     * @return whether a condition is appended
+     */
+    boolean isBound(Function<String, ?> values);
+
+    /**
+     * replay the call on the builder, conditions that are not bound are skipped
+     *
+     * @param builder SpecificationBuilder
+     * @param values  parameter values by name, null means not bound
+     */
+    void apply(SpecificationBuilder<T> builder, Function<String, ?> values);
+
+    /**
+     * get the value of a constant or a {@link Param}
+     *
+     * @param argument constant or {@link Param}
+     * @param values   parameter values by name
+     * @return value, null if not bound
+     */
+    static Object resolve(Object argument, Function<String, ?> values) {
+        return argument instanceof Param param ? values.apply(param.getName()) : argument;
+    }
+
+    /**
+     * a builder call with the resolved arguments
+     *
+     * @param <T> domain type
+     */
+    @FunctionalInterface
+    interface Call<T> {
+        /**
+         * call the builder
+         *
+         * @param builder   SpecificationBuilder
+         * @param arguments resolved arguments, null if not bound
+         */
+        void apply(SpecificationBuilder<T> builder, Object[] arguments);
+    }
+
+    /**
+     * a condition, appended if all of its arguments are bound, or any of them if partial
+     *
+     * @param attributeName attribute name, the sort orders for keyset
+     * @param arguments     constants or {@link Param}s
+     * @param partial       whether the condition is appended if any argument is bound
+     * @param call          builder call
+     */
+    record Condition<T>(String attributeName, Object[] arguments, boolean partial, Call<T> call) implements TemplateNode<T> {
+        @Override
+        public boolean isBound(Function<String, ?> values) {
+            for (Object argument : arguments) {
+                if ((resolve(argument, values) != null) == partial) {
+                    return partial;
+                }
+            }
+            return !partial;
+        }
+
+        @Override
+        public void apply(SpecificationBuilder<T> builder, Function<String, ?> values) {
+            if (!isBound(values)) {
+                return;
+            }
+            Object[] resolved = new Object[arguments.length];
+            for (int i = 0; i < arguments.length; i++) {
+                resolved[i] = resolve(arguments[i], values);
+            }
+            call.apply(builder, resolved);
+        }
+    }
+
+    /**
+     * builder options, apply to the following calls
+     *
+     * @param options all of the builder options after the call
+     */
+    record Option<T>(Options options) implements TemplateNode<T> {
+        @Override
+        public boolean isBound(Function<String, ?> values) {
+            return false;
+        }
+
+        @Override
+        public void apply(SpecificationBuilder<T> builder, Function<String, ?> values) {
+            options.apply(builder);
+        }
+    }
+
+    /**
+     * the options of a {@link SpecificationBuilder}
+     *
+     * @param inChunkSize see {@link SpecificationBuilder#inChunkSize(int)}
+     * @param inPadding   see {@link SpecificationBuilder#inPadding(boolean)}
+     * @param prefixRange see {@link SpecificationBuilder#prefixRange(boolean)}
+     * @param optimize    see {@link SpecificationBuilder#optimize(boolean)}
+     */
+    record Options(int inChunkSize, boolean inPadding, boolean prefixRange, boolean optimize) {
+        /**
+         * the options of a new builder
+         */
+        static final Options DEFAULT = new Options(0, false, false, true);
+
+        /**
+         * set the options on the builder
+         *
+         * @param builder SpecificationBuilder
+         */
+        void apply(SpecificationBuilder<?> builder) {
+            builder.inChunkSize(inChunkSize).inPadding(inPadding).prefixRange(prefixRange).optimize(optimize);
+        }
+    }
+
+    /**
+     * nested conditions, the group drops out if all of them drop out
+     *
+     * @param operator Predicate.BooleanOperator
+     * @param nodes    nested nodes
+     */
+    record Group<T>(Predicate.BooleanOperator operator, List<TemplateNode<T>> nodes) implements TemplateNode<T> {
+        @Override
+        public boolean isBound(Function<String, ?> values) {
+            return anyBound(nodes, values);
+        }
+
+        @Override
+        public void apply(SpecificationBuilder<T> builder, Function<String, ?> values) {
+            if (!isBound(values)) {
+                return;
+            }
+            Function<SpecificationBuilder<T>, SpecificationBuilder<T>> function = nested -> {
+                nodes.forEach(node -> node.apply(nested, values));
+                return nested;
+            };
+            if (operator == AND) {
+                builder.and(function);
+            } else {
+                builder.or(function);
+            }
+        }
+    }
+
+    /**
+     * exists or not exists on a to-many association, it drops out if all of its conditions drop out,
+     * without conditions it is always appended
+     *
+     * @param negated       whether it is not exists
+     * @param attributeName attribute name of the association
+     * @param nodes         conditions on the elements
+     * @param <C>           element type
+     */
+    record Exists<T, C>(boolean negated, String attributeName, List<TemplateNode<C>> nodes) implements TemplateNode<T> {
+        @Override
+        public boolean isBound(Function<String, ?> values) {
+            return nodes.stream().allMatch(node -> node instanceof Option<C>) || anyBound(nodes, values);
+        }
+
+        @Override
+        public void apply(SpecificationBuilder<T> builder, Function<String, ?> values) {
+            if (!isBound(values)) {
+                return;
+            }
+            Function<SpecificationBuilder<C>, SpecificationBuilder<C>> function = nested -> {
+                nodes.forEach(node -> node.apply(nested, values));
+                return nested;
+            };
+            if (negated) {
+                builder.notExists(true, attributeName, function);
+            } else {
+                builder.exists(true, attributeName, function);
+            }
+        }
+    }
+
+    private static <T> boolean anyBound(List<TemplateNode<T>> nodes, Function<String, ?> values) {
+        for (TemplateNode<T> node : nodes) {
+            if (node.isBound(values)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,321 @@
+package io.github.aurifolia.jpa.template;
+
+import io.github.aurifolia.jpa.SpecificationBuilder;
+import io.github.aurifolia.jpa.specification.CompositeSpecification;
+import io.github.aurifolia.jpa.specification.ConstantSpecification;
+import io.github.aurifolia.jpa.specification.SpecificationOptimizer;
+import jakarta.persistence.criteria.Predicate;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+import static jakarta.persistence.criteria.Predicate.BooleanOperator.AND;
+
+/**
+ * The conditions of a template for one binding pattern, i.e. one set of bound parameters. Groups are already
+ * flattened and collapsed the way {@link SpecificationOptimizer} does it and conditions without parameters are
+ * created once, so binding only creates the conditions of the bound values and the groups holding them.
+ * Values the optimizer would rewrite, e.g. an empty in or two equal conditions on one attribute in a group,
+ * and templates that turn the optimizer off are replayed on a {@link SpecificationBuilder} instead.
+ *
+ * @author Peng Dan
+ * @since 1.0
+ */
+final class TemplatePlan<T> {
+    /**
+     * finds the conditions the optimizer folds into a constant, e.g. an empty in
+     */
+    private static final SpecificationOptimizer OPTIMIZER = new SpecificationOptimizer(0, false);
+    /**
+     * the plan of the patterns that are replayed
+     */
+    private static final TemplatePlan<?> REPLAY = new TemplatePlan<>(null, List.of(), null, 0);
+    /**
+     * the conditions, null if the pattern is replayed or nothing is bound
+     */
+    private final Step<T> root;
+    /**
+     * the conditions with parameters, in the order they are created on bind
+     */
+    private final List<Leaf<T>> leaves;
+    /**
+     * the bound specification if no condition has parameters
+     */
+    private final CompositeSpecification<T> constant;
+    /**
+     * max number of arguments of a condition
+     */
+    private final int arity;
+
+    private TemplatePlan(Step<T> root, List<Leaf<T>> leaves, CompositeSpecification<T> constant, int arity) {
+        this.root = root;
+        this.leaves = leaves;
+        this.constant = constant;
+        this.arity = arity;
+    }
+
+    /**
+     * compile the template for a binding pattern
+     *
+     * @param nodes   recorded calls
+     * @param slots   indexes of the parameters in the pattern and the bound values
+     * @param pattern bit i is set if parameter i is bound
+     * @param <T>     domain type
+     * @return TemplatePlan
+     */
+    @SuppressWarnings("unchecked")
+    static <T> TemplatePlan<T> compile(List<TemplateNode<T>> nodes, Map<String, Integer> slots, long pattern) {
+        Compiler<T> compiler = new Compiler<>(slots, name -> (pattern >>> slots.get(name) & 1) != 0 ? name : null);
+        Step<T> root = compiler.group(AND, nodes, TemplateNode.Options.DEFAULT);
+        if (compiler.replay) {
+            return (TemplatePlan<T>) REPLAY;
+        }
+        if (root == null) {
+            return new TemplatePlan<>(null, List.of(), new CompositeSpecification<>(AND, List.of()), 0);
+        }
+        List<Leaf<T>> leaves = List.copyOf(compiler.leaves);
+        if (!leaves.isEmpty()) {
+            return new TemplatePlan<>(root, leaves, null, compiler.arity);
+        }
+        Specification<T> specification = create(root, List.of());
+        return specification != null ? new TemplatePlan<>(root, leaves, wrap(specification), 0) : (TemplatePlan<T>) REPLAY;
+    }
+
+    /**
+     * bind the values
+     *
+     * @param bound  values of the parameters by slot
+     * @param values parameter values by name
+     * @return CompositeSpecification, null if the values have to be replayed
+     */
+    CompositeSpecification<T> bind(Object[] bound, Function<String, ?> values) {
+        if (root == null || constant != null) {
+            // replayed, or nothing to create
+            return constant;
+        }
+        SpecificationBuilder<T> builder = new SpecificationBuilder<>();
+        Object[] arguments = new Object[arity];
+        for (Leaf<T> leaf : leaves) {
+            leaf.options.apply(builder);
+            if (leaf.node instanceof TemplateNode.Condition<T> condition) {
+                for (int i = 0; i < leaf.slots.length; i++) {
+                    arguments[i] = leaf.slots[i] < 0 ? condition.arguments()[i] : bound[leaf.slots[i]];
+                }
+                condition.call().apply(builder, arguments);
+            } else {
+                leaf.node.apply(builder, values);
+            }
+        }
+        List<Specification<T>> created = builder.optimize(false).build().getSpecifications();
+        for (Specification<T> specification : created) {
+            if (folds(specification)) {
+                return null;
+            }
+        }
+        Specification<T> specification = create(root, created);
+        return specification != null ? wrap(specification) : null;
+    }
+
+    private static boolean folds(Specification<?> specification) {
+        return specification instanceof ConstantSpecification<?> || OPTIMIZER.optimize(specification) != specification;
+    }
+
+    /**
+     * create the specification of a step
+     *
+     * @return specification, null if the optimizer would combine two conditions of a group
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> Specification<T> create(Step<T> step, List<Specification<T>> created) {
+        if (step instanceof Leaf<T> leaf) {
+            return leaf.specification != null ? leaf.specification : created.get(leaf.index);
+        }
+        Group<T> group = (Group<T>) step;
+        Specification<T>[] specifications = new Specification[group.steps.size()];
+        for (int i = 0; i < specifications.length; i++) {
+            specifications[i] = create(group.steps.get(i), created);
+            if (specifications[i] == null) {
+                return null;
+            }
+        }
+        for (int i = 0; i < group.overlaps.length; i += 2) {
+            if (SpecificationOptimizer.combines(specifications[group.overlaps[i]], specifications[group.overlaps[i + 1]])) {
+                return null;
+            }
+        }
+        // List.of copies the array once, CompositeSpecification keeps the immutable list as it is
+        return new CompositeSpecification<>(group.operator, List.of(specifications));
+    }
+
+    /**
+     * wrap the root the way {@link SpecificationBuilder#build()} does
+     */
+    private static <T> CompositeSpecification<T> wrap(Specification<T> specification) {
+        return specification instanceof CompositeSpecification<T> composite
+                ? composite : new CompositeSpecification<>(AND, List.of(specification));
+    }
+
+    /**
+     * a condition or a group of the plan
+     */
+    private sealed interface Step<T> permits Leaf, Group {
+    }
+
+    /**
+     * a condition
+     *
+     * @param node          Condition or Exists
+     * @param attributeName attribute name
+     * @param options       builder options of the condition
+     * @param slots         slots of the arguments, -1 for constants
+     * @param index         index among the conditions created on bind
+     * @param specification the condition if it has no parameters
+     */
+    private record Leaf<T>(TemplateNode<T> node, String attributeName, TemplateNode.Options options, int[] slots,
+                           int index, Specification<T> specification) implements Step<T> {
+    }
+
+    /**
+     * a group of two or more steps
+     *
+     * @param operator Predicate.BooleanOperator
+     * @param steps    conditions and groups with another operator
+     * @param overlaps pairs of indexes of the steps on a common attribute
+     */
+    private record Group<T>(Predicate.BooleanOperator operator, List<Step<T>> steps, int[] overlaps) implements Step<T> {
+    }
+
+    private static final class Compiler<T> {
+        private final Map<String, Integer> slots;
+        /**
+         * the parameter name if bound, otherwise null
+         */
+        private final Function<String, ?> bound;
+        private final List<Leaf<T>> leaves = new ArrayList<>();
+        private int arity;
+        private boolean replay;
+
+        private Compiler(Map<String, Integer> slots, Function<String, ?> bound) {
+            this.slots = slots;
+            this.bound = bound;
+        }
+
+        /**
+         * compile the bound nodes of a group
+         *
+         * @return the group, its only step, or null if nothing is bound
+         */
+        private Step<T> group(Predicate.BooleanOperator operator, List<TemplateNode<T>> nodes, TemplateNode.Options options) {
+            List<Step<T>> steps = new ArrayList<>();
+            for (TemplateNode<T> node : nodes) {
+                if (node instanceof TemplateNode.Option<T> option) {
+                    options = option.options();
+                } else if (!node.isBound(bound)) {
+                    continue;
+                } else if (node instanceof TemplateNode.Group<T> group) {
+                    Step<T> step = group(group.operator(), group.nodes(), options);
+                    if (step instanceof Group<T> nested && nested.operator == operator) {
+                        steps.addAll(nested.steps);
+                    } else {
+                        steps.add(step);
+                    }
+                } else {
+                    steps.add(leaf(node, options));
+                }
+            }
+            // a builder that does not optimize keeps the groups as they are
+            replay |= !options.optimize();
+            if (steps.isEmpty()) {
+                return null;
+            }
+            return steps.size() == 1 ? steps.get(0) : new Group<>(operator, List.copyOf(steps), overlaps(steps));
+        }
+
+        private Leaf<T> leaf(TemplateNode<T> node, TemplateNode.Options options) {
+            if (node instanceof TemplateNode.Exists<T, ?> exists) {
+                return parametric(exists.nodes())
+                        ? add(new Leaf<>(node, exists.attributeName(), options, new int[0], leaves.size(), null))
+                        : constant(node, exists.attributeName(), options);
+            }
+            TemplateNode.Condition<T> condition = (TemplateNode.Condition<T>) node;
+            Object[] arguments = condition.arguments();
+            int[] argumentSlots = new int[arguments.length];
+            boolean parametric = false;
+            for (int i = 0; i < arguments.length; i++) {
+                argumentSlots[i] = arguments[i] instanceof Param param ? slots.get(param.getName()) : -1;
+                parametric |= argumentSlots[i] >= 0;
+            }
+            if (!parametric) {
+                return constant(node, condition.attributeName(), options);
+            }
+            arity = Math.max(arity, arguments.length);
+            return add(new Leaf<>(node, condition.attributeName(), options, argumentSlots, leaves.size(), null));
+        }
+
+        private Leaf<T> add(Leaf<T> leaf) {
+            leaves.add(leaf);
+            return leaf;
+        }
+
+        private Leaf<T> constant(TemplateNode<T> node, String attributeName, TemplateNode.Options options) {
+            SpecificationBuilder<T> builder = new SpecificationBuilder<>();
+            options.apply(builder);
+            node.apply(builder, bound);
+            Specification<T> specification = builder.optimize(false).build().getSpecifications().get(0);
+            replay |= folds(specification);
+            return new Leaf<>(node, attributeName, options, new int[0], -1, specification);
+        }
+
+        /**
+         * find the pairs of steps on a common attribute, only those may be combined by the optimizer
+         */
+        private int[] overlaps(List<Step<T>> steps) {
+            List<Set<String>> attributeNames = new ArrayList<>(steps.size());
+            for (Step<T> step : steps) {
+                Set<String> names = new HashSet<>();
+                attributeNames(step, names);
+                attributeNames.add(names);
+            }
+            List<Integer> overlaps = new ArrayList<>();
+            for (int i = 0; i < steps.size(); i++) {
+                for (int j = i + 1; j < steps.size(); j++) {
+                    if (!Collections.disjoint(attributeNames.get(i), attributeNames.get(j))) {
+                        overlaps.add(i);
+                        overlaps.add(j);
+                    }
+                }
+            }
+            return overlaps.stream().mapToInt(Integer::intValue).toArray();
+        }
+
+        private void attributeNames(Step<T> step, Set<String> names) {
+            if (step instanceof Leaf<T> leaf) {
+                names.add(leaf.attributeName);
+            } else {
+                ((Group<T>) step).steps.forEach(child -> attributeNames(child, names));
+            }
+        }
+
+        private static boolean parametric(List<? extends TemplateNode<?>> nodes) {
+            for (TemplateNode<?> node : nodes) {
+                if (node instanceof TemplateNode.Condition<?> condition) {
+                    for (Object argument : condition.arguments()) {
+                        if (argument instanceof Param) {
+                            return true;
+                        }
+                    }
+                } else if (node instanceof TemplateNode.Group<?> group && parametric(group.nodes())
+                        || node instanceof TemplateNode.Exists<?, ?> exists && parametric(exists.nodes())) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
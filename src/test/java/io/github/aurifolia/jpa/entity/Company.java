@@ -0,0 +1,43 @@
+package io.github.aurifolia.jpa.entity;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.OneToMany;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+import java.util.List;
+
+/**
+ * company
+ *
+ * @author Peng Dan
+ * @since 1.0
+ */
+@Data
+@Entity
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class Company {
+    /**
+     * company ID
+     */
+    @Id
+    private Long id;
+    /**
+     * name
+     */
+    private String name;
+    /**
+     * departments
+     */
+    @OneToMany(mappedBy = "company")
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private List<Department> departments;
+}
@@ -0,0 +1,49 @@
+package io.github.aurifolia.jpa.entity;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.ManyToOne;
+import jakarta.persistence.OneToMany;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+import java.util.List;
+
+/**
+ * department of a company
+ *
+ * @author Peng Dan
+ * @since 1.0
+ */
+@Data
+@Entity
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class Department {
+    /**
+     * department ID
+     */
+    @Id
+    private Long id;
+    /**
+     * name
+     */
+    private String name;
+    /**
+     * company
+     */
+    @ManyToOne
+    private Company company;
+    /**
+     * employees
+     */
+    @OneToMany(mappedBy = "department")
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private List<Employee> employees;
+}
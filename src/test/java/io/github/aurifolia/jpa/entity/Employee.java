@@ -0,0 +1,41 @@
+package io.github.aurifolia.jpa.entity;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.ManyToOne;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * employee of a department
+ *
+ * @author Peng Dan
+ * @since 1.0
+ */
+@Data
+@Entity
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class Employee {
+    /**
+     * employee ID
+     */
+    @Id
+    private Long id;
+    /**
+     * name
+     */
+    private String name;
+    /**
+     * age
+     */
+    private Integer age;
+    /**
+     * department
+     */
+    @ManyToOne
+    private Department department;
+}
@@ -0,0 +1,14 @@
+package io.github.aurifolia.jpa.repository;
+
+import io.github.aurifolia.jpa.entity.Company;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+
+/**
+ * CompanyRepository
+ *
+ * @author Peng Dan
+ * @since 1.0
+ */
+public interface CompanyRepository extends JpaRepository<Company, Long>, JpaSpecificationExecutor<Company> {
+}
@@ -0,0 +1,14 @@
+package io.github.aurifolia.jpa.repository;
+
+import io.github.aurifolia.jpa.entity.Department;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+
+/**
+ * DepartmentRepository
+ *
+ * @author Peng Dan
+ * @since 1.0
+ */
+public interface DepartmentRepository extends JpaRepository<Department, Long>, JpaSpecificationExecutor<Department> {
+}
@@ -0,0 +1,14 @@
+package io.github.aurifolia.jpa.repository;
+
+import io.github.aurifolia.jpa.entity.Employee;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+
+/**
+ * EmployeeRepository
+ *
+ * @author Peng Dan
+ * @since 1.0
+ */
+public interface EmployeeRepository extends JpaRepository<Employee, Long>, JpaSpecificationExecutor<Employee> {
+}
@@ -0,0 +1,164 @@
+package io.github.aurifolia.jpa.util;
+
+import io.github.aurifolia.jpa.SpecificationBuilder;
+import io.github.aurifolia.jpa.entity.Company;
+import io.github.aurifolia.jpa.entity.Department;
+import io.github.aurifolia.jpa.entity.Employee;
+import io.github.aurifolia.jpa.query.JpqlQueryCache;
+import io.github.aurifolia.jpa.repository.CompanyRepository;
+import io.github.aurifolia.jpa.repository.DepartmentRepository;
+import io.github.aurifolia.jpa.repository.EmployeeRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.criteria.JoinType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * AssociationPathTest
+ *
+ * @author Peng Dan
+ * @since 1.0
+ */
+@SpringBootTest
+class AssociationPathTest {
+    private static final Pattern JOIN = Pattern.compile("\\bjoin\\b");
+    @Autowired
+    private CompanyRepository companyRepository;
+    @Autowired
+    private DepartmentRepository departmentRepository;
+    @Autowired
+    private EmployeeRepository employeeRepository;
+    @Autowired
+    private EntityManager entityManager;
+
+    @BeforeEach
+    void beforeEach() {
+        Company acme = companyRepository.saveAndFlush(Company.builder().id(1L).name("Acme").build());
+        Company globex = companyRepository.saveAndFlush(Company.builder().id(2L).name("Globex").build());
+        Department sales = departmentRepository.saveAndFlush(Department.builder().id(1L).name("Sales").company(acme).build());
+        Department research = departmentRepository.saveAndFlush(Department.builder().id(2L).name("R&D").company(acme).build());
+        Department globexSales = departmentRepository.saveAndFlush(Department.builder().id(3L).name("Sales").company(globex).build());
+        employeeRepository.saveAndFlush(Employee.builder().id(1L).name("Ross").age(30).department(sales).build());
+        employeeRepository.saveAndFlush(Employee.builder().id(2L).name("Julie").age(25).department(research).build());
+        employeeRepository.saveAndFlush(Employee.builder().id(3L).name("Gloria").age(40).department(globexSales).build());
+        employeeRepository.saveAndFlush(Employee.builder().id(4L).name("Carol").age(35).department(sales).build());
+        SqlRecorder.clear();
+    }
+
+    @AfterEach
+    void afterEach() {
+        employeeRepository.deleteAll();
+        departmentRepository.deleteAll();
+        companyRepository.deleteAll();
+    }
+
+    @Test
+    void toOne() {
+        Specification<Employee> specification = new SpecificationBuilder<Employee>()
+                .equal(true, "department.company.name", "Acme")
+                .equal(true, "department.name", "Sales")
+                .build();
+        assertEquals(Set.of(1L, 4L), ids(employeeRepository.findAll(specification)));
+        assertEquals(2, joins(SqlRecorder.statements().get(0)));
+    }
+
+    @Test
+    void joinReuse() {
+        Specification<Employee> specification = new SpecificationBuilder<Employee>()
+                .isNotNull(true, "department.name")
+                .notEqual(true, "department.name", "Marketing")
+                .likeRight(true, "department.name", "S")
+                .like(true, "department.name", "a")
+                .in(true, "department.id", List.of(1L, 3L))
+                .greaterThan(true, "department.id", 0L)
+                .lessThanOrEqual(true, "department.id", 3L)
+                .between(true, "department.id", 1L, 3L)
+                .or(or -> or.equal(true, "department.company.name", "Acme").equal(true, "department.company.id", 2L))
+                .build();
+        assertEquals(Set.of(1L, 3L, 4L), ids(employeeRepository.findAll(specification)));
+        // ten conditions on department.*, one join of department and one of company
+        assertEquals(2, joins(SqlRecorder.statements().get(0)));
+        SqlRecorder.clear();
+        assertEquals(3, employeeRepository.count(specification));
+        assertEquals(2, joins(SqlRecorder.statements().get(0)));
+    }
+
+    @Test
+    @Transactional
+    void toMany() {
+        Specification<Department> specification = new SpecificationBuilder<Department>()
+                .greaterThan(true, "employees.age", 30)
+                .likeRight(true, "employees.name", "G")
+                .build();
+        // both conditions apply to the same employee
+        assertEquals(Set.of(3L), departmentRepository.findAll(specification).stream().map(Department::getId).collect(Collectors.toSet()));
+        assertEquals(1, joins(SqlRecorder.statements().get(0)));
+    }
+
+    @Test
+    @Transactional
+    void nestedToMany() {
+        // a join of a to-many association resolves the element type for the next segment
+        Specification<Company> specification = new SpecificationBuilder<Company>()
+                .equal(true, "departments.employees.name", "Gloria")
+                .build();
+        assertEquals(List.of(2L), companyRepository.findAll(specification).stream().map(Company::getId).collect(Collectors.toList()));
+    }
+
+    @Test
+    @Transactional
+    void leftJoin() {
+        // a left join is not reused by the inner join of the path
+        Specification<Employee> leftJoined = (root, query, criteriaBuilder) -> {
+            root.join("department", JoinType.LEFT);
+            return null;
+        };
+        assertEquals(Set.of(2L), ids(employeeRepository.findAll(leftJoined.and(new SpecificationBuilder<Employee>()
+                .equal(true, "department.name", "R&D").build()))));
+    }
+
+    @Test
+    void inMemory() {
+        List<Employee> employees = employeeRepository.findAll();
+        assertEquals(Set.of(1L, 4L), ids(employees.stream()
+                .filter(new SpecificationBuilder<Employee>()
+                        .equal(true, "department.company.name", "Acme")
+                        .greaterThanOrEqual(true, "age", 30)
+                        .buildPredicate(Employee.class))
+                .collect(Collectors.toList())));
+    }
+
+    @Test
+    void jpql() {
+        Specification<Employee> specification = new SpecificationBuilder<Employee>()
+                .equal(true, "department.company.name", "Globex")
+                .build();
+        assertEquals(Set.of(3L), ids(new JpqlQueryCache(10).createQuery(entityManager, Employee.class, specification).getResultList()));
+    }
+
+    private static Set<Long> ids(List<Employee> employees) {
+        return employees.stream().map(Employee::getId).collect(Collectors.toSet());
+    }
+
+    private static int joins(String sql) {
+        Matcher matcher = JOIN.matcher(sql);
+        int count = 0;
+        while (matcher.find()) {
+            count++;
+        }
+        return count;
+    }
+}
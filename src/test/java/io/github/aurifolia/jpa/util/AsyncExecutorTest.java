@@ -0,0 +1,133 @@
+package io.github.aurifolia.jpa.util;
+
+import io.github.aurifolia.jpa.SpecificationBuilder;
+import io.github.aurifolia.jpa.entity.User;
+import io.github.aurifolia.jpa.query.AsyncExecutor;
+import io.github.aurifolia.jpa.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * AsyncExecutorTest
+ *
+ * @author Peng Dan
+ * @since 1.0
+ */
+@SpringBootTest
+class AsyncExecutorTest {
+    @Autowired
+    private UserRepository repository;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @BeforeEach
+    void beforeEach() {
+        repository.saveAndFlush(User.builder().id(1L).username("Ross").nickname("Rossy").build());
+        repository.saveAndFlush(User.builder().id(2L).username("Julie").build());
+        repository.saveAndFlush(User.builder().id(3L).username("Gloria").nickname("Glo").build());
+    }
+
+    @AfterEach
+    void afterEach() {
+        repository.deleteAll();
+    }
+
+    @Test
+    void concurrent() throws Exception {
+        AsyncExecutor<User> executor = new AsyncExecutor<>(repository, transactionManager, 4);
+        // every query waits for the others, so they can only complete if they run at the same time
+        CountDownLatch latch = new CountDownLatch(3);
+        AtomicBoolean readOnly = new AtomicBoolean(true);
+        CompletableFuture<List<User>> all = executor.findAllAsync(awaiting(latch, readOnly, "Ross"), Sort.by("id"));
+        CompletableFuture<Long> count = executor.countAsync(awaiting(latch, readOnly, "J"));
+        CompletableFuture<Boolean> exists = executor.existsAsync(awaiting(latch, readOnly, "G"));
+        assertEquals(1, all.get(10, TimeUnit.SECONDS).size());
+        assertEquals(1L, count.get(10, TimeUnit.SECONDS));
+        assertTrue(exists.get(10, TimeUnit.SECONDS));
+        assertTrue(readOnly.get());
+        assertEquals(2, executor.findAllAsync(new SpecificationBuilder<User>().isNotNull(true, "nickname").build(), PageRequest.of(0, 5))
+                .get(10, TimeUnit.SECONDS).getTotalElements());
+    }
+
+    @Test
+    void timeout() throws Exception {
+        AsyncExecutor<User> executor = new AsyncExecutor<>(repository, transactionManager, 1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Long> slow = executor.countAsync(blocking(new CountDownLatch(1), release), Duration.ofMillis(200));
+        ExecutionException e = assertThrows(ExecutionException.class, () -> slow.get(10, TimeUnit.SECONDS));
+        assertInstanceOf(TimeoutException.class, e.getCause());
+        release.countDown();
+        // the permit is released once the slow query returns
+        assertEquals(3L, executor.countAsync(null, Duration.ofSeconds(10)).get(10, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void cancel() throws Exception {
+        AsyncExecutor<User> executor = new AsyncExecutor<>(repository, transactionManager, 1);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<List<User>> running = executor.findAllAsync(blocking(started, release));
+        assertTrue(started.await(10, TimeUnit.SECONDS));
+        AtomicInteger calls = new AtomicInteger();
+        CompletableFuture<Long> queued = executor.countAsync((root, query, criteriaBuilder) -> {
+            calls.incrementAndGet();
+            return null;
+        });
+        assertTrue(queued.cancel(true));
+        assertThrows(CancellationException.class, queued::join);
+        release.countDown();
+        assertEquals(3, running.get(10, TimeUnit.SECONDS).size());
+        assertEquals(3L, executor.countAsync(null).get(10, TimeUnit.SECONDS));
+        // the cancelled query never ran
+        assertEquals(0, calls.get());
+    }
+
+    private static Specification<User> awaiting(CountDownLatch latch, AtomicBoolean readOnly, String prefix) {
+        return (root, query, criteriaBuilder) -> {
+            readOnly.compareAndSet(true, TransactionSynchronizationManager.isCurrentTransactionReadOnly());
+            latch.countDown();
+            try {
+                assertTrue(latch.await(10, TimeUnit.SECONDS));
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+            return new SpecificationBuilder<User>().likeRight(true, "username", prefix).build().toPredicate(root, query, criteriaBuilder);
+        };
+    }
+
+    private static Specification<User> blocking(CountDownLatch started, CountDownLatch release) {
+        return (root, query, criteriaBuilder) -> {
+            started.countDown();
+            try {
+                release.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+            return null;
+        };
+    }
+}
@@ -0,0 +1,152 @@
+package io.github.aurifolia.jpa.util;
+
+import io.github.aurifolia.jpa.SpecificationBuilder;
+import io.github.aurifolia.jpa.entity.User;
+import io.github.aurifolia.jpa.query.BatchLoader;
+import io.github.aurifolia.jpa.repository.UserRepository;
+import io.github.aurifolia.jpa.support.VirtualThreads;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * BatchLoaderTest
+ *
+ * @author Peng Dan
+ * @since 1.0
+ */
+@SpringBootTest
+class BatchLoaderTest {
+    @Autowired
+    private UserRepository repository;
+
+    @BeforeEach
+    void beforeEach() {
+        repository.saveAndFlush(User.builder().id(1L).username("Ross").nickname("Rossy").build());
+        repository.saveAndFlush(User.builder().id(2L).username("Julie").build());
+        repository.saveAndFlush(User.builder().id(3L).username("Gloria").nickname("Glo").build());
+        repository.saveAndFlush(User.builder().id(4L).username("Julie").nickname("Jules").build());
+        SqlRecorder.clear();
+    }
+
+    @AfterEach
+    void afterEach() {
+        repository.deleteAll();
+    }
+
+    @Test
+    void batchSize() {
+        BatchLoader<User> loader = new BatchLoader<>(repository, User.class, "id", 3, Duration.ofMinutes(1));
+        CompletableFuture<List<User>> ross = loader.load(1L);
+        CompletableFuture<List<User>> julie = loader.load(2L);
+        // the same key, 1 equals 1L
+        CompletableFuture<List<User>> rossAgain = loader.load(1);
+        assertNotSame(ross, rossAgain);
+        assertFalse(ross.isDone());
+        // the third distinct key fills the batch
+        CompletableFuture<List<User>> missing = loader.load(9L);
+        assertEquals(List.of(1L), ids(ross.join()));
+        assertEquals(List.of(2L), ids(julie.join()));
+        assertEquals(List.of(), missing.join());
+        assertEquals(1, SqlRecorder.statements().size());
+        // equal keys share the query but not the list, which is unmodifiable
+        assertEquals(ross.join(), rossAgain.join());
+        assertThrows(UnsupportedOperationException.class, () -> ross.join().clear());
+        assertEquals(List.of(1L), ids(rossAgain.join()));
+        assertTrue(SqlRecorder.statements().get(0).contains(" in "));
+    }
+
+    @Test
+    void window() {
+        BatchLoader<User> loader = new BatchLoader<>(repository, User.class, "username", 100, Duration.ofMillis(200));
+        List<CompletableFuture<List<User>>> futures = List.of("Ross", "Julie", "Gloria", "Carol").parallelStream()
+                .map(loader::load).collect(Collectors.toList());
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+        assertEquals(List.of(1L), ids(futures.get(0).join()));
+        // every row of the key
+        assertEquals(List.of(2L, 4L), ids(futures.get(1).join()));
+        assertEquals(List.of(3L), ids(futures.get(2).join()));
+        assertEquals(List.of(), futures.get(3).join());
+        assertEquals(1, SqlRecorder.statements().size());
+        // the next key starts a new batch
+        assertEquals(List.of(3L), ids(loader.load("Gloria").join()));
+        assertEquals(2, SqlRecorder.statements().size());
+    }
+
+    @Test
+    void chunked() {
+        BatchLoader<User> loader = new BatchLoader<>(repository, User.class, "id", 3, Duration.ofMinutes(1),
+                VirtualThreads.executor(), 2, false);
+        CompletableFuture<List<User>> ross = loader.load(1L);
+        CompletableFuture<List<User>> julie = loader.load(2L);
+        CompletableFuture<List<User>> gloria = loader.load(3L);
+        assertEquals(List.of(1L), ids(ross.join()));
+        assertEquals(List.of(2L), ids(julie.join()));
+        assertEquals(List.of(3L), ids(gloria.join()));
+        // one statement, the keys are split into in lists of 2
+        assertEquals(1, SqlRecorder.statements().size());
+        assertEquals(2, SqlRecorder.statements().get(0).split(" in ", -1).length - 1);
+        // 3 keys padded to 4
+        SqlRecorder.clear();
+        BatchLoader<User> padded = new BatchLoader<>(repository, User.class, "id", 3, Duration.ofMinutes(1),
+                VirtualThreads.executor(), 0, true);
+        List<CompletableFuture<List<User>>> futures = List.of(padded.load(1L), padded.load(2L), padded.load(4L));
+        assertEquals(List.of(4L), ids(futures.get(2).join()));
+        assertEquals(4, SqlRecorder.statements().get(0).chars().filter(c -> c == '?').count());
+    }
+
+    @Test
+    void cancel() {
+        BatchLoader<User> loader = new BatchLoader<>(repository, User.class, "id", 2, Duration.ofMinutes(1));
+        CompletableFuture<List<User>> cancelled = loader.load(1L);
+        CompletableFuture<List<User>> other = loader.load(1L);
+        // cancelling one caller leaves the caller of the same key alone
+        assertTrue(cancelled.cancel(true));
+        CompletableFuture<List<User>> julie = loader.load(2L);
+        assertEquals(List.of(1L), ids(other.join()));
+        assertEquals(List.of(2L), ids(julie.join()));
+        assertTrue(cancelled.isCancelled());
+    }
+
+    @Test
+    void findAll() {
+        BatchLoader<User> loader = new BatchLoader<>(repository, User.class, "id", 2, Duration.ofMinutes(1));
+        CompletableFuture<List<User>> first = loader.findAll(new SpecificationBuilder<User>().equal(true, "id", 3L).build());
+        CompletableFuture<List<User>> second = loader.findAll(new SpecificationBuilder<User>().equal(true, "id", 4L).build());
+        assertEquals(List.of(3L), ids(first.join()));
+        assertEquals(List.of(4L), ids(second.join()));
+        assertEquals(1, SqlRecorder.statements().size());
+        // other conditions are not batched
+        assertEquals(List.of(2L, 4L), ids(loader.findAll(new SpecificationBuilder<User>().equal(true, "username", "Julie").build()).join()));
+        assertEquals(2, SqlRecorder.statements().size());
+    }
+
+    @Test
+    void failure() {
+        BatchLoader<User> loader = new BatchLoader<>(repository, User.class, "id", 2, Duration.ofMinutes(1));
+        CompletableFuture<List<User>> valid = loader.load(1L);
+        CompletableFuture<List<User>> invalid = loader.load("x");
+        // the callers of the batch share the failure
+        assertThrows(CompletionException.class, valid::join);
+        assertThrows(CompletionException.class, invalid::join);
+        assertThrows(IllegalArgumentException.class, () -> loader.load(null));
+    }
+
+    private static List<Long> ids(List<User> users) {
+        return users.stream().map(User::getId).sorted().collect(Collectors.toList());
+    }
+}
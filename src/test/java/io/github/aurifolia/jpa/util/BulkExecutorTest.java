@@ -0,0 +1,159 @@
+package io.github.aurifolia.jpa.util;
+
+import io.github.aurifolia.jpa.SpecificationBuilder;
+import io.github.aurifolia.jpa.entity.Company;
+import io.github.aurifolia.jpa.entity.User;
+import io.github.aurifolia.jpa.query.BulkExecutor;
+import io.github.aurifolia.jpa.query.CachingExecutor;
+import io.github.aurifolia.jpa.query.EntityChangeInvalidator;
+import io.github.aurifolia.jpa.repository.UserRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * BulkExecutorTest
+ *
+ * @author Peng Dan
+ * @since 1.0
+ */
+@SpringBootTest
+class BulkExecutorTest {
+    @Autowired
+    private UserRepository repository;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    @Autowired
+    private EntityManager entityManager;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    private BulkExecutor executor;
+
+    @BeforeEach
+    void beforeEach() {
+        for (long id = 1; id <= 10; id++) {
+            repository.saveAndFlush(User.builder().id(id).username((id % 2 == 0 ? "Ross" : "Julie") + id).nickname(id <= 3 ? null : "N" + id).build());
+        }
+        executor = new BulkExecutor(entityManager, transactionManager);
+        SqlRecorder.clear();
+    }
+
+    @AfterEach
+    void afterEach() {
+        repository.deleteAll();
+    }
+
+    @Test
+    void delete() {
+        assertEquals(3, executor.delete(User.class, new SpecificationBuilder<User>()
+                .likeRight(true, "username", "Ross")
+                .or(b -> b.in(true, "id", List.of(2L, 4L)).between(true, "id", 7L, 9L))
+                .build()));
+        assertEquals(1, SqlRecorder.statements().size());
+        assertTrue(SqlRecorder.statements().get(0).startsWith("delete"));
+        assertEquals(List.of(1L, 3L, 5L, 6L, 7L, 9L, 10L), ids());
+        // no matching rows
+        assertEquals(0, executor.delete(User.class, new SpecificationBuilder<User>().equal(true, "username", "Carol").build()));
+        assertEquals(7, executor.delete(User.class, null));
+        assertEquals(List.of(), ids());
+    }
+
+    @Test
+    void update() {
+        assertEquals(2, executor.update(User.class, new SpecificationBuilder<User>()
+                .isNull(true, "nickname")
+                .likeRight(true, "username", "Julie")
+                .build(), Map.of("nickname", "Jules")));
+        assertEquals(1, SqlRecorder.statements().size());
+        assertTrue(SqlRecorder.statements().get(0).startsWith("update"));
+        assertEquals(List.of(1L, 3L), ids(new SpecificationBuilder<User>().equal(true, "nickname", "Jules").build()));
+        // null values clear the attribute
+        assertEquals(3, executor.update(User.class, new SpecificationBuilder<User>().between(true, "id", 4L, 6L).build(),
+                Collections.singletonMap("nickname", null)));
+        assertNull(repository.findById(5L).orElseThrow().getNickname());
+        assertThrows(IllegalArgumentException.class, () -> executor.update(User.class, null, Map.of()));
+    }
+
+    @Test
+    void chunked() {
+        Specification<User> named = new SpecificationBuilder<User>().isNotNull(true, "nickname").build();
+        // ids 4 to 10 in chunks of 3: 4-6, 7-9, 10, every chunk seeks its upper bound and runs one statement
+        assertEquals(7, executor.update(User.class, named, Map.of("username", "Gloria"), 3));
+        assertEquals(6, SqlRecorder.statements().size());
+        assertTrue(SqlRecorder.statements().get(0).startsWith("select"));
+        assertTrue(SqlRecorder.statements().get(1).startsWith("update"));
+        assertEquals(7, repository.count(new SpecificationBuilder<User>().equal(true, "username", "Gloria").build()));
+        SqlRecorder.clear();
+        // 4-5, 6-7, 8-9, 10
+        assertEquals(7, executor.delete(User.class, named, 2));
+        assertEquals(8, SqlRecorder.statements().size());
+        assertEquals(List.of(1L, 2L, 3L), ids());
+        // nothing matches, one empty chunk
+        SqlRecorder.clear();
+        assertEquals(0, executor.delete(User.class, named, 2));
+        assertEquals(2, SqlRecorder.statements().size());
+        assertEquals(3, executor.delete(User.class, null, Long.MAX_VALUE));
+        assertThrows(IllegalArgumentException.class, () -> executor.delete(User.class, null, 0));
+    }
+
+    @Test
+    void sparse() {
+        // far apart ids cost no empty chunks
+        repository.saveAndFlush(User.builder().id(1_000_000_000L).username("Carol").build());
+        repository.saveAndFlush(User.builder().id(Long.MAX_VALUE).username("Carol").build());
+        SqlRecorder.clear();
+        assertEquals(12, executor.update(User.class, null, Map.of("nickname", "N"), 5));
+        assertEquals(6, SqlRecorder.statements().size());
+        assertEquals(12, repository.count(new SpecificationBuilder<User>().equal(true, "nickname", "N").build()));
+        assertEquals(2, executor.delete(User.class, new SpecificationBuilder<User>().equal(true, "username", "Carol").build(), 1));
+        assertEquals(List.of(1L, 2L, 3L, 4L, 5L, 6L, 7L, 8L, 9L, 10L), ids());
+    }
+
+    @Test
+    void invalidation() {
+        CachingExecutor<User> caching = new CachingExecutor<>(repository, User.class, 10, Duration.ofMinutes(1)).invalidateOn(entityManagerFactory);
+        Specification<User> julie = new SpecificationBuilder<User>().likeRight(true, "username", "Julie").build();
+        assertEquals(5, caching.count(julie));
+        assertEquals(1, caching.size());
+        // the bulk statement notifies the invalidator the cache registered on
+        assertSame(EntityChangeInvalidator.of(entityManagerFactory), EntityChangeInvalidator.find(entityManagerFactory));
+        executor.delete(User.class, new SpecificationBuilder<User>().equal(true, "id", 1L).build());
+        assertEquals(0, caching.size());
+        assertEquals(4, caching.count(julie));
+        caching.close();
+    }
+
+    @Test
+    void unsupported() {
+        assertThrows(IllegalArgumentException.class, () -> executor.delete(Company.class, new SpecificationBuilder<Company>()
+                .exists(true, "departments", departments -> departments.equal(true, "name", "Sales"))
+                .build()));
+    }
+
+    private List<Long> ids() {
+        return ids(null);
+    }
+
+    private List<Long> ids(Specification<User> specification) {
+        return repository.findAll(specification, Sort.by("id")).stream().map(User::getId).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,217 @@
+package io.github.aurifolia.jpa.util;
+
+import io.github.aurifolia.jpa.SpecificationBuilder;
+import io.github.aurifolia.jpa.entity.Department;
+import io.github.aurifolia.jpa.entity.Employee;
+import io.github.aurifolia.jpa.entity.User;
+import io.github.aurifolia.jpa.query.CachingExecutor;
+import io.github.aurifolia.jpa.repository.DepartmentRepository;
+import io.github.aurifolia.jpa.repository.EmployeeRepository;
+import io.github.aurifolia.jpa.repository.UserRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.lang.ref.WeakReference;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+/**
+ * CachingExecutorTest
+ *
+ * @author Peng Dan
+ * @since 1.0
+ */
+@SpringBootTest
+class CachingExecutorTest {
+    @Autowired
+    private UserRepository repository;
+    @Autowired
+    private DepartmentRepository departmentRepository;
+    @Autowired
+    private EmployeeRepository employeeRepository;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    private final MutableClock clock = new MutableClock();
+    private CachingExecutor<User> executor;
+
+    @BeforeEach
+    void beforeEach() {
+        repository.saveAndFlush(User.builder().id(1L).username("Ross").nickname("Rossy").build());
+        repository.saveAndFlush(User.builder().id(2L).username("Julie").build());
+        repository.saveAndFlush(User.builder().id(3L).username("Gloria").nickname("Glo").build());
+        executor = new CachingExecutor<>(repository, User.class, 3, Duration.ofMinutes(1), clock).invalidateOn(entityManagerFactory);
+        SqlRecorder.clear();
+    }
+
+    @AfterEach
+    void afterEach() {
+        executor.close();
+        repository.deleteAll();
+        employeeRepository.deleteAll();
+        departmentRepository.deleteAll();
+    }
+
+    @Test
+    void cached() {
+        List<User> users = executor.findAll(byName("R"));
+        assertEquals(1, users.size());
+        // equal specifications built separately share the entry
+        assertSame(users, executor.findAll(byName("R")));
+        assertEquals(1, SqlRecorder.statements().size());
+        executor.findAll(byName("J"));
+        assertEquals(2, SqlRecorder.statements().size());
+        assertEquals(3, executor.count(byName("")));
+        assertEquals(3, executor.count(byName("")));
+        assertEquals(3, executor.findAll(byName(""), PageRequest.of(0, 1)).getTotalPages());
+        assertEquals(3, executor.findAll(byName(""), PageRequest.of(0, 1)).getTotalPages());
+        assertEquals(5, SqlRecorder.statements().size());
+        // other arguments are other entries
+        executor.findAll(byName(""), Sort.by("id"));
+        executor.findAll(byName(""), Sort.by("username"));
+        assertEquals(7, SqlRecorder.statements().size());
+    }
+
+    @Test
+    void notCached() {
+        Specification<User> lambda = (root, query, criteriaBuilder) -> criteriaBuilder.equal(root.get("id"), 1L);
+        executor.findAll(lambda);
+        executor.findAll(lambda);
+        executor.exists(new SpecificationBuilder<User>().and(b -> b.isNotNull(true, "nickname")).build().and(lambda));
+        assertEquals(3, SqlRecorder.statements().size());
+        assertEquals(0, executor.size());
+    }
+
+    @Test
+    void eviction() {
+        executor.findAll(byName("R"));
+        clock.advance(Duration.ofSeconds(59));
+        executor.findAll(byName("R"));
+        assertEquals(1, SqlRecorder.statements().size());
+        clock.advance(Duration.ofSeconds(2));
+        executor.findAll(byName("R"));
+        assertEquals(2, SqlRecorder.statements().size());
+        // maximum size 3, "R" is the least recently used
+        executor.findAll(byName("J"));
+        executor.findAll(byName("G"));
+        executor.findAll(byName("X"));
+        assertEquals(3, executor.size());
+        SqlRecorder.clear();
+        executor.findAll(byName("X"));
+        assertEquals(0, SqlRecorder.statements().size());
+        executor.findAll(byName("R"));
+        assertEquals(1, SqlRecorder.statements().size());
+    }
+
+    @Test
+    void invalidation() {
+        assertEquals(1, executor.findAll(byName("J")).size());
+        repository.saveAndFlush(User.builder().id(4L).username("Joey").build());
+        assertEquals(0, executor.size());
+        assertEquals(2, executor.findAll(byName("J")).size());
+
+        User joey = repository.findById(4L).orElseThrow();
+        joey.setUsername("Chandler");
+        repository.saveAndFlush(joey);
+        assertEquals(1, executor.findAll(byName("J")).size());
+
+        repository.deleteById(2L);
+        assertEquals(0, executor.findAll(byName("J")).size());
+    }
+
+    @Test
+    void associations() {
+        Department sales = departmentRepository.saveAndFlush(Department.builder().id(1L).name("Sales").build());
+        departmentRepository.saveAndFlush(Department.builder().id(2L).name("Legal").build());
+        employeeRepository.saveAndFlush(Employee.builder().id(1L).name("Ross").age(30).department(sales).build());
+        CachingExecutor<Department> departments = new CachingExecutor<>(departmentRepository, Department.class, 3,
+                Duration.ofMinutes(1), clock).invalidateOn(entityManagerFactory);
+        CachingExecutor<Employee> employees = new CachingExecutor<>(employeeRepository, Employee.class, 3,
+                Duration.ofMinutes(1), clock).invalidateOn(entityManagerFactory);
+        Specification<Department> withJulie = new SpecificationBuilder<Department>()
+                .<Employee>exists(true, "employees", employee -> employee.equal(true, "name", "Julie")).build();
+        Specification<Employee> inSales = new SpecificationBuilder<Employee>().equal(true, "department.name", "Sales").build();
+
+        // employees reached through exists
+        assertEquals(0, departments.count(withJulie));
+        employeeRepository.saveAndFlush(Employee.builder().id(2L).name("Julie").age(25).department(sales).build());
+        assertEquals(0, departments.size());
+        assertEquals(1, departments.count(withJulie));
+
+        // departments reached through a dotted path
+        assertEquals(2, employees.count(inSales));
+        sales.setName("Marketing");
+        departmentRepository.saveAndFlush(sales);
+        assertEquals(0, employees.size());
+        assertEquals(0, employees.count(inSales));
+        departments.close();
+        employees.close();
+    }
+
+    @Test
+    void close() throws InterruptedException {
+        executor.findAll(byName("R"));
+        executor.close();
+        assertEquals(0, executor.size());
+        SqlRecorder.clear();
+        // closed executors query the delegate every time
+        executor.findAll(byName("R"));
+        executor.findAll(byName("R"));
+        assertEquals(2, SqlRecorder.statements().size());
+        assertEquals(0, executor.size());
+
+        // the invalidator does not keep closed executors reachable
+        CachingExecutor<User> closed = new CachingExecutor<>(repository, User.class, 3, Duration.ofMinutes(1), clock)
+                .invalidateOn(entityManagerFactory);
+        closed.findAll(byName("J"));
+        closed.close();
+        WeakReference<CachingExecutor<User>> reference = new WeakReference<>(closed);
+        closed = null;
+        for (int i = 0; i < 50 && reference.get() != null; i++) {
+            System.gc();
+            Thread.sleep(10);
+        }
+        assertNull(reference.get());
+    }
+
+    private static Specification<User> byName(String prefix) {
+        return new SpecificationBuilder<User>().likeRight(true, "username", prefix).isNotNull(true, "username").build();
+    }
+
+    private static class MutableClock extends Clock {
+        private Instant instant = Instant.parse("2024-01-01T00:00:00Z");
+
+        void advance(Duration duration) {
+            instant = instant.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return instant;
+        }
+    }
+}
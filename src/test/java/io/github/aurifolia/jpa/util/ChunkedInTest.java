@@ -0,0 +1,82 @@
+package io.github.aurifolia.jpa.util;
+
+import io.github.aurifolia.jpa.SpecificationBuilder;
+import io.github.aurifolia.jpa.entity.User;
+import io.github.aurifolia.jpa.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * ChunkedInTest
+ *
+ * @author Peng Dan
+ * @since 1.0
+ */
+@SpringBootTest
+class ChunkedInTest {
+    @Autowired
+    private UserRepository repository;
+    private List<Long> ids;
+
+    @BeforeEach
+    void beforeEach() {
+        repository.saveAllAndFlush(LongStream.rangeClosed(1, 300)
+                .mapToObj(id -> User.builder().id(id).username("user" + id).build())
+                .toList());
+        ids = new ArrayList<>();
+        LongStream.rangeClosed(1, 500).filter(id -> id % 3 != 0).forEach(ids::add);
+        ids.addAll(ids.subList(0, 50));
+    }
+
+    @AfterEach
+    void afterEach() {
+        repository.deleteAllInBatch();
+    }
+
+    @Test
+    void in() {
+        Set<Long> expected = ids(new SpecificationBuilder<User>().in(true, "id", ids).build());
+        assertEquals(200, expected.size());
+        for (int chunkSize : new int[]{1, 7, 100, 333, 1000}) {
+            assertEquals(expected, ids(new SpecificationBuilder<User>().inChunkSize(chunkSize).in(true, "id", ids).build()));
+        }
+    }
+
+    @Test
+    void notIn() {
+        Set<Long> expected = ids(new SpecificationBuilder<User>().notIn(true, "id", ids).build());
+        assertEquals(100, expected.size());
+        for (int chunkSize : new int[]{1, 7, 100, 333, 1000}) {
+            assertEquals(expected, ids(new SpecificationBuilder<User>().inChunkSize(chunkSize).notIn(true, "id", ids).build()));
+        }
+    }
+
+    @Test
+    void nested() {
+        Set<Long> expected = ids(new SpecificationBuilder<User>()
+                .or(b -> b.in(true, "id", ids).equal(true, "id", 3L))
+                .notIn(true, "id", ids.subList(0, 20))
+                .build());
+        Set<Long> actual = ids(new SpecificationBuilder<User>().inChunkSize(16)
+                .or(b -> b.in(true, "id", ids).equal(true, "id", 3L))
+                .notIn(true, "id", ids.subList(0, 20))
+                .build());
+        assertEquals(expected, actual);
+    }
+
+    private Set<Long> ids(Specification<User> specification) {
+        return repository.findAll(specification).stream().map(User::getId).collect(Collectors.toSet());
+    }
+}
@@ -0,0 +1,221 @@
+package io.github.aurifolia.jpa.util;
+
+import io.github.aurifolia.jpa.SpecificationBuilder;
+import io.github.aurifolia.jpa.entity.Company;
+import io.github.aurifolia.jpa.entity.Department;
+import io.github.aurifolia.jpa.entity.Employee;
+import io.github.aurifolia.jpa.query.JpqlQueryCache;
+import io.github.aurifolia.jpa.repository.CompanyRepository;
+import io.github.aurifolia.jpa.repository.DepartmentRepository;
+import io.github.aurifolia.jpa.repository.EmployeeRepository;
+import io.github.aurifolia.jpa.specification.CompositeSpecification;
+import io.github.aurifolia.jpa.specification.ConstantSpecification;
+import io.github.aurifolia.jpa.template.SpecificationTemplate;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static io.github.aurifolia.jpa.template.Param.param;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * ExistsTest
+ *
+ * @author Peng Dan
+ * @since 1.0
+ */
+@SpringBootTest
+class ExistsTest {
+    @Autowired
+    private CompanyRepository companyRepository;
+    @Autowired
+    private DepartmentRepository departmentRepository;
+    @Autowired
+    private EmployeeRepository employeeRepository;
+    @Autowired
+    private EntityManager entityManager;
+
+    @BeforeEach
+    void beforeEach() {
+        Company acme = companyRepository.saveAndFlush(Company.builder().id(1L).name("Acme").build());
+        Company globex = companyRepository.saveAndFlush(Company.builder().id(2L).name("Globex").build());
+        Department sales = departmentRepository.saveAndFlush(Department.builder().id(1L).name("Sales").company(acme).build());
+        Department research = departmentRepository.saveAndFlush(Department.builder().id(2L).name("R&D").company(acme).build());
+        Department globexSales = departmentRepository.saveAndFlush(Department.builder().id(3L).name("Sales").company(globex).build());
+        departmentRepository.saveAndFlush(Department.builder().id(4L).name("Legal").company(globex).build());
+        employeeRepository.saveAndFlush(Employee.builder().id(1L).name("Ross").age(30).department(sales).build());
+        employeeRepository.saveAndFlush(Employee.builder().id(2L).name("Julie").age(25).department(research).build());
+        employeeRepository.saveAndFlush(Employee.builder().id(3L).name("Gloria").age(40).department(globexSales).build());
+        employeeRepository.saveAndFlush(Employee.builder().id(4L).name("Carol").age(35).department(sales).build());
+        SqlRecorder.clear();
+    }
+
+    @AfterEach
+    void afterEach() {
+        employeeRepository.deleteAll();
+        departmentRepository.deleteAll();
+        companyRepository.deleteAll();
+    }
+
+    @Test
+    void exists() {
+        // two employees of Sales match, the department is returned once
+        assertEquals(List.of(1L, 3L), departments(new SpecificationBuilder<Department>()
+                .exists(true, "employees", employees -> employees.greaterThanOrEqual(true, "age", 30))
+                .build()));
+        String sql = SqlRecorder.statements().get(0);
+        assertTrue(sql.contains("exists"));
+        assertFalse(sql.contains("distinct"));
+        assertFalse(sql.contains("join"));
+        // the conditions apply to the same employee
+        assertEquals(List.of(3L), departments(new SpecificationBuilder<Department>()
+                .exists(true, "employees", employees -> employees.greaterThan(true, "age", 30).likeRight(true, "name", "G"))
+                .build()));
+        // no conditions, any employee
+        assertEquals(List.of(1L, 2L, 3L), departments(new SpecificationBuilder<Department>()
+                .exists(true, "employees", employees -> employees)
+                .build()));
+        assertEquals(4, departmentRepository.count(new SpecificationBuilder<Department>()
+                .exists(false, "employees", employees -> employees)
+                .build()));
+    }
+
+    @Test
+    void notExists() {
+        assertEquals(List.of(1L, 3L, 4L), departments(new SpecificationBuilder<Department>()
+                .notExists(true, "employees", employees -> employees.lessThan(true, "age", 30))
+                .build()));
+        assertEquals(List.of(4L), departments(new SpecificationBuilder<Department>()
+                .notExists(true, "employees", employees -> employees)
+                .build()));
+        // combined with other conditions and groups
+        assertEquals(List.of(2L, 4L), departments(new SpecificationBuilder<Department>()
+                .or(or -> or.equal(true, "name", "Legal")
+                        .exists(true, "employees", employees -> employees.in(true, "name", List.of("Julie"))))
+                .build()));
+    }
+
+    @Test
+    void nested() {
+        List<Long> companies = companyRepository.findAll(new SpecificationBuilder<Company>()
+                        .exists(true, "departments", departments -> departments
+                                .equal(true, "name", "Sales")
+                                .<Employee>exists(true, "employees", employees -> employees.equal(true, "name", "Gloria")))
+                        .build())
+                .stream().map(Company::getId).collect(Collectors.toList());
+        assertEquals(List.of(2L), companies);
+    }
+
+    @Test
+    void optimized() {
+        CompositeSpecification<Department> none = new SpecificationBuilder<Department>()
+                .exists(true, "employees", employees -> employees.in(true, "id", List.of()))
+                .build();
+        assertTrue(none.isAlwaysFalse());
+        assertEquals(new ConstantSpecification<>(false), none.getSpecifications().get(0));
+        CompositeSpecification<Department> all = new SpecificationBuilder<Department>()
+                .notExists(true, "employees", employees -> employees.in(true, "id", List.of()))
+                .build();
+        assertTrue(all.isEmpty());
+    }
+
+    @Test
+    void template() {
+        SpecificationTemplate<Department> template = SpecificationTemplate.of(t -> t
+                .exists("employees", employees -> employees.greaterThanOrEqual("age", param("minAge")))
+                .notExists("employees", employees -> employees.equal("name", param("excluded"))));
+        // the exists drop out if none of their conditions are bound
+        assertEquals(List.of(1L, 2L, 3L, 4L), departments(template.bind(Map.of())));
+        assertEquals(List.of(1L, 3L), departments(template.bind(Map.of("minAge", 30))));
+        assertEquals(List.of(3L), departments(template.bind(Map.of("minAge", 30, "excluded", "Ross"))));
+        assertEquals(new SpecificationBuilder<Department>()
+                        .exists(true, "employees", employees -> employees.greaterThanOrEqual(true, "age", 30)).build(),
+                template.bind(Map.of("minAge", 30)));
+        // without conditions it is always appended
+        SpecificationTemplate<Department> any = SpecificationTemplate.of(t -> t.notExists("employees", employees -> employees));
+        assertEquals(List.of(4L), departments(any.bind(Map.of())));
+    }
+
+    @Test
+    void jpql() {
+        JpqlQueryCache cache = new JpqlQueryCache(16);
+        CompositeSpecification<Department> specification = new SpecificationBuilder<Department>()
+                .exists(true, "employees", employees -> employees.greaterThanOrEqual(true, "age", 30))
+                .notExists(true, "employees", employees -> employees.equal(true, "name", "Ross"))
+                .build();
+        assertEquals("and(exists(employees,and(greaterThanOrEqual(age))),notExists(employees,and(equal(name))))", specification.getShape());
+        assertEquals(List.of(3L), cache.createQuery(entityManager, Department.class, specification).getResultList().stream()
+                .map(Department::getId).collect(Collectors.toList()));
+        assertEquals(1L, cache.createCountQuery(entityManager, Department.class, specification).getSingleResult());
+        // the same shape reuses the template, the parameters are bound again
+        assertEquals(List.of(1L, 3L), cache.createQuery(entityManager, Department.class, new SpecificationBuilder<Department>()
+                        .exists(true, "employees", employees -> employees.greaterThanOrEqual(true, "age", 35))
+                        .notExists(true, "employees", employees -> employees.equal(true, "name", "Julie"))
+                        .build())
+                .getResultList().stream().map(Department::getId).sorted().collect(Collectors.toList()));
+        assertEquals(2, cache.size());
+        // without conditions, and nested
+        assertEquals(List.of(4L), cache.createQuery(entityManager, Department.class, new SpecificationBuilder<Department>()
+                        .notExists(true, "employees", employees -> employees)
+                        .build())
+                .getResultList().stream().map(Department::getId).collect(Collectors.toList()));
+        assertEquals(List.of(2L), cache.createQuery(entityManager, Company.class, new SpecificationBuilder<Company>()
+                        .exists(true, "departments", departments -> departments
+                                .equal(true, "name", "Sales")
+                                .<Employee>exists(true, "employees", employees -> employees.equal(true, "name", "Gloria")))
+                        .build())
+                .getResultList().stream().map(Company::getId).collect(Collectors.toList()));
+    }
+
+    @Test
+    void inMemory() {
+        Employee ross = Employee.builder().id(1L).name("Ross").age(30).build();
+        Employee julie = Employee.builder().id(2L).name("Julie").age(25).build();
+        List<Department> departments = List.of(
+                Department.builder().id(1L).employees(List.of(ross, julie)).build(),
+                Department.builder().id(2L).employees(List.of(julie)).build(),
+                Department.builder().id(3L).employees(List.of()).build(),
+                Department.builder().id(4L).build());
+        assertEquals(List.of(1L), filter(departments, new SpecificationBuilder<Department>()
+                .exists(true, "employees", employees -> employees.greaterThanOrEqual(true, "age", 30))));
+        assertEquals(List.of(1L, 2L), filter(departments, new SpecificationBuilder<Department>()
+                .exists(true, "employees", employees -> employees)));
+        assertEquals(List.of(3L, 4L), filter(departments, new SpecificationBuilder<Department>()
+                .notExists(true, "employees", employees -> employees)));
+        assertEquals(List.of(2L, 3L, 4L), filter(departments, new SpecificationBuilder<Department>()
+                .notExists(true, "employees", employees -> employees.equal(true, "name", "Ross"))));
+        Company acme = Company.builder().id(1L).departments(departments).build();
+        assertTrue(new SpecificationBuilder<Company>()
+                .exists(true, "departments", d -> d.<Employee>exists(true, "employees", e -> e.equal(true, "name", "Julie")))
+                .buildPredicate(Company.class).test(acme));
+        assertThrows(IllegalArgumentException.class, () -> new SpecificationBuilder<Department>()
+                .exists(true, "name", e -> e).buildPredicate(Department.class));
+    }
+
+    @Test
+    void invalid() {
+        Specification<Department> specification = new SpecificationBuilder<Department>()
+                .exists(true, "company", company -> company)
+                .build();
+        assertThrows(Exception.class, () -> departmentRepository.findAll(specification));
+    }
+
+    private static List<Long> filter(List<Department> departments, SpecificationBuilder<Department> builder) {
+        return departments.stream().filter(builder.buildPredicate(Department.class)).map(Department::getId).collect(Collectors.toList());
+    }
+
+    private List<Long> departments(Specification<Department> specification) {
+        return departmentRepository.findAll(specification).stream().map(Department::getId).sorted().collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,105 @@
+package io.github.aurifolia.jpa.util;
+
+import io.github.aurifolia.jpa.SpecificationBuilder;
+import io.github.aurifolia.jpa.entity.User;
+import io.github.aurifolia.jpa.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+/**
+ * InMemorySpecificationTest
+ *
+ * @author Peng Dan
+ * @since 1.0
+ */
+@SpringBootTest
+class InMemorySpecificationTest {
+    @Autowired
+    private UserRepository repository;
+    private List<User> users;
+
+    @BeforeEach
+    void beforeEach() {
+        repository.saveAndFlush(User.builder().id(1L).username("Ross").nickname("Rossy").build());
+        repository.saveAndFlush(User.builder().id(2L).username("Julie").build());
+        repository.saveAndFlush(User.builder().id(3L).username("Gloria").nickname("Glo_ria").build());
+        repository.saveAndFlush(User.builder().id(4L).username("Carol").nickname("Caro%l").build());
+        repository.saveAndFlush(User.builder().id(5L).username("Rachel").nickname("Rach").build());
+        users = repository.findAll();
+    }
+
+    @AfterEach
+    void afterEach() {
+        repository.deleteAll();
+    }
+
+    @Test
+    void comparison() {
+        assertSameResult(b -> b.equal(true, "id", 1L).equal(true, "username", "Ross"));
+        assertSameResult(b -> b.equal(true, "id", 1));
+        assertSameResult(b -> b.notEqual(true, "nickname", "Rach"));
+        assertSameResult(b -> b.greaterThan(true, "id", 2L));
+        assertSameResult(b -> b.greaterThanOrEqual(true, "username", "Julie"));
+        assertSameResult(b -> b.lessThan(true, "id", 3L));
+        assertSameResult(b -> b.lessThanOrEqual(true, "nickname", "Glo_ria"));
+        assertSameResult(b -> b.between(true, "id", 2, 4));
+        assertSameResult(b -> b.isNull(true, "nickname"));
+        assertSameResult(b -> b.isNotNull(true, "nickname"));
+    }
+
+    @Test
+    void like() {
+        assertSameResult(b -> b.like(true, "username", "r"));
+        assertSameResult(b -> b.likeLeft(true, "username", "l"));
+        assertSameResult(b -> b.likeRight(true, "username", "R"));
+        assertSameResult(b -> b.notLike(true, "nickname", "o"));
+        assertSameResult(b -> b.notLikeLeft(true, "nickname", "y"));
+        assertSameResult(b -> b.notLikeRight(true, "nickname", "R"));
+        assertSameResult(b -> b.like(true, "nickname", "o_r"));
+        assertSameResult(b -> b.like(true, "nickname", "o%l"));
+    }
+
+    @Test
+    void in() {
+        assertSameResult(b -> b.in(true, "id", Arrays.asList(1L, 2L, 9L)));
+        assertSameResult(b -> b.in(true, "id", Arrays.asList(1, 3)));
+        assertSameResult(b -> b.notIn(true, "username", Arrays.asList("Ross", "Carol")));
+        assertSameResult(b -> b.notIn(true, "nickname", Arrays.asList("Rossy", "Rach")));
+    }
+
+    @Test
+    void nested() {
+        assertSameResult(b -> b.or(o -> o.equal(true, "id", 1L).equal(true, "id", 2L)));
+        assertSameResult(b -> b.or(o -> o.equal(true, "id", 1L).equal(true, "id", 2L))
+                .or(o -> o.like(true, "username", "R").like(true, "username", "J")));
+        assertSameResult(b -> b.or(o -> o.and(a -> a.likeRight(true, "username", "R").isNotNull(true, "nickname"))
+                .and(a -> a.between(true, "id", 2L, 3L).isNull(true, "nickname"))));
+        assertSameResult(b -> b.or(o -> o));
+        assertSameResult(b -> b.or(o -> o.equal(true, "id", 1L).and(a -> a.or(c -> c))));
+        assertSameResult(b -> b.equal(false, "id", 1L));
+    }
+
+    private void assertSameResult(Function<SpecificationBuilder<User>, SpecificationBuilder<User>> function) {
+        Set<Long> expected = repository.findAll(function.apply(new SpecificationBuilder<>()).build()).stream()
+                .map(User::getId)
+                .collect(Collectors.toSet());
+        Set<Long> actual = users.stream()
+                .filter(function.apply(new SpecificationBuilder<>()).buildPredicate(User.class))
+                .map(User::getId)
+                .collect(Collectors.toSet());
+        assertEquals(expected, actual);
+        assertFalse(users.isEmpty());
+    }
+}
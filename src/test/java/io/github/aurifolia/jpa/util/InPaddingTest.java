@@ -0,0 +1,84 @@
+package io.github.aurifolia.jpa.util;
+
+import io.github.aurifolia.jpa.SpecificationBuilder;
+import io.github.aurifolia.jpa.entity.User;
+import io.github.aurifolia.jpa.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * InPaddingTest
+ *
+ * @author Peng Dan
+ * @since 1.0
+ */
+@SpringBootTest
+class InPaddingTest {
+    @Autowired
+    private UserRepository repository;
+
+    @BeforeEach
+    void beforeEach() {
+        repository.saveAllAndFlush(LongStream.rangeClosed(1, 150)
+                .mapToObj(id -> User.builder().id(id).username("user" + id).build())
+                .toList());
+    }
+
+    @AfterEach
+    void afterEach() {
+        repository.deleteAllInBatch();
+    }
+
+    @Test
+    void in() {
+        assertEquals(100, distinctStatements(false, false));
+        assertEquals(8, distinctStatements(true, false));
+    }
+
+    @Test
+    void notIn() {
+        assertEquals(100, distinctStatements(false, true));
+        assertEquals(8, distinctStatements(true, true));
+    }
+
+    @Test
+    void chunked() {
+        Set<String> statements = new HashSet<>();
+        for (int size = 1; size <= 100; size++) {
+            List<Long> ids = LongStream.rangeClosed(1, size).boxed().toList();
+            SqlRecorder.clear();
+            List<User> users = repository.findAll(new SpecificationBuilder<User>().inChunkSize(24).inPadding(true)
+                    .in(true, "id", ids).build());
+            assertEquals(size, users.size());
+            statements.addAll(SqlRecorder.statements());
+        }
+        // up to 4 full groups of 24 values, followed by a last group of 1, 2, 4, 8, 16 or 24 values
+        assertEquals(27, statements.size());
+    }
+
+    private int distinctStatements(boolean padding, boolean not) {
+        Set<String> statements = new HashSet<>();
+        for (int size = 1; size <= 100; size++) {
+            List<Long> ids = LongStream.rangeClosed(1, size).boxed().toList();
+            SpecificationBuilder<User> builder = new SpecificationBuilder<User>().inPadding(padding);
+            Specification<User> specification = not ? builder.notIn(true, "id", ids).build() : builder.in(true, "id", ids).build();
+            SqlRecorder.clear();
+            Set<Long> actual = repository.findAll(specification).stream().map(User::getId).collect(Collectors.toSet());
+            assertEquals(not ? 150 - size : size, actual.size());
+            statements.addAll(SqlRecorder.statements());
+        }
+        return statements.size();
+    }
+}
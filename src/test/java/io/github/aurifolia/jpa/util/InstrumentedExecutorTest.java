@@ -0,0 +1,143 @@
+package io.github.aurifolia.jpa.util;
+
+import io.github.aurifolia.jpa.SpecificationBuilder;
+import io.github.aurifolia.jpa.entity.User;
+import io.github.aurifolia.jpa.metrics.MicrometerQueryMetrics;
+import io.github.aurifolia.jpa.metrics.QueryStatistics;
+import io.github.aurifolia.jpa.query.InstrumentedExecutor;
+import io.github.aurifolia.jpa.repository.UserRepository;
+import io.github.aurifolia.jpa.specification.JpqlSpecification;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.QueryTimeoutException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.system.CapturedOutput;
+import org.springframework.boot.test.system.OutputCaptureExtension;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * InstrumentedExecutorTest
+ *
+ * @author Peng Dan
+ * @since 1.0
+ */
+@SpringBootTest
+@ExtendWith(OutputCaptureExtension.class)
+class InstrumentedExecutorTest {
+    @Autowired
+    private UserRepository repository;
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    @BeforeEach
+    void beforeEach() {
+        repository.saveAndFlush(User.builder().id(1L).username("Ross").nickname("Rossy").build());
+        repository.saveAndFlush(User.builder().id(2L).username("Julie").build());
+        repository.saveAndFlush(User.builder().id(3L).username("Gloria").nickname("Glo").build());
+    }
+
+    @AfterEach
+    void afterEach() {
+        repository.deleteAll();
+    }
+
+    @Test
+    void metrics() {
+        InstrumentedExecutor<User> executor = new InstrumentedExecutor<>(repository, User.class, new MicrometerQueryMetrics(registry), null);
+        Specification<User> first = byIds(List.of(1L, 2L, 3L));
+        String shape = ((JpqlSpecification<User>) first).getShape();
+        assertEquals(3, executor.findAll(first).size());
+        assertEquals(1, executor.findAll(byIds(List.of(2L)), PageRequest.of(0, 10)).getNumberOfElements());
+        assertEquals(2, executor.count(byIds(List.of(1L, 3L))));
+
+        assertEquals(1, timer("findAll", shape).count());
+        assertEquals(1, timer("findPage", shape).count());
+        assertEquals(1, timer("count", shape).count());
+        assertEquals(3, rows("findAll", shape).totalAmount());
+        assertEquals(1, rows("findPage", shape).totalAmount());
+        // count returns no rows
+        assertEquals(0, registry.find("specification.query.rows").tag("operation", "count").meters().size());
+        DistributionSummary predicates = registry.get("specification.query.predicates").tag("shape", shape).summary();
+        assertEquals(3, predicates.count());
+        assertEquals(6, predicates.totalAmount());
+        DistributionSummary inSize = registry.get("specification.query.in.size").tag("shape", shape).summary();
+        assertEquals(3, inSize.count());
+        assertEquals(6, inSize.totalAmount());
+        assertEquals(3, inSize.max());
+
+        Specification<User> lambda = (root, query, criteriaBuilder) -> criteriaBuilder.equal(root.get("id"), 1L);
+        assertTrue(executor.exists(lambda));
+        assertEquals(1, timer("exists", InstrumentedExecutor.CUSTOM_SHAPE).count());
+    }
+
+    @Test
+    void slowQueryLog(CapturedOutput output) {
+        new InstrumentedExecutor<>(repository, User.class).findAll(byIds(List.of(1L)));
+        assertFalse(output.getOut().contains("Slow query"));
+        new InstrumentedExecutor<>(repository, User.class, statistics -> {
+        }, Duration.ZERO).findAll(byIds(List.of(1L)));
+        assertTrue(output.getOut().contains("Slow query findAll took"));
+        assertTrue(output.getOut().contains("shape and(in(id),isNotNull(username))"));
+        assertTrue(output.getOut().contains("select e from User e where (e.id in :p0 and e.username is not null)"));
+    }
+
+    @Test
+    void failures(CapturedOutput output) {
+        List<QueryStatistics> statistics = new ArrayList<>();
+        InstrumentedExecutor<User> executor = new InstrumentedExecutor<>(repository, User.class, statistics::add, Duration.ZERO);
+        Specification<User> timeout = (root, query, criteriaBuilder) -> {
+            throw new QueryTimeoutException("Query timed out");
+        };
+        RuntimeException thrown = assertThrows(RuntimeException.class, () -> executor.findAll(timeout));
+        assertThrows(RuntimeException.class, () -> executor.count(new SpecificationBuilder<User>().equal(true, "missing", 1).build()));
+        executor.findAll(byIds(List.of(1L)));
+
+        assertEquals(3, statistics.size());
+        assertEquals(thrown.getClass().getSimpleName(), statistics.get(0).getException());
+        assertTrue(statistics.get(0).isFailed());
+        assertEquals(-1, statistics.get(0).getRows());
+        assertEquals("count", statistics.get(1).getOperation());
+        assertEquals("and(equal(missing))", statistics.get(1).getShape());
+        assertTrue(statistics.get(1).isFailed());
+        assertEquals(QueryStatistics.NONE, statistics.get(2).getException());
+        assertFalse(statistics.get(2).isFailed());
+        assertEquals(1, statistics.get(2).getRows());
+        assertTrue(output.getOut().contains("Slow query findAll failed with " + thrown.getClass().getSimpleName() + " took"));
+        assertTrue(output.getOut().contains("Slow query count failed with"));
+
+        InstrumentedExecutor<User> micrometer = new InstrumentedExecutor<>(repository, User.class, new MicrometerQueryMetrics(registry), null);
+        assertThrows(RuntimeException.class, () -> micrometer.findAll(timeout));
+        assertEquals(1, registry.get("specification.query").tag("exception", thrown.getClass().getSimpleName()).timer().count());
+        // failed queries return no rows
+        assertEquals(0, registry.find("specification.query.rows").meters().size());
+        micrometer.findAll(byIds(List.of(1L)));
+        assertEquals(1, registry.get("specification.query").tag("exception", QueryStatistics.NONE).timer().count());
+    }
+
+    private Timer timer(String operation, String shape) {
+        return registry.get("specification.query").tag("operation", operation).tag("shape", shape).timer();
+    }
+
+    private DistributionSummary rows(String operation, String shape) {
+        return registry.get("specification.query.rows").tag("operation", operation).tag("shape", shape).summary();
+    }
+
+    private static Specification<User> byIds(List<Long> ids) {
+        return new SpecificationBuilder<User>().in(true, "id", ids).isNotNull(true, "username").build();
+    }
+}
@@ -0,0 +1,106 @@
+package io.github.aurifolia.jpa.util;
+
+import io.github.aurifolia.jpa.SpecificationBuilder;
+import io.github.aurifolia.jpa.entity.User;
+import io.github.aurifolia.jpa.query.JpqlQueryCache;
+import io.github.aurifolia.jpa.repository.UserRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.Arrays;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+/**
+ * JpqlQueryCacheTest
+ *
+ * @author Peng Dan
+ * @since 1.0
+ */
+@SpringBootTest
+class JpqlQueryCacheTest {
+    @Autowired
+    private UserRepository repository;
+    @Autowired
+    private EntityManager entityManager;
+
+    @BeforeEach
+    void beforeEach() {
+        repository.saveAndFlush(User.builder().id(1L).username("Ross").nickname("Rossy").build());
+        repository.saveAndFlush(User.builder().id(2L).username("Julie").build());
+        repository.saveAndFlush(User.builder().id(3L).username("Gloria").nickname("Glo").build());
+        repository.saveAndFlush(User.builder().id(4L).username("Carol").nickname("Caro").build());
+    }
+
+    @AfterEach
+    void afterEach() {
+        repository.deleteAll();
+    }
+
+    @Test
+    void shape() {
+        String shape = new SpecificationBuilder<User>().equal(true, "id", 1L)
+                .or(b -> b.like(true, "username", "R").in(true, "id", Arrays.asList(1L, 2L)))
+                .shape();
+        assertEquals("and(equal(id),or(like(username),in(id)))", shape);
+        assertEquals(shape, new SpecificationBuilder<User>().equal(true, "id", 3L)
+                .or(b -> b.like(true, "username", "J").in(true, "id", Arrays.asList(3L, 4L, 5L)))
+                .shape());
+        assertNotEquals(shape, new SpecificationBuilder<User>().equal(true, "id", 3L)
+                .and(b -> b.like(true, "username", "J").in(true, "id", Arrays.asList(3L, 4L, 5L)))
+                .shape());
+        assertNotEquals(shape, new SpecificationBuilder<User>().equal(true, "username", "Ross")
+                .or(b -> b.like(true, "username", "J").in(true, "id", Arrays.asList(3L, 4L, 5L)))
+                .shape());
+    }
+
+    @Test
+    void createQuery() {
+        JpqlQueryCache cache = new JpqlQueryCache(16);
+        assertSameResult(cache, b -> b.equal(true, "id", 1L).equal(true, "username", "Ross"));
+        assertSameResult(cache, b -> b.equal(true, "id", 2L).equal(true, "username", "Ross"));
+        // one select and one count template
+        assertEquals(2, cache.size());
+        assertSameResult(cache, b -> b.notEqual(true, "id", 1L).greaterThan(true, "id", 1L).lessThanOrEqual(true, "id", 3L));
+        assertSameResult(cache, b -> b.greaterThanOrEqual(true, "username", "J").lessThan(true, "username", "S"));
+        assertSameResult(cache, b -> b.between(true, "id", 2, 3));
+        assertSameResult(cache, b -> b.like(true, "username", "r").notLikeRight(true, "username", "R"));
+        assertSameResult(cache, b -> b.likeLeft(true, "username", "a").notLike(true, "nickname", "x").notLikeLeft(true, "nickname", "o"));
+        assertSameResult(cache, b -> b.likeRight(true, "username", "G"));
+        assertSameResult(cache, b -> b.isNull(true, "nickname").isNotNull(true, "username"));
+        assertSameResult(cache, b -> b.in(true, "id", Arrays.asList(1L, 2L)).notIn(true, "id", Arrays.asList(2L, 3L)));
+        assertSameResult(cache, b -> b.inChunkSize(2).in(true, "id", Arrays.asList(1L, 2L, 3L)).notIn(true, "id", Arrays.asList(2L, 5L, 6L)));
+        assertSameResult(cache, b -> b.or(o -> o.equal(true, "id", 1L).equal(true, "id", 2L))
+                .or(o -> o.like(true, "username", "R").like(true, "username", "J")));
+        assertSameResult(cache, b -> b.or(o -> o.and(a -> a).and(a -> a.equal(true, "id", 4L))));
+        assertSameResult(cache, b -> b);
+    }
+
+    @Test
+    void eviction() {
+        JpqlQueryCache cache = new JpqlQueryCache(2);
+        assertSameResult(cache, b -> b.equal(true, "id", 1L));
+        assertSameResult(cache, b -> b.equal(true, "username", "Ross"));
+        assertSameResult(cache, b -> b.equal(true, "nickname", "Glo"));
+        assertEquals(2, cache.size());
+    }
+
+    private void assertSameResult(JpqlQueryCache cache, Function<SpecificationBuilder<User>, SpecificationBuilder<User>> function) {
+        Specification<User> specification = function.apply(new SpecificationBuilder<>()).build();
+        Set<Long> expected = repository.findAll(specification).stream().map(User::getId).collect(Collectors.toSet());
+        Set<Long> actual = cache.createQuery(entityManager, User.class, specification).getResultList().stream()
+                .map(User::getId)
+                .collect(Collectors.toSet());
+        assertEquals(expected, actual);
+        assertEquals(repository.count(specification), cache.createCountQuery(entityManager, User.class, specification).getSingleResult());
+    }
+}
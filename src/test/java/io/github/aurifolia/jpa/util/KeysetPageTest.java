@@ -0,0 +1,135 @@
+package io.github.aurifolia.jpa.util;
+
+import io.github.aurifolia.jpa.SpecificationBuilder;
+import io.github.aurifolia.jpa.entity.Department;
+import io.github.aurifolia.jpa.entity.Employee;
+import io.github.aurifolia.jpa.entity.User;
+import io.github.aurifolia.jpa.query.JpqlQueryCache;
+import io.github.aurifolia.jpa.query.KeysetPage;
+import io.github.aurifolia.jpa.repository.DepartmentRepository;
+import io.github.aurifolia.jpa.repository.EmployeeRepository;
+import io.github.aurifolia.jpa.repository.UserRepository;
+import io.github.aurifolia.jpa.specification.CompositeSpecification;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Sort;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * KeysetPageTest
+ *
+ * @author Peng Dan
+ * @since 1.0
+ */
+@SpringBootTest
+class KeysetPageTest {
+    @Autowired
+    private UserRepository repository;
+    @Autowired
+    private DepartmentRepository departmentRepository;
+    @Autowired
+    private EmployeeRepository employeeRepository;
+    @Autowired
+    private EntityManager entityManager;
+
+    @BeforeEach
+    void beforeEach() {
+        repository.saveAllAndFlush(LongStream.rangeClosed(1, 50)
+                .mapToObj(id -> User.builder().id(id).username("user" + id % 7).nickname("nick" + id % 3).build())
+                .toList());
+    }
+
+    @AfterEach
+    void afterEach() {
+        repository.deleteAllInBatch();
+        employeeRepository.deleteAllInBatch();
+        departmentRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void ascending() {
+        assertPages(Sort.by("id"), 7);
+        assertPages(Sort.by("id"), 50);
+        assertPages(Sort.by("id"), 100);
+    }
+
+    @Test
+    void mixed() {
+        assertPages(Sort.by(Sort.Order.desc("username"), Sort.Order.asc("id")), 6);
+        assertPages(Sort.by(Sort.Order.asc("nickname"), Sort.Order.desc("username"), Sort.Order.desc("id")), 4);
+    }
+
+    @Test
+    void keyset() {
+        Sort sort = Sort.by(Sort.Order.desc("username"), Sort.Order.asc("id"));
+        List<User> users = repository.findAll(new SpecificationBuilder<User>()
+                .keyset(true, sort, List.of("user3", 10L))
+                .build(), sort);
+        List<User> expected = repository.findAll(sort).stream()
+                .filter(user -> user.getUsername().compareTo("user3") < 0
+                        || user.getUsername().equals("user3") && user.getId() > 10L)
+                .toList();
+        assertEquals(expected, users);
+        assertEquals(expected, repository.findAll(sort).stream()
+                .filter(new SpecificationBuilder<User>().keyset(true, sort, List.of("user3", 10L)).buildPredicate(User.class))
+                .toList());
+    }
+
+    @Test
+    void dotted() {
+        List<Department> departments = departmentRepository.saveAllAndFlush(List.of(
+                Department.builder().id(1L).name("Sales").build(),
+                Department.builder().id(2L).name("Legal").build(),
+                Department.builder().id(3L).name("R&D").build()));
+        employeeRepository.saveAllAndFlush(LongStream.rangeClosed(1, 20)
+                .mapToObj(id -> Employee.builder().id(id).name("employee" + id).department(departments.get((int) (id % 3))).build())
+                .toList());
+        Sort sort = Sort.by(Sort.Order.desc("department.name"), Sort.Order.asc("id"));
+        List<Long> expected = employeeRepository.findAll(sort).stream().map(Employee::getId).toList();
+        List<Long> actual = new ArrayList<>();
+        String token = null;
+        do {
+            KeysetPage<Employee> page = KeysetPage.find(employeeRepository, Employee.class, new SpecificationBuilder<>(), sort, 3, token);
+            page.getContent().forEach(employee -> actual.add(employee.getId()));
+            token = page.getNextToken();
+        } while (token != null);
+        assertEquals(expected, actual);
+        // the same rows after R&D/5 in the database, through JPQL and in memory
+        CompositeSpecification<Employee> after = new SpecificationBuilder<Employee>().keyset(true, sort, List.of("R&D", 5L)).build();
+        List<Long> rest = expected.subList(expected.indexOf(5L) + 1, expected.size());
+        assertEquals(rest, employeeRepository.findAll(after, sort).stream().map(Employee::getId).toList());
+        assertEquals(Set.copyOf(rest), new JpqlQueryCache(1).createQuery(entityManager, Employee.class, after).getResultList().stream()
+                .map(Employee::getId).collect(Collectors.toSet()));
+        assertEquals(rest, employeeRepository.findAll(sort).stream()
+                .filter(after.toInMemoryPredicate(Employee.class)).map(Employee::getId).toList());
+    }
+
+    private void assertPages(Sort sort, int size) {
+        SpecificationBuilder<User> conditions = new SpecificationBuilder<User>().greaterThan(true, "id", 5L);
+        List<User> expected = repository.findAll(conditions.build(), sort);
+        List<User> actual = new ArrayList<>();
+        String token = null;
+        do {
+            KeysetPage<User> page = KeysetPage.find(repository, User.class,
+                    new SpecificationBuilder<User>().greaterThan(true, "id", 5L), sort, size, token);
+            assertTrue(page.getContent().size() <= size);
+            assertFalse(page.getContent().isEmpty());
+            actual.addAll(page.getContent());
+            token = page.getNextToken();
+        } while (token != null);
+        assertEquals(expected, actual);
+    }
+}
@@ -0,0 +1,148 @@
+package io.github.aurifolia.jpa.util;
+
+import com.sun.management.ThreadMXBean;
+import io.github.aurifolia.jpa.SpecificationBuilder;
+import io.github.aurifolia.jpa.entity.User;
+import io.github.aurifolia.jpa.query.JpqlQueryCache;
+import io.github.aurifolia.jpa.repository.UserRepository;
+import io.github.aurifolia.jpa.specification.CompositeSpecification;
+import io.github.aurifolia.jpa.specification.LikeSpecification;
+import io.github.aurifolia.jpa.specification.NotLikeSpecification;
+import io.github.aurifolia.jpa.support.LikePatterns;
+import io.github.aurifolia.jpa.support.Paths;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Root;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * LikeEscapeTest
+ *
+ * @author Peng Dan
+ * @since 1.0
+ */
+@SpringBootTest
+class LikeEscapeTest {
+    @Autowired
+    private UserRepository repository;
+    @Autowired
+    private EntityManager entityManager;
+    /**
+     * keeps the measured predicates alive
+     */
+    private Object sink;
+
+    @BeforeEach
+    void beforeEach() {
+        repository.saveAllAndFlush(List.of(
+                User.builder().id(1L).username("50%off").build(),
+                User.builder().id(2L).username("50 off").build(),
+                User.builder().id(3L).username("a_b").build(),
+                User.builder().id(4L).username("axb").build(),
+                User.builder().id(5L).username("c:\\temp").build(),
+                User.builder().id(6L).username("c:temp").build()));
+    }
+
+    @AfterEach
+    void afterEach() {
+        repository.deleteAllInBatch();
+    }
+
+    @Test
+    void escape() {
+        assertMatches(Set.of(1L), b -> b.like(true, "username", "%"));
+        assertMatches(Set.of(1L), b -> b.likeRight(true, "username", "50%"));
+        assertMatches(Set.of(1L), b -> b.likeLeft(true, "username", "%off"));
+        assertMatches(Set.of(3L), b -> b.like(true, "username", "_"));
+        assertMatches(Set.of(3L), b -> b.likeRight(true, "username", "a_"));
+        assertMatches(Set.of(5L), b -> b.like(true, "username", "\\"));
+        assertMatches(Set.of(5L), b -> b.likeRight(true, "username", "c:\\"));
+        assertMatches(Set.of(2L, 3L, 4L, 5L, 6L), b -> b.notLike(true, "username", "%"));
+        assertMatches(Set.of(1L, 2L, 4L, 5L, 6L), b -> b.notLikeLeft(true, "username", "_b"));
+        assertMatches(Set.of(1L, 2L, 3L, 4L, 6L), b -> b.notLikeRight(true, "username", "c:\\"));
+    }
+
+    @Test
+    void allocation() {
+        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<User> select = criteriaBuilder.createQuery(User.class);
+        Root<User> selectRoot = select.from(User.class);
+        CriteriaQuery<Long> count = criteriaBuilder.createQuery(Long.class);
+        Root<User> countRoot = count.from(User.class);
+        LikeSpecification<User> like = new LikeSpecification<>("username", "keyword");
+        NotLikeSpecification<User> notLike = new NotLikeSpecification<>("username", "keyword");
+        String pattern = like.getPattern();
+        // a paged query calls toPredicate for the count and for the select
+        List<Supplier<Object>> paged = List.of(
+                () -> like.toPredicate(countRoot, count, criteriaBuilder),
+                () -> like.toPredicate(selectRoot, select, criteriaBuilder),
+                () -> notLike.toPredicate(countRoot, count, criteriaBuilder),
+                () -> notLike.toPredicate(selectRoot, select, criteriaBuilder));
+        // the same predicates built by Hibernate from a constant pattern
+        List<Supplier<Object>> constant = List.of(
+                () -> criteriaBuilder.like(Paths.get(countRoot, "username"), pattern, LikePatterns.ESCAPE),
+                () -> criteriaBuilder.like(Paths.get(selectRoot, "username"), pattern, LikePatterns.ESCAPE),
+                () -> criteriaBuilder.notLike(Paths.get(countRoot, "username"), pattern, LikePatterns.ESCAPE),
+                () -> criteriaBuilder.notLike(Paths.get(selectRoot, "username"), pattern, LikePatterns.ESCAPE));
+        // the pattern formatted on every call, as toPredicate did before
+        List<Supplier<Object>> formatted = List.of(
+                () -> criteriaBuilder.like(Paths.get(countRoot, "username"), String.format("%%%s%%", LikePatterns.escape("keyword")), LikePatterns.ESCAPE),
+                () -> criteriaBuilder.like(Paths.get(selectRoot, "username"), String.format("%%%s%%", LikePatterns.escape("keyword")), LikePatterns.ESCAPE),
+                () -> criteriaBuilder.notLike(Paths.get(countRoot, "username"), String.format("%%%s%%", LikePatterns.escape("keyword")), LikePatterns.ESCAPE),
+                () -> criteriaBuilder.notLike(Paths.get(selectRoot, "username"), String.format("%%%s%%", LikePatterns.escape("keyword")), LikePatterns.ESCAPE));
+        // the first rounds warm up
+        for (int round = 0; round < 3; round++) {
+            long specification = bytesPerCall(paged);
+            long hibernate = bytesPerCall(constant);
+            long formatting = bytesPerCall(formatted);
+            if (round == 2) {
+                String message = "toPredicate: " + specification + " B/call, constant pattern: " + hibernate
+                        + " B/call, formatted pattern: " + formatting + " B/call";
+                // toPredicate allocates only what Hibernate needs for the predicate
+                assertTrue(specification - hibernate < 16, message);
+                assertTrue(specification < 512, message);
+                assertTrue(formatting - specification > 64, message);
+            }
+        }
+    }
+
+    private long bytesPerCall(List<Supplier<Object>> calls) {
+        ThreadMXBean threads = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+        int rounds = 20_000;
+        long before = threads.getCurrentThreadAllocatedBytes();
+        for (int i = 0; i < rounds; i++) {
+            for (Supplier<Object> call : calls) {
+                sink = call.get();
+            }
+        }
+        return (threads.getCurrentThreadAllocatedBytes() - before) / ((long) rounds * calls.size());
+    }
+
+    private void assertMatches(Set<Long> expected, Function<SpecificationBuilder<User>, SpecificationBuilder<User>> function) {
+        CompositeSpecification<User> specification = function.apply(new SpecificationBuilder<>()).build();
+        assertEquals(expected, ids(repository.findAll(specification)));
+        assertEquals(expected, ids(new JpqlQueryCache(4).createQuery(entityManager, User.class, specification).getResultList()));
+        assertEquals(expected, ids(repository.findAll().stream()
+                .filter(specification.toInMemoryPredicate(User.class))
+                .toList()));
+    }
+
+    private static Set<Long> ids(List<User> users) {
+        return users.stream().map(User::getId).collect(Collectors.toSet());
+    }
+}
@@ -0,0 +1,153 @@
+package io.github.aurifolia.jpa.util;
+
+import io.github.aurifolia.jpa.SpecificationBuilder;
+import io.github.aurifolia.jpa.entity.User;
+import io.github.aurifolia.jpa.query.PartitionedExecutor;
+import io.github.aurifolia.jpa.repository.UserRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Range;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * PartitionedExecutorTest
+ *
+ * @author Peng Dan
+ * @since 1.0
+ */
+@SpringBootTest
+class PartitionedExecutorTest {
+    @Autowired
+    private UserRepository repository;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    private PartitionedExecutor executor;
+
+    @BeforeEach
+    void beforeEach() {
+        List<User> users = new ArrayList<>();
+        for (long id = 1; id <= 100; id++) {
+            users.add(User.builder().id(id).username("user" + id).nickname(id % 3 == 0 ? null : "nick" + id).build());
+        }
+        repository.saveAllAndFlush(users);
+        executor = new PartitionedExecutor(entityManagerFactory, 2);
+    }
+
+    @AfterEach
+    void afterEach() {
+        repository.deleteAll();
+    }
+
+    @Test
+    void findAll() {
+        Specification<User> specification = new SpecificationBuilder<User>().isNotNull(true, "nickname").build();
+        List<Long> expected = ids(repository.findAll(specification, Sort.by("id")));
+        assertEquals(expected, ids(executor.findAll(User.class, specification, "id", 4, true)));
+        assertEquals(expected, ids(executor.findAll(User.class, specification, "id", 1, true)));
+        List<Long> unordered = ids(executor.findAll(User.class, specification, "id", 7, false));
+        assertEquals(expected, unordered.stream().sorted().collect(Collectors.toList()));
+        assertEquals(repository.count(specification), executor.count(User.class, specification, "id", 3));
+        assertEquals(100, executor.count(User.class, null, "id", 8));
+        // more partitions than keys
+        assertEquals(List.of(5L, 6L), ids(executor.findAll(User.class,
+                new SpecificationBuilder<User>().in(true, "id", List.of(5L, 6L)).build(), "id", 10, true)));
+        // nothing matches
+        Specification<User> none = new SpecificationBuilder<User>().equal(true, "username", "nobody").build();
+        assertEquals(List.of(), executor.findAll(User.class, none, "id", 4, true));
+        assertEquals(0, executor.count(User.class, none, "id", 4));
+    }
+
+    @Test
+    void callerRuns() {
+        PartitionedExecutor serial = new PartitionedExecutor(entityManagerFactory, 1, Runnable::run);
+        assertEquals(100, serial.findAll(User.class, null, "id", 5, true).size());
+    }
+
+    @Test
+    void split() {
+        assertEquals(List.of(Range.of(Range.Bound.inclusive(1L), Range.Bound.exclusive(4L)),
+                        Range.of(Range.Bound.inclusive(4L), Range.Bound.exclusive(7L)),
+                        Range.closed(7L, 10L)),
+                PartitionedExecutor.split(Range.closed(1L, 10L), 3));
+        assertEquals(List.of(Range.closed(1, 2)), PartitionedExecutor.split(Range.closed(1, 2), 5));
+        assertEquals(List.of(Range.closed(7L, 7L)), PartitionedExecutor.split(Range.closed(7L, 7L), 3));
+        assertEquals(List.of(Range.of(Range.Bound.inclusive(LocalDate.of(2024, 1, 1)), Range.Bound.exclusive(LocalDate.of(2024, 1, 16))),
+                        Range.closed(LocalDate.of(2024, 1, 16), LocalDate.of(2024, 1, 31))),
+                PartitionedExecutor.split(Range.closed(LocalDate.of(2024, 1, 1), LocalDate.of(2024, 1, 31)), 2));
+        assertEquals(List.of(Range.of(Range.Bound.inclusive(Instant.parse("2024-01-01T00:00:00Z")), Range.Bound.exclusive(Instant.parse("2024-01-01T00:00:00.5Z"))),
+                        Range.closed(Instant.parse("2024-01-01T00:00:00.5Z"), Instant.parse("2024-01-01T00:00:01Z"))),
+                PartitionedExecutor.split(Range.closed(Instant.parse("2024-01-01T00:00:00Z"), Instant.parse("2024-01-01T00:00:01Z")), 2));
+        assertThrows(IllegalArgumentException.class, () -> PartitionedExecutor.split(Range.closed("a", "z"), 2));
+        assertThrows(IllegalArgumentException.class, () -> PartitionedExecutor.split(Range.closed(1L, 10L), 0));
+        assertThrows(IllegalArgumentException.class, () -> new PartitionedExecutor(entityManagerFactory, 0));
+    }
+
+    @Test
+    void splitTypes() {
+        assertEquals(LocalDateTime.of(2024, 1, 1, 0, 0, 0, 500_000_000),
+                firstUpper(Range.closed(LocalDateTime.of(2024, 1, 1, 0, 0), LocalDateTime.of(2024, 1, 1, 0, 0, 1))));
+        assertEquals(0, new BigDecimal("0.5").compareTo((BigDecimal) firstUpper(Range.closed(BigDecimal.ZERO, BigDecimal.ONE))));
+        assertEquals(BigInteger.valueOf(5), firstUpper(Range.closed(BigInteger.ZERO, BigInteger.TEN)));
+        assertEquals(0.5, firstUpper(Range.closed(0.0, 1.0)));
+        assertEquals(0.5f, firstUpper(Range.closed(0.0f, 1.0f)));
+        assertEquals(5, firstUpper(Range.closed(0, 10)));
+        assertEquals((short) 5, firstUpper(Range.closed((short) 0, (short) 10)));
+        assertEquals((byte) 5, firstUpper(Range.closed((byte) 0, (byte) 10)));
+    }
+
+    @Test
+    void countFailure() {
+        Specification<User> failing = (root, query, criteriaBuilder) -> {
+            if (query.getResultType() == Long.class) {
+                throw new IllegalStateException("boom");
+            }
+            return null;
+        };
+        assertEquals("boom", assertThrows(IllegalStateException.class,
+                () -> executor.count(User.class, failing, "id", 4)).getMessage());
+        // the executor is usable after a failure
+        assertEquals(100, executor.count(User.class, null, "id", 4));
+    }
+
+    @Test
+    void failure() {
+        AtomicInteger calls = new AtomicInteger();
+        Specification<User> failing = (root, query, criteriaBuilder) -> {
+            // the key range query succeeds, the partition queries fail
+            if (calls.incrementAndGet() > 1) {
+                throw new IllegalStateException("boom");
+            }
+            return null;
+        };
+        assertEquals("boom", assertThrows(IllegalStateException.class,
+                () -> executor.findAll(User.class, failing, "id", 4, true)).getMessage());
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Object firstUpper(Range range) {
+        List<Range<Comparable<?>>> ranges = PartitionedExecutor.split(range, 2);
+        return ranges.get(0).getUpperBound().getValue().orElseThrow();
+    }
+
+    private static List<Long> ids(List<User> users) {
+        return users.stream().map(User::getId).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,131 @@
+package io.github.aurifolia.jpa.util;
+
+import io.github.aurifolia.jpa.SpecificationBuilder;
+import io.github.aurifolia.jpa.entity.User;
+import io.github.aurifolia.jpa.query.JpqlQueryCache;
+import io.github.aurifolia.jpa.repository.UserRepository;
+import io.github.aurifolia.jpa.specification.CompositeSpecification;
+import io.github.aurifolia.jpa.specification.EqualSpecification;
+import io.github.aurifolia.jpa.specification.LikeLeftSpecification;
+import io.github.aurifolia.jpa.specification.LikeRightSpecification;
+import io.github.aurifolia.jpa.specification.LikeSpecification;
+import io.github.aurifolia.jpa.specification.PrefixRangeSpecification;
+import io.github.aurifolia.jpa.support.LikePatterns;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * PrefixRangeTest
+ *
+ * @author Peng Dan
+ * @since 1.0
+ */
+@SpringBootTest
+class PrefixRangeTest {
+    private static final List<String> USERNAMES = List.of("ab", "abc", "abd", "abcz", "ab\uffff", "ab\uffffx", "ac",
+            "aa", "a", "ABC", "Abc", "b", "ab%", "ab_c", "zz\uffff", "\uffff\uffff", "");
+    private static final List<String> KEYWORDS = List.of("", "a", "ab", "abc", "ab\uffff", "ab%", "ab_", "z",
+            "zz\uffff", "\uffff", "\uffff\uffff", "missing");
+    @Autowired
+    private UserRepository repository;
+    @Autowired
+    private EntityManager entityManager;
+    private List<User> users;
+
+    @BeforeEach
+    void beforeEach() {
+        for (int i = 0; i < USERNAMES.size(); i++) {
+            repository.saveAndFlush(User.builder().id((long) i).username(USERNAMES.get(i)).build());
+        }
+        repository.saveAndFlush(User.builder().id(100L).build());
+        users = repository.findAll();
+        SqlRecorder.clear();
+    }
+
+    @AfterEach
+    void afterEach() {
+        repository.deleteAll();
+    }
+
+    @Test
+    void sameAsLike() {
+        for (String keyword : KEYWORDS) {
+            Set<Long> like = ids(new SpecificationBuilder<User>().likeRight(true, "username", keyword).build());
+            CompositeSpecification<User> range = new SpecificationBuilder<User>().prefixRange(true).likeRight(true, "username", keyword).build();
+            assertEquals(like, ids(range), keyword);
+            assertEquals(like, new JpqlQueryCache(10).createQuery(entityManager, User.class, range).getResultList().stream()
+                    .map(User::getId).collect(Collectors.toSet()), keyword);
+            assertEquals(like, users.stream().filter(range.toInMemoryPredicate(User.class)).map(User::getId).collect(Collectors.toSet()), keyword);
+        }
+        String sql = SqlRecorder.statements().get(1);
+        assertFalse(sql.contains(" like "));
+        assertTrue(sql.contains(">="));
+    }
+
+    @Test
+    void ignoreCase() {
+        for (String keyword : List.of("ab", "AB", "aBc", "")) {
+            Set<Long> expected = users.stream()
+                    .filter(user -> user.getUsername() != null && user.getUsername().toLowerCase(Locale.ROOT).startsWith(keyword.toLowerCase(Locale.ROOT)))
+                    .map(User::getId).collect(Collectors.toSet());
+            CompositeSpecification<User> specification = new SpecificationBuilder<User>().likeRightIgnoreCase(true, "username", keyword).build();
+            assertEquals(expected, ids(specification), keyword);
+            assertEquals(expected, users.stream().filter(specification.toInMemoryPredicate(User.class)).map(User::getId).collect(Collectors.toSet()), keyword);
+        }
+        assertTrue(SqlRecorder.statements().get(0).contains("lower("));
+    }
+
+    @Test
+    void upperBound() {
+        assertEquals("abd", LikePatterns.prefixUpperBound("abc"));
+        assertEquals("ac", LikePatterns.prefixUpperBound("ab\uffff"));
+        assertEquals("b", LikePatterns.prefixUpperBound("a\uffff\uffff"));
+        assertNull(LikePatterns.prefixUpperBound("\uffff"));
+        assertNull(LikePatterns.prefixUpperBound(""));
+        // nested builders inherit the mode
+        CompositeSpecification<User> specification = new SpecificationBuilder<User>().prefixRange(true).optimize(false)
+                .or(or -> or.likeRight(true, "username", "a").likeRight(true, "nickname", "b"))
+                .build();
+        assertInstanceOf(PrefixRangeSpecification.class, ((CompositeSpecification<User>) specification.getSpecifications().get(0)).getSpecifications().get(0));
+    }
+
+    @Test
+    void matches() {
+        assertEquals(new EqualSpecification<User>("username", "abc"), single("abc"));
+        assertEquals(new LikeRightSpecification<User>("username", "abc"), single("abc*"));
+        assertEquals(new LikeLeftSpecification<User>("username", "abc"), single("*abc"));
+        assertEquals(new LikeSpecification<User>("username", "abc"), single("*abc*"));
+        assertEquals(new EqualSpecification<User>("username", "ab*"), single("ab\\*"));
+        assertEquals(new PrefixRangeSpecification<User>("username", "ab", false),
+                new SpecificationBuilder<User>().prefixRange(true).matches(true, "username", "ab*").build().getSpecifications().get(0));
+        assertThrows(IllegalArgumentException.class, () -> single("a*c"));
+        assertEquals(Set.of(1L), ids(new SpecificationBuilder<User>().matches(true, "username", "abc").build()));
+        assertEquals(ids(new SpecificationBuilder<User>().likeRight(true, "username", "ab").build()),
+                ids(new SpecificationBuilder<User>().prefixRange(true).matches(true, "username", "ab*").build()));
+    }
+
+    private static Specification<User> single(String pattern) {
+        return new SpecificationBuilder<User>().matches(true, "username", pattern).build().getSpecifications().get(0);
+    }
+
+    private Set<Long> ids(Specification<User> specification) {
+        return repository.findAll(specification).stream().map(User::getId).collect(Collectors.toSet());
+    }
+}
@@ -0,0 +1,161 @@
+package io.github.aurifolia.jpa.util;
+
+import io.github.aurifolia.jpa.SpecificationBuilder;
+import io.github.aurifolia.jpa.entity.User;
+import io.github.aurifolia.jpa.query.ProjectionExecutor;
+import io.github.aurifolia.jpa.repository.UserRepository;
+import jakarta.persistence.EntityManager;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.beans.ConstructorProperties;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * ProjectionExecutorTest
+ *
+ * @author Peng Dan
+ * @since 1.0
+ */
+@SpringBootTest
+class ProjectionExecutorTest {
+    @Autowired
+    private UserRepository repository;
+    @Autowired
+    private EntityManager entityManager;
+    private ProjectionExecutor executor;
+
+    @BeforeEach
+    void beforeEach() {
+        repository.saveAndFlush(User.builder().id(1L).username("Ross").nickname("Rossy").build());
+        repository.saveAndFlush(User.builder().id(2L).username("Julie").build());
+        repository.saveAndFlush(User.builder().id(3L).username("Gloria").nickname("Glo").build());
+        executor = new ProjectionExecutor(entityManager);
+        SqlRecorder.clear();
+    }
+
+    @AfterEach
+    void afterEach() {
+        repository.deleteAll();
+    }
+
+    @Test
+    void record() {
+        Specification<User> specification = new SpecificationBuilder<User>().isNotNull(true, "nickname").build();
+        List<UserName> names = executor.findAll(User.class, specification, Sort.by("id"), UserName.class);
+        assertEquals(List.of(new UserName(1L, "Ross"), new UserName(3L, "Gloria")), names);
+        // only the selected columns are read
+        String sql = SqlRecorder.statements().get(0);
+        assertTrue(sql.contains("username"));
+        assertFalse(sql.substring(0, sql.indexOf(" from ")).contains("nickname"));
+    }
+
+    @Test
+    void dto() {
+        List<UserNickname> nicknames = executor.findAll(User.class,
+                new SpecificationBuilder<User>().likeRight(true, "username", "G").build(), UserNickname.class);
+        assertEquals(List.of(new UserNickname("Glo")), nicknames);
+        assertEquals(3, executor.findAll(User.class, null, UserNickname.class).size());
+    }
+
+    @Test
+    void constructorProperties() {
+        UserSummary gloria = new UserSummary("Gloria", 3L);
+        assertEquals(List.of(gloria), executor.findAll(User.class,
+                new SpecificationBuilder<User>().equal(true, "id", 3L).build(), UserSummary.class));
+    }
+
+    @Test
+    void attributeNames() {
+        List<Map<String, Object>> rows = executor.findAll(User.class,
+                new SpecificationBuilder<User>().in(true, "id", List.of(2L, 3L)).build(), Sort.by("id").descending(), "id", "nickname");
+        assertEquals(2, rows.size());
+        assertEquals(List.of("id", "nickname"), List.copyOf(rows.get(0).keySet()));
+        assertEquals(3L, rows.get(0).get("id"));
+        assertEquals("Glo", rows.get(0).get("nickname"));
+        assertEquals(null, rows.get(1).get("nickname"));
+        assertThrows(IllegalArgumentException.class, () -> executor.findAll(User.class, null));
+    }
+
+    @Test
+    void invalid() {
+        assertThrows(IllegalArgumentException.class, () -> executor.findAll(User.class, null, NoConstructor.class));
+        // compiled without -parameters
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> executor.findAll(User.class, null, NoNames.class));
+        assertTrue(e.getMessage().contains("compile it with -parameters or annotate the constructor with @ConstructorProperties"));
+        assertThrows(IllegalArgumentException.class, () -> executor.findAll(User.class, null, Ambiguous.class));
+        assertThrows(IllegalArgumentException.class, () -> executor.findAll(User.class, null, Empty.class));
+    }
+
+    record UserName(Long id, String username) {
+    }
+
+    record Empty() {
+    }
+
+    @Data
+    static class UserNickname {
+        private String nickname;
+
+        @ConstructorProperties("nickname")
+        UserNickname(String nickname) {
+            this.nickname = nickname;
+        }
+    }
+
+    @Data
+    static class Identified {
+        private Long id;
+    }
+
+    /**
+     * the order of the constructor matters, not the one of the fields, inherited ones included
+     */
+    @Data
+    @EqualsAndHashCode(callSuper = true)
+    static class UserSummary extends Identified {
+        private String nickname;
+        private String username;
+
+        UserSummary() {
+        }
+
+        @ConstructorProperties({"username", "id"})
+        UserSummary(String username, Long id) {
+            this.username = username;
+            setId(id);
+        }
+    }
+
+    @AllArgsConstructor
+    static class NoNames {
+        private String nickname;
+    }
+
+    static class Ambiguous {
+        Ambiguous(String nickname) {
+        }
+
+        Ambiguous(Long id) {
+        }
+    }
+
+    @Data
+    static class NoConstructor {
+        private String nickname;
+    }
+}
@@ -0,0 +1,209 @@
+package io.github.aurifolia.jpa.util;
+
+import io.github.aurifolia.jpa.SpecificationBuilder;
+import io.github.aurifolia.jpa.annotation.Between;
+import io.github.aurifolia.jpa.annotation.Equal;
+import io.github.aurifolia.jpa.annotation.GreaterThan;
+import io.github.aurifolia.jpa.annotation.GreaterThanOrEqual;
+import io.github.aurifolia.jpa.annotation.Ignore;
+import io.github.aurifolia.jpa.annotation.In;
+import io.github.aurifolia.jpa.annotation.IsNull;
+import io.github.aurifolia.jpa.annotation.LessThan;
+import io.github.aurifolia.jpa.annotation.LessThanOrEqual;
+import io.github.aurifolia.jpa.annotation.Like;
+import io.github.aurifolia.jpa.annotation.LikeLeft;
+import io.github.aurifolia.jpa.annotation.LikeRight;
+import io.github.aurifolia.jpa.annotation.NotEqual;
+import io.github.aurifolia.jpa.annotation.NotIn;
+import io.github.aurifolia.jpa.annotation.NotLike;
+import io.github.aurifolia.jpa.annotation.NotLikeLeft;
+import io.github.aurifolia.jpa.annotation.NotLikeRight;
+import io.github.aurifolia.jpa.annotation.QueryObject;
+import io.github.aurifolia.jpa.entity.User;
+import io.github.aurifolia.jpa.repository.UserRepository;
+import lombok.Builder;
+import lombok.Data;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Range;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * QueryObjectTest
+ *
+ * @author Peng Dan
+ * @since 1.0
+ */
+@SpringBootTest
+class QueryObjectTest {
+    @Autowired
+    private UserRepository repository;
+
+    @BeforeEach
+    void beforeEach() {
+        repository.saveAndFlush(User.builder().id(1L).username("Ross").nickname("Rossy").build());
+        repository.saveAndFlush(User.builder().id(2L).username("Julie").build());
+        repository.saveAndFlush(User.builder().id(3L).username("Gloria").nickname("Glo").build());
+        repository.saveAndFlush(User.builder().id(4L).username("Carol").nickname("Caro").build());
+    }
+
+    @AfterEach
+    void afterEach() {
+        repository.deleteAll();
+    }
+
+    @Test
+    void from() {
+        assertEquals(Set.of(1L, 2L, 3L, 4L), ids(SpecificationBuilder.<User>from(UserQuery.builder().username(" ").ids(List.of()).build()).build()));
+        assertEquals(Set.of(3L), ids(SpecificationBuilder.<User>from(UserQuery.builder().id(3L).page(7).build()).build()));
+        assertEquals(Set.of(1L), ids(SpecificationBuilder.<User>from(UserQuery.builder().username("R").nickname("ss").build()).build()));
+        assertEquals(Set.of(3L, 4L), ids(SpecificationBuilder.<User>from(UserQuery.builder().ids(List.of(3L, 4L, 5L)).build()).build()));
+        assertEquals(Set.of(2L, 3L), ids(SpecificationBuilder.<User>from(UserQuery.builder().excluded(new long[]{1, 4}).build()).build()));
+        assertEquals(Set.of(2L), ids(SpecificationBuilder.<User>from(UserQuery.builder().noNickname(true).build()).build()));
+        assertEquals(Set.of(1L, 3L, 4L), ids(SpecificationBuilder.<User>from(UserQuery.builder().noNickname(false).build()).build()));
+        assertEquals(Set.of(2L, 3L), ids(SpecificationBuilder.<User>from(UserQuery.builder().idRange(List.of(2L, 3L)).build()).build()));
+        assertEquals(Set.of(2L, 3L), ids(SpecificationBuilder.<User>from(UserQuery.builder().idRange(Range.of(Range.Bound.inclusive(2L), Range.Bound.exclusive(4L))).build()).build()));
+        assertEquals(Set.of(3L, 4L), ids(SpecificationBuilder.<User>from(UserQuery.builder().idRange(Range.rightUnbounded(Range.Bound.exclusive(2L))).build()).build()));
+        // further conditions can be chained
+        assertEquals(Set.of(4L), ids(SpecificationBuilder.<User>from(UserQuery.builder().ids(List.of(3L, 4L)).build())
+                .like(true, "username", "ar").build()));
+    }
+
+    @Test
+    void sameAsHandWritten() {
+        UserQuery query = UserQuery.builder().username("G").nickname("l").idRange(List.of(1L, 3L)).build();
+        Specification<User> handWritten = new SpecificationBuilder<User>()
+                .likeRight(true, "username", "G")
+                .like(true, "nickname", "l")
+                .between(true, "id", 1L, 3L)
+                .build();
+        assertEquals(handWritten, SpecificationBuilder.from(query).build());
+        assertEquals(handWritten, new SpecificationBuilder<User>().query(query).build());
+    }
+
+    @Test
+    void operators() {
+        assertEquals(Set.of(2L, 3L, 4L), ids(SpecificationBuilder.<User>from(OperatorQuery.builder().notId(1L).build()).build()));
+        assertEquals(Set.of(3L), ids(SpecificationBuilder.<User>from(OperatorQuery.builder().after(2L).before(4L).build()).build()));
+        assertEquals(Set.of(2L, 3L), ids(SpecificationBuilder.<User>from(OperatorQuery.builder().from(2L).to(3L).build()).build()));
+        assertEquals(Set.of(3L), ids(SpecificationBuilder.<User>from(OperatorQuery.builder().suffix("ia").build()).build()));
+        assertEquals(Set.of(2L), ids(SpecificationBuilder.<User>from(OperatorQuery.builder().without("o").build()).build()));
+        assertEquals(Set.of(2L, 4L), ids(SpecificationBuilder.<User>from(OperatorQuery.builder().notPrefix("G").notSuffix("s").build()).build()));
+        // inherited fields and object arrays
+        assertEquals(Set.of(1L, 4L), ids(SpecificationBuilder.<User>from(OperatorQuery.builder().ids(new Long[]{1L, 4L}).build()).build()));
+        assertEquals(Set.of(1L, 2L, 3L, 4L), ids(SpecificationBuilder.<User>from(OperatorQuery.builder().ids(new Long[0]).build()).build()));
+        // ranges with one bound or exclusive bounds
+        assertEquals(Set.of(1L, 2L, 3L), ids(SpecificationBuilder.<User>from(OperatorQuery.builder().range(Range.closed(1L, 3L)).build()).build()));
+        assertEquals(Set.of(1L, 2L), ids(SpecificationBuilder.<User>from(OperatorQuery.builder().range(Range.leftUnbounded(Range.Bound.exclusive(3L))).build()).build()));
+        assertEquals(Set.of(1L, 2L, 3L), ids(SpecificationBuilder.<User>from(OperatorQuery.builder().range(Range.leftUnbounded(Range.Bound.inclusive(3L))).build()).build()));
+        assertEquals(Set.of(3L), ids(SpecificationBuilder.<User>from(OperatorQuery.builder().range(Range.open(2L, 4L)).build()).build()));
+        assertEquals(Set.of(1L, 2L, 3L, 4L), ids(SpecificationBuilder.<User>from(OperatorQuery.builder().range(Range.unbounded()).build()).build()));
+        assertEquals(Set.of(1L, 2L), ids(SpecificationBuilder.<User>from(OperatorQuery.builder().range(java.util.Arrays.asList(null, 2L)).build()).build()));
+        assertEquals(Set.of(3L, 4L), ids(SpecificationBuilder.<User>from(OperatorQuery.builder().range(new Long[]{3L, null}).build()).build()));
+        assertThrows(IllegalArgumentException.class, () -> SpecificationBuilder.from(OperatorQuery.builder().range(3L).build()));
+        assertEquals(new SpecificationBuilder<User>().query(null).build(), new SpecificationBuilder<User>().build());
+    }
+
+    @Test
+    void unprocessed() {
+        // without a generated mapper the fields of a @QueryObject class are mapped by reflection,
+        // the generated mappers are tested by running the processor in the processor project
+        assertEquals(Set.of(3L), ids(SpecificationBuilder.<User>from(new UnprocessedQuery("Gloria")).build()));
+        assertEquals(Set.of(1L, 2L, 3L, 4L), ids(SpecificationBuilder.<User>from(new UnprocessedQuery(null)).build()));
+    }
+
+    @Test
+    void invalid() {
+        assertThrows(IllegalArgumentException.class, () -> SpecificationBuilder.from(new Ambiguous()));
+        assertThrows(IllegalArgumentException.class, () -> SpecificationBuilder.from(UserQuery.builder().idRange(List.of(1L)).build()));
+    }
+
+    private Set<Long> ids(Specification<User> specification) {
+        return repository.findAll(specification).stream().map(User::getId).collect(Collectors.toSet());
+    }
+
+    @Data
+    @Builder
+    static class UserQuery {
+        private Long id;
+        @LikeRight
+        private String username;
+        @Like
+        private String nickname;
+        @In("id")
+        private List<Long> ids;
+        @NotIn("id")
+        private long[] excluded;
+        @IsNull("nickname")
+        private Boolean noNickname;
+        @Between("id")
+        private Object idRange;
+        @Ignore
+        private int page;
+    }
+
+    static class Ambiguous {
+        @Equal
+        @Like
+        private String username = "x";
+    }
+
+    static class BaseQuery {
+        @In("id")
+        Long[] ids;
+    }
+
+    @Data
+    static class OperatorQuery extends BaseQuery {
+        @NotEqual("id")
+        private Long notId;
+        @GreaterThan("id")
+        private Long after;
+        @LessThan("id")
+        private Long before;
+        @GreaterThanOrEqual("id")
+        private Long from;
+        @LessThanOrEqual("id")
+        private Long to;
+        @LikeLeft("username")
+        private String suffix;
+        @NotLike("username")
+        private String without;
+        @NotLikeRight("username")
+        private String notPrefix;
+        @NotLikeLeft("username")
+        private String notSuffix;
+        @Between("id")
+        private Object range;
+
+        @Builder
+        OperatorQuery(Long notId, Long after, Long before, Long from, Long to, String suffix, String without,
+                      String notPrefix, String notSuffix, Object range, Long[] ids) {
+            this.notId = notId;
+            this.after = after;
+            this.before = before;
+            this.from = from;
+            this.to = to;
+            this.suffix = suffix;
+            this.without = without;
+            this.notPrefix = notPrefix;
+            this.notSuffix = notSuffix;
+            this.range = range;
+            this.ids = ids;
+        }
+    }
+
+    @QueryObject(User.class)
+    record UnprocessedQuery(String username) {
+    }
+}
@@ -0,0 +1,188 @@
+package io.github.aurifolia.jpa.util;
+
+import io.github.aurifolia.jpa.SpecificationBuilder;
+import io.github.aurifolia.jpa.entity.Company;
+import io.github.aurifolia.jpa.entity.Department;
+import io.github.aurifolia.jpa.entity.Employee;
+import io.github.aurifolia.jpa.entity.User;
+import io.github.aurifolia.jpa.repository.CompanyRepository;
+import io.github.aurifolia.jpa.repository.DepartmentRepository;
+import io.github.aurifolia.jpa.repository.EmployeeRepository;
+import io.github.aurifolia.jpa.repository.UserRepository;
+import io.github.aurifolia.jpa.rsql.RsqlParser;
+import io.github.aurifolia.jpa.specification.PrefixRangeSpecification;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * RsqlParserTest
+ *
+ * @author Peng Dan
+ * @since 1.0
+ */
+@SpringBootTest
+class RsqlParserTest {
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private CompanyRepository companyRepository;
+    @Autowired
+    private DepartmentRepository departmentRepository;
+    @Autowired
+    private EmployeeRepository employeeRepository;
+    private RsqlParser<User> users;
+
+    @BeforeEach
+    void beforeEach() {
+        userRepository.saveAndFlush(User.builder().id(1L).username("Ross").nickname("Rossy").build());
+        userRepository.saveAndFlush(User.builder().id(2L).username("Julie").build());
+        userRepository.saveAndFlush(User.builder().id(3L).username("Gloria Star").nickname("Glo*").build());
+        userRepository.saveAndFlush(User.builder().id(4L).username("Carol").nickname("Caro").build());
+        Company acme = companyRepository.saveAndFlush(Company.builder().id(1L).name("Acme").build());
+        Department sales = departmentRepository.saveAndFlush(Department.builder().id(1L).name("Sales").company(acme).build());
+        Department research = departmentRepository.saveAndFlush(Department.builder().id(2L).name("R&D").company(acme).build());
+        departmentRepository.saveAndFlush(Department.builder().id(3L).name("Legal").company(acme).build());
+        employeeRepository.saveAndFlush(Employee.builder().id(1L).name("Ross").age(30).department(sales).build());
+        employeeRepository.saveAndFlush(Employee.builder().id(2L).name("Julie").age(25).department(research).build());
+        employeeRepository.saveAndFlush(Employee.builder().id(3L).name("Carol").age(35).department(sales).build());
+        users = new RsqlParser<>(entityManagerFactory, User.class, Set.of("id", "username", "nickname"), 10);
+    }
+
+    @AfterEach
+    void afterEach() {
+        userRepository.deleteAll();
+        employeeRepository.deleteAll();
+        departmentRepository.deleteAll();
+        companyRepository.deleteAll();
+    }
+
+    @Test
+    void sameAsBuilder() {
+        assertEquals(new SpecificationBuilder<User>().equal(true, "username", "Ross").build(), users.parse("username==Ross"));
+        assertEquals(new SpecificationBuilder<User>().likeRight(true, "username", "Ro").build(), users.parse("username==Ro*"));
+        // values are converted to the attribute types
+        assertEquals(new SpecificationBuilder<User>().greaterThan(true, "id", 1L).lessThanOrEqual(true, "id", 3L).build(),
+                users.parse("id=gt=1;id<=3"));
+        assertEquals(new SpecificationBuilder<User>()
+                        .or(b -> b.in(true, "id", List.of(1L, 2L)).and(a -> a.like(true, "username", "o").isNotNull(true, "nickname")))
+                        .build(),
+                users.parse("id=in=(1,2),username=like=o;nickname=isnull=false"));
+    }
+
+    @Test
+    void operators() {
+        assertEquals(List.of(1L), ids("username==Ross"));
+        assertEquals(List.of(2L, 3L, 4L), ids("username!=Ross"));
+        assertEquals(List.of(2L), ids("username!=*o*"));
+        assertEquals(List.of(1L, 3L), ids("username=like=Ro*,username=like=*Star"));
+        assertEquals(List.of(3L, 4L), ids("username=notlike=*ss;username=notlike=ul"));
+        assertEquals(List.of(1L), ids("username=ilike=RO*"));
+        assertEquals(List.of(3L, 4L), ids("id>2"));
+        assertEquals(List.of(2L, 3L, 4L), ids("id=ge=2"));
+        assertEquals(List.of(1L), ids("id<2"));
+        assertEquals(List.of(2L, 3L), ids("id=between=(2,3)"));
+        assertEquals(List.of(3L, 4L), ids("id=out=(1,2)"));
+        assertEquals(List.of(2L), ids("nickname=isnull=true"));
+        // , binds weaker than ;
+        assertEquals(List.of(1L, 4L), ids("id==1,id=gt=2;nickname==Caro"));
+        assertEquals(List.of(1L), ids("(id==1,id=gt=2);nickname==Rossy"));
+        // quoted values and escaped wildcards
+        assertEquals(List.of(3L), ids("username=='Gloria Star'"));
+        assertEquals(List.of(3L), ids("username==\"Gloria*\""));
+        assertEquals(List.of(3L), ids("nickname==Glo\\*"));
+        assertEquals(List.of(1L, 2L, 3L, 4L), ids(" "));
+    }
+
+    @Test
+    void exists() {
+        RsqlParser<Department> departments = new RsqlParser<>(entityManagerFactory, Department.class,
+                Set.of("name", "employees", "employees.age", "company.name"), 10);
+        assertEquals(List.of(1L), departmentRepository.findAll(departments.parse("employees=exists=(age=gt=30)")).stream()
+                .map(Department::getId).collect(Collectors.toList()));
+        assertEquals(List.of(3L), departmentRepository.findAll(departments.parse("employees=notexists=(age=gt=0);company.name==Acme")).stream()
+                .map(Department::getId).collect(Collectors.toList()));
+        // the attributes of the elements are whitelisted separately
+        assertThrows(IllegalArgumentException.class, () -> departments.parse("employees=exists=(name==Ross)"));
+        assertThrows(IllegalArgumentException.class, () -> departments.parse("employees==1"));
+        assertThrows(IllegalArgumentException.class, () -> departments.parse("name=exists=(age==1)"));
+    }
+
+    @Test
+    void invalid() {
+        assertThrows(IllegalArgumentException.class, () -> new RsqlParser<>(entityManagerFactory, User.class, Set.of("password"), 10));
+        // not whitelisted
+        RsqlParser<User> parser = new RsqlParser<>(entityManagerFactory, User.class, Set.of("username"), 10);
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> parser.parse("username==Ross;id==1"));
+        assertEquals("Attribute [id] is not allowed at position 15 of filter: username==Ross;id==1", e.getMessage());
+        // values of other types
+        assertThrows(IllegalArgumentException.class, () -> users.parse("id==abc"));
+        assertThrows(IllegalArgumentException.class, () -> users.parse("id=like=1"));
+        assertThrows(IllegalArgumentException.class, () -> users.parse("username=ilike=*a"));
+        // interior wildcards fail when parsed, not when the cached filter is applied
+        for (String filter : List.of("username==a*b", "username!=*a*b", "username=like=a*b", "username=notlike=*a*b*",
+                "username=ilike=a*b*", "username==**a")) {
+            IllegalArgumentException wildcard = assertThrows(IllegalArgumentException.class, () -> users.parse(filter), filter);
+            assertTrue(wildcard.getMessage().startsWith("Only leading and trailing wildcards are supported"), filter);
+        }
+        assertEquals(List.of(3L), ids("nickname==*o\\*"));
+        // syntax
+        for (String filter : List.of("username", "username==", "username=~a", "username=foo=a", "(username==a",
+                "username==a)", "username==a;", "id=between=(1)", "id=in=()", "username=='a", "nickname=isnull=yes")) {
+            assertThrows(IllegalArgumentException.class, () -> users.parse(filter), filter);
+        }
+    }
+
+    @Test
+    void limits() {
+        // nested up to the max depth
+        String nested = "(".repeat(RsqlParser.MAX_DEPTH - 1) + "id==1" + ")".repeat(RsqlParser.MAX_DEPTH - 1);
+        assertEquals(List.of(1L), ids(nested));
+        IllegalArgumentException deep = assertThrows(IllegalArgumentException.class, () -> users.parse("(" + nested + ")"));
+        assertTrue(deep.getMessage().startsWith("Filter is nested deeper than " + RsqlParser.MAX_DEPTH + " levels"));
+        // thousands of parentheses fail fast instead of overflowing the stack
+        assertThrows(IllegalArgumentException.class, () -> users.parse("(".repeat(4000) + "id==1" + ")".repeat(4000)));
+        assertThrows(IllegalArgumentException.class, () -> users.parse("id==1;".repeat(2000) + "id==1"));
+        // only the valid filter is cached
+        assertEquals(1, users.size());
+    }
+
+    @Test
+    void cache() {
+        users.parse("username==Ross");
+        users.parse("username==Ross");
+        assertEquals(1, users.size());
+        RsqlParser<User> small = new RsqlParser<>(entityManagerFactory, User.class, Set.of("id"), 2);
+        for (int i = 0; i < 5; i++) {
+            small.parse("id==" + i);
+        }
+        assertEquals(2, small.size());
+        // failures are not cached
+        assertThrows(IllegalArgumentException.class, () -> small.parse("id==x"));
+        assertEquals(2, small.size());
+        // builder options apply to the cached filter
+        Specification<User> specification = users.apply(new SpecificationBuilder<User>().prefixRange(true), "username==Ro*").build();
+        assertInstanceOf(PrefixRangeSpecification.class, ((io.github.aurifolia.jpa.specification.CompositeSpecification<User>) specification)
+                .getSpecifications().get(0));
+    }
+
+    private List<Long> ids(String filter) {
+        return userRepository.findAll(users.parse(filter), Sort.by("id")).stream().map(User::getId).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,98 @@
+package io.github.aurifolia.jpa.util;
+
+import io.github.aurifolia.jpa.SpecificationBuilder;
+import io.github.aurifolia.jpa.entity.User;
+import io.github.aurifolia.jpa.query.ShortCircuitExecutor;
+import io.github.aurifolia.jpa.repository.UserRepository;
+import io.github.aurifolia.jpa.specification.CompositeSpecification;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+import java.util.List;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * ShortCircuitExecutorTest
+ *
+ * @author Peng Dan
+ * @since 1.0
+ */
+@SpringBootTest
+class ShortCircuitExecutorTest {
+    @Autowired
+    private UserRepository repository;
+    private ShortCircuitExecutor<User> executor;
+
+    @BeforeEach
+    void beforeEach() {
+        repository.saveAllAndFlush(LongStream.rangeClosed(1, 10)
+                .mapToObj(id -> User.builder().id(id).username("user" + id).build())
+                .toList());
+        executor = new ShortCircuitExecutor<>(repository);
+        SqlRecorder.clear();
+    }
+
+    @AfterEach
+    void afterEach() {
+        repository.deleteAllInBatch();
+    }
+
+    @Test
+    void alwaysFalse() {
+        for (boolean optimize : new boolean[]{true, false}) {
+            List<CompositeSpecification<User>> specs = List.of(
+                    new SpecificationBuilder<User>().optimize(optimize).in(true, "id", List.of()).build(),
+                    new SpecificationBuilder<User>().optimize(optimize)
+                            .equal(true, "username", "user1")
+                            .and(b -> b.in(true, "id", List.of()).isNotNull(true, "id"))
+                            .build(),
+                    new SpecificationBuilder<User>().optimize(optimize)
+                            .or(b -> b.in(true, "id", List.of()).in(true, "username", List.of()))
+                            .build());
+            for (CompositeSpecification<User> spec : specs) {
+                assertTrue(spec.isAlwaysFalse());
+                assertFalse(spec.isAlwaysTrue());
+                assertEquals(List.of(), executor.findAll(spec));
+                assertEquals(List.of(), executor.findAll(spec, Sort.by("id")));
+                assertEquals(0, executor.findAll(spec, PageRequest.of(0, 5)).getTotalElements());
+                assertTrue(executor.findOne(spec).isEmpty());
+                assertEquals(0, executor.count(spec));
+                assertFalse(executor.exists(spec));
+                // the database has the same answer
+                assertEquals(0, repository.count(spec));
+            }
+        }
+        SqlRecorder.clear();
+        executor.count(new SpecificationBuilder<User>().optimize(false).in(true, "id", List.of()).build());
+        assertEquals(List.of(), SqlRecorder.statements());
+    }
+
+    @Test
+    void notAlwaysFalse() {
+        CompositeSpecification<User> notIn = new SpecificationBuilder<User>().optimize(false).notIn(true, "id", List.of()).build();
+        assertTrue(notIn.isAlwaysTrue());
+        assertFalse(notIn.isAlwaysFalse());
+        assertEquals(10, executor.count(notIn));
+
+        CompositeSpecification<User> or = new SpecificationBuilder<User>().optimize(false)
+                .or(b -> b.in(true, "id", List.of()).equal(true, "id", 3L))
+                .build();
+        assertFalse(or.isAlwaysFalse());
+        assertEquals(1, executor.findAll(or).size());
+
+        CompositeSpecification<User> empty = new SpecificationBuilder<User>().build();
+        assertTrue(empty.isAlwaysTrue());
+        assertFalse(empty.isAlwaysFalse());
+        assertEquals(3, executor.findAll(empty, PageRequest.of(0, 3)).getContent().size());
+        assertFalse(SqlRecorder.statements().isEmpty());
+    }
+}
@@ -0,0 +1,248 @@
+package io.github.aurifolia.jpa.util;
+
+import io.github.aurifolia.jpa.SpecificationBuilder;
+import io.github.aurifolia.jpa.entity.Company;
+import io.github.aurifolia.jpa.entity.User;
+import io.github.aurifolia.jpa.repository.UserRepository;
+import io.github.aurifolia.jpa.specification.CompositeSpecification;
+import io.github.aurifolia.jpa.specification.ConstantSpecification;
+import io.github.aurifolia.jpa.specification.EqualSpecification;
+import io.github.aurifolia.jpa.specification.InSpecification;
+import io.github.aurifolia.jpa.specification.LikeSpecification;
+import io.github.aurifolia.jpa.specification.NotEqualSpecification;
+import io.github.aurifolia.jpa.specification.SpecificationCodec;
+import io.github.aurifolia.jpa.specification.SpecificationHash;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import static jakarta.persistence.criteria.Predicate.BooleanOperator.AND;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * SpecificationCodecTest
+ *
+ * @author Peng Dan
+ * @since 1.0
+ */
+@SpringBootTest
+class SpecificationCodecTest {
+    @Autowired
+    private UserRepository repository;
+
+    @BeforeEach
+    void beforeEach() {
+        repository.saveAndFlush(User.builder().id(1L).username("Ross").nickname("Rossy").build());
+        repository.saveAndFlush(User.builder().id(2L).username("Julie").build());
+        repository.saveAndFlush(User.builder().id(3L).username("Gloria").nickname("Glo").build());
+        repository.saveAndFlush(User.builder().id(4L).username("Carol").nickname("Caro").build());
+    }
+
+    @AfterEach
+    void afterEach() {
+        repository.deleteAll();
+    }
+
+    @Test
+    void roundTrip() {
+        Specification<User> specification = new SpecificationBuilder<User>()
+                .inChunkSize(2).inPadding(true)
+                .in(true, "id", List.of(1L, 2L, 3L))
+                .notEqual(true, "username", "Joey")
+                .or(b -> b.likeRight(true, "username", "G").notLike(true, "nickname", "100%").isNull(true, "nickname"))
+                .between(true, "id", 1L, 4L)
+                .greaterThan(true, "id", 0L)
+                .lessThanOrEqual(true, "username", "Z \"quoted\" \\ é\n")
+                .build();
+        assertRoundTrip(specification);
+        List<Long> expected = ids(specification);
+        assertEquals(List.of(1L, 2L, 3L), expected);
+        assertEquals(expected, ids(SpecificationCodec.fromBinary(SpecificationCodec.toBinary(specification))));
+        assertEquals(expected, ids(SpecificationCodec.fromJson(SpecificationCodec.toJson(specification))));
+
+        assertRoundTrip(new SpecificationBuilder<User>()
+                .prefixRange(true).likeRight(true, "username", "Ro")
+                .likeRightIgnoreCase(true, "nickname", "GL")
+                .keyset(true, Sort.by(Sort.Order.desc("username"), Sort.Order.asc("id")), List.of("Ross", 1L))
+                .notIn(true, "id", List.of(7, 8))
+                .isNotNull(true, "username")
+                .build());
+        assertRoundTrip(new SpecificationBuilder<Company>()
+                .exists(true, "departments", d -> d.equal(true, "name", "Sales"))
+                .notExists(true, "departments", d -> d.<Object>exists(true, "employees", e -> e.greaterThan(true, "age", 30)))
+                .build());
+        assertRoundTrip(new SpecificationBuilder<User>().in(true, "id", List.of()).build());
+    }
+
+    @Test
+    void values() {
+        List<Object> values = Arrays.asList(null, "s", true, 1L, 2, (short) 3, (byte) 4, 1.5, 2.5f, new BigDecimal("1.10"),
+                new java.math.BigInteger("123456789012345678901234567890"), 'c', LocalDate.of(2024, 2, 29),
+                java.time.LocalTime.of(12, 30), LocalDateTime.of(2024, 1, 1, 8, 0), Instant.parse("2024-01-01T00:00:00Z"),
+                java.time.OffsetDateTime.parse("2024-01-01T00:00:00+08:00"), new java.util.Date(0), UUID.randomUUID(),
+                Sort.Direction.DESC, Double.NaN, Long.MIN_VALUE);
+        for (Object value : values) {
+            assertRoundTrip(new NotEqualSpecification<>("value", value));
+        }
+        assertRoundTrip(new InSpecification<>("value", values));
+        assertThrows(IllegalArgumentException.class, () -> SpecificationCodec.toBinary(new EqualSpecification<>("value", new Object())));
+    }
+
+    @Test
+    void json() {
+        Specification<User> specification = new SpecificationBuilder<User>()
+                .equal(true, "username", "Ross")
+                .or(b -> b.in(true, "id", List.of(1L, 2L)).between(true, "birthday", LocalDate.of(2000, 1, 1), LocalDate.of(2001, 1, 1)))
+                .build();
+        String json = "{\"op\":\"and\",\"specifications\":[{\"op\":\"equal\",\"attribute\":\"username\",\"value\":\"Ross\"},"
+                + "{\"op\":\"or\",\"specifications\":[{\"op\":\"in\",\"attribute\":\"id\",\"values\":[1,2]},"
+                + "{\"op\":\"between\",\"attribute\":\"birthday\",\"lower\":{\"type\":\"date\",\"value\":\"2000-01-01\"},"
+                + "\"upper\":{\"type\":\"date\",\"value\":\"2001-01-01\"}}]}]}";
+        assertEquals(json, SpecificationCodec.toJson(specification));
+        // whitespace and hand written JSON
+        assertEquals(new CompositeSpecification<>(AND, List.of(new EqualSpecification<>("id", 1L))),
+                SpecificationCodec.fromJson(" { \"op\" : \"and\", \"specifications\" : [ {\"attribute\":\"id\",\"op\":\"equal\",\"value\":1} ] } "));
+        assertThrows(IllegalArgumentException.class, () -> SpecificationCodec.fromJson("{\"op\":\"regex\"}"));
+        assertThrows(IllegalArgumentException.class, () -> SpecificationCodec.fromJson("{\"op\":\"equal\",\"attribute\":\"id\",\"value\":"));
+        assertThrows(IllegalArgumentException.class, () -> SpecificationCodec.fromJson(
+                "{\"op\":\"equal\",\"attribute\":\"id\",\"value\":{\"type\":\"enum\",\"class\":\"java.lang.String\",\"value\":\"x\"}}"));
+    }
+
+    @Test
+    void kinds() {
+        Specification<User> specification = new SpecificationBuilder<User>().optimize(false)
+                .greaterThanOrEqual(true, "id", 1L)
+                .lessThan(true, "id", 4L)
+                .like(true, "username", "o")
+                .likeLeft(true, "username", "s")
+                .notLikeLeft(true, "username", "x\ty")
+                .notLikeRight(true, "nickname", "Z")
+                .and(b -> b.greaterThan(true, "id", 0L).lessThanOrEqual(true, "id", 9L))
+                .or(b -> b.notEqual(true, "id", 9L).isNull(true, "nickname"))
+                .build();
+        assertRoundTrip(specification);
+        assertEquals(List.of(1L), ids(SpecificationCodec.fromJson(SpecificationCodec.toJson(specification))));
+        assertRoundTrip(new ConstantSpecification<>(true));
+        assertRoundTrip(new ConstantSpecification<>(false));
+        assertRoundTrip(new LikeSpecification<>("username", "\r\n\t\u0001"));
+        assertRoundTrip(new InSpecification<>("username", List.of("a\r", "b\t", "\u001f")));
+        // control characters are escaped
+        assertEquals("{\"op\":\"like\",\"attribute\":\"username\",\"keyword\":\"\\r\\t\\u0001\"}",
+                SpecificationCodec.toJson(new LikeSpecification<>("username", "\r\t\u0001")));
+        // in values other than integral numbers are sorted and deduplicated by their encoding
+        assertEquals(SpecificationHash.hash128(new InSpecification<>("username", List.of("b", "a", "b"))),
+                SpecificationHash.hash128(new InSpecification<>("username", List.of("a", "b"))));
+        assertEquals(SpecificationHash.hash128(new InSpecification<>("id", List.of(1L, "a", 1))),
+                SpecificationHash.hash128(new InSpecification<>("id", List.of("a", 1L))));
+        assertNotEquals(SpecificationHash.hash128(new ConstantSpecification<>(true)), SpecificationHash.hash128(new ConstantSpecification<>(false)));
+        // java.sql.Timestamp is read back as Date
+        assertEquals(new EqualSpecification<>("time", new java.util.Date(1000)),
+                SpecificationCodec.fromJson(SpecificationCodec.toJson(new EqualSpecification<>("time", new java.sql.Timestamp(1000)))));
+        // hand written JSON: escapes, doubles and missing options
+        assertEquals(new EqualSpecification<>("user\bname", "a\f\"/A"),
+                SpecificationCodec.fromJson("{\"op\":\"equal\",\"attribute\":\"user\\bname\",\"value\":\"a\\f\\\"\\/\\u0041\"}"));
+        assertEquals(new SpecificationBuilder<User>().optimize(false).greaterThan(true, "score", 1500.0).build().getSpecifications().get(0),
+                SpecificationCodec.fromJson("{\"op\":\"greaterThan\",\"attribute\":\"score\",\"value\":1.5e3}"));
+        assertEquals(new InSpecification<>("id", List.of(), 0, false),
+                SpecificationCodec.fromJson("{\"op\":\"in\",\"attribute\":\"id\",\"values\":[],\"extra\":{}}"));
+        assertEquals(new ConstantSpecification<>(false),
+                SpecificationCodec.fromJson("{\"op\":\"constant\",\"value\":null}"));
+    }
+
+    @Test
+    void malformed() {
+        for (String json : List.of("", "  ", "[]", "1", "\"and\"", "{\"op\":\"and\"}", "{\"op\":\"and\",\"specifications\":{}}",
+                "{\"op\":\"and\",\"specifications\":[1]}", "{\"op\":\"equal\",\"value\":1}", "{} {}", "{\"op\" \"and\"}",
+                "{op:\"and\"}", "{\"op\":\"and\",}", "{\"op\":\"and\"", "[1,]", "[1 2]", "\"abc", "\"abc\\", "\"\\x\"",
+                "\"\\u12\"", "\"\\uZZZZ\"", "\"\\u+123\"", "\"\\u-123\"", "tru", "nul", "fals", "-", "1e", "1.2.3",
+                "{\"op\":\"equal\",\"attribute\":\"id\",\"value\":@}",
+                "{\"op\":\"equal\",\"attribute\":\"id\",\"value\":{\"type\":\"money\",\"value\":\"1\"}}",
+                "{\"op\":\"equal\",\"attribute\":\"id\",\"value\":{\"type\":\"enum\",\"class\":\"no.such.Enum\",\"value\":\"x\"}}")) {
+            assertThrows(IllegalArgumentException.class, () -> SpecificationCodec.fromJson(json), json);
+        }
+        // not a NumberFormatException of the hex digits
+        assertEquals("Invalid unicode escape at position 3 of JSON",
+                assertThrows(IllegalArgumentException.class, () -> SpecificationCodec.fromJson("\"\\uZZZZ\"")).getMessage());
+        byte[] valid = SpecificationCodec.toBinary(new EqualSpecification<>("id", 1L));
+        // trailing bytes, unknown specification and value tags, a truncated variable length number and a size past the end
+        for (byte[] binary : List.of(Arrays.copyOf(valid, valid.length + 1), new byte[]{1, 99}, new byte[]{1, 3, 2, 'i', 'd', 99},
+                new byte[]{1, 0, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1}, new byte[]{1, 0, 100}, new byte[]{})) {
+            assertThrows(IllegalArgumentException.class, () -> SpecificationCodec.fromBinary(binary), Arrays.toString(binary));
+        }
+        // deeply nested input fails fast instead of overflowing the stack
+        assertThrows(IllegalArgumentException.class, () -> SpecificationCodec.fromJson("[".repeat(100_000)));
+        assertThrows(IllegalArgumentException.class, () -> SpecificationCodec.fromJson("{\"a\":".repeat(100_000)));
+        byte[] nested = new byte[1 + 2 * 100_000];
+        nested[0] = 1;
+        for (int i = 1; i < nested.length; i += 2) {
+            // and with one child
+            nested[i + 1] = 1;
+        }
+        assertThrows(IllegalArgumentException.class, () -> SpecificationCodec.fromBinary(nested));
+    }
+
+    @Test
+    void binary() {
+        Specification<User> specification = new SpecificationBuilder<User>().equal(true, "id", 1L).build();
+        byte[] binary = SpecificationCodec.toBinary(specification);
+        // version, and with 1 child, equal, "id", long 1
+        assertEquals(9, binary.length);
+        assertTrue(binary.length * 5 < SpecificationCodec.toJson(specification).length());
+        assertThrows(IllegalArgumentException.class, () -> SpecificationCodec.fromBinary(Arrays.copyOf(binary, binary.length - 1)));
+        assertThrows(IllegalArgumentException.class, () -> SpecificationCodec.fromBinary(new byte[]{9}));
+        Specification<User> lambda = (root, query, criteriaBuilder) -> null;
+        assertThrows(IllegalArgumentException.class, () -> SpecificationCodec.toBinary(lambda));
+    }
+
+    @Test
+    void hash() {
+        Specification<User> specification = new SpecificationBuilder<User>()
+                .equal(true, "username", "Ross")
+                .in(true, "id", List.of(1L, 2L, 3L))
+                .build();
+        // pinned, the hash must not change between versions and JVMs
+        assertEquals("cc1fe196755d78e04e7d82226e338d9e", SpecificationHash.hash128(specification));
+        assertEquals(Long.parseUnsignedLong("cc1fe196755d78e0", 16), SpecificationHash.hash64(specification));
+        // equivalent trees
+        Specification<User> equivalent = new SpecificationBuilder<User>()
+                .inChunkSize(2)
+                .in(true, "id", List.of(3, 1L, 2, 1L))
+                .equal(true, "username", "Ross")
+                .build();
+        assertNotEquals(specification, equivalent);
+        assertEquals(SpecificationHash.hash128(specification), SpecificationHash.hash128(equivalent));
+        assertEquals(SpecificationHash.hash64(specification), SpecificationHash.hash64(equivalent));
+        // different trees
+        assertNotEquals(SpecificationHash.hash128(specification), SpecificationHash.hash128(new SpecificationBuilder<User>()
+                .equal(true, "username", "Ross").in(true, "id", List.of(1L, 2L, 4L)).build()));
+        assertNotEquals(SpecificationHash.hash64(new EqualSpecification<>("id", 1L)), SpecificationHash.hash64(new EqualSpecification<>("id", "1")));
+        assertNotEquals(SpecificationHash.hash64(new SpecificationBuilder<User>().between(true, "id", 1L, 2L).build()),
+                SpecificationHash.hash64(new SpecificationBuilder<User>().between(true, "id", 2L, 1L).build()));
+    }
+
+    private static void assertRoundTrip(Specification<?> specification) {
+        assertEquals(specification, SpecificationCodec.fromBinary(SpecificationCodec.toBinary(specification)));
+        assertEquals(specification, SpecificationCodec.fromJson(SpecificationCodec.toJson(specification)));
+        assertEquals(SpecificationCodec.toJson(specification), SpecificationCodec.toJson(SpecificationCodec.fromJson(SpecificationCodec.toJson(specification))));
+    }
+
+    private List<Long> ids(Specification<User> specification) {
+        return repository.findAll(specification, Sort.by("id")).stream().map(User::getId).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,179 @@
+package io.github.aurifolia.jpa.util;
+
+import io.github.aurifolia.jpa.SpecificationBuilder;
+import io.github.aurifolia.jpa.entity.User;
+import io.github.aurifolia.jpa.repository.UserRepository;
+import io.github.aurifolia.jpa.specification.CompositeSpecification;
+import io.github.aurifolia.jpa.specification.InSpecification;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+
+/**
+ * SpecificationOptimizerTest
+ *
+ * @author Peng Dan
+ * @since 1.0
+ */
+@SpringBootTest
+class SpecificationOptimizerTest {
+    @Autowired
+    private UserRepository repository;
+    private List<User> users;
+
+    @BeforeEach
+    void beforeEach() {
+        repository.saveAllAndFlush(LongStream.rangeClosed(1, 20)
+                .mapToObj(id -> User.builder().id(id).username("user" + id % 4).build())
+                .toList());
+        users = repository.findAll();
+    }
+
+    @AfterEach
+    void afterEach() {
+        repository.deleteAllInBatch();
+    }
+
+    @Test
+    void flatten() {
+        assertOptimized("and(equal(id),equal(username))",
+                b -> b.and(a -> a.and(c -> c.equal(true, "id", 1L)).equal(true, "username", "user1")));
+        assertOptimized("or(equal(id),equal(username))",
+                b -> b.or(o -> o.or(c -> c.equal(true, "id", 1L)).equal(true, "username", "user1")));
+        assertOptimized("and(like(username))", b -> b.or(o -> o.like(true, "username", "1")).and(a -> a));
+        assertOptimized("and()", b -> b.and(a -> a).or(o -> o));
+    }
+
+    @Test
+    void dedupe() {
+        assertOptimized("and(equal(username),like(username))", b -> b.equal(true, "username", "user1")
+                .like(true, "username", "1")
+                .equal(true, "username", "user1")
+                .and(a -> a.like(true, "username", "1")));
+    }
+
+    @Test
+    void merge() {
+        assertOptimized("and(in(id))", b -> b.or(o -> o.equal(true, "id", 1L).equal(true, "id", 2L).in(true, "id", Arrays.asList(2L, 3L))));
+        assertOptimized("or(in(username),equal(id))", b -> b.or(o -> o.equal(true, "username", "user1")
+                .equal(true, "id", 2L)
+                .equal(true, "username", "user2")));
+    }
+
+    @Test
+    void intersect() {
+        assertOptimized("and(between(id))", b -> b.greaterThanOrEqual(true, "id", 2L).lessThanOrEqual(true, "id", 9L)
+                .between(true, "id", 1L, 10L));
+        assertOptimized("and(greaterThan(id),lessThanOrEqual(id))", b -> b.greaterThan(true, "id", 2L).greaterThan(true, "id", 4L)
+                .between(true, "id", 4, 8));
+        assertOptimized("and(equal(id))", b -> b.greaterThan(true, "id", 2L).lessThan(true, "id", 10L).equal(true, "id", 5L));
+        assertOptimized("and(in(id))", b -> b.in(true, "id", Arrays.asList(1L, 3L, 5L, 7L)).in(true, "id", Arrays.asList(3L, 5L, 9L)));
+        assertOptimized("and(equal(id))", b -> b.between(true, "id", 3L, 7L).lessThanOrEqual(true, "id", new BigDecimal("3.00")));
+        // strings depend on the collation of the database, they are left alone
+        assertOptimized("and(greaterThan(username),lessThan(username))", b -> b.greaterThan(true, "username", "user3")
+                .lessThan(true, "username", "user1"));
+    }
+
+    @Test
+    void largeIn() {
+        // values are hashed, intersecting 200k ids with a range and another in stays linear
+        List<Long> ids = LongStream.range(0, 200_000).boxed().toList();
+        List<Long> evens = LongStream.range(0, 200_000).filter(id -> id % 2 == 0).boxed().toList();
+        InSpecification<User> in = assertTimeoutPreemptively(Duration.ofSeconds(10), () -> (InSpecification<User>)
+                ((CompositeSpecification<User>) new SpecificationBuilder<User>().in(true, "id", ids).in(true, "id", evens)
+                        .greaterThan(true, "id", -1L).build()).getSpecifications().get(0));
+        assertEquals(100_000, in.getValues().size());
+        // equal numbers of different types are one value
+        assertOptimized("and(in(id))", b -> b.in(true, "id", Arrays.<Object>asList(1, 2L, new BigDecimal("3.0"), 3L, 4))
+                .in(true, "id", Arrays.<Object>asList(1L, 3, new BigDecimal("4.00"))));
+        assertEquals(List.of(1, new BigDecimal("3.0"), 4), ((InSpecification<User>) ((CompositeSpecification<User>)
+                new SpecificationBuilder<User>().in(true, "id", Arrays.<Object>asList(1, 2L, new BigDecimal("3.0"), 3L, 4))
+                        .in(true, "id", Arrays.<Object>asList(1L, 3, new BigDecimal("4.00"))).build()).getSpecifications().get(0)).getValues());
+    }
+
+    @Test
+    void contradiction() {
+        assertOptimized("and(false)", b -> b.equal(true, "id", 1L).equal(true, "id", 2L));
+        assertOptimized("and(false)", b -> b.greaterThan(true, "id", 5L).lessThanOrEqual(true, "id", 5L));
+        assertOptimized("and(false)", b -> b.in(true, "id", Arrays.asList(1L, 2L)).between(true, "id", 3L, 4L));
+        assertOptimized("and(false)", b -> b.like(true, "username", "1")
+                .or(o -> o.and(a -> a.equal(true, "id", 1L).equal(true, "id", 2L))
+                        .and(a -> a.lessThan(true, "id", 1L).greaterThan(true, "id", 1L))));
+        assertOptimized("and(equal(id))", b -> b.or(o -> o.and(a -> a.equal(true, "id", 1L).equal(true, "id", 2L))
+                .equal(true, "id", 3L)));
+    }
+
+    @Test
+    void random() {
+        Random random = new Random(42);
+        for (int i = 0; i < 300; i++) {
+            Function<SpecificationBuilder<User>, SpecificationBuilder<User>> function = randomGroup(random, 3);
+            Set<Long> expected = filter(function.apply(new SpecificationBuilder<User>().optimize(false)));
+            assertEquals(expected, filter(function.apply(new SpecificationBuilder<>())));
+            if (i % 3 == 0) {
+                assertEquals(expected, repository.findAll(function.apply(new SpecificationBuilder<>()).build()).stream()
+                        .map(User::getId)
+                        .collect(Collectors.toSet()));
+            }
+        }
+    }
+
+    private Function<SpecificationBuilder<User>, SpecificationBuilder<User>> randomGroup(Random random, int depth) {
+        List<Function<SpecificationBuilder<User>, SpecificationBuilder<User>>> conditions = new ArrayList<>();
+        int size = random.nextInt(5);
+        for (int i = 0; i < size; i++) {
+            long value = random.nextInt(22);
+            long other = random.nextInt(22);
+            Function<SpecificationBuilder<User>, SpecificationBuilder<User>> group = depth > 0 ? randomGroup(random, depth - 1) : null;
+            conditions.add(switch (random.nextInt(depth > 0 ? 10 : 8)) {
+                case 0 -> b -> b.equal(true, "id", value);
+                case 1 -> b -> b.greaterThan(true, "id", value);
+                case 2 -> b -> b.greaterThanOrEqual(true, "id", (int) value);
+                case 3 -> b -> b.lessThan(true, "id", value);
+                case 4 -> b -> b.lessThanOrEqual(true, "id", value);
+                case 5 -> b -> b.between(true, "id", Math.min(value, other), Math.max(value, other));
+                case 6 -> b -> b.in(true, "id", Arrays.asList(value, other, value + 1));
+                case 7 -> b -> b.equal(true, "username", "user" + value % 5);
+                case 8 -> b -> b.and(group);
+                default -> b -> b.or(group);
+            });
+        }
+        return b -> {
+            for (Function<SpecificationBuilder<User>, SpecificationBuilder<User>> condition : conditions) {
+                condition.apply(b);
+            }
+            return b;
+        };
+    }
+
+    private Set<Long> filter(SpecificationBuilder<User> builder) {
+        return users.stream().filter(builder.buildPredicate(User.class)).map(User::getId).collect(Collectors.toSet());
+    }
+
+    private void assertOptimized(String shape, Function<SpecificationBuilder<User>, SpecificationBuilder<User>> function) {
+        assertEquals(shape, function.apply(new SpecificationBuilder<>()).shape());
+        Set<Long> expected = repository.findAll(function.apply(new SpecificationBuilder<User>().optimize(false)).build()).stream()
+                .map(User::getId)
+                .collect(Collectors.toSet());
+        Set<Long> actual = repository.findAll(function.apply(new SpecificationBuilder<>()).build()).stream()
+                .map(User::getId)
+                .collect(Collectors.toSet());
+        assertEquals(expected, actual);
+    }
+}
@@ -0,0 +1,331 @@
+package io.github.aurifolia.jpa.util;
+
+import com.sun.management.ThreadMXBean;
+import io.github.aurifolia.jpa.SpecificationBuilder;
+import io.github.aurifolia.jpa.entity.User;
+import io.github.aurifolia.jpa.repository.UserRepository;
+import io.github.aurifolia.jpa.specification.CompositeSpecification;
+import io.github.aurifolia.jpa.template.SpecificationTemplate;
+import io.github.aurifolia.jpa.template.TemplateBuilder;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static io.github.aurifolia.jpa.template.Param.param;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * SpecificationTemplateTest
+ *
+ * @author Peng Dan
+ * @since 1.0
+ */
+@SpringBootTest
+class SpecificationTemplateTest {
+    private static final SpecificationTemplate<User> TEMPLATE = SpecificationTemplate.of(t -> t
+            .isNotNull("username")
+            .equal("id", param("id"))
+            .likeRight("username", param("username"))
+            .between("id", param("minId"), param("maxId"))
+            .in("id", param("ids"))
+            .or(o -> o.like("nickname", param("nickname")).isNull("nickname")));
+
+    @Autowired
+    private UserRepository repository;
+    /**
+     * keeps the results alive
+     */
+    private Object sink;
+
+    @BeforeEach
+    void beforeEach() {
+        repository.saveAndFlush(User.builder().id(1L).username("Ross").nickname("Rossy").build());
+        repository.saveAndFlush(User.builder().id(2L).username("Julie").build());
+        repository.saveAndFlush(User.builder().id(3L).username("Gloria").nickname("Glo").build());
+        repository.saveAndFlush(User.builder().id(4L).username("Carol").nickname("Caro").build());
+    }
+
+    @AfterEach
+    void afterEach() {
+        repository.deleteAll();
+    }
+
+    @Test
+    void bind() {
+        assertEquals(Set.of("id", "username", "minId", "maxId", "ids", "nickname"), TEMPLATE.getParameterNames());
+        assertEquals("and(isNotNull(username),isNull(nickname))", TEMPLATE.bind(Map.of()).getShape());
+        assertEquals(Set.of(2L), ids(TEMPLATE.bind(Map.of())));
+        assertEquals(Set.of(1L), ids(TEMPLATE.bind(Map.of("nickname", "o", "username", "R"))));
+        assertEquals(Set.of(2L, 3L, 4L), ids(TEMPLATE.bind(Map.of("nickname", "o", "minId", 2L))));
+        assertEquals(Set.of(2L), ids(TEMPLATE.bind(Map.of("maxId", 2L))));
+        assertEquals(Set.of(2L), ids(TEMPLATE.bind(Map.of("minId", 2L, "maxId", 3L))));
+        assertEquals(Set.of(4L), ids(TEMPLATE.bind(Map.of("ids", List.of(3L, 4L), "nickname", "ar"))));
+        assertEquals(Set.of(), ids(TEMPLATE.bind(Map.of("ids", List.of()))));
+        // null values are not bound
+        Map<String, Object> values = new HashMap<>();
+        values.put("id", null);
+        values.put("nickname", "Glo");
+        assertEquals(Set.of(2L, 3L), ids(TEMPLATE.bind(values)));
+    }
+
+    @Test
+    void sameAsBuilder() {
+        CompositeSpecification<User> bound = TEMPLATE.bind(Map.of("username", "G", "minId", 2L, "maxId", 3L, "nickname", "l"));
+        CompositeSpecification<User> built = new SpecificationBuilder<User>()
+                .isNotNull(true, "username")
+                .likeRight(true, "username", "G")
+                .between(true, "id", 2L, 3L)
+                .or(o -> o.like(true, "nickname", "l").isNull(true, "nickname"))
+                .build();
+        assertEquals(built, bound);
+        assertEquals(built.getShape(), bound.getShape());
+        assertEquals(ids(built), ids(bound));
+        // the optimizer applies, equal under or is merged into an in
+        SpecificationTemplate<User> merged = SpecificationTemplate.of(t -> t
+                .or(o -> o.equal("id", param("first")).equal("id", param("second"))));
+        assertEquals("and(in(id))", merged.bind(Map.of("first", 1L, "second", 3L)).getShape());
+        assertEquals(Set.of(1L, 3L), ids(merged.bind(Map.of("first", 1L, "second", 3L))));
+        assertEquals("and(isNotNull(username),or(like(nickname),isNull(nickname)))", TEMPLATE.bind(Map.of("nickname", "o")).getShape());
+        SpecificationTemplate<User> unoptimized = SpecificationTemplate.of(t -> t.optimize(false)
+                .or(o -> o.equal("id", param("first")).equal("id", param("second"))));
+        assertEquals("and(or(equal(id),equal(id)))", unoptimized.bind(Map.of("first", 1L, "second", 3L)).getShape());
+    }
+
+    @Test
+    void options() {
+        SpecificationTemplate<User> template = SpecificationTemplate.of(t -> t
+                .prefixRange(true)
+                .inChunkSize(2)
+                .inPadding(true)
+                .likeRight("username", param("username"))
+                .in("id", param("ids")));
+        Map<String, Object> values = Map.of("username", "R", "ids", List.of(1L, 2L, 3L));
+        CompositeSpecification<User> built = new SpecificationBuilder<User>()
+                .prefixRange(true)
+                .inChunkSize(2)
+                .inPadding(true)
+                .likeRight(true, "username", "R")
+                .in(true, "id", List.of(1L, 2L, 3L))
+                .build();
+        assertEquals(built, template.bind(values));
+        assertEquals(built.getShape(), template.bind(values).getShape());
+        assertEquals(Set.of(1L), ids(template.bind(values)));
+        // options apply to the nested groups as well
+        SpecificationTemplate<User> nested = SpecificationTemplate.of(t -> t.prefixRange(true)
+                .and(a -> a.likeRight("username", param("username")).likeRight("nickname", param("nickname"))));
+        assertEquals(new SpecificationBuilder<User>().prefixRange(true)
+                        .and(a -> a.likeRight(true, "username", "R").likeRight(true, "nickname", "R")).build(),
+                nested.bind(Map.of("username", "R", "nickname", "R")));
+    }
+
+    @Test
+    void operators() {
+        SpecificationTemplate<User> template = SpecificationTemplate.of(t -> t
+                .notEqual("id", param("notEqual"))
+                .greaterThan("id", param("greaterThan"))
+                .greaterThanOrEqual("id", param("greaterThanOrEqual"))
+                .lessThan("id", param("lessThan"))
+                .lessThanOrEqual("id", param("lessThanOrEqual"))
+                .likeLeft("username", param("likeLeft"))
+                .likeRightIgnoreCase("username", param("likeRightIgnoreCase"))
+                .matches("username", param("matches"))
+                .notMatches("username", param("notMatches"))
+                .notLike("username", param("notLike"))
+                .notLikeLeft("username", param("notLikeLeft"))
+                .notLikeRight("username", param("notLikeRight"))
+                .notIn("id", param("notIn")));
+        assertEquals(Set.of(1L, 2L, 3L, 4L), ids(template.bind(Map.of())));
+        assertEquals(Set.of(2L, 3L, 4L), ids(template.bind(Map.of("notEqual", 1L))));
+        assertEquals(Set.of(3L, 4L), ids(template.bind(Map.of("greaterThan", 2L))));
+        assertEquals(Set.of(2L, 3L, 4L), ids(template.bind(Map.of("greaterThanOrEqual", 2L))));
+        assertEquals(Set.of(1L), ids(template.bind(Map.of("lessThan", 2L))));
+        assertEquals(Set.of(1L, 2L), ids(template.bind(Map.of("lessThanOrEqual", 2L))));
+        assertEquals(Set.of(3L), ids(template.bind(Map.of("greaterThan", 2L, "lessThanOrEqual", 3L))));
+        assertEquals(Set.of(3L), ids(template.bind(Map.of("likeLeft", "a"))));
+        assertEquals(Set.of(3L), ids(template.bind(Map.of("likeRightIgnoreCase", "glo"))));
+        assertEquals(Set.of(2L), ids(template.bind(Map.of("matches", "*uli*"))));
+        assertEquals(Set.of(2L, 3L, 4L), ids(template.bind(Map.of("notMatches", "Ro*"))));
+        assertEquals(Set.of(2L), ids(template.bind(Map.of("notLike", "o"))));
+        assertEquals(Set.of(1L, 2L, 4L), ids(template.bind(Map.of("notLikeLeft", "a"))));
+        assertEquals(Set.of(1L, 2L, 4L), ids(template.bind(Map.of("notLikeRight", "Glo"))));
+        assertEquals(Set.of(2L, 4L), ids(template.bind(Map.of("notIn", List.of(1L, 3L)))));
+        // constants are always bound
+        SpecificationTemplate<User> constant = SpecificationTemplate.of(t -> t.equal("username", "Ross").or(o -> o.isNull("nickname")));
+        assertEquals(Set.of(), constant.getParameterNames());
+        assertEquals(Set.of(), ids(constant.bind(Map.of())));
+        assertEquals(Set.of(1L), ids(SpecificationTemplate.<User>of(t -> t.equal("username", "Ross")).bind(name -> null)));
+        assertEquals(Set.of(1L, 2L), ids(SpecificationTemplate.<User>of(t -> t.between("id", 1L, 2L)).bind(Map.of())));
+        SpecificationTemplate<User> group = SpecificationTemplate.of(t -> t.and(a -> a.in("id", param("in")).notEqual("username", "Nobody")));
+        assertEquals(Set.of(1L, 2L, 3L), ids(group.bind(Map.of("in", List.of(1L, 2L, 3L)))));
+    }
+
+    @Test
+    void keyset() {
+        SpecificationTemplate<User> template = SpecificationTemplate.of(t -> t
+                .isNotNull("username")
+                .keyset(Sort.by("id"), param("after")));
+        assertEquals(Set.of(1L, 2L, 3L, 4L), ids(template.bind(Map.of())));
+        assertEquals(Set.of(3L, 4L), ids(template.bind(Map.of("after", List.of(2L)))));
+    }
+
+    @Test
+    void shared() {
+        Set<String> shapes = IntStream.range(0, 10_000).parallel()
+                .mapToObj(i -> TEMPLATE.bind(Map.of("id", (long) i, "nickname", "n" + i)))
+                .peek(specification -> assertEquals(3, specification.getSpecifications().size()))
+                .map(CompositeSpecification::getShape)
+                .collect(Collectors.toSet());
+        assertEquals(Set.of("and(isNotNull(username),equal(id),or(like(nickname),isNull(nickname)))"), shapes);
+    }
+
+    @Test
+    void random() {
+        Random random = new Random(42);
+        for (int i = 0; i < 500; i++) {
+            Map<String, Function<Random, Object>> parameters = new HashMap<>();
+            List<RandomCondition> conditions = randomGroup(random, 2, parameters);
+            SpecificationTemplate<User> template = SpecificationTemplate.of(t -> {
+                conditions.forEach(condition -> condition.template.apply(t));
+                return t;
+            });
+            for (int j = 0; j < 4; j++) {
+                Map<String, Object> values = new HashMap<>();
+                parameters.forEach((name, value) -> values.put(name, random.nextInt(3) == 0 ? null : value.apply(random)));
+                SpecificationBuilder<User> builder = new SpecificationBuilder<>();
+                conditions.forEach(condition -> condition.builder.apply(builder, values));
+                CompositeSpecification<User> built = builder.build();
+                assertEquals(built, template.bind(values));
+                // bound again through the compiled plan
+                assertEquals(built, template.bind(values));
+                assertEquals(built.getShape(), template.bind(values).getShape());
+            }
+        }
+    }
+
+    @Test
+    void allocation() {
+        SpecificationTemplate<User> template = SpecificationTemplate.of(t -> t
+                .isNotNull("username")
+                .equal("id", param("id"))
+                .equal("username", param("username"))
+                .or(o -> o.equal("nickname", param("nickname")).isNull("nickname")));
+        Map<String, Object> values = Map.of("id", 3L, "username", "Gloria", "nickname", "Glo");
+        Supplier<Object> bind = () -> template.bind(values);
+        Supplier<Object> build = () -> new SpecificationBuilder<User>()
+                .isNotNull(true, "username")
+                .equal(values.get("id") != null, "id", values.get("id"))
+                .equal(values.get("username") != null, "username", values.get("username"))
+                .or(o -> o.equal(values.get("nickname") != null, "nickname", values.get("nickname")).isNull(true, "nickname"))
+                .build();
+        assertEquals(build.get(), bind.get());
+        assertEquals(Set.of(3L), ids(template.bind(values)));
+        // the first rounds warm up
+        for (int round = 0; round < 3; round++) {
+            long bound = bytesPerCall(bind);
+            long built = bytesPerCall(build);
+            if (round == 2) {
+                String message = "bind: " + bound + " B/call, builder: " + built + " B/call";
+                // binding creates the bound conditions and their groups, but neither nested builders nor the optimizer
+                assertTrue(bound * 3 < built, message);
+                assertTrue(bound < 1024, message);
+            }
+        }
+    }
+
+    private long bytesPerCall(Supplier<Object> call) {
+        ThreadMXBean threads = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+        int rounds = 20_000;
+        long before = threads.getCurrentThreadAllocatedBytes();
+        for (int i = 0; i < rounds; i++) {
+            sink = call.get();
+        }
+        return (threads.getCurrentThreadAllocatedBytes() - before) / rounds;
+    }
+
+    private List<RandomCondition> randomGroup(Random random, int depth, Map<String, Function<Random, Object>> parameters) {
+        List<RandomCondition> conditions = new ArrayList<>();
+        int size = random.nextInt(5);
+        for (int i = 0; i < size; i++) {
+            String name = "p" + parameters.size();
+            String other = name + "to";
+            List<RandomCondition> group = depth > 0 ? randomGroup(random, depth - 1, parameters) : null;
+            boolean prefixRange = random.nextBoolean();
+            conditions.add(switch (random.nextInt(depth > 0 ? 12 : 10)) {
+                case 0 -> condition(parameters, name, r -> (long) r.nextInt(5),
+                        t -> t.equal("id", param(name)), (b, v) -> b.equal(v.get(name) != null, "id", v.get(name)));
+                case 1 -> condition(parameters, name, r -> r.ints(r.nextInt(3), 0, 5).mapToObj(Long::valueOf).toList(),
+                        t -> t.in("id", param(name)), (b, v) -> b.in(v.get(name) != null, "id", (Collection<?>) v.get(name)));
+                case 2 -> condition(parameters, name, r -> r.ints(r.nextInt(3), 0, 5).mapToObj(Long::valueOf).toList(),
+                        t -> t.notIn("id", param(name)), (b, v) -> b.notIn(v.get(name) != null, "id", (Collection<?>) v.get(name)));
+                case 3 -> {
+                    parameters.put(other, r -> (long) r.nextInt(5));
+                    yield condition(parameters, name, r -> (long) r.nextInt(5), t -> t.between("id", param(name), param(other)), (b, v) -> {
+                        Long lower = (Long) v.get(name);
+                        Long upper = (Long) v.get(other);
+                        return b.greaterThanOrEqual(lower != null && upper == null, "id", lower)
+                                .lessThanOrEqual(lower == null && upper != null, "id", upper)
+                                .between(lower != null && upper != null, "id", lower, upper);
+                    });
+                }
+                case 4 -> condition(parameters, name, r -> List.of("R", "G", "Ju").get(r.nextInt(3)),
+                        t -> t.likeRight("username", param(name)), (b, v) -> b.likeRight(v.get(name) != null, "username", (String) v.get(name)));
+                case 5 -> condition(parameters, name, r -> (long) r.nextInt(5),
+                        t -> t.greaterThan("id", param(name)), (b, v) -> b.greaterThan(v.get(name) != null, "id", (Long) v.get(name)));
+                case 6 -> new RandomCondition(t -> t.equal("username", "Ross"), (b, v) -> b.equal(true, "username", "Ross"));
+                case 7 -> new RandomCondition(t -> t.isNull("nickname"), (b, v) -> b.isNull(true, "nickname"));
+                case 8 -> new RandomCondition(t -> t.prefixRange(prefixRange), (b, v) -> b.prefixRange(prefixRange));
+                case 9 -> new RandomCondition(t -> t.inChunkSize(2).inPadding(prefixRange), (b, v) -> b.inChunkSize(2).inPadding(prefixRange));
+                case 10 -> new RandomCondition(t -> t.and(a -> apply(a, group)), (b, v) -> b.and(a -> apply(a, v, group)));
+                default -> new RandomCondition(t -> t.or(o -> apply(o, group)), (b, v) -> b.or(o -> apply(o, v, group)));
+            });
+        }
+        return conditions;
+    }
+
+    private RandomCondition condition(Map<String, Function<Random, Object>> parameters, String name, Function<Random, Object> value,
+                                      Function<TemplateBuilder<User>, TemplateBuilder<User>> template,
+                                      BiFunction<SpecificationBuilder<User>, Map<String, Object>, SpecificationBuilder<User>> builder) {
+        parameters.put(name, value);
+        return new RandomCondition(template, builder);
+    }
+
+    private TemplateBuilder<User> apply(TemplateBuilder<User> template, List<RandomCondition> conditions) {
+        conditions.forEach(condition -> condition.template.apply(template));
+        return template;
+    }
+
+    private SpecificationBuilder<User> apply(SpecificationBuilder<User> builder, Map<String, Object> values, List<RandomCondition> conditions) {
+        conditions.forEach(condition -> condition.builder.apply(builder, values));
+        return builder;
+    }
+
+    /**
+     * a template call and the equivalent builder call for the bound values
+     */
+    private record RandomCondition(Function<TemplateBuilder<User>, TemplateBuilder<User>> template,
+                                   BiFunction<SpecificationBuilder<User>, Map<String, Object>, SpecificationBuilder<User>> builder) {
+    }
+
+    private Set<Long> ids(Specification<User> specification) {
+        return repository.findAll(specification).stream().map(User::getId).collect(Collectors.toSet());
+    }
+}
@@ -0,0 +1,40 @@
+package io.github.aurifolia.jpa.util;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * records the SQL statements prepared by Hibernate
+ *
+ * @author Peng Dan
+ * @since 1.0
+ */
+public class SqlRecorder implements StatementInspector {
+    private static final Queue<String> STATEMENTS = new ConcurrentLinkedQueue<>();
+
+    @Override
+    public String inspect(String sql) {
+        STATEMENTS.add(sql);
+        return sql;
+    }
+
+    /**
+     * clear the recorded statements
+     */
+    public static void clear() {
+        STATEMENTS.clear();
+    }
+
+    /**
+     * get the recorded statements
+     *
+     * @return statements
+     */
+    public static List<String> statements() {
+        return new ArrayList<>(STATEMENTS);
+    }
+}
@@ -0,0 +1,83 @@
+package io.github.aurifolia.jpa.util;
+
+import io.github.aurifolia.jpa.SpecificationBuilder;
+import io.github.aurifolia.jpa.entity.User;
+import io.github.aurifolia.jpa.query.StreamingExecutor;
+import io.github.aurifolia.jpa.repository.UserRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * StreamingExecutorTest, runs in its own JVM with a small heap (see pom.xml) where findAll runs out of memory
+ *
+ * @author Peng Dan
+ * @since 1.0
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:file:./target/h2/streaming;LAZY_QUERY_EXECUTION=TRUE;CACHE_SIZE=8192",
+        "spring.jpa.hibernate.ddl-auto=create-drop"
+})
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class StreamingExecutorTest {
+    private static final int ROWS = 300_000;
+    @Autowired
+    private UserRepository repository;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeAll
+    void beforeAll() {
+        jdbcTemplate.update("insert into user_info (id, username, nickname) " +
+                "select x, concat(repeat('u', 240), x), repeat('n', 250) from system_range(1, ?)", ROWS);
+    }
+
+    @AfterAll
+    void afterAll() {
+        repository.deleteAllInBatch();
+    }
+
+    @Test
+    void stream() {
+        StreamingExecutor executor = new StreamingExecutor(entityManagerFactory, 500, 1000);
+        long[] expected = {0};
+        try (Stream<User> users = executor.stream(User.class, new SpecificationBuilder<User>().build(), Sort.by("id"))) {
+            users.forEach(user -> assertEquals(++expected[0], user.getId()));
+        }
+        assertEquals(ROWS, expected[0]);
+    }
+
+    @Test
+    void forEach() {
+        StreamingExecutor executor = new StreamingExecutor(entityManagerFactory, 500, 1000);
+        AtomicLong length = new AtomicLong();
+        long count = executor.forEach(User.class, new SpecificationBuilder<User>().greaterThan(true, "id", 1000L).build(),
+                Sort.unsorted(), user -> length.addAndGet(user.getNickname().length()));
+        assertEquals(ROWS - 1000, count);
+        assertEquals(250L * (ROWS - 1000), length.get());
+    }
+
+    @Test
+    void close() {
+        StreamingExecutor executor = new StreamingExecutor(entityManagerFactory, 500, 1000);
+        for (int i = 0; i < 50; i++) {
+            try (Stream<User> users = executor.stream(User.class, new SpecificationBuilder<User>().build(), Sort.unsorted())) {
+                assertEquals(10, users.limit(10).count());
+            }
+        }
+        assertEquals(ROWS, repository.count());
+    }
+}
@@ -0,0 +1,79 @@
+package io.github.aurifolia.jpa.util;
+
+import io.github.aurifolia.jpa.support.Values;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Sort;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.OffsetDateTime;
+import java.time.ZonedDateTime;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * ValuesTest
+ *
+ * @author Peng Dan
+ * @since 1.0
+ */
+@SpringBootTest
+class ValuesTest {
+    @Test
+    void equalsAndCompare() {
+        assertTrue(Values.equals(1, 1L));
+        assertTrue(Values.equals((short) 1, (byte) 1));
+        assertTrue(Values.equals(1L, new BigDecimal("1.00")));
+        assertTrue(Values.equals(new BigDecimal("1.0"), new BigDecimal("1.00")));
+        assertTrue(Values.equals(new BigInteger("10"), 10));
+        assertTrue(Values.equals(1.5, 1.5f));
+        assertTrue(Values.equals(null, null));
+        assertFalse(Values.equals(1, "1"));
+        assertFalse(Values.equals(1.5, 1L));
+        assertEquals(0, Values.compare(2, 2L));
+        assertTrue(Values.compare(1, 1.5) < 0);
+        assertTrue(Values.compare(new BigInteger("3"), 2.5f) > 0);
+        assertTrue(Values.compare("a", "b") < 0);
+        assertEquals(1L, Values.key((short) 1));
+        assertEquals(Values.key(10L), Values.key(new BigDecimal("1E+1")));
+        assertEquals(Values.key(new BigDecimal("1.50")), Values.key(1.5));
+        assertEquals(Values.key(new BigInteger("5")), Values.key(5.0f));
+        assertEquals(new BigDecimal("1E+20"), Values.key(new BigInteger("100000000000000000000")));
+        assertEquals("a", Values.key("a"));
+    }
+
+    @Test
+    void formatAndConvert() {
+        Date date = new Date(1234);
+        assertEquals("1234", Values.format(date));
+        assertEquals("DESC", Values.format(Sort.Direction.DESC));
+        assertEquals("null", Values.format(null));
+        List<Object> values = List.of("text", 1L, 2, 1.5, true, new BigDecimal("1.10"), Sort.Direction.ASC,
+                LocalDate.of(2024, 2, 29), LocalDateTime.of(2024, 1, 1, 8, 30), LocalTime.of(12, 0),
+                OffsetDateTime.parse("2024-01-01T00:00:00+08:00"), ZonedDateTime.parse("2024-01-01T00:00:00Z[UTC]"),
+                Instant.parse("2024-01-01T00:00:00Z"), date, new java.sql.Date(1234), new java.sql.Timestamp(1234));
+        for (Object value : values) {
+            assertEquals(value, Values.convert(Values.format(value), value.getClass()));
+        }
+        assertEquals("x", Values.convert("x", Object.class));
+        assertNull(Values.convert(null, Long.class));
+        assertThrows(IllegalArgumentException.class, () -> Values.convert("1", UnconstructibleDate.class));
+    }
+
+    /**
+     * a date without a constructor taking epoch millis
+     */
+    static class UnconstructibleDate extends Date {
+    }
+}